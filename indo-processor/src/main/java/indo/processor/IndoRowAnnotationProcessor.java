@@ -0,0 +1,367 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a row processor and a parameter lookup for every class annotated
+ * with {@code indo.sql.mapping.IndoRow}, so these classes are mapped without
+ * reflection.  See the annotation for the names of the generated classes.
+ * <p>
+ * A property is written by a non-private {@code setX} method taking a single
+ * argument and read by a non-private {@code getX} or {@code isX} method.
+ * Setters of generic types, e.g. collections of child objects, are not
+ * mapped from columns.
+ *
+ * @author Jonathan Cone
+ */
+@SupportedAnnotationTypes(IndoRowAnnotationProcessor.INDO_ROW)
+public class IndoRowAnnotationProcessor extends AbstractProcessor {
+
+    static final String INDO_ROW = "indo.sql.mapping.IndoRow";
+
+    private static final String ROW_PROCESSOR_SUFFIX = "_IndoRowProcessor";
+    private static final String SQL_PARAMETERS_SUFFIX = "_IndoSqlParameters";
+
+    /**
+     * The {@code ResultSet} getters of types that have one.
+     */
+    private static final Map<String, String> RESULT_SET_GETTERS = new HashMap<>();
+
+    /**
+     * The helpers of {@code GeneratedRowProcessor} which read nullable types.
+     */
+    private static final Map<String, String> HELPERS = new HashMap<>();
+
+    static {
+        RESULT_SET_GETTERS.put("long", "getLong");
+        RESULT_SET_GETTERS.put("int", "getInt");
+        RESULT_SET_GETTERS.put("short", "getShort");
+        RESULT_SET_GETTERS.put("byte", "getByte");
+        RESULT_SET_GETTERS.put("double", "getDouble");
+        RESULT_SET_GETTERS.put("float", "getFloat");
+        RESULT_SET_GETTERS.put("boolean", "getBoolean");
+        RESULT_SET_GETTERS.put("java.lang.String", "getString");
+        RESULT_SET_GETTERS.put("java.math.BigDecimal", "getBigDecimal");
+        RESULT_SET_GETTERS.put("java.util.Date", "getTimestamp");
+        RESULT_SET_GETTERS.put("java.sql.Timestamp", "getTimestamp");
+        RESULT_SET_GETTERS.put("java.sql.Date", "getDate");
+        RESULT_SET_GETTERS.put("java.sql.Time", "getTime");
+        RESULT_SET_GETTERS.put("byte[]", "getBytes");
+
+        HELPERS.put("java.lang.Long", "getLong");
+        HELPERS.put("java.lang.Integer", "getInteger");
+        HELPERS.put("java.lang.Short", "getShort");
+        HELPERS.put("java.lang.Byte", "getByte");
+        HELPERS.put("java.lang.Double", "getDouble");
+        HELPERS.put("java.lang.Float", "getFloat");
+        HELPERS.put("java.lang.Boolean", "getBoolean");
+        HELPERS.put("java.lang.Character", "getCharacter");
+        HELPERS.put("java.time.LocalDate", "getLocalDate");
+        HELPERS.put("java.time.LocalDateTime", "getLocalDateTime");
+        HELPERS.put("java.time.LocalTime", "getLocalTime");
+        HELPERS.put("java.time.Instant", "getInstant");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (isMappable(element)) {
+                    generate((TypeElement) element);
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isMappable(Element element) {
+        if (element.getKind() != ElementKind.CLASS) {
+            return error(element, "@IndoRow can only be applied to classes.");
+        }
+
+        TypeElement type = (TypeElement) element;
+
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return error(element, "@IndoRow cannot be applied to abstract classes.");
+        }
+
+        for (Element enclosing = type; enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            if (enclosing.getModifiers().contains(Modifier.PRIVATE)) {
+                return error(element, "An @IndoRow class cannot be private or nested in a private class.");
+            }
+            if (enclosing != type && enclosing.getKind() == ElementKind.CLASS && !type.getModifiers().contains(Modifier.STATIC)) {
+                return error(element, "An @IndoRow class nested in another class must be static.");
+            }
+        }
+
+        boolean hasConstructor = false;
+
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.CONSTRUCTOR
+                    && ((ExecutableElement) member).getParameters().isEmpty()
+                    && !member.getModifiers().contains(Modifier.PRIVATE)) {
+                hasConstructor = true;
+            }
+        }
+
+        if (!hasConstructor) {
+            return error(element, "An @IndoRow class needs a constructor without arguments that is not private.");
+        }
+
+        return true;
+    }
+
+    private void generate(TypeElement type) {
+        String packageName = packageOf(type).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String baseName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_');
+        String typeName = type.getQualifiedName().toString();
+
+        Map<String, ExecutableElement> setters = new LinkedHashMap<>();
+        Map<String, ExecutableElement> getters = new LinkedHashMap<>();
+
+        collectAccessors(type, setters, getters);
+
+        try {
+            writeRowProcessor(type, packageName, baseName + ROW_PROCESSOR_SUFFIX, typeName, setters);
+            writeSqlParameters(type, packageName, baseName + SQL_PARAMETERS_SUFFIX, typeName, getters);
+        } catch (IOException e) {
+            error(type, "Could not generate the classes of " + typeName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Find the setters whose parameter can be read from a column, and every
+     * getter, by property name.
+     */
+    private void collectAccessors(TypeElement type, Map<String, ExecutableElement> setters, Map<String, ExecutableElement> getters) {
+        List<String> ambiguous = new ArrayList<>();
+
+        for (Element member : processingEnv.getElementUtils().getAllMembers(type)) {
+            if (member.getKind() != ElementKind.METHOD || !isAccessible(type, member)) {
+                continue;
+            }
+
+            ExecutableElement method = (ExecutableElement) member;
+            String name = method.getSimpleName().toString();
+            int parameters = method.getParameters().size();
+            TypeMirror returnType = method.getReturnType();
+
+            if (name.startsWith("set") && name.length() > 3 && parameters == 1) {
+                if (reader(method.getParameters().get(0).asType()) != null) {
+                    String property = decapitalize(name.substring(3));
+
+                    if (setters.putIfAbsent(property, method) != null) {
+                        ambiguous.add(property);
+                    }
+                }
+            } else if (name.startsWith("get") && name.length() > 3 && parameters == 0
+                    && returnType.getKind() != TypeKind.VOID && !name.equals("getClass")) {
+                getters.putIfAbsent(decapitalize(name.substring(3)), method);
+            } else if (name.startsWith("is") && name.length() > 2 && parameters == 0
+                    && returnType.getKind() == TypeKind.BOOLEAN) {
+                getters.putIfAbsent(decapitalize(name.substring(2)), method);
+            }
+        }
+
+        for (String property : ambiguous) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Property " + property + " has more than one setter, only the first is used.", type);
+        }
+    }
+
+    private void writeRowProcessor(TypeElement type, String packageName, String className, String typeName,
+                                   Map<String, ExecutableElement> setters) throws IOException {
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualify(packageName, className), type);
+
+        try (PrintWriter out = new PrintWriter(file.openWriter())) {
+            header(out, packageName, typeName);
+
+            out.printf("public final class %s extends indo.sql.GeneratedRowProcessor<%s> {%n", className, typeName);
+            out.println();
+            out.printf("    public %s() {%n", className);
+            out.printf("        super(%s);%n", quoted(setters.keySet()));
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.printf("    protected %s newInstance() {%n", typeName);
+            out.printf("        return new %s();%n", typeName);
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.printf("    protected void set(%s target, int property, java.sql.ResultSet rs, int columnIndex) throws java.sql.SQLException {%n", typeName);
+            out.println("        switch (property) {");
+
+            int property = 0;
+
+            for (ExecutableElement setter : setters.values()) {
+                out.printf("            case %d:%n", property++);
+                out.printf("                target.%s(%s);%n", setter.getSimpleName(), reader(setter.getParameters().get(0).asType()));
+                out.println("                break;");
+            }
+
+            out.println("            default:");
+            out.println("                throw new IllegalArgumentException(\"Unknown property \" + property + \".\");");
+            out.println("        }");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    private void writeSqlParameters(TypeElement type, String packageName, String className, String typeName,
+                                    Map<String, ExecutableElement> getters) throws IOException {
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualify(packageName, className), type);
+
+        try (PrintWriter out = new PrintWriter(file.openWriter())) {
+            header(out, packageName, typeName);
+
+            out.printf("public final class %s extends indo.sql.GeneratedSqlParameters<%s> {%n", className, typeName);
+            out.println();
+            out.println("    @Override");
+            out.printf("    protected Object get(%s instance, String name) {%n", typeName);
+            out.println("        switch (name) {");
+
+            for (Map.Entry<String, ExecutableElement> getter : getters.entrySet()) {
+                String property = getter.getKey();
+                String capitalized = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+
+                out.printf("            case \"%s\":%n", property);
+                if (!capitalized.equals(property)) {
+                    out.printf("            case \"%s\":%n", capitalized);
+                }
+                out.printf("                return instance.%s();%n", getter.getValue().getSimpleName());
+            }
+
+            out.println("            default:");
+            out.println("                return ABSENT;");
+            out.println("        }");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    private static void header(PrintWriter out, String packageName, String typeName) {
+        if (!packageName.isEmpty()) {
+            out.printf("package %s;%n", packageName);
+            out.println();
+        }
+        out.println("/**");
+        out.printf(" * Generated by %s for {@link %s}, do not edit.%n", IndoRowAnnotationProcessor.class.getName(), typeName);
+        out.println(" */");
+    }
+
+    /**
+     * @return The expression reading a column as the supplied type, or null
+     * if the type cannot be read from a column.
+     */
+    private String reader(TypeMirror type) {
+        String name = type.toString();
+
+        if (RESULT_SET_GETTERS.containsKey(name)) {
+            return "rs." + RESULT_SET_GETTERS.get(name) + "(columnIndex)";
+        }
+
+        if (HELPERS.containsKey(name)) {
+            return HELPERS.get(name) + "(rs, columnIndex)";
+        }
+
+        if (type.getKind() != TypeKind.DECLARED || !((DeclaredType) type).getTypeArguments().isEmpty()) {
+            return null;
+        }
+
+        Element element = ((DeclaredType) type).asElement();
+
+        if (element.getKind() == ElementKind.ENUM) {
+            return "getEnum(rs, columnIndex, " + name + ".class)";
+        }
+
+        return "getObject(rs, columnIndex, " + name + ".class)";
+    }
+
+    /**
+     * @return true if the generated classes, which are in the same package
+     * but not a subclass, can call the member.
+     */
+    private boolean isAccessible(TypeElement type, Element member) {
+        Set<Modifier> modifiers = member.getModifiers();
+
+        if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+
+        return modifiers.contains(Modifier.PUBLIC) || packageOf(member).equals(packageOf(type));
+    }
+
+    private PackageElement packageOf(Element element) {
+        return processingEnv.getElementUtils().getPackageOf(element);
+    }
+
+    private boolean error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+        return false;
+    }
+
+    private static String qualify(String packageName, String className) {
+        return packageName.isEmpty() ? className : packageName + "." + className;
+    }
+
+    private static String decapitalize(String name) {
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String quoted(Iterable<String> values) {
+        StringBuilder quoted = new StringBuilder();
+
+        for (String value : values) {
+            if (quoted.length() > 0) {
+                quoted.append(", ");
+            }
+            quoted.append('"').append(value).append('"');
+        }
+
+        return quoted.toString();
+    }
+}
@@ -16,51 +16,118 @@
 
 package indo.sql;
 
+import indo.jdbc.JdbcException;
+import indo.jdbc.ResultSets;
+import indo.util.Accessors;
+import indo.util.Reflect;
+
 import javax.sql.DataSource;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import static indo.log.Logger.debug;
 
 /**
  * Created by jcone on 8/14/15.
  */
 public abstract class AbstractQueryOperations implements QueryOperations {
 
-    private DataSource dataSource;
-    private SqlOperations sqlOperations;
+    /**
+     * The number of rows sent to the database at a time when writing a
+     * collection.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * The upper bound of generated statements cached, this guards against
+     * unbounded growth when tables or fields are chosen dynamically.
+     */
+    private static final int MAX_STATEMENTS = 1024;
+
+    /**
+     * The number of rows whose keys are looked up by one query when only the
+     * missing rows of a key-only class are inserted.
+     */
+    private static final int EXISTS_BATCH_SIZE = 100;
+
+    /**
+     * Statements are generated once per (class, operation, table, fields,
+     * columns, keys) and shared by every instance.
+     */
+    private static final ConcurrentMap<StatementKey, WriteStatement> STATEMENTS = new ConcurrentHashMap<>();
+
+    private SqlRunner sqlOperations;
     private Operation operation;
 
     private Collection<?> targetCollection;
 
+    private String sql;
+    private String table;
+    private Set<String> includedFields;
+    private Set<String> excludedFields;
+    private Map<String, String> columns;
+    private Map<String, TypeConverter<?>> converters;
+    private Map<String, Object> bindings;
+    private Object bindObject;
+    private List<String> keyFields;
+
     public AbstractQueryOperations(DataSource dataSource) {
-        this.dataSource = dataSource;
-        this.sqlOperations = new SqlRunner(dataSource);
+        this(new SqlRunner(dataSource));
+    }
+
+    /**
+     * @param sqlRunner The runner that executes the statements, writes join
+     *                  any {@link SqlRunner#inTransaction(Function)} it has
+     *                  open on the current thread.
+     */
+    public AbstractQueryOperations(SqlRunner sqlRunner) {
+        this.sqlOperations = sqlRunner;
         this.operation = Operation.UNKNOWN;
+        reset(Operation.UNKNOWN, Collections.emptyList());
     }
 
     @Override
     public AbstractQueryOperations insert(Object object) {
-        return insert(Arrays.asList(object));
+        return object instanceof CharSequence ? sql(Operation.INSERT, object) : insert(Arrays.asList(object));
     }
 
     @Override
     public AbstractQueryOperations insert(Collection<?> objects) {
-        this.operation = Operation.INSERT;
-        this.targetCollection = objects;
-        return this;
+        return reset(Operation.INSERT, objects);
     }
 
     @Override
     public AbstractQueryOperations update(Object object) {
-        return update(Arrays.asList(object));
+        return object instanceof CharSequence ? sql(Operation.UPDATE, object) : update(Arrays.asList(object));
     }
 
     @Override
     public AbstractQueryOperations update(Collection<?> objects) {
-        this.operation = Operation.UPDATE;
-        this.targetCollection = objects;
-        return this;
+        return reset(Operation.UPDATE, objects);
     }
 
     @Override
@@ -70,105 +137,745 @@ public abstract class AbstractQueryOperations implements QueryOperations {
 
     @Override
     public AbstractQueryOperations insertOrUpdate(Collection<?> objects) {
-        this.operation = Operation.INSERT_UPDATE;
-        this.targetCollection = objects;
-        return this;
+        return reset(Operation.INSERT_UPDATE, objects);
     }
 
     @Override
     public AbstractQueryOperations delete(Object object) {
-        return delete(Arrays.asList(object));
+        return object instanceof CharSequence ? sql(Operation.DELETE, object) : delete(Arrays.asList(object));
     }
 
     @Override
     public AbstractQueryOperations delete(Collection<?> objects) {
-        this.operation = Operation.DELETE;
-        this.targetCollection = objects;
-        return this;
+        return reset(Operation.DELETE, objects);
     }
 
     @Override
     public AbstractQueryOperations sql(String sql) {
-        return this;
+        return sql(Operation.SELECT, sql);
     }
 
     @Override
     public AbstractQueryOperations in(String table) {
+        this.table = table;
         return this;
     }
 
     @Override
     public AbstractQueryOperations includingOnly(String... fields) {
-        return null;
+        this.includedFields = new LinkedHashSet<>(Arrays.asList(fields));
+        return this;
     }
 
     @Override
     public AbstractQueryOperations excludingOnly(String... fields) {
-        return null;
+        this.excludedFields.addAll(Arrays.asList(fields));
+        return this;
     }
 
     @Override
     public AbstractQueryOperations mapColumn(String field, String column) {
-        return null;
+        this.columns.put(field, column);
+        return this;
     }
 
     @Override
     public <T> AbstractQueryOperations mapColumn(String field, String column, TypeConverter<T> converter) {
-        return null;
+        this.converters.put(field, converter);
+        return mapColumn(field, column);
     }
 
     @Override
     public AbstractQueryOperations mapColumn(Map<String, String> fieldColumn) {
-        return null;
+        this.columns.putAll(fieldColumn);
+        return this;
     }
 
     @Override
     public AbstractQueryOperations bind(String field, Object value) {
-        return null;
+        this.bindings.put(field, value);
+        return this;
     }
 
     @Override
     public <T> AbstractQueryOperations bind(String field, Object value, Class<T> type) {
-        return null;
+        if (value != null && !type.isInstance(value)) {
+            throw new IllegalArgumentException(String.format("The value bound to %s is not a %s.", field, type.getName()));
+        }
+        return bind(field, value);
     }
 
     @Override
     public AbstractQueryOperations bind(Map<String, Object> fieldValues) {
-        return null;
+        this.bindings.putAll(fieldValues);
+        return this;
     }
 
     @Override
     public AbstractQueryOperations bind(Object mappingObject) {
-        return null;
+        this.bindObject = mappingObject;
+        return this;
     }
 
     @Override
     public AbstractQueryOperations usingKey(String... fields) {
-        return null;
+        this.keyFields = Arrays.asList(fields);
+        return this;
     }
 
+    /**
+     * Execute the current operation.  The writes of an insert, update or
+     * delete are made in a single transaction, so either every row is
+     * written or none are.
+     *
+     * @return The number of rows affected by an insert, update or delete, or
+     * the number of rows selected by a query.
+     */
     @Override
     public Integer count() {
-        return null;
+        if (operation == Operation.UNKNOWN) {
+            throw new JdbcException("No operation has been specified.");
+        }
+
+        if (sql != null && operation == Operation.SELECT) {
+            return countRows();
+        }
+
+        return sqlOperations.inTransactionOn(connection -> {
+            if (sql != null) {
+                return sum(sqlOperations.batch(connection, sql, Collections.singletonList(parameters()), 1));
+            }
+
+            int count = 0;
+
+            // Each class gets its own statement.
+            for (Map.Entry<Class<?>, List<Object>> entry : groupByClass(targetCollection).entrySet()) {
+                count += write(connection, entry.getKey(), entry.getValue());
+            }
+
+            return count;
+        });
     }
 
     @Override
     public void execute() {
-
+        count();
     }
 
     @Override
     public <T> List<T> list(Class<T> type) {
-        return null;
+        if (sql == null) {
+            throw new JdbcException("No SQL has been specified for the query.");
+        }
+
+        return sqlOperations.list(sql, type, parameters());
     }
 
+    /**
+     * @return The first row of the query, or null if there are no rows.
+     */
     @Override
     public <T> T single(Class<T> type) {
-        return null;
+        List<T> results = list(type);
+        return results.isEmpty() ? null : results.get(0);
     }
 
+    /**
+     * @return The only row of the query, or null if there are no rows.
+     * @throws JdbcException if the query returns more than one row.
+     */
     @Override
     public <T> T unique(Class<T> type) {
-        return null;
+        List<T> results = list(type);
+
+        if (results.size() > 1) {
+            throw new JdbcException("Expected a unique result but the query returned %d rows.", results.size());
+        }
+
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    private AbstractQueryOperations reset(Operation operation, Collection<?> objects) {
+        this.operation = operation;
+        this.targetCollection = objects;
+        this.sql = null;
+        this.table = null;
+        this.includedFields = null;
+        this.excludedFields = new LinkedHashSet<>();
+        this.columns = new HashMap<>();
+        this.converters = new HashMap<>();
+        this.bindings = new LinkedHashMap<>();
+        this.bindObject = null;
+        this.keyFields = null;
+        return this;
+    }
+
+    private AbstractQueryOperations sql(Operation operation, Object sql) {
+        reset(operation, Collections.emptyList());
+        this.sql = sql.toString();
+        return this;
+    }
+
+    /**
+     * The parameters of custom SQL, values bound by name take precedence over
+     * the properties of a bound object.
+     */
+    private SqlParameterProvider parameters() {
+        Map<String, Object> values = new HashMap<>(bindings);
+
+        if (bindObject == null) {
+            return SqlParameters.fromMap(values);
+        }
+
+        SqlParameterProvider bound = SqlParameters.fromObject(bindObject);
+
+        return new SqlParameterProvider() {
+            private final Map<String, SqlParameter> found = new LinkedHashMap<>();
+
+            @Override
+            public Optional<SqlParameter> findParameter(String name) {
+                return Optional.ofNullable(getParameter(name));
+            }
+
+            @Override
+            public SqlParameter getParameter(String name) {
+                SqlParameter parameter = found.get(name);
+
+                if (parameter == null) {
+                    parameter = values.containsKey(name)
+                            ? new SqlParameter(name, values.get(name))
+                            : bound.getParameter(name);
+
+                    if (parameter != null) {
+                        found.put(name, parameter);
+                    }
+                }
+
+                return parameter;
+            }
+
+            @Override
+            public Optional<SqlParameter> findParameter(Integer index) {
+                return found.values().stream().filter(parameter -> parameter.hasIndex(index)).findFirst();
+            }
+
+            @Override
+            public Iterator<SqlParameter> iterator() {
+                return found.values().iterator();
+            }
+        };
+    }
+
+    private int countRows() {
+        List<Integer> count = sqlOperations.list(
+                "SELECT COUNT(*) FROM (" + sql + ") counted",
+                rs -> ResultSets.getInt(rs, 1),
+                parameters());
+
+        return count.isEmpty() ? 0 : count.get(0);
+    }
+
+    private int write(Connection connection, Class<?> type, List<Object> rows) {
+        switch (operation) {
+            case INSERT:
+                return insert(connection, type, rows);
+            case UPDATE:
+                return sum(update(connection, type, rows));
+            case DELETE:
+                return sum(execute(connection, statement(type, Operation.DELETE, false), rows));
+            case INSERT_UPDATE:
+                return insertOrUpdate(connection, type, rows);
+            default:
+                throw new JdbcException("Unsupported operation %s.", operation);
+        }
+    }
+
+    /**
+     * Rows without a key value are inserted without the key column and the
+     * generated key is set back on the row, all other rows are inserted as
+     * they are.
+     */
+    private int insert(Connection connection, Class<?> type, List<Object> rows) {
+        WriteStatement withKey = statement(type, Operation.INSERT, false);
+
+        if (withKey.keyGetter == null) {
+            return sum(execute(connection, withKey, rows));
+        }
+
+        List<Object> keyed = new ArrayList<>(rows.size());
+        List<Object> unkeyed = new ArrayList<>();
+
+        for (Object row : rows) {
+            (withKey.keyGetter.apply(row) != null ? keyed : unkeyed).add(row);
+        }
+
+        int count = sum(execute(connection, withKey, keyed));
+
+        if (!unkeyed.isEmpty()) {
+            count += sum(execute(connection, statement(type, Operation.INSERT, true), unkeyed));
+        }
+
+        return count;
+    }
+
+    private int[] update(Connection connection, Class<?> type, List<Object> rows) {
+        return execute(connection, statement(type, Operation.UPDATE, false), rows);
+    }
+
+    /**
+     * Update each row by its key, then insert the rows that did not match
+     * an existing row.  When every field written is a key there is nothing
+     * to update, so only the rows that do not exist yet are inserted.
+     */
+    private int insertOrUpdate(Connection connection, Class<?> type, List<Object> rows) {
+        if (isKeyOnly(type)) {
+            List<Object> missing = missing(connection, statement(type, Operation.SELECT, false), rows);
+
+            return missing.isEmpty() ? 0 : insert(connection, type, missing);
+        }
+
+        int[] updateCounts = update(connection, type, rows);
+
+        List<Object> missing = new ArrayList<>();
+
+        int count = 0;
+
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 0) {
+                missing.add(rows.get(i));
+            } else {
+                count += updateCounts[i] == Statement.SUCCESS_NO_INFO ? 1 : Math.max(updateCounts[i], 0);
+            }
+        }
+
+        return missing.isEmpty() ? count : count + insert(connection, type, missing);
+    }
+
+    /**
+     * Look up the keys of the rows in batches, each batch with a single query
+     * returning the position of every row that already exists.
+     *
+     * @return The rows which do not exist yet.
+     */
+    private List<Object> missing(Connection connection, WriteStatement statement, List<Object> rows) {
+        List<Object> missing = new ArrayList<>();
+
+        for (int from = 0; from < rows.size(); from += EXISTS_BATCH_SIZE) {
+            List<Object> batch = rows.subList(from, Math.min(rows.size(), from + EXISTS_BATCH_SIZE));
+
+            Map<String, Object> values = new HashMap<>();
+
+            for (int i = 0; i < batch.size(); i++) {
+                int position = i;
+                values(statement, batch.get(i)).forEach((field, value) -> values.put(field + "_" + position, value));
+            }
+
+            Set<Integer> existing = new HashSet<>(sqlOperations.list(connection,
+                    statement.exists(batch.size()),
+                    rs -> ResultSets.getInt(rs, 1),
+                    values));
+
+            for (int i = 0; i < batch.size(); i++) {
+                if (!existing.contains(i)) {
+                    missing.add(batch.get(i));
+                }
+            }
+        }
+
+        return missing;
+    }
+
+    private int[] execute(Connection connection, WriteStatement statement, List<Object> rows) {
+        if (rows.isEmpty()) {
+            return new int[0];
+        }
+
+        debug(this, "Writing %d rows - %s", rows.size(), statement.sql);
+
+        return sqlOperations.batch(connection,
+                statement.sql,
+                rows,
+                DEFAULT_BATCH_SIZE,
+                row -> values(statement, row),
+                statement.generatesKey ? statement.keyColumn : null,
+                statement.generatesKey ? statement::setKey : null);
+    }
+
+    /**
+     * Read the values bound by a generated statement from a row, applying any
+     * converters and values bound by name.
+     */
+    private Map<String, Object> values(WriteStatement statement, Object row) {
+        Map<String, Object> values = new HashMap<>();
+
+        statement.getters.forEach((field, getter) -> {
+            Object value = getter.apply(row);
+
+            TypeConverter<?> converter = converters.get(field);
+
+            values.put(field, converter != null ? converter.convert(value) : value);
+        });
+
+        values.putAll(bindings);
+
+        return values;
+    }
+
+    private WriteStatement statement(Class<?> type, Operation operation, boolean generatesKey) {
+        List<String> fields = fields(type);
+        List<String> keys = keys(type, fields);
+
+        String tableName = table != null ? table : type.getSimpleName();
+
+        StatementKey key = new StatementKey(type, operation, tableName, fields, new HashMap<>(columns), keys, generatesKey);
+
+        WriteStatement statement = STATEMENTS.get(key);
+
+        if (statement == null) {
+            statement = new WriteStatement(key);
+
+            if (STATEMENTS.size() < MAX_STATEMENTS) {
+                WriteStatement existing = STATEMENTS.putIfAbsent(key, statement);
+                statement = existing != null ? existing : statement;
+            }
+        }
+
+        return statement;
+    }
+
+    /**
+     * @return The fields written for a class: by default every non-static
+     * field of a simple type that has a getter, in declaration order.
+     */
+    private List<String> fields(Class<?> type) {
+        List<String> fields = new ArrayList<>();
+
+        if (includedFields != null) {
+            for (String field : includedFields) {
+                if (!Reflect.on(type).findGetter(field).isPresent()) {
+                    throw new JdbcException("%s has no getter for the field %s.", type.getName(), field);
+                }
+                fields.add(field);
+            }
+        } else {
+            List<Class<?>> hierarchy = new ArrayList<>();
+
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                hierarchy.add(0, current);
+            }
+
+            for (Class<?> current : hierarchy) {
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+
+                    if (!Modifier.isStatic(modifiers)
+                            && !Modifier.isTransient(modifiers)
+                            && !field.isSynthetic()
+                            && isSimpleType(field.getType())
+                            && Reflect.on(type).findGetter(field.getName()).isPresent()) {
+                        fields.add(field.getName());
+                    }
+                }
+            }
+        }
+
+        fields.removeAll(excludedFields);
+
+        return fields;
+    }
+
+    /**
+     * @return true if every field written for a class is one of its keys.
+     */
+    private boolean isKeyOnly(Class<?> type) {
+        List<String> fields = fields(type);
+        List<String> keys = keys(type, fields);
+
+        return !keys.isEmpty() && keys.containsAll(fields);
+    }
+
+    private List<String> keys(Class<?> type, List<String> fields) {
+        if (keyFields != null) {
+            return keyFields;
+        }
+
+        String simpleName = type.getSimpleName();
+
+        String conventional = Character.toLowerCase(simpleName.charAt(0)) + simpleName.substring(1) + "Id";
+
+        if (Reflect.on(type).findGetter(conventional).isPresent()) {
+            return Collections.singletonList(conventional);
+        }
+
+        return Reflect.on(type).findGetter("id").isPresent()
+                ? Collections.singletonList("id")
+                : Collections.emptyList();
+    }
+
+    private static boolean isSimpleType(Class<?> type) {
+        return type.isPrimitive()
+                || Number.class.isAssignableFrom(type)
+                || CharSequence.class.isAssignableFrom(type)
+                || Boolean.class == type
+                || Character.class == type
+                || java.util.Date.class.isAssignableFrom(type)
+                || Temporal.class.isAssignableFrom(type)
+                || UUID.class == type
+                || byte[].class == type;
+    }
+
+    private static Map<Class<?>, List<Object>> groupByClass(Collection<?> rows) {
+        Map<Class<?>, List<Object>> grouped = new LinkedHashMap<>();
+
+        for (Object row : rows) {
+            grouped.computeIfAbsent(row.getClass(), type -> new ArrayList<>()).add(row);
+        }
+
+        return grouped;
+    }
+
+    private static int sum(int[] updateCounts) {
+        int sum = 0;
+        for (int updateCount : updateCounts) {
+            // Some drivers do not report the row count of batched statements.
+            sum += updateCount == Statement.SUCCESS_NO_INFO ? 1 : Math.max(updateCount, 0);
+        }
+        return sum;
+    }
+
+    private static Object convertKey(Object key, Class<?> type) {
+        if (key == null || type.isInstance(key)) {
+            return key;
+        }
+
+        if (key instanceof Number) {
+            Number number = (Number) key;
+
+            if (type == Long.class) {
+                return number.longValue();
+            } else if (type == Integer.class) {
+                return number.intValue();
+            } else if (type == Short.class) {
+                return number.shortValue();
+            } else if (type == BigDecimal.class) {
+                return new BigDecimal(number.toString());
+            } else if (type == BigInteger.class) {
+                return new BigDecimal(number.toString()).toBigInteger();
+            }
+        }
+
+        return type == String.class ? key.toString() : key;
+    }
+
+    /**
+     * Identifies a generated statement.
+     */
+    private static final class StatementKey {
+        private final Class<?> type;
+        private final Operation operation;
+        private final String table;
+        private final List<String> fields;
+        private final Map<String, String> columns;
+        private final List<String> keys;
+        private final boolean generatesKey;
+
+        private StatementKey(Class<?> type,
+                             Operation operation,
+                             String table,
+                             List<String> fields,
+                             Map<String, String> columns,
+                             List<String> keys,
+                             boolean generatesKey) {
+            this.type = type;
+            this.operation = operation;
+            this.table = table;
+            this.fields = fields;
+            this.columns = columns;
+            this.keys = keys;
+            this.generatesKey = generatesKey;
+        }
+
+        private String column(String field) {
+            return columns.getOrDefault(field, field);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StatementKey)) {
+                return false;
+            }
+            StatementKey other = (StatementKey) o;
+            return type == other.type
+                    && operation == other.operation
+                    && generatesKey == other.generatesKey
+                    && table.equals(other.table)
+                    && fields.equals(other.fields)
+                    && columns.equals(other.columns)
+                    && keys.equals(other.keys);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, operation, table, fields, columns, keys, generatesKey);
+        }
+    }
+
+    /**
+     * A generated INSERT, UPDATE, DELETE or key lookup statement using named parameters
+     * that match the field names of the class.
+     */
+    private static final class WriteStatement {
+        private final StatementKey key;
+        private final String sql;
+        private final Map<String, Function<Object, Object>> getters;
+        private final Function<Object, Object> keyGetter;
+        private final String keyField;
+        private final String keyColumn;
+        private final boolean generatesKey;
+
+        private WriteStatement(StatementKey key) {
+            this.key = key;
+            this.getters = new LinkedHashMap<>();
+
+            for (String field : key.fields) {
+                getters.put(field, getter(key.type, field));
+            }
+            for (String field : key.keys) {
+                getters.put(field, getter(key.type, field));
+            }
+
+            // Only a single key field of a non-primitive type can be generated
+            // by the database.
+            Field field = key.keys.size() == 1 && key.fields.contains(key.keys.get(0))
+                    ? Reflect.on(key.type).fields().get(key.keys.get(0))
+                    : null;
+
+            this.keyField = field != null && !field.getType().isPrimitive() ? field.getName() : null;
+            this.keyColumn = keyField != null ? key.column(keyField) : null;
+            this.keyGetter = keyField != null ? getters.get(keyField) : null;
+            this.generatesKey = key.generatesKey && keyGetter != null;
+            this.sql = generate(key);
+        }
+
+        private String generate(StatementKey key) {
+            StringBuilder sql = new StringBuilder();
+
+            List<String> keys = key.keys;
+
+            switch (key.operation) {
+                case INSERT: {
+                    List<String> inserted = new ArrayList<>(key.fields);
+
+                    if (generatesKey) {
+                        inserted.remove(keyField);
+                    }
+
+                    sql.append("INSERT INTO ").append(key.table).append(" (");
+                    join(sql, inserted, key::column);
+                    sql.append(") VALUES (");
+                    join(sql, inserted, field -> ":" + field);
+                    sql.append(")");
+                    break;
+                }
+                case UPDATE: {
+                    requireKeys(key);
+
+                    List<String> updated = new ArrayList<>(key.fields);
+                    updated.removeAll(keys);
+
+                    if (updated.isEmpty()) {
+                        throw new JdbcException("No fields other than the key were found to update for %s.", key.type.getName());
+                    }
+
+                    sql.append("UPDATE ").append(key.table).append(" SET ");
+                    join(sql, updated, field -> key.column(field) + " = :" + field);
+                    sql.append(" WHERE ");
+                    where(sql, key, "");
+                    break;
+                }
+                case SELECT: {
+                    // The lookup of a single row, see exists(int).
+                    requireKeys(key);
+
+                    exists(sql, key, 0);
+                    break;
+                }
+                case DELETE: {
+                    requireKeys(key);
+
+                    sql.append("DELETE FROM ").append(key.table).append(" WHERE ");
+                    where(sql, key, "");
+                    break;
+                }
+                default:
+                    throw new JdbcException("Unable to generate SQL for operation %s.", key.operation);
+            }
+
+            return sql.toString();
+        }
+
+        private void setKey(Object row, Object key) {
+            Object value = convertKey(key, Reflect.on(row.getClass()).fields().get(keyField).getType());
+
+            Optional<Method> setter = Reflect.on(row.getClass()).findSetter(keyField, value);
+
+            if (setter.isPresent()) {
+                Accessors.setter(setter.get()).accept(row, value);
+            } else {
+                debug(this, "Unable to set the generated key %s on %s.", keyField, row.getClass().getName());
+            }
+        }
+
+        private static void requireKeys(StatementKey key) {
+            if (key.keys.isEmpty()) {
+                throw new JdbcException("No key field was found for %s, specify one using usingKey().", key.type.getName());
+            }
+        }
+
+        /**
+         * Generate the key lookup of several rows, the parameters of each row
+         * are the key fields suffixed with the position of the row.
+         *
+         * @param rows The number of rows.
+         * @return A query selecting the position of each row that exists.
+         */
+        private String exists(int rows) {
+            StringBuilder union = new StringBuilder();
+
+            for (int i = 0; i < rows; i++) {
+                exists(union.append(i > 0 ? " UNION ALL " : ""), key, i);
+            }
+
+            return union.toString();
+        }
+
+        private static void exists(StringBuilder sql, StatementKey key, int position) {
+            sql.append("SELECT ").append(position).append(" FROM ").append(key.table).append(" WHERE ");
+            where(sql, key, "_" + position);
+        }
+
+        private static void where(StringBuilder sql, StatementKey key, String suffix) {
+            for (int i = 0; i < key.keys.size(); i++) {
+                String field = key.keys.get(i);
+                sql.append(i > 0 ? " AND " : "").append(key.column(field)).append(" = :").append(field).append(suffix);
+            }
+        }
+
+        private static void join(StringBuilder sql, List<String> fields, Function<String, String> mapper) {
+            for (int i = 0; i < fields.size(); i++) {
+                sql.append(i > 0 ? ", " : "").append(mapper.apply(fields.get(i)));
+            }
+        }
+
+        private static Function<Object, Object> getter(Class<?> type, String field) {
+            Method getter = Reflect.on(type)
+                    .findGetter(field)
+                    .orElseThrow(() -> new JdbcException("%s has no getter for the field %s.", type.getName(), field));
+
+            return Accessors.getter(getter);
+        }
     }
 }
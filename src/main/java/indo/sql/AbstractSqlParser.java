@@ -16,6 +16,7 @@
 
 package indo.sql;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -43,6 +44,20 @@ public abstract class AbstractSqlParser implements SqlParser {
         this.bindingResolvers = Arrays.asList(new StandardBindingResolver());
     }
 
+    /**
+     * @param bindingResolvers The resolvers consulted in order to produce the
+     *                         SQL for each parameter.
+     */
+    public AbstractSqlParser(List<BindingResolver> bindingResolvers) {
+        this();
+
+        if (bindingResolvers.isEmpty()) {
+            throw new IllegalArgumentException("At least one binding resolver is required.");
+        }
+
+        this.bindingResolvers = new ArrayList<>(bindingResolvers);
+    }
+
     public List<BindingResolver> getBindingResolvers() {
         return Collections.unmodifiableList(bindingResolvers);
     }
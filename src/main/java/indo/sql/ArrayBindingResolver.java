@@ -0,0 +1,257 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.jdbc.Connections;
+import indo.jdbc.JdbcException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static indo.log.Logger.debug;
+
+/**
+ * A {@link BindingResolver} which binds a collection or array to a single
+ * placeholder as a {@link java.sql.Array}, created with {@link
+ * Connections#createArrayOf(Connection, String, Object[])}.  Any other value
+ * is bound to a single placeholder as usual, a {@code byte[]} is bound as
+ * binary data rather than an array.  The SQL is the same for any number of
+ * values, so it is parsed, prepared and planned once:
+ * <pre>
+ * {@code
+ * SqlRunner runner = new SqlRunner(dataSource, new StreamingSqlParser(new ArrayBindingResolver()));
+ *
+ * // PostgreSQL
+ * runner.list("SELECT * FROM employee WHERE employee_id = ANY(:ids)", Employee.class, Maps.newHashMap("ids", new long[]{100, 102}));
+ *
+ * // H2
+ * runner.list("SELECT * FROM employee WHERE ARRAY_CONTAINS(:ids, employee_id)", Employee.class, Maps.newHashMap("ids", new long[]{100, 102}));
+ * }
+ * </pre>
+ * The SQL type name of the elements comes from {@link
+ * ParameterBinders#getArrayType(Class)}.  Primitive arrays are handed to the
+ * PostgreSQL driver as is when it accepts them, other drivers receive boxed
+ * elements.  Drivers which do not implement {@code createArrayOf}, such as
+ * H2, are passed the elements as an {@code Object[]} instead.
+ *
+ * @author Jonathan Cone
+ * @see SqlParameter#isBindAsArray()
+ */
+public class ArrayBindingResolver implements ShapingBindingResolver {
+
+    /**
+     * Driver connection classes, unwrapped from any pool proxy, whose driver
+     * does not implement createArrayOf.
+     */
+    private static final Set<Class<?>> UNSUPPORTED = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public Optional<String> resolve(int nextIndex, SqlParameter sqlParameter) {
+        sqlParameter.addIndexes(nextIndex, 1);
+        sqlParameter.setBindAsArray(isArray(sqlParameter.getValue()));
+
+        return Optional.of(Binder.DEFAULT_BINDING_PLACEHOLDER);
+    }
+
+    /**
+     * The SQL only depends on whether the value is bound as an array.
+     */
+    @Override
+    public int shapeOf(Object value, int length) {
+        return isArray(value) ? 0 : 1;
+    }
+
+    /**
+     * @return true if the value is a collection or an array other than a
+     * {@code byte[]}.
+     */
+    static boolean isArray(Object value) {
+        return value instanceof Collection
+                || value != null && value.getClass().isArray() && value.getClass() != byte[].class;
+    }
+
+    /**
+     * @return The class of the elements of a collection or array, from the
+     * first non-null element if the declared type is not specific.
+     */
+    static Class<?> elementType(Object value) {
+        Class<?> componentType = value.getClass().getComponentType();
+
+        if (componentType != null && componentType != Object.class) {
+            return componentType;
+        }
+
+        Iterable<?> elements = value instanceof Collection ? (Collection<?>) value : Arrays.asList((Object[]) value);
+
+        for (Object element : elements) {
+            if (element != null) {
+                return element.getClass();
+            }
+        }
+
+        return Object.class;
+    }
+
+    /**
+     * Bind a collection or array as a single array parameter.
+     *
+     * @param ps       The statement.
+     * @param index    The index of the parameter.
+     * @param typeName The SQL type name of the elements.
+     * @param value    The collection or array.
+     * @return The array bound to the statement, which should be freed once
+     * the statement has executed, or null if the elements were bound as an
+     * {@code Object[]}.
+     * @throws SQLException if the driver rejects the array.
+     */
+    static java.sql.Array bind(PreparedStatement ps, int index, String typeName, Object value) throws SQLException {
+        Connection connection = ps.getConnection();
+
+        if (value.getClass().getComponentType() != null && value.getClass().getComponentType().isPrimitive()) {
+            java.sql.Array array = PrimitiveArrays.create(connection, typeName, value);
+
+            if (array != null) {
+                ps.setArray(index, array);
+                return array;
+            }
+        }
+
+        Object[] elements = toObjectArray(value);
+
+        Class<?> driverClass = driverConnectionClass(connection);
+
+        if (!UNSUPPORTED.contains(driverClass)) {
+            try {
+                java.sql.Array array = Connections.createArrayOf(connection, typeName, elements);
+                ps.setArray(index, array);
+                return array;
+            } catch (JdbcException e) {
+                if (!isUnsupported(e.getCause())) {
+                    throw e;
+                }
+
+                debug(ArrayBindingResolver.class, "%s does not create arrays, binding them as objects.", driverClass.getName());
+                UNSUPPORTED.add(driverClass);
+            }
+        }
+
+        ps.setObject(index, elements);
+
+        return null;
+    }
+
+    /**
+     * @return The class of the driver's own connection, pools hand out
+     * proxies of the same class whatever the driver behind them.
+     */
+    private static Class<?> driverConnectionClass(Connection connection) throws SQLException {
+        if (connection.isWrapperFor(Connection.class)) {
+            Connection unwrapped = connection.unwrap(Connection.class);
+
+            if (unwrapped != null) {
+                return unwrapped.getClass();
+            }
+        }
+
+        return connection.getClass();
+    }
+
+    private static boolean isUnsupported(Throwable t) {
+        if (t instanceof SQLFeatureNotSupportedException) {
+            return true;
+        }
+
+        // SQL standard class 0A and the ODBC state used by H2.
+        String sqlState = t instanceof SQLException ? ((SQLException) t).getSQLState() : null;
+
+        return sqlState != null && (sqlState.startsWith("0A") || sqlState.equals("HYC00"));
+    }
+
+    private static Object[] toObjectArray(Object value) {
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).toArray();
+        }
+
+        if (value instanceof Object[]) {
+            return (Object[]) value;
+        }
+
+        int length = Array.getLength(value);
+        Object[] elements = new Object[length];
+
+        for (int i = 0; i < length; i++) {
+            elements[i] = Array.get(value, i);
+        }
+
+        return elements;
+    }
+
+    /**
+     * Creates arrays from primitive arrays with {@code
+     * PGConnection.createArrayOf(String, Object)}, which version 42.2 and
+     * later of the PostgreSQL driver provide.
+     */
+    private static final class PrimitiveArrays {
+        private static final Class<?> PG_CONNECTION;
+        private static final MethodHandle CREATE_ARRAY_OF;
+
+        static {
+            Class<?> pgConnection = null;
+            MethodHandle createArrayOf = null;
+
+            try {
+                pgConnection = Class.forName("org.postgresql.PGConnection");
+                createArrayOf = MethodHandles.publicLookup().findVirtual(pgConnection, "createArrayOf",
+                        MethodType.methodType(java.sql.Array.class, String.class, Object.class));
+            } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+                pgConnection = null;
+            }
+
+            PG_CONNECTION = pgConnection;
+            CREATE_ARRAY_OF = createArrayOf;
+        }
+
+        /**
+         * @return The array, or null if the driver cannot create it from a
+         * primitive array.
+         */
+        static java.sql.Array create(Connection connection, String typeName, Object primitives) throws SQLException {
+            if (CREATE_ARRAY_OF == null || !connection.isWrapperFor(PG_CONNECTION)) {
+                return null;
+            }
+
+            try {
+                return (java.sql.Array) CREATE_ARRAY_OF.invoke(connection.unwrap(PG_CONNECTION), typeName, primitives);
+            } catch (SQLException | RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new SQLException(t);
+            }
+        }
+    }
+}
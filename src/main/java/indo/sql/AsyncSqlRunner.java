@@ -0,0 +1,267 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Runs {@link SqlRunner} operations on an {@link Executor} and returns their
+ * results as {@link CompletableFuture}s, so independent queries can run
+ * concurrently without blocking the calling thread.
+ * <p>
+ * The executor should be sized to the connection pool, since every running
+ * operation holds a connection.  The executor created by {@link
+ * #AsyncSqlRunner(DataSource, int, int)} runs at most that many operations
+ * at a time and queues a bounded number of others.  When the queue is full
+ * the returned future fails with a {@link RejectedExecutionException},
+ * rather than letting work pile up behind a saturated database. A different
+ * policy can be set with {@link #newExecutor(int, int, RejectedExecutionHandler)}.
+ * <pre>
+ * {@code
+ * try (AsyncSqlRunner runner = new AsyncSqlRunner(dataSource, 10, 100)) {
+ *     CompletableFuture<List<Employee>> employees = runner.list(employeeSql, Employee.class);
+ *     CompletableFuture<List<Department>> departments = runner.list(departmentSql, Department.class);
+ *
+ *     employees.thenCombine(departments, ...);
+ * }
+ * }
+ * </pre>
+ *
+ * @author Jonathan Cone
+ * @see SqlRunner
+ */
+public class AsyncSqlRunner implements AutoCloseable {
+
+    private final SqlRunner sqlRunner;
+    private final Executor executor;
+    private final boolean ownsExecutor;
+
+    /**
+     * Create an instance with its own executor, which is shut down by {@link
+     * #close()}.
+     *
+     * @param dataSource    The source of connections.
+     * @param threads       The number of operations run at a time, typically
+     *                      the size of the connection pool.
+     * @param queueCapacity The number of operations that may wait for a
+     *                      thread before new operations are rejected.
+     */
+    public AsyncSqlRunner(DataSource dataSource, int threads, int queueCapacity) {
+        this(new SqlRunner(dataSource), newExecutor(threads, queueCapacity, new ThreadPoolExecutor.AbortPolicy()), true);
+    }
+
+    /**
+     * Create an instance that runs operations of an existing runner on the
+     * supplied executor. The executor is not shut down by {@link #close()}.
+     *
+     * @param sqlRunner The runner that executes the operations.
+     * @param executor  The executor that operations are submitted to.
+     */
+    public AsyncSqlRunner(SqlRunner sqlRunner, Executor executor) {
+        this(sqlRunner, executor, false);
+    }
+
+    private AsyncSqlRunner(SqlRunner sqlRunner, Executor executor, boolean ownsExecutor) {
+        this.sqlRunner = sqlRunner;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Create a fixed size executor with a bounded queue.
+     *
+     * @param threads       The number of threads.
+     * @param queueCapacity The number of tasks that may wait for a thread.
+     * @param rejection     The policy applied once the queue is full, e.g.
+     *                      {@link ThreadPoolExecutor.CallerRunsPolicy} to run
+     *                      the operation on the calling thread instead.
+     * @return The newly created executor, its threads are daemon threads.
+     */
+    public static ThreadPoolExecutor newExecutor(int threads, int queueCapacity, RejectedExecutionHandler rejection) {
+        return new ThreadPoolExecutor(threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new DaemonThreadFactory(),
+                rejection);
+    }
+
+    /**
+     * @return The runner that executes the operations.
+     */
+    public SqlRunner getSqlRunner() {
+        return sqlRunner;
+    }
+
+    public <T> CompletableFuture<List<T>> list(String sql, Class<T> type, Object... parameters) {
+        return submit(runner -> runner.list(sql, type, parameters));
+    }
+
+    public <T> CompletableFuture<List<T>> list(String sql, Class<T> type, SqlParameterProvider parameters) {
+        return submit(runner -> runner.list(sql, type, parameters));
+    }
+
+    public <T> CompletableFuture<List<T>> list(String sql, Class<T> type, Map<String, ?> parameters) {
+        return submit(runner -> runner.list(sql, type, parameters));
+    }
+
+    public <T> CompletableFuture<List<T>> list(String sql, Class<T> type, ResultTypes resultTypes, Object... parameters) {
+        return submit(runner -> runner.list(sql, type, resultTypes, parameters));
+    }
+
+    public <T> CompletableFuture<List<T>> list(String sql, Class<T> type, ResultTypes resultTypes, SqlParameterProvider parameters) {
+        return submit(runner -> runner.list(sql, type, resultTypes, parameters));
+    }
+
+    public <T> CompletableFuture<List<T>> list(String sql, Class<T> type, ResultTypes resultTypes, Map<String, ?> parameters) {
+        return submit(runner -> runner.list(sql, type, resultTypes, parameters));
+    }
+
+    public <T> CompletableFuture<List<T>> list(String sql, RowProcessor<T> rowProcessor, Object... parameters) {
+        return submit(runner -> runner.list(sql, rowProcessor, parameters));
+    }
+
+    public <T> CompletableFuture<List<T>> list(String sql, RowProcessor<T> rowProcessor, SqlParameterProvider parameters) {
+        return submit(runner -> runner.list(sql, rowProcessor, parameters));
+    }
+
+    public <T> CompletableFuture<List<T>> list(String sql, RowProcessor<T> rowProcessor, Map<String, ?> parameters) {
+        return submit(runner -> runner.list(sql, rowProcessor, parameters));
+    }
+
+    /**
+     * Stream the results of a query on the executor. A stream cannot outlive
+     * the connection it reads from, so rather than returning the stream
+     * itself the supplied function consumes it and its result completes the
+     * future. The stream is closed afterwards.
+     *
+     * @param sql        The SQL query to execute.
+     * @param type       The type each row is mapped to.
+     * @param consumer   Consumes the stream, e.g. {@code s -> s.map(...).collect(...)}.
+     * @param parameters The parameters to bind to the query.
+     * @param <T>        The type each row is mapped to.
+     * @param <R>        The type of result.
+     * @return A future result of the consumer.
+     */
+    public <T, R> CompletableFuture<R> stream(String sql, Class<T> type, Function<Stream<T>, R> consumer, Object... parameters) {
+        return stream(sql, RowProcessor.using(type), consumer, SqlParameters.fromArray(parameters));
+    }
+
+    public <T, R> CompletableFuture<R> stream(String sql, Class<T> type, Function<Stream<T>, R> consumer, SqlParameterProvider parameters) {
+        return stream(sql, RowProcessor.using(type), consumer, parameters);
+    }
+
+    public <T, R> CompletableFuture<R> stream(String sql, Class<T> type, Function<Stream<T>, R> consumer, Map<String, ?> parameters) {
+        return stream(sql, RowProcessor.using(type), consumer, SqlParameters.fromMap(parameters));
+    }
+
+    public <T, R> CompletableFuture<R> stream(String sql, RowProcessor<T> rowProcessor, Function<Stream<T>, R> consumer, Object... parameters) {
+        return stream(sql, rowProcessor, consumer, SqlParameters.fromArray(parameters));
+    }
+
+    public <T, R> CompletableFuture<R> stream(String sql, RowProcessor<T> rowProcessor, Function<Stream<T>, R> consumer, Map<String, ?> parameters) {
+        return stream(sql, rowProcessor, consumer, SqlParameters.fromMap(parameters));
+    }
+
+    public <T, R> CompletableFuture<R> stream(String sql, RowProcessor<T> rowProcessor, Function<Stream<T>, R> consumer, SqlParameterProvider parameters) {
+        return submit(runner -> {
+            try (Stream<T> stream = runner.stream(sql, rowProcessor, parameters)) {
+                return consumer.apply(stream);
+            }
+        });
+    }
+
+    public CompletableFuture<int[]> batch(String sql, Iterable<?> rows, int batchSize) {
+        return submit(runner -> runner.batch(sql, rows, batchSize));
+    }
+
+    /**
+     * Run some work on the executor using a single connection.
+     *
+     * @see SqlRunner#withConnection(Function)
+     */
+    public <T> CompletableFuture<T> withConnection(Function<SqlRunner, T> work) {
+        return submit(runner -> runner.withConnection(work));
+    }
+
+    /**
+     * Run some work on the executor in a transaction.
+     *
+     * @see SqlRunner#inTransaction(Function)
+     */
+    public <T> CompletableFuture<T> inTransaction(Function<SqlRunner, T> work) {
+        return submit(runner -> runner.inTransaction(work));
+    }
+
+    /**
+     * Run arbitrary work against the runner on the executor.
+     *
+     * @param work The work to run, it receives the underlying {@link SqlRunner}.
+     * @param <T>  The type of result.
+     * @return A future which completes with the result of the work, or
+     * exceptionally if the work fails or the executor rejects it.
+     */
+    public <T> CompletableFuture<T> submit(Function<SqlRunner, T> work) {
+        try {
+            return CompletableFuture.supplyAsync(() -> work.apply(sqlRunner), executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+    }
+
+    /**
+     * Shut down the executor if it was created by this instance. Operations
+     * that were already submitted still run.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor && executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private static final AtomicInteger POOL = new AtomicInteger();
+
+        private final int pool = POOL.incrementAndGet();
+        private final AtomicInteger thread = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread t = new Thread(runnable, "indo-async-" + pool + "-" + thread.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
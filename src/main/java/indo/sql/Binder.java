@@ -24,17 +24,20 @@ public class Binder {
     public static final String DEFAULT_BINDING_DELIMITER = ",";
 
     public static String repeatPlaceholders(String placeholder, String delimiter, int length) {
-        String sql = "";
+        if (length < 1) {
+            return "";
+        }
 
-        for (int i = 0; i < length; i++) {
-            sql += placeholder;
+        StringBuilder sql = new StringBuilder(length * (placeholder.length() + delimiter.length()));
 
-            if (i != (length - 1)) {
-                sql += delimiter;
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sql.append(delimiter);
             }
+            sql.append(placeholder);
         }
 
-        return sql;
+        return sql.toString();
     }
 
     public static String repeatPlaceholders(int length) {
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * A {@link BindingResolver} which rounds the number of placeholders for a
+ * collection or array up to a bucket size, 1, 2, 4, 8 and so on up to the
+ * largest bucket.  Beyond the largest bucket the number of placeholders is
+ * rounded up to a multiple of it.  This keeps the number of distinct
+ * statements small, so IN lists of different lengths share the execution
+ * plan cached by the database and the statements cached by a {@link
+ * StatementCache}:
+ * <pre>
+ * {@code
+ * SqlRunner runner = new SqlRunner(dataSource, new StreamingSqlParser(new BucketedBindingResolver()));
+ *
+ * // Both statements end with IN (?,?,?,?)
+ * runner.list("SELECT * FROM employee WHERE employee_id IN (:ids)", Employee.class, Maps.newHashMap("ids", Arrays.asList(1, 2, 3)));
+ * runner.list("SELECT * FROM employee WHERE employee_id IN (:ids)", Employee.class, Maps.newHashMap("ids", Arrays.asList(1, 2, 3, 4)));
+ * }
+ * </pre>
+ * The extra placeholders repeat the last element, which never changes the
+ * result of an IN or NOT IN condition, or are bound to NULL.  An empty
+ * collection is bound as a single NULL, so {@code IN (:ids)} matches
+ * nothing rather than being invalid SQL.  Any other value is bound to a
+ * single placeholder.
+ *
+ * @author Jonathan Cone
+ * @see StreamingSqlParser#StreamingSqlParser(BindingResolver...)
+ */
+public class BucketedBindingResolver implements ShapingBindingResolver {
+
+    public static final int DEFAULT_MAX_BUCKET = 1024;
+
+    /**
+     * How the placeholders beyond the elements of a collection are bound.
+     */
+    public enum Padding {
+        /**
+         * Repeat the last element, which is safe for both IN and NOT IN.
+         */
+        LAST_VALUE,
+
+        /**
+         * Bind NULL, which is cheaper for the database to compare but makes
+         * a NOT IN condition match nothing.
+         */
+        NULL
+    }
+
+    private final Padding padding;
+    private final int maxBucket;
+
+    /**
+     * The placeholders for each bucket, indexed by the power of two.
+     */
+    private final String[] fragments;
+
+    public BucketedBindingResolver() {
+        this(Padding.LAST_VALUE, DEFAULT_MAX_BUCKET);
+    }
+
+    public BucketedBindingResolver(Padding padding) {
+        this(padding, DEFAULT_MAX_BUCKET);
+    }
+
+    /**
+     * @param padding   How the extra placeholders are bound.
+     * @param maxBucket The largest bucket, which must be a power of two.
+     */
+    public BucketedBindingResolver(Padding padding, int maxBucket) {
+        if (maxBucket < 1 || Integer.bitCount(maxBucket) != 1) {
+            throw new IllegalArgumentException("The largest bucket must be a power of two, not " + maxBucket + ".");
+        }
+
+        this.padding = padding;
+        this.maxBucket = maxBucket;
+        this.fragments = new String[Integer.numberOfTrailingZeros(maxBucket) + 1];
+
+        fragments[0] = Binder.DEFAULT_BINDING_PLACEHOLDER;
+
+        // Each bucket is the previous one twice over.
+        for (int i = 1; i < fragments.length; i++) {
+            fragments[i] = fragments[i - 1] + Binder.DEFAULT_BINDING_DELIMITER + fragments[i - 1];
+        }
+    }
+
+    @Override
+    public Optional<String> resolve(int nextIndex, SqlParameter sqlParameter) {
+        Object value = sqlParameter.getValue();
+
+        int bucket = 1;
+
+        if (value instanceof Collection) {
+            bucket = bucketOf(((Collection<?>) value).size());
+        } else if (value != null && value.getClass().isArray()) {
+            bucket = bucketOf(Array.getLength(value));
+        }
+
+        sqlParameter.addIndexes(nextIndex, bucket);
+        sqlParameter.setPadWithNull(padding == Padding.NULL);
+
+        return Optional.of(placeholders(bucket));
+    }
+
+    /**
+     * Every length in a bucket produces the same SQL.
+     */
+    @Override
+    public int shapeOf(Object value, int length) {
+        return bucketOf(length);
+    }
+
+    /**
+     * @param length The number of elements in a collection or array.
+     * @return The number of placeholders bound for that many elements.
+     */
+    public int bucketOf(int length) {
+        if (length <= 1) {
+            return 1;
+        }
+
+        if (length > maxBucket) {
+            return (length + maxBucket - 1) / maxBucket * maxBucket;
+        }
+
+        return Integer.highestOneBit(length - 1) << 1;
+    }
+
+    public Padding getPadding() {
+        return padding;
+    }
+
+    public int getMaxBucket() {
+        return maxBucket;
+    }
+
+    private String placeholders(int bucket) {
+        if (bucket <= maxBucket) {
+            return fragments[Integer.numberOfTrailingZeros(bucket)];
+        }
+
+        String largest = fragments[fragments.length - 1];
+        int count = bucket / maxBucket;
+
+        StringBuilder sql = new StringBuilder(count * (largest.length() + 1));
+
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sql.append(Binder.DEFAULT_BINDING_DELIMITER);
+            }
+            sql.append(largest);
+        }
+
+        return sql.toString();
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.util.Accessors;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Reads a column with the {@link ResultSet} getter that matches both the
+ * JDBC type of the column and the parameter type of the setter it is
+ * assigned to, e.g. {@link ResultSet#getLong(int)} straight into a {@code
+ * long} setter.  This avoids {@link ResultSet#getObject(int)} and matching
+ * the setter against the runtime type of every value.  NULL values are
+ * detected with {@link ResultSet#wasNull()}, they are assigned as null to
+ * object setters and leave primitive properties untouched.
+ *
+ * @author Jonathan Cone
+ * @see ReflectionRowProcessor
+ */
+abstract class ColumnReader {
+
+    /**
+     * Read a column and assign it to the target object.
+     *
+     * @param rs          The result set positioned on the current row.
+     * @param columnIndex The column to read.
+     * @param target      The object being populated.
+     * @throws SQLException if the column could not be read.
+     */
+    abstract void read(ResultSet rs, int columnIndex, Object target) throws SQLException;
+
+    /**
+     * Choose a reader for a column and setter.
+     *
+     * @param sqlType The JDBC type of the column, see {@link Types}.
+     * @param setter  The single argument setter the column is assigned to.
+     * @return The reader, or null if the column type and setter type are not
+     * a known pair and the value should be read as an object instead.
+     */
+    static ColumnReader of(int sqlType, Method setter) {
+        Class<?> type = setter.getParameterTypes()[0];
+
+        // Primitive setters that can be called without boxing.
+        if (type == long.class && isIntegral(sqlType)) {
+            return longReader(setter);
+        }
+        if (type == int.class && isInteger(sqlType)) {
+            return intReader(setter);
+        }
+        if (type == double.class && isFloatingPoint(sqlType)) {
+            return doubleReader(setter);
+        }
+
+        Getter getter = getter(sqlType, type);
+
+        return getter != null ? objectReader(setter, type.isPrimitive(), getter) : null;
+    }
+
+    /**
+     * Choose the getter that reads a column as a specific type.
+     *
+     * @param sqlType The JDBC type of the column, see {@link Types}.
+     * @param type    The type the value is assigned to, primitive types are
+     *                read as their wrapper.
+     * @return The getter, which returns null for NULL values, or null if the
+     * column type and target type are not a known pair.
+     */
+    static Getter getter(int sqlType, Class<?> type) {
+        if (type == long.class || type == Long.class) {
+            return isIntegral(sqlType)
+                    ? (rs, column) -> {
+                        long value = rs.getLong(column);
+                        return rs.wasNull() ? null : value;
+                    }
+                    : null;
+        }
+        if (type == int.class || type == Integer.class) {
+            return isInteger(sqlType)
+                    ? (rs, column) -> {
+                        int value = rs.getInt(column);
+                        return rs.wasNull() ? null : value;
+                    }
+                    : null;
+        }
+        if (type == double.class || type == Double.class) {
+            return isFloatingPoint(sqlType)
+                    ? (rs, column) -> {
+                        double value = rs.getDouble(column);
+                        return rs.wasNull() ? null : value;
+                    }
+                    : null;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return sqlType == Types.BOOLEAN || sqlType == Types.BIT
+                    ? (rs, column) -> {
+                        boolean value = rs.getBoolean(column);
+                        return rs.wasNull() ? null : value;
+                    }
+                    : null;
+        }
+        if (type == String.class) {
+            return isCharacter(sqlType) ? ResultSet::getString : null;
+        }
+        if (type == BigDecimal.class) {
+            return sqlType == Types.DECIMAL || sqlType == Types.NUMERIC ? ResultSet::getBigDecimal : null;
+        }
+        if (type == LocalDate.class) {
+            return sqlType == Types.DATE
+                    ? (rs, column) -> {
+                        java.sql.Date date = rs.getDate(column);
+                        return date != null ? date.toLocalDate() : null;
+                    }
+                    : null;
+        }
+        if (type == LocalDateTime.class) {
+            return isTimestamp(sqlType)
+                    ? (rs, column) -> {
+                        Timestamp timestamp = rs.getTimestamp(column);
+                        return timestamp != null ? timestamp.toLocalDateTime() : null;
+                    }
+                    : null;
+        }
+        if (type == Instant.class) {
+            return isTimestamp(sqlType)
+                    ? (rs, column) -> {
+                        Timestamp timestamp = rs.getTimestamp(column);
+                        return timestamp != null ? timestamp.toInstant() : null;
+                    }
+                    : null;
+        }
+        if (type == LocalTime.class) {
+            return sqlType == Types.TIME
+                    ? (rs, column) -> {
+                        Time time = rs.getTime(column);
+                        return time != null ? time.toLocalTime() : null;
+                    }
+                    : null;
+        }
+        if (type == Timestamp.class) {
+            return isTimestamp(sqlType) ? ResultSet::getTimestamp : null;
+        }
+        if (type == java.sql.Date.class) {
+            return sqlType == Types.DATE ? ResultSet::getDate : null;
+        }
+
+        return null;
+    }
+
+    private static boolean isIntegral(int sqlType) {
+        return sqlType == Types.BIGINT
+                || sqlType == Types.INTEGER
+                || sqlType == Types.SMALLINT
+                || sqlType == Types.TINYINT;
+    }
+
+    private static boolean isCharacter(int sqlType) {
+        return sqlType == Types.CHAR
+                || sqlType == Types.VARCHAR
+                || sqlType == Types.LONGVARCHAR
+                || sqlType == Types.NCHAR
+                || sqlType == Types.NVARCHAR
+                || sqlType == Types.LONGNVARCHAR;
+    }
+
+    private static boolean isTimestamp(int sqlType) {
+        return sqlType == Types.TIMESTAMP || sqlType == Types.TIMESTAMP_WITH_TIMEZONE;
+    }
+
+    private static boolean isInteger(int sqlType) {
+        return sqlType == Types.INTEGER || sqlType == Types.SMALLINT || sqlType == Types.TINYINT;
+    }
+
+    private static boolean isFloatingPoint(int sqlType) {
+        return sqlType == Types.DOUBLE || sqlType == Types.FLOAT || sqlType == Types.REAL;
+    }
+
+    private static ColumnReader longReader(Method setter) {
+        ObjLongConsumer<Object> set = Accessors.longSetter(setter);
+        return new ColumnReader() {
+            @Override
+            void read(ResultSet rs, int columnIndex, Object target) throws SQLException {
+                long value = rs.getLong(columnIndex);
+                if (!rs.wasNull()) {
+                    set.accept(target, value);
+                }
+            }
+        };
+    }
+
+    private static ColumnReader intReader(Method setter) {
+        ObjIntConsumer<Object> set = Accessors.intSetter(setter);
+        return new ColumnReader() {
+            @Override
+            void read(ResultSet rs, int columnIndex, Object target) throws SQLException {
+                int value = rs.getInt(columnIndex);
+                if (!rs.wasNull()) {
+                    set.accept(target, value);
+                }
+            }
+        };
+    }
+
+    private static ColumnReader doubleReader(Method setter) {
+        ObjDoubleConsumer<Object> set = Accessors.doubleSetter(setter);
+        return new ColumnReader() {
+            @Override
+            void read(ResultSet rs, int columnIndex, Object target) throws SQLException {
+                double value = rs.getDouble(columnIndex);
+                if (!rs.wasNull()) {
+                    set.accept(target, value);
+                }
+            }
+        };
+    }
+
+    private static ColumnReader objectReader(Method setter, boolean primitive, Getter getter) {
+        BiConsumer<Object, Object> set = Accessors.setter(setter);
+        return new ColumnReader() {
+            @Override
+            void read(ResultSet rs, int columnIndex, Object target) throws SQLException {
+                Object value = getter.get(rs, columnIndex);
+                if (value != null || !primitive) {
+                    set.accept(target, value);
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads the value of a column as a specific type.
+     */
+    @FunctionalInterface
+    interface Getter {
+        Object get(ResultSet rs, int columnIndex) throws SQLException;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.util.Unchecked;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Primitive streams over the first column of an open {@link ResultSet}, each
+ * value is read with the matching primitive getter so nothing is boxed.  As
+ * with {@link ResultSetSpliterator}, the supplied resources are released as
+ * soon as the last row has been read, an exception occurs or the stream is
+ * closed.  SQL NULL values are read as 0.
+ *
+ * @author Jonathan Cone
+ * @see SqlRunner#longStream(String, SqlParameterProvider)
+ */
+final class ColumnSpliterators {
+
+    private ColumnSpliterators() {
+    }
+
+    static LongStream longStream(ResultSet rs, AutoCloseable... resources) {
+        OfLong spliterator = new OfLong(rs, new StreamResources(resources));
+        return StreamSupport.longStream(spliterator, false).onClose(spliterator.resources::close);
+    }
+
+    static IntStream intStream(ResultSet rs, AutoCloseable... resources) {
+        OfInt spliterator = new OfInt(rs, new StreamResources(resources));
+        return StreamSupport.intStream(spliterator, false).onClose(spliterator.resources::close);
+    }
+
+    static DoubleStream doubleStream(ResultSet rs, AutoCloseable... resources) {
+        OfDouble spliterator = new OfDouble(rs, new StreamResources(resources));
+        return StreamSupport.doubleStream(spliterator, false).onClose(spliterator.resources::close);
+    }
+
+    /**
+     * Advance the result set by one row, releasing the resources if it has
+     * been exhausted or fails.
+     *
+     * @return true if the result set is positioned on a row.
+     */
+    private static boolean next(ResultSet rs, StreamResources resources) {
+        if (resources.isClosed()) {
+            return false;
+        }
+
+        try {
+            if (rs.next()) {
+                return true;
+            }
+        } catch (SQLException e) {
+            resources.closeQuietly();
+            throw Unchecked.sqlException(e);
+        }
+
+        resources.close();
+        return false;
+    }
+
+    private static RuntimeException failed(SQLException e, StreamResources resources) {
+        resources.closeQuietly();
+        return Unchecked.sqlException(e);
+    }
+
+    private static final class OfLong extends Spliterators.AbstractLongSpliterator {
+        private final ResultSet rs;
+        private final StreamResources resources;
+
+        private OfLong(ResultSet rs, StreamResources resources) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.rs = rs;
+            this.resources = resources;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (!next(rs, resources)) {
+                return false;
+            }
+
+            long value;
+            try {
+                value = rs.getLong(1);
+            } catch (SQLException e) {
+                throw failed(e, resources);
+            }
+
+            action.accept(value);
+            return true;
+        }
+    }
+
+    private static final class OfInt extends Spliterators.AbstractIntSpliterator {
+        private final ResultSet rs;
+        private final StreamResources resources;
+
+        private OfInt(ResultSet rs, StreamResources resources) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.rs = rs;
+            this.resources = resources;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (!next(rs, resources)) {
+                return false;
+            }
+
+            int value;
+            try {
+                value = rs.getInt(1);
+            } catch (SQLException e) {
+                throw failed(e, resources);
+            }
+
+            action.accept(value);
+            return true;
+        }
+    }
+
+    private static final class OfDouble extends Spliterators.AbstractDoubleSpliterator {
+        private final ResultSet rs;
+        private final StreamResources resources;
+
+        private OfDouble(ResultSet rs, StreamResources resources) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.rs = rs;
+            this.resources = resources;
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            if (!next(rs, resources)) {
+                return false;
+            }
+
+            double value;
+            try {
+                value = rs.getDouble(1);
+            } catch (SQLException e) {
+                throw failed(e, resources);
+            }
+
+            action.accept(value);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,662 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.jdbc.JdbcException;
+import indo.jdbc.ResultSetMetaDatas;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import static indo.jdbc.ResultSetMetaDatas.getColumnType;
+import static indo.jdbc.ResultSetMetaDatas.getPrecision;
+import static indo.jdbc.ResultSetMetaDatas.getScale;
+import static indo.jdbc.ResultSets.getMetaData;
+
+/**
+ * A query result stored column by column rather than row by row.  The
+ * storage of each column is chosen from its JDBC type: integral columns are
+ * stored in {@code long[]} or {@code int[]} arrays, floating point columns in
+ * {@code double[]} arrays, booleans in a {@link BitSet} and character columns
+ * are dictionary encoded, so each distinct string is only held once.  Any
+ * other column, e.g. dates and decimals with a fractional part, is stored as
+ * an {@code Object[]}.  SQL NULL values are tracked in a {@link BitSet} per
+ * column.
+ * <p>
+ * Rows are numbered from 0 and, as with {@link ResultSet}, columns from 1.
+ * The arrays returned by the bulk accessors such as {@link
+ * #getLongs(String)} are the storage itself and must not be modified.
+ * <pre>
+ * {@code
+ * ColumnarResult result = runner.columnar("SELECT department_id, salary FROM employee");
+ *
+ * double[] salaries = result.getDoubles("salary");
+ * }
+ * </pre>
+ *
+ * @author Jonathan Cone
+ * @see SqlRunner#columnar(String, SqlParameterProvider)
+ */
+public final class ColumnarResult {
+
+    /**
+     * The way the values of a column are stored.
+     */
+    public enum Storage {
+        LONG, INT, DOUBLE, BOOLEAN, STRING, OBJECT
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int rowCount;
+    private final String[] labels;
+    private final Column[] columns;
+
+    private ColumnarResult(int rowCount, String[] labels, Column[] columns) {
+        this.rowCount = rowCount;
+        this.labels = labels;
+        this.columns = columns;
+    }
+
+    /**
+     * Read every remaining row of a result set.
+     *
+     * @param rs The result set to read.
+     * @return The columnar copy of the result set.
+     * @throws SQLException if a row could not be read.
+     */
+    static ColumnarResult read(ResultSet rs) throws SQLException {
+        ResultSetMetaData rsm = getMetaData(rs);
+
+        int columnCount = ResultSetMetaDatas.getColumnCount(rsm);
+
+        String[] labels = new String[columnCount];
+        Column[] columns = new Column[columnCount];
+
+        for (int i = 0; i < columnCount; i++) {
+            labels[i] = ResultSetMetaDatas.getColumnLabel(rsm, i + 1);
+            columns[i] = newColumn(storageOf(rsm, i + 1), i + 1);
+        }
+
+        int capacity = INITIAL_CAPACITY;
+        int row = 0;
+
+        while (rs.next()) {
+            if (row == capacity) {
+                capacity <<= 1;
+                for (Column column : columns) {
+                    column.resize(capacity);
+                }
+            }
+
+            for (Column column : columns) {
+                column.read(rs, row);
+            }
+
+            row++;
+        }
+
+        for (Column column : columns) {
+            column.finish(row);
+        }
+
+        return new ColumnarResult(row, labels, columns);
+    }
+
+    /**
+     * Choose the storage of a column from its JDBC type.
+     */
+    static Storage storageOf(ResultSetMetaData rsm, int column) {
+        switch (getColumnType(rsm, column)) {
+            case Types.BIGINT:
+                return Storage.LONG;
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return Storage.INT;
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL:
+                return Storage.DOUBLE;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return Storage.BOOLEAN;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return Storage.STRING;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                // Whole numbers that fit in a long lose nothing, anything else
+                // keeps its BigDecimal.
+                int precision = getPrecision(rsm, column);
+                return getScale(rsm, column) == 0 && precision > 0 && precision < 19
+                        ? Storage.LONG
+                        : Storage.OBJECT;
+            default:
+                return Storage.OBJECT;
+        }
+    }
+
+    private static Column newColumn(Storage storage, int index) {
+        switch (storage) {
+            case LONG:
+                return new LongColumn(index);
+            case INT:
+                return new IntColumn(index);
+            case DOUBLE:
+                return new DoubleColumn(index);
+            case BOOLEAN:
+                return new BooleanColumn(index);
+            case STRING:
+                return new StringColumn(index);
+            default:
+                return new ObjectColumn(index);
+        }
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * @param column The column index, starting at 1.
+     * @return The label of the column.
+     */
+    public String getColumnLabel(int column) {
+        column(column);
+        return labels[column - 1];
+    }
+
+    /**
+     * Find a column by its label, ignoring case.
+     *
+     * @param label The column label.
+     * @return The column index, starting at 1.
+     * @throws JdbcException if there is no such column.
+     */
+    public int findColumn(String label) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equalsIgnoreCase(label)) {
+                return i + 1;
+            }
+        }
+        throw new JdbcException("The result does not contain a column labeled %s.", label);
+    }
+
+    public Storage getStorage(int column) {
+        return column(column).storage();
+    }
+
+    public Storage getStorage(String label) {
+        return getStorage(findColumn(label));
+    }
+
+    public boolean isNull(int row, int column) {
+        return column(column).nulls.get(row(row));
+    }
+
+    public boolean isNull(int row, String label) {
+        return isNull(row, findColumn(label));
+    }
+
+    /**
+     * @return The value of a {@link Storage#LONG} or {@link Storage#INT}
+     * column, or 0 if it is NULL.
+     */
+    public long getLong(int row, int column) {
+        Column c = column(column);
+        if (c instanceof LongColumn) {
+            return ((LongColumn) c).values[row(row)];
+        }
+        if (c instanceof IntColumn) {
+            return ((IntColumn) c).values[row(row)];
+        }
+        throw mismatch(c, "long");
+    }
+
+    public long getLong(int row, String label) {
+        return getLong(row, findColumn(label));
+    }
+
+    /**
+     * @return The value of a {@link Storage#INT} column, or 0 if it is NULL.
+     */
+    public int getInt(int row, int column) {
+        Column c = column(column);
+        if (c instanceof IntColumn) {
+            return ((IntColumn) c).values[row(row)];
+        }
+        throw mismatch(c, "int");
+    }
+
+    public int getInt(int row, String label) {
+        return getInt(row, findColumn(label));
+    }
+
+    /**
+     * @return The value of a {@link Storage#DOUBLE}, {@link Storage#LONG} or
+     * {@link Storage#INT} column, or 0 if it is NULL.
+     */
+    public double getDouble(int row, int column) {
+        Column c = column(column);
+        if (c instanceof DoubleColumn) {
+            return ((DoubleColumn) c).values[row(row)];
+        }
+        if (c instanceof LongColumn) {
+            return ((LongColumn) c).values[row(row)];
+        }
+        if (c instanceof IntColumn) {
+            return ((IntColumn) c).values[row(row)];
+        }
+        throw mismatch(c, "double");
+    }
+
+    public double getDouble(int row, String label) {
+        return getDouble(row, findColumn(label));
+    }
+
+    /**
+     * @return The value of a {@link Storage#BOOLEAN} column, or false if it
+     * is NULL.
+     */
+    public boolean getBoolean(int row, int column) {
+        Column c = column(column);
+        if (c instanceof BooleanColumn) {
+            return ((BooleanColumn) c).values.get(row(row));
+        }
+        throw mismatch(c, "boolean");
+    }
+
+    public boolean getBoolean(int row, String label) {
+        return getBoolean(row, findColumn(label));
+    }
+
+    /**
+     * @return The value of a {@link Storage#STRING} column, or null if it is
+     * NULL.
+     */
+    public String getString(int row, int column) {
+        Column c = column(column);
+        if (c instanceof StringColumn) {
+            StringColumn strings = (StringColumn) c;
+            int code = strings.codes[row(row)];
+            return code < 0 ? null : strings.dictionary[code];
+        }
+        throw mismatch(c, "String");
+    }
+
+    public String getString(int row, String label) {
+        return getString(row, findColumn(label));
+    }
+
+    /**
+     * @return The value of any column, primitive values are boxed, or null
+     * if it is NULL.
+     */
+    public Object getObject(int row, int column) {
+        Column c = column(column);
+        return c.nulls.get(row(row)) ? null : c.get(row);
+    }
+
+    public Object getObject(int row, String label) {
+        return getObject(row, findColumn(label));
+    }
+
+    /**
+     * @return The values of a {@link Storage#LONG} column, NULL values are 0.
+     */
+    public long[] getLongs(String label) {
+        Column c = column(findColumn(label));
+        if (c instanceof LongColumn) {
+            return ((LongColumn) c).values;
+        }
+        throw mismatch(c, "long[]");
+    }
+
+    /**
+     * @return The values of a {@link Storage#INT} column, NULL values are 0.
+     */
+    public int[] getInts(String label) {
+        Column c = column(findColumn(label));
+        if (c instanceof IntColumn) {
+            return ((IntColumn) c).values;
+        }
+        throw mismatch(c, "int[]");
+    }
+
+    /**
+     * @return The values of a {@link Storage#DOUBLE} column, NULL values are
+     * 0.
+     */
+    public double[] getDoubles(String label) {
+        Column c = column(findColumn(label));
+        if (c instanceof DoubleColumn) {
+            return ((DoubleColumn) c).values;
+        }
+        throw mismatch(c, "double[]");
+    }
+
+    /**
+     * @return The dictionary code of each row of a {@link Storage#STRING}
+     * column, -1 for NULL values.
+     * @see #getDictionary(String)
+     */
+    public int[] getCodes(String label) {
+        return strings(label).codes;
+    }
+
+    /**
+     * @return The distinct values of a {@link Storage#STRING} column, indexed
+     * by the codes returned from {@link #getCodes(String)}.
+     */
+    public String[] getDictionary(String label) {
+        return strings(label).dictionary;
+    }
+
+    /**
+     * @return The rows whose value is NULL.
+     */
+    public BitSet getNulls(String label) {
+        return column(findColumn(label)).nulls;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ColumnarResult[rows=%d, columns=%s]", rowCount, Arrays.toString(labels));
+    }
+
+    private StringColumn strings(String label) {
+        Column c = column(findColumn(label));
+        if (c instanceof StringColumn) {
+            return (StringColumn) c;
+        }
+        throw mismatch(c, "String");
+    }
+
+    private Column column(int column) {
+        if (column < 1 || column > columns.length) {
+            throw new JdbcException("Column %d is out of range, the result has %d columns.", column, columns.length);
+        }
+        return columns[column - 1];
+    }
+
+    private int row(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " is out of range, the result has " + rowCount + " rows.");
+        }
+        return row;
+    }
+
+    private JdbcException mismatch(Column column, String type) {
+        return new JdbcException("Column %s is stored as %s and cannot be read as %s.",
+                labels[column.index - 1], column.storage(), type);
+    }
+
+    /**
+     * The storage of a single column.
+     */
+    private abstract static class Column {
+        final int index;
+        final BitSet nulls = new BitSet();
+
+        Column(int index) {
+            this.index = index;
+        }
+
+        abstract Storage storage();
+
+        abstract void read(ResultSet rs, int row) throws SQLException;
+
+        abstract void resize(int capacity);
+
+        abstract Object get(int row);
+
+        /**
+         * Trim the storage to the number of rows read.
+         */
+        void finish(int rowCount) {
+            resize(rowCount);
+        }
+    }
+
+    private static final class LongColumn extends Column {
+        long[] values = new long[INITIAL_CAPACITY];
+
+        LongColumn(int index) {
+            super(index);
+        }
+
+        @Override
+        Storage storage() {
+            return Storage.LONG;
+        }
+
+        @Override
+        void read(ResultSet rs, int row) throws SQLException {
+            values[row] = rs.getLong(index);
+            if (rs.wasNull()) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+    }
+
+    private static final class IntColumn extends Column {
+        int[] values = new int[INITIAL_CAPACITY];
+
+        IntColumn(int index) {
+            super(index);
+        }
+
+        @Override
+        Storage storage() {
+            return Storage.INT;
+        }
+
+        @Override
+        void read(ResultSet rs, int row) throws SQLException {
+            values[row] = rs.getInt(index);
+            if (rs.wasNull()) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+        double[] values = new double[INITIAL_CAPACITY];
+
+        DoubleColumn(int index) {
+            super(index);
+        }
+
+        @Override
+        Storage storage() {
+            return Storage.DOUBLE;
+        }
+
+        @Override
+        void read(ResultSet rs, int row) throws SQLException {
+            values[row] = rs.getDouble(index);
+            if (rs.wasNull()) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+    }
+
+    private static final class BooleanColumn extends Column {
+        final BitSet values = new BitSet();
+
+        BooleanColumn(int index) {
+            super(index);
+        }
+
+        @Override
+        Storage storage() {
+            return Storage.BOOLEAN;
+        }
+
+        @Override
+        void read(ResultSet rs, int row) throws SQLException {
+            if (rs.getBoolean(index)) {
+                values.set(row);
+            } else if (rs.wasNull()) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        void resize(int capacity) {
+            // A BitSet grows on its own.
+        }
+
+        @Override
+        Object get(int row) {
+            return values.get(row);
+        }
+    }
+
+    private static final class StringColumn extends Column {
+        int[] codes = new int[INITIAL_CAPACITY];
+        String[] dictionary = new String[16];
+
+        private Map<String, Integer> encoding = new HashMap<>();
+
+        StringColumn(int index) {
+            super(index);
+        }
+
+        @Override
+        Storage storage() {
+            return Storage.STRING;
+        }
+
+        @Override
+        void read(ResultSet rs, int row) throws SQLException {
+            String value = rs.getString(index);
+
+            if (value == null) {
+                codes[row] = -1;
+                nulls.set(row);
+                return;
+            }
+
+            Integer code = encoding.get(value);
+
+            if (code == null) {
+                code = encoding.size();
+                if (code == dictionary.length) {
+                    dictionary = Arrays.copyOf(dictionary, code << 1);
+                }
+                dictionary[code] = value;
+                encoding.put(value, code);
+            }
+
+            codes[row] = code;
+        }
+
+        @Override
+        void resize(int capacity) {
+            codes = Arrays.copyOf(codes, capacity);
+        }
+
+        @Override
+        void finish(int rowCount) {
+            resize(rowCount);
+            dictionary = Arrays.copyOf(dictionary, encoding.size());
+            encoding = null;
+        }
+
+        @Override
+        Object get(int row) {
+            return dictionary[codes[row]];
+        }
+    }
+
+    private static final class ObjectColumn extends Column {
+        Object[] values = new Object[INITIAL_CAPACITY];
+
+        ObjectColumn(int index) {
+            super(index);
+        }
+
+        @Override
+        Storage storage() {
+            return Storage.OBJECT;
+        }
+
+        @Override
+        void read(ResultSet rs, int row) throws SQLException {
+            values[row] = rs.getObject(index);
+            if (values[row] == null) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+    }
+}
@@ -0,0 +1,589 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.jdbc.JdbcException;
+import indo.sql.mapping.Column;
+import indo.sql.mapping.InclusiveColumnMappingStrategy;
+import indo.sql.mapping.ReflectionColumnMappingStrategy;
+import indo.sql.mapping.RowConstructor;
+import indo.util.Unchecked;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static indo.jdbc.ResultSetMetaDatas.getColumnCount;
+import static indo.jdbc.ResultSetMetaDatas.getColumnName;
+import static indo.jdbc.ResultSetMetaDatas.getColumnType;
+import static indo.jdbc.ResultSets.getMetaData;
+
+/**
+ * A {@link RowProcessor} that creates immutable objects by passing the
+ * columns of each row to a constructor or static factory method, rather than
+ * calling setters on an instance created with a no argument constructor.
+ * <p>
+ * The constructor or factory annotated with {@link RowConstructor} is used,
+ * otherwise the only public constructor, or the public constructor with the
+ * most parameters.  Parameters are matched to columns by name, using the
+ * {@link Column} annotation, which names the column exactly ignoring case, or
+ * the parameter name itself when the class is compiled with {@code
+ * -parameters}, which is matched using a {@link ReflectionColumnMappingStrategy}.  If any parameter has no name the
+ * columns are passed in order instead, so the query must select exactly one
+ * column per parameter.
+ * <pre>
+ * {@code
+ * public final class Employee {
+ *     public Employee(long employeeId, String lastName, LocalDate hireDate) {
+ *         ...
+ *     }
+ * }
+ *
+ * runner.list(sql, RowProcessor.usingConstructor(Employee.class));
+ * }
+ * </pre>
+ * The creator is found once per class, and with the default mapping strategy
+ * the parameter matching and the getter used for each column are resolved
+ * once per class and result shape, so a new instance per query is cheap.
+ * SQL NULL values are passed as the default value of primitive parameters.
+ * Numeric columns are converted to the parameter type only when no
+ * information is lost, e.g. a NUMERIC value of 12.34 cannot be passed to a
+ * long parameter.
+ *
+ * @author Jonathan Cone
+ * @see RowConstructor
+ * @see Column
+ */
+public class ConstructorRowProcessor<T> implements RowProcessor<T> {
+
+    /**
+     * The upper bound of distinct result shapes remembered per class, or per
+     * instance when a custom mapping strategy is used.
+     */
+    private static final int MAX_PLANS = 256;
+
+    private static final ClassValue<Creator> CREATORS = new ClassValue<Creator>() {
+        @Override
+        protected Creator computeValue(Class<?> type) {
+            return new Creator(findCreator(type));
+        }
+    };
+
+    private final Class<T> targetType;
+    private final ReflectionColumnMappingStrategy columnMappingStrategy;
+    private final Executable creator;
+    private final MethodHandle invoker;
+    private final String[] names;
+    private final boolean[] annotated;
+    private final Class<?>[] types;
+    private final ConcurrentMap<Signature, Plan> plans;
+
+    private final ResultSetBindings<Plan> bindings = new ResultSetBindings<>();
+
+    public ConstructorRowProcessor(Class<T> targetType) {
+        this(targetType, new InclusiveColumnMappingStrategy());
+    }
+
+    public ConstructorRowProcessor(Class<T> targetType, ReflectionColumnMappingStrategy columnMappingStrategy) {
+        Creator found = CREATORS.get(targetType);
+
+        this.targetType = targetType;
+        this.columnMappingStrategy = columnMappingStrategy;
+        this.creator = found.creator;
+        this.invoker = found.invoker;
+        this.types = found.types;
+        this.names = found.names;
+        this.annotated = found.annotated;
+
+        // Other strategies may match columns differently, so only the plans
+        // of the default strategy are shared.
+        this.plans = columnMappingStrategy.getClass() == InclusiveColumnMappingStrategy.class
+                ? found.plans
+                : new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return The constructor or factory method used to create each object.
+     */
+    public Executable getCreator() {
+        return creator;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T map(ResultSet rs) {
+        Plan plan = bind(rs);
+
+        Object[] arguments = new Object[types.length];
+
+        try {
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = plan.argument(rs, i);
+            }
+        } catch (SQLException e) {
+            throw Unchecked.sqlException(e);
+        }
+
+        try {
+            return (T) invoker.invokeExact(arguments);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new JdbcException("Could not create " + targetType.getName() + " using " + creator + ".", t);
+        }
+    }
+
+    /**
+     * Resolve the plan the first time a result set is seen, subsequent rows
+     * of the same result set reuse it.
+     */
+    private Plan bind(ResultSet rs) {
+        Plan plan = bindings.get(rs);
+
+        if (plan == null) {
+            ResultSetMetaData rsm = getMetaData(rs);
+
+            int columnCount = getColumnCount(rsm);
+
+            String[] columns = new String[columnCount];
+            int[] sqlTypes = new int[columnCount];
+
+            for (int i = 0; i < columnCount; i++) {
+                columns[i] = getColumnName(rsm, i + 1);
+                sqlTypes[i] = getColumnType(rsm, i + 1);
+            }
+
+            Signature signature = new Signature(columns, sqlTypes);
+
+            plan = plans.get(signature);
+
+            if (plan == null) {
+                plan = compile(columns, sqlTypes);
+
+                if (plans.size() < MAX_PLANS) {
+                    plans.putIfAbsent(signature, plan);
+                }
+            }
+
+            bindings.put(rs, plan);
+        }
+
+        return plan;
+    }
+
+    private Plan compile(String[] columns, int[] sqlTypes) {
+        int[] columnIndexes = names != null ? matchByName(columns) : matchByPosition(columns);
+
+        ColumnReader.Getter[] getters = new ColumnReader.Getter[types.length];
+
+        for (int i = 0; i < types.length; i++) {
+            getters[i] = ColumnReader.getter(sqlTypes[columnIndexes[i] - 1], types[i]);
+        }
+
+        return new Plan(columnIndexes, getters, columns, types, creator);
+    }
+
+    private int[] matchByName(String[] columns) {
+        int[] columnIndexes = new int[names.length];
+
+        Set<String> candidates = new LinkedHashSet<>();
+
+        for (int i = 0; i < names.length; i++) {
+            if (annotated[i]) {
+                columnIndexes[i] = indexOfIgnoreCase(columns, names[i]) + 1;
+            } else {
+                candidates.add(names[i]);
+            }
+        }
+
+        for (int column = 0; column < columns.length && !candidates.isEmpty(); column++) {
+            Optional<String> match = columnMappingStrategy.findMatch(columns[column], candidates);
+
+            if (match.isPresent()) {
+                // The first matching column wins.
+                columnIndexes[Arrays.asList(names).indexOf(match.get())] = column + 1;
+                candidates.remove(match.get());
+            }
+        }
+
+        for (int i = 0; i < names.length; i++) {
+            if (columnIndexes[i] == 0) {
+                throw new JdbcException("No column of %s matches parameter %s of %s.",
+                        Arrays.toString(columns), names[i], creator);
+            }
+        }
+
+        return columnIndexes;
+    }
+
+    private static int indexOfIgnoreCase(String[] columns, String name) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int[] matchByPosition(String[] columns) {
+        if (columns.length != types.length) {
+            throw new JdbcException("The %d columns %s cannot be passed by position to the %d parameters of %s, "
+                            + "compile with -parameters or annotate the parameters with @Column to match them by name.",
+                    columns.length, Arrays.toString(columns), types.length, creator);
+        }
+
+        int[] columnIndexes = new int[types.length];
+
+        for (int i = 0; i < columnIndexes.length; i++) {
+            columnIndexes[i] = i + 1;
+        }
+
+        return columnIndexes;
+    }
+
+    /**
+     * Choose the constructor or factory method, see the class documentation.
+     */
+    private static Executable findCreator(Class<?> type) {
+        List<Executable> annotated = new ArrayList<>();
+
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            if (constructor.isAnnotationPresent(RowConstructor.class)) {
+                annotated.add(constructor);
+            }
+        }
+
+        for (Method method : type.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(RowConstructor.class)) {
+                if (!Modifier.isStatic(method.getModifiers()) || !type.isAssignableFrom(method.getReturnType())) {
+                    throw new JdbcException("%s must be static and return %s to be a @RowConstructor.", method, type.getName());
+                }
+                annotated.add(method);
+            }
+        }
+
+        if (annotated.size() > 1) {
+            throw new JdbcException("%s has more than one @RowConstructor: %s", type.getName(), annotated);
+        }
+
+        if (annotated.size() == 1) {
+            return annotated.get(0);
+        }
+
+        Constructor<?>[] constructors = type.getConstructors();
+
+        Constructor<?> widest = null;
+        boolean ambiguous = false;
+
+        for (Constructor<?> constructor : constructors) {
+            if (widest == null || constructor.getParameterCount() > widest.getParameterCount()) {
+                widest = constructor;
+                ambiguous = false;
+            } else if (constructor.getParameterCount() == widest.getParameterCount()) {
+                ambiguous = true;
+            }
+        }
+
+        if (widest == null || widest.getParameterCount() == 0) {
+            throw new JdbcException("%s has no public constructor with parameters, annotate a constructor or static factory method with @RowConstructor.", type.getName());
+        }
+
+        if (ambiguous) {
+            throw new JdbcException("%s has more than one public constructor with %d parameters, annotate one with @RowConstructor.",
+                    type.getName(), widest.getParameterCount());
+        }
+
+        return widest;
+    }
+
+    /**
+     * @return The name of each parameter, or null if any parameter has no
+     * name and the columns have to be matched by position.
+     */
+    private static String[] parameterNames(Executable creator) {
+        Parameter[] parameters = creator.getParameters();
+
+        String[] names = new String[parameters.length];
+
+        for (int i = 0; i < parameters.length; i++) {
+            Column column = parameters[i].getAnnotation(Column.class);
+
+            if (column != null) {
+                names[i] = column.value();
+            } else if (parameters[i].isNamePresent()) {
+                names[i] = parameters[i].getName();
+            } else {
+                return null;
+            }
+        }
+
+        return names;
+    }
+
+    private static boolean[] annotatedParameters(Executable creator) {
+        Parameter[] parameters = creator.getParameters();
+
+        boolean[] annotated = new boolean[parameters.length];
+
+        for (int i = 0; i < parameters.length; i++) {
+            annotated[i] = parameters[i].isAnnotationPresent(Column.class);
+        }
+
+        return annotated;
+    }
+
+    /**
+     * Create a handle accepting the arguments as an array and returning the
+     * new object.
+     */
+    private static MethodHandle invoker(Executable creator) {
+        try {
+            if (!creator.isAccessible()) {
+                creator.setAccessible(true);
+            }
+
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            MethodHandle handle = creator instanceof Constructor
+                    ? lookup.unreflectConstructor((Constructor<?>) creator)
+                    : lookup.unreflect((Method) creator);
+
+            return handle.asSpreader(Object[].class, creator.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw Unchecked.exception(e);
+        }
+    }
+
+    /**
+     * The creator of a class along with everything derived from it.
+     */
+    private static final class Creator {
+        private final Executable creator;
+        private final MethodHandle invoker;
+        private final Class<?>[] types;
+        private final String[] names;
+        private final boolean[] annotated;
+        private final ConcurrentMap<Signature, Plan> plans;
+
+        private Creator(Executable creator) {
+            this.creator = creator;
+            this.invoker = invoker(creator);
+            this.types = creator.getParameterTypes();
+            this.names = parameterNames(creator);
+            this.annotated = annotatedParameters(creator);
+            this.plans = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * The parameter to column assignments for a result shape.
+     */
+    private static final class Plan {
+        private final int[] columnIndexes;
+        private final ColumnReader.Getter[] getters;
+        private final String[] columns;
+        private final Class<?>[] types;
+        private final Executable creator;
+
+        private Plan(int[] columnIndexes, ColumnReader.Getter[] getters, String[] columns,
+                     Class<?>[] types, Executable creator) {
+            this.columnIndexes = columnIndexes;
+            this.getters = getters;
+            this.columns = columns;
+            this.types = types;
+            this.creator = creator;
+        }
+
+        private Object argument(ResultSet rs, int parameter) throws SQLException {
+            int columnIndex = columnIndexes[parameter];
+
+            ColumnReader.Getter getter = getters[parameter];
+
+            Object value = getter != null ? getter.get(rs, columnIndex) : rs.getObject(columnIndex);
+
+            Class<?> type = types[parameter];
+
+            if (value == null) {
+                return type.isPrimitive() ? defaultValue(type) : null;
+            }
+
+            if (getter != null || wrap(type).isInstance(value)) {
+                return value;
+            }
+
+            Object converted;
+
+            try {
+                converted = convert(value, wrap(type));
+            } catch (ArithmeticException e) {
+                throw new JdbcException("Column %s value %s cannot be passed to parameter %d of %s without losing information.",
+                        columns[columnIndex - 1], value, parameter, creator);
+            }
+
+            if (converted == null) {
+                throw new JdbcException("Column %s of type %s cannot be passed to parameter %d of %s.",
+                        columns[columnIndex - 1], value.getClass().getName(), parameter, creator);
+            }
+
+            return converted;
+        }
+    }
+
+    /**
+     * Convert between numeric types, e.g. a DECIMAL column passed to a long
+     * parameter.  Conversions to an integral type must be exact, conversions
+     * to a floating point type round as usual.
+     *
+     * @return The converted value, or null if no conversion is possible.
+     * @throws ArithmeticException if the value has a fractional part or is
+     *                             out of the range of an integral type.
+     */
+    private static Object convert(Object value, Class<?> type) {
+        if (!(value instanceof Number)) {
+            return null;
+        }
+
+        Number number = (Number) value;
+
+        if (type == Long.class) {
+            return longValueExact(number);
+        } else if (type == Integer.class) {
+            return Math.toIntExact(longValueExact(number));
+        } else if (type == Short.class) {
+            long exact = longValueExact(number);
+            if (exact != (short) exact) {
+                throw new ArithmeticException("short overflow");
+            }
+            return (short) exact;
+        } else if (type == Byte.class) {
+            long exact = longValueExact(number);
+            if (exact != (byte) exact) {
+                throw new ArithmeticException("byte overflow");
+            }
+            return (byte) exact;
+        } else if (type == Double.class) {
+            return number.doubleValue();
+        } else if (type == Float.class) {
+            return number.floatValue();
+        } else if (type == BigDecimal.class) {
+            return decimalValue(number);
+        } else if (type == BigInteger.class) {
+            return decimalValue(number).toBigIntegerExact();
+        }
+
+        return null;
+    }
+
+    private static long longValueExact(Number number) {
+        if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte) {
+            return number.longValue();
+        }
+
+        return decimalValue(number).longValueExact();
+    }
+
+    private static BigDecimal decimalValue(Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        } else if (number instanceof BigInteger) {
+            return new BigDecimal((BigInteger) number);
+        }
+
+        double approximate = number.doubleValue();
+
+        if (Double.isNaN(approximate) || Double.isInfinite(approximate)) {
+            throw new ArithmeticException(number + " has no decimal value");
+        }
+
+        return new BigDecimal(number.toString());
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == char.class) {
+            return '\0';
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == float.class) {
+            return 0f;
+        } else {
+            return 0d;
+        }
+    }
+
+    /**
+     * Identifies a result shape by its column labels and types.
+     */
+    private static final class Signature {
+        private final String[] columns;
+        private final int[] sqlTypes;
+        private final int hashCode;
+
+        private Signature(String[] columns, int[] sqlTypes) {
+            this.columns = columns;
+            this.sqlTypes = sqlTypes;
+            this.hashCode = 31 * Arrays.hashCode(columns) + Arrays.hashCode(sqlTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Signature)) {
+                return false;
+            }
+            Signature other = (Signature) o;
+            return Arrays.equals(columns, other.columns) && Arrays.equals(sqlTypes, other.sqlTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
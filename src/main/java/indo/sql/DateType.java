@@ -29,6 +29,16 @@ import java.time.LocalTime;
  * Created by jcone on 1/30/17.
  */
 public class DateType {
+    public static LocalDate getLocalDate(ResultSet rs, int columnIndex) {
+        Date date = ResultSets.getDate(rs, columnIndex);
+
+        if (date != null) {
+            return date.toLocalDate();
+        }
+
+        return null;
+    }
+
     public static LocalDate getLocalDate(ResultSet rs, String columnLabel) {
         Date date = ResultSets.getDate(rs, columnLabel);
 
@@ -47,6 +57,16 @@ public class DateType {
         }
     }
 
+    public static LocalDateTime getLocalDateTime(ResultSet rs, int columnIndex) {
+        Timestamp timestamp = ResultSets.getTimestamp(rs, columnIndex);
+
+        if (timestamp != null) {
+            return timestamp.toLocalDateTime();
+        }
+
+        return null;
+    }
+
     public static LocalDateTime getLocalDateTime(ResultSet rs, String columnLabel) {
         Timestamp timestamp = ResultSets.getTimestamp(rs, columnLabel);
 
@@ -66,6 +86,16 @@ public class DateType {
         }
     }
 
+    public static Instant getInstant(ResultSet rs, int columnIndex) {
+        Timestamp timestamp = ResultSets.getTimestamp(rs, columnIndex);
+
+        if (timestamp != null) {
+            return timestamp.toInstant();
+        }
+
+        return null;
+    }
+
     public static Instant getInstant(ResultSet rs, String columnLabel) {
         Timestamp timestamp = ResultSets.getTimestamp(rs, columnLabel);
 
@@ -84,6 +114,16 @@ public class DateType {
         }
     }
 
+    public static LocalTime getLocalTime(ResultSet rs, int columnIndex) {
+        Time time = ResultSets.getTime(rs, columnIndex);
+
+        if (time != null) {
+            return time.toLocalTime();
+        }
+
+        return null;
+    }
+
     public static LocalTime getLocalTime(ResultSet rs, String columnLabel) {
         Time time = ResultSets.getTime(rs, columnLabel);
 
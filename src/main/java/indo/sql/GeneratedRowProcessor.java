@@ -0,0 +1,313 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.jdbc.JdbcException;
+import indo.sql.mapping.InclusiveColumnMappingStrategy;
+import indo.sql.mapping.ReflectionColumnMappingStrategy;
+import indo.util.Accessors;
+import indo.util.Unchecked;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import static indo.jdbc.ResultSetMetaDatas.getColumnCount;
+import static indo.jdbc.ResultSetMetaDatas.getColumnName;
+import static indo.jdbc.ResultSets.getMetaData;
+
+/**
+ * The base class of the row processors generated for {@link
+ * indo.sql.mapping.IndoRow} classes.  Columns are matched to properties the
+ * same way as {@link ReflectionRowProcessor} does by default, once per
+ * result shape, after which each row is mapped by the generated {@link
+ * #set(Object, int, ResultSet, int)} method calling the setters directly.
+ * The matches are shared by every instance of a generated class, so the
+ * instances handed out per query only track the result set being read.
+ * <p>
+ * The static methods read nullable values for the generated code.
+ *
+ * @author Jonathan Cone
+ * @see RowProcessor#using(Class)
+ */
+public abstract class GeneratedRowProcessor<T> implements RowProcessor<T> {
+
+    /**
+     * Appended to the name of an annotated class to name its row processor.
+     */
+    public static final String SUFFIX = "_IndoRowProcessor";
+
+    /**
+     * The upper bound of distinct result shapes remembered per generated
+     * class.
+     */
+    private static final int MAX_SHAPES = 256;
+
+    private static final ClassValue<Optional<Supplier<?>>> GENERATED = new ClassValue<Optional<Supplier<?>>>() {
+        @Override
+        protected Optional<Supplier<?>> computeValue(Class<?> type) {
+            return generatedClass(type, SUFFIX).map(Accessors::constructor);
+        }
+    };
+
+    private static final ClassValue<ConcurrentMap<List<String>, int[]>> SHAPES =
+            new ClassValue<ConcurrentMap<List<String>, int[]>>() {
+                @Override
+                protected ConcurrentMap<List<String>, int[]> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private final String[] properties;
+    private final Set<String> propertyNames;
+    private final ReflectionColumnMappingStrategy columnMappingStrategy;
+    private final ConcurrentMap<List<String>, int[]> shapes;
+
+    private final ResultSetBindings<int[]> bindings = new ResultSetBindings<>();
+
+    /**
+     * @param properties The name of each property, the position of a name is
+     *                   the index passed to {@link #set(Object, int,
+     *                   ResultSet, int)}.
+     */
+    protected GeneratedRowProcessor(String... properties) {
+        this.properties = properties;
+        this.propertyNames = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(properties)));
+        this.columnMappingStrategy = new InclusiveColumnMappingStrategy();
+        this.shapes = SHAPES.get(getClass());
+    }
+
+    /**
+     * Find the row processor generated for a class.
+     *
+     * @param type The class rows are mapped to.
+     * @param <S>  The type rows are mapped to.
+     * @return A new instance of the generated processor, or null if the class
+     * was not processed.
+     */
+    @SuppressWarnings("unchecked")
+    static <S> RowProcessor<S> find(Class<S> type) {
+        return GENERATED.get(type)
+                .map(constructor -> (RowProcessor<S>) constructor.get())
+                .orElse(null);
+    }
+
+    /**
+     * @return A new instance of the mapped class.
+     */
+    protected abstract T newInstance();
+
+    /**
+     * Assign a property from a column of the current row.
+     *
+     * @param target      The object being mapped.
+     * @param property    The index of the property.
+     * @param rs          The result set positioned on the current row.
+     * @param columnIndex The column to read.
+     * @throws SQLException if the column could not be read.
+     */
+    protected abstract void set(T target, int property, ResultSet rs, int columnIndex) throws SQLException;
+
+    @Override
+    public T map(ResultSet rs) {
+        int[] propertyOfColumn = bind(rs);
+
+        T target = newInstance();
+
+        try {
+            for (int i = 0; i < propertyOfColumn.length; i++) {
+                set(target, propertyOfColumn[i], rs, i + 1);
+            }
+        } catch (SQLException e) {
+            throw Unchecked.sqlException(e);
+        }
+
+        return target;
+    }
+
+    /**
+     * Match the columns of a result set to properties the first time it is
+     * seen, subsequent rows of the same result set reuse the match.
+     */
+    int[] bind(ResultSet rs) {
+        int[] propertyOfColumn = bindings.get(rs);
+
+        if (propertyOfColumn == null) {
+            ResultSetMetaData rsm = getMetaData(rs);
+
+            String[] columns = new String[getColumnCount(rsm)];
+
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = getColumnName(rsm, i + 1);
+            }
+
+            List<String> shape = Arrays.asList(columns);
+
+            propertyOfColumn = shapes.get(shape);
+
+            if (propertyOfColumn == null) {
+                propertyOfColumn = match(columns);
+
+                if (shapes.size() < MAX_SHAPES) {
+                    shapes.putIfAbsent(shape, propertyOfColumn);
+                }
+            }
+
+            bindings.put(rs, propertyOfColumn);
+        }
+
+        return propertyOfColumn;
+    }
+
+    private int[] match(String[] columns) {
+        int[] propertyOfColumn = new int[columns.length];
+
+        for (int i = 0; i < columns.length; i++) {
+            String column = columns[i];
+
+            String property = columnMappingStrategy.findMatch(column, propertyNames)
+                    .orElseThrow(() -> new JdbcException("Could not map column %s to a property of %s.",
+                            column, getClass().getName()));
+
+            propertyOfColumn[i] = Arrays.asList(properties).indexOf(property);
+        }
+
+        return propertyOfColumn;
+    }
+
+    protected static Long getLong(ResultSet rs, int columnIndex) throws SQLException {
+        long value = rs.getLong(columnIndex);
+        return rs.wasNull() ? null : value;
+    }
+
+    protected static Integer getInteger(ResultSet rs, int columnIndex) throws SQLException {
+        int value = rs.getInt(columnIndex);
+        return rs.wasNull() ? null : value;
+    }
+
+    protected static Short getShort(ResultSet rs, int columnIndex) throws SQLException {
+        short value = rs.getShort(columnIndex);
+        return rs.wasNull() ? null : value;
+    }
+
+    protected static Byte getByte(ResultSet rs, int columnIndex) throws SQLException {
+        byte value = rs.getByte(columnIndex);
+        return rs.wasNull() ? null : value;
+    }
+
+    protected static Double getDouble(ResultSet rs, int columnIndex) throws SQLException {
+        double value = rs.getDouble(columnIndex);
+        return rs.wasNull() ? null : value;
+    }
+
+    protected static Float getFloat(ResultSet rs, int columnIndex) throws SQLException {
+        float value = rs.getFloat(columnIndex);
+        return rs.wasNull() ? null : value;
+    }
+
+    protected static Boolean getBoolean(ResultSet rs, int columnIndex) throws SQLException {
+        boolean value = rs.getBoolean(columnIndex);
+        return rs.wasNull() ? null : value;
+    }
+
+    protected static Character getCharacter(ResultSet rs, int columnIndex) throws SQLException {
+        String value = rs.getString(columnIndex);
+        return value == null || value.isEmpty() ? null : value.charAt(0);
+    }
+
+    protected static LocalDate getLocalDate(ResultSet rs, int columnIndex) throws SQLException {
+        java.sql.Date value = rs.getDate(columnIndex);
+        return value != null ? value.toLocalDate() : null;
+    }
+
+    protected static LocalDateTime getLocalDateTime(ResultSet rs, int columnIndex) throws SQLException {
+        Timestamp value = rs.getTimestamp(columnIndex);
+        return value != null ? value.toLocalDateTime() : null;
+    }
+
+    protected static LocalTime getLocalTime(ResultSet rs, int columnIndex) throws SQLException {
+        Time value = rs.getTime(columnIndex);
+        return value != null ? value.toLocalTime() : null;
+    }
+
+    protected static Instant getInstant(ResultSet rs, int columnIndex) throws SQLException {
+        Timestamp value = rs.getTimestamp(columnIndex);
+        return value != null ? value.toInstant() : null;
+    }
+
+    protected static <E extends Enum<E>> E getEnum(ResultSet rs, int columnIndex, Class<E> type) throws SQLException {
+        String value = rs.getString(columnIndex);
+        return value != null ? Enum.valueOf(type, value) : null;
+    }
+
+    protected static <V> V getObject(ResultSet rs, int columnIndex, Class<V> type) throws SQLException {
+        Object value = rs.getObject(columnIndex);
+
+        if (value != null && !type.isInstance(value)) {
+            throw new JdbcException("Column %d of type %s cannot be assigned to %s.",
+                    columnIndex, value.getClass().getName(), type.getName());
+        }
+
+        return type.cast(value);
+    }
+
+    /**
+     * Load the class generated for an annotated class.
+     *
+     * @param type   The annotated class.
+     * @param suffix The suffix of the generated class.
+     * @return The generated class, or empty if there is none.
+     */
+    static Optional<Class<?>> generatedClass(Class<?> type, String suffix) {
+        String packageName = type.getPackage() != null ? type.getPackage().getName() : "";
+        String simpleName = type.getName().substring(packageName.isEmpty() ? 0 : packageName.length() + 1);
+        String name = (packageName.isEmpty() ? "" : packageName + ".") + simpleName.replace('$', '_') + suffix;
+
+        try {
+            return Optional.of(Class.forName(name, true, type.getClassLoader()));
+        } catch (ClassNotFoundException | LinkageError e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Create an instance of a generated class using its public no argument
+     * constructor.
+     */
+    static Object newInstance(Class<?> generated) {
+        try {
+            return generated.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw Unchecked.exception(e);
+        }
+    }
+}
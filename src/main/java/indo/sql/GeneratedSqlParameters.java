@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The base class of the parameter lookups generated for {@link
+ * indo.sql.mapping.IndoRow} classes.  A generated instance holds no state,
+ * {@link #of(Object)} creates the {@link SqlParameterProvider} for a specific
+ * object, which behaves like {@link PojoSqlParameters} but calls the getters
+ * directly.
+ *
+ * @author Jonathan Cone
+ * @see SqlParameters#fromObject(Object)
+ */
+public abstract class GeneratedSqlParameters<T> {
+
+    /**
+     * Appended to the name of an annotated class to name its parameters.
+     */
+    public static final String SUFFIX = "_IndoSqlParameters";
+
+    /**
+     * Returned by {@link #get(Object, String)} for names that are not
+     * properties, as opposed to properties whose value is null.
+     */
+    protected static final Object ABSENT = new Object();
+
+    private static final ClassValue<Optional<GeneratedSqlParameters<?>>> GENERATED =
+            new ClassValue<Optional<GeneratedSqlParameters<?>>>() {
+                @Override
+                protected Optional<GeneratedSqlParameters<?>> computeValue(Class<?> type) {
+                    return GeneratedRowProcessor.generatedClass(type, SUFFIX)
+                            .map(generated -> (GeneratedSqlParameters<?>) GeneratedRowProcessor.newInstance(generated));
+                }
+            };
+
+    /**
+     * Find the parameters generated for a class.
+     *
+     * @param type The annotated class.
+     * @param <S>  The annotated type.
+     * @return The generated instance, or null if the class was not processed.
+     */
+    @SuppressWarnings("unchecked")
+    static <S> GeneratedSqlParameters<S> find(Class<S> type) {
+        return (GeneratedSqlParameters<S>) GENERATED.get(type).orElse(null);
+    }
+
+    /**
+     * Read a property of an object.
+     *
+     * @param instance The object to read.
+     * @param name     The name of the property.
+     * @return The value of the property, or {@link #ABSENT} if there is no
+     * such property.
+     */
+    protected abstract Object get(T instance, String name);
+
+    /**
+     * @param instance The object whose properties provide the parameters.
+     * @return A provider backed by the object.
+     */
+    public SqlParameterProvider of(T instance) {
+        return new Provider<>(this, instance);
+    }
+
+    private static final class Provider<T> implements SqlParameterProvider {
+        private final GeneratedSqlParameters<T> generated;
+        private final T instance;
+        private final Map<String, SqlParameter> lazyParameters;
+
+        private Provider(GeneratedSqlParameters<T> generated, T instance) {
+            this.generated = generated;
+            this.instance = instance;
+            this.lazyParameters = new HashMap<>();
+        }
+
+        @Override
+        public Optional<SqlParameter> findParameter(String name) {
+            return Optional.ofNullable(getParameter(name));
+        }
+
+        @Override
+        public SqlParameter getParameter(String name) {
+            SqlParameter parameter = lazyParameters.get(name);
+
+            if (parameter == null) {
+                Object value = generated.get(instance, name);
+
+                if (value != ABSENT) {
+                    // Null properties are bound as null rather than ignored,
+                    // as for PojoSqlParameters.
+                    parameter = new SqlParameter(name, value);
+                    lazyParameters.put(name, parameter);
+                }
+            }
+
+            return parameter;
+        }
+
+        /**
+         * @throws UnsupportedOperationException This method is not supported.
+         */
+        @Override
+        public Optional<SqlParameter> findParameter(Integer index) {
+            throw new UnsupportedOperationException("Method not supported for POJO parameters.");
+        }
+
+        @Override
+        public Iterator<SqlParameter> iterator() {
+            return lazyParameters.values().iterator();
+        }
+    }
+}
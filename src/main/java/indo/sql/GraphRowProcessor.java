@@ -0,0 +1,482 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.jdbc.JdbcException;
+import indo.sql.mapping.InclusiveColumnMappingStrategy;
+import indo.sql.mapping.ReflectionColumnMappingStrategy;
+import indo.util.Accessors;
+import indo.util.Reflect;
+import indo.util.Unchecked;
+
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static indo.jdbc.ResultSetMetaDatas.getColumnCount;
+import static indo.jdbc.ResultSetMetaDatas.getColumnLabel;
+import static indo.jdbc.ResultSetMetaDatas.getColumnType;
+import static indo.jdbc.ResultSets.getMetaData;
+import static indo.log.Logger.debug;
+
+/**
+ * Rebuilds an object graph from the rows of a query that joins parent and
+ * child tables, e.g. departments and their employees, in a single pass over
+ * the result set.  Each level of the graph is identified by a key column,
+ * and every entity is created and mapped only the first time its key is
+ * seen, so a parent repeated across many joined rows is built once and its
+ * children are collected into it.
+ * <pre>
+ * {@code
+ * GraphRowProcessor<Department> graph = GraphRowProcessor.of(Department.class, "department_id")
+ *         .join("employees", Employee.class, "employee_id", "e_")
+ *         .join("employees.timecards", Timecard.class, "timecard_id", "t_");
+ *
+ * List<Department> departments = runner.graph(
+ *         " SELECT d.department_id, d.name,                             " +
+ *         "        e.employee_id e_employee_id, e.last_name e_last_name, " +
+ *         "        t.timecard_id t_timecard_id, t.actual_hours t_actual_hours " +
+ *         " FROM department d                                           " +
+ *         " LEFT JOIN employee e ON e.department_id = d.department_id  " +
+ *         " LEFT JOIN timecard t ON t.employee_id = e.employee_id      ",
+ *         graph);
+ * }
+ * </pre>
+ * A level is joined by the path of the property on its parent, which is
+ * either a collection, populated in row order, or a single reference.  When
+ * tables share column names each level can be given a column prefix, usually
+ * through column aliases, which are matched by label.  Only columns with that
+ * prefix are mapped to the level and the prefix is removed
+ * before matching properties.  Columns that match no property of a level are
+ * ignored.  A row whose key column is NULL, e.g. from an outer join, has no
+ * entity at that level or below it.
+ * <p>
+ * Entities are de-duplicated by key per level within a single result set,
+ * nothing is shared between queries.  An instance only holds the graph
+ * definition, so it can be reused and shared between threads.
+ *
+ * @author Jonathan Cone
+ * @see SqlRunner#graph(String, GraphRowProcessor, SqlParameterProvider)
+ */
+public class GraphRowProcessor<T> {
+
+    private final ReflectionColumnMappingStrategy columnMappingStrategy;
+    private final List<Level> levels;
+
+    private GraphRowProcessor(ReflectionColumnMappingStrategy columnMappingStrategy, List<Level> levels) {
+        this.columnMappingStrategy = columnMappingStrategy;
+        this.levels = levels;
+    }
+
+    /**
+     * Define the root of a graph.
+     *
+     * @param type      The class of the root entities, which are returned.
+     * @param keyColumn The column identifying a root entity.
+     * @param <T>       The type of the root entities.
+     * @return A graph with only the root level.
+     */
+    public static <T> GraphRowProcessor<T> of(Class<T> type, String keyColumn) {
+        return of(type, keyColumn, null);
+    }
+
+    /**
+     * Define the root of a graph whose columns are prefixed.
+     *
+     * @param type         The class of the root entities, which are returned.
+     * @param keyColumn    The column identifying a root entity, including
+     *                     the prefix.
+     * @param columnPrefix The prefix of the columns mapped to the root.
+     * @param <T>          The type of the root entities.
+     * @return A graph with only the root level.
+     */
+    public static <T> GraphRowProcessor<T> of(Class<T> type, String keyColumn, String columnPrefix) {
+        List<Level> levels = new ArrayList<>();
+        levels.add(new Level("", -1, null, type, keyColumn, columnPrefix));
+
+        return new GraphRowProcessor<>(new InclusiveColumnMappingStrategy(), levels);
+    }
+
+    /**
+     * Add a level below an existing level.
+     *
+     * @param path      The dotted path of the property the entities are
+     *                  assigned or added to, e.g. {@code "employees"} below
+     *                  the root or {@code "employees.timecards"} below that.
+     * @param type      The class of the entities at this level.
+     * @param keyColumn The column identifying an entity at this level.
+     * @return A copy of this graph with the level added.
+     */
+    public GraphRowProcessor<T> join(String path, Class<?> type, String keyColumn) {
+        return join(path, type, keyColumn, null);
+    }
+
+    /**
+     * Add a level whose columns are prefixed below an existing level.
+     *
+     * @param path         The dotted path of the property the entities are
+     *                     assigned or added to.
+     * @param type         The class of the entities at this level.
+     * @param keyColumn    The column identifying an entity at this level,
+     *                     including the prefix.
+     * @param columnPrefix The prefix of the columns mapped to this level.
+     * @return A copy of this graph with the level added.
+     */
+    public GraphRowProcessor<T> join(String path, Class<?> type, String keyColumn, String columnPrefix) {
+        int separator = path.lastIndexOf('.');
+
+        String parentPath = separator < 0 ? "" : path.substring(0, separator);
+        String property = path.substring(separator + 1);
+
+        int parent = -1;
+
+        for (int i = 0; i < levels.size(); i++) {
+            if (levels.get(i).path.equals(path)) {
+                throw new IllegalArgumentException("The path " + path + " has already been joined.");
+            }
+            if (levels.get(i).path.equals(parentPath)) {
+                parent = i;
+            }
+        }
+
+        if (parent < 0) {
+            throw new IllegalArgumentException("The parent of " + path + " must be joined first.");
+        }
+
+        List<Level> joined = new ArrayList<>(levels);
+        joined.add(new Level(path, parent, levels.get(parent).attachment(property), type, keyColumn, columnPrefix));
+
+        return new GraphRowProcessor<>(columnMappingStrategy, joined);
+    }
+
+    /**
+     * @param columnMappingStrategy The strategy used to match columns to
+     *                              properties at every level.
+     * @return A copy of this graph using the supplied strategy.
+     */
+    public GraphRowProcessor<T> using(ReflectionColumnMappingStrategy columnMappingStrategy) {
+        return new GraphRowProcessor<>(columnMappingStrategy, levels);
+    }
+
+    /**
+     * Read the remaining rows of a result set and build the graph.
+     *
+     * @param rs The result set, positioned before the first row to read.
+     * @return The distinct root entities in the order they first appeared.
+     * @throws SQLException if the result set could not be read.
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> process(ResultSet rs) throws SQLException {
+        Binding[] bindings = bind(getMetaData(rs));
+
+        int depth = bindings.length;
+
+        List<Map<Object, Object>> identities = new ArrayList<>(depth);
+        List<Set<Link>> links = new ArrayList<>(depth);
+
+        for (int i = 0; i < depth; i++) {
+            identities.add(new HashMap<>());
+            links.add(new HashSet<>());
+        }
+
+        List<T> roots = new ArrayList<>();
+
+        Object[] keys = new Object[depth];
+        Object[] entities = new Object[depth];
+
+        while (rs.next()) {
+            for (int i = 0; i < depth; i++) {
+                Level level = levels.get(i);
+
+                entities[i] = null;
+                keys[i] = null;
+
+                // Nothing below a missing parent.
+                if (level.parent >= 0 && entities[level.parent] == null) {
+                    continue;
+                }
+
+                Object key = rs.getObject(bindings[i].keyIndex);
+
+                if (key == null) {
+                    continue;
+                }
+
+                Map<Object, Object> identity = identities.get(i);
+
+                Object entity = identity.get(key);
+
+                if (entity == null) {
+                    entity = bindings[i].map(rs);
+                    identity.put(key, entity);
+
+                    if (level.parent < 0) {
+                        roots.add((T) entity);
+                    }
+                }
+
+                if (level.parent >= 0 && links.get(i).add(new Link(keys[level.parent], key))) {
+                    level.attachment.attach(entities[level.parent], entity);
+                }
+
+                keys[i] = key;
+                entities[i] = entity;
+            }
+        }
+
+        return roots;
+    }
+
+    /**
+     * Resolve the key column and mapping plan of each level for the columns
+     * of a result set.
+     */
+    private Binding[] bind(ResultSetMetaData rsm) {
+        int columnCount = getColumnCount(rsm);
+
+        String[] columns = new String[columnCount];
+        int[] sqlTypes = new int[columnCount];
+
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = getColumnLabel(rsm, i + 1);
+            sqlTypes[i] = getColumnType(rsm, i + 1);
+        }
+
+        Binding[] bindings = new Binding[levels.size()];
+
+        for (int i = 0; i < bindings.length; i++) {
+            bindings[i] = levels.get(i).bind(columns, sqlTypes, columnMappingStrategy);
+        }
+
+        return bindings;
+    }
+
+    /**
+     * A class of entity within the graph and how it is attached to its
+     * parent.
+     */
+    private static final class Level {
+        private final String path;
+        private final int parent;
+        private final Attachment attachment;
+        private final Class<?> type;
+        private final String keyColumn;
+        private final String columnPrefix;
+        private final Supplier<?> constructor;
+
+        private Level(String path, int parent, Attachment attachment, Class<?> type, String keyColumn, String columnPrefix) {
+            this.path = Objects.requireNonNull(path);
+            this.parent = parent;
+            this.attachment = attachment;
+            this.type = Objects.requireNonNull(type);
+            this.keyColumn = Objects.requireNonNull(keyColumn);
+            this.columnPrefix = columnPrefix;
+            this.constructor = Accessors.constructor(type);
+        }
+
+        /**
+         * Resolve how a child is attached to entities of this level.
+         */
+        private Attachment attachment(String property) {
+            Reflect<?> reflect = Reflect.on(type);
+
+            List<Method> setters = reflect.findSetters(property);
+
+            if (setters.size() != 1) {
+                throw new IllegalArgumentException(type.getName() + " must have exactly one setter for " + property + ".");
+            }
+
+            Class<?> propertyType = setters.get(0).getParameterTypes()[0];
+            BiConsumer<Object, Object> setter = Accessors.setter(setters.get(0));
+
+            if (!Collection.class.isAssignableFrom(propertyType)) {
+                return setter::accept;
+            }
+
+            Function<Object, Object> getter = reflect.findGetter(property)
+                    .map(Accessors::getter)
+                    .orElseThrow(() -> new IllegalArgumentException(type.getName() + " has no getter for " + property + "."));
+
+            Supplier<Collection<Object>> factory = collectionFactory(propertyType);
+
+            return (parent, child) -> {
+                @SuppressWarnings("unchecked")
+                Collection<Object> children = (Collection<Object>) getter.apply(parent);
+
+                if (children == null) {
+                    children = factory.get();
+                    setter.accept(parent, children);
+                }
+
+                children.add(child);
+            };
+        }
+
+        private static Supplier<Collection<Object>> collectionFactory(Class<?> type) {
+            if (type.isAssignableFrom(ArrayList.class)) {
+                return ArrayList::new;
+            } else if (type.isAssignableFrom(LinkedHashSet.class)) {
+                return LinkedHashSet::new;
+            } else if (SortedSet.class.isAssignableFrom(type) && type.isAssignableFrom(TreeSet.class)) {
+                return TreeSet::new;
+            }
+            throw new IllegalArgumentException("Cannot create a collection of type " + type.getName() + ".");
+        }
+
+        private Binding bind(String[] columns, int[] sqlTypes, ReflectionColumnMappingStrategy strategy) {
+            String[] owned = new String[columns.length];
+
+            int keyIndex = 0;
+
+            for (int i = 0; i < columns.length; i++) {
+                String column = columns[i];
+
+                if (column.equalsIgnoreCase(keyColumn)) {
+                    keyIndex = i + 1;
+                }
+
+                if (columnPrefix == null) {
+                    owned[i] = column;
+                } else if (column.regionMatches(true, 0, columnPrefix, 0, columnPrefix.length())) {
+                    owned[i] = column.substring(columnPrefix.length());
+                }
+            }
+
+            if (keyIndex == 0) {
+                throw new JdbcException("The key column %s of %s is not part of the result.", keyColumn, type.getName());
+            }
+
+            MappingPlan plan = MappingPlan.of(type, strategy, owned);
+
+            MappingPlan.Step[] steps = plan.steps();
+            ColumnReader[] readers = new ColumnReader[steps.length];
+
+            for (int i = 0; i < steps.length; i++) {
+                readers[i] = steps[i].reader(sqlTypes[i]);
+            }
+
+            return new Binding(constructor, keyIndex, steps, readers);
+        }
+    }
+
+    /**
+     * Assigns or adds a child entity to its parent.
+     */
+    @FunctionalInterface
+    private interface Attachment {
+        void attach(Object parent, Object child);
+    }
+
+    /**
+     * How a level is read from a specific result set.
+     */
+    private static final class Binding {
+        private final Supplier<?> constructor;
+        private final int keyIndex;
+        private final MappingPlan.Step[] steps;
+        private final ColumnReader[] readers;
+
+        private Binding(Supplier<?> constructor, int keyIndex, MappingPlan.Step[] steps, ColumnReader[] readers) {
+            this.constructor = constructor;
+            this.keyIndex = keyIndex;
+            this.steps = steps;
+            this.readers = readers;
+        }
+
+        private Object map(ResultSet rs) {
+            Object entity = constructor.get();
+
+            try {
+                for (int i = 0; i < steps.length; i++) {
+                    MappingPlan.Step step = steps[i];
+
+                    if (step.getProperty() == null) {
+                        continue;
+                    }
+
+                    if (readers[i] != null) {
+                        readers[i].read(rs, step.getColumnIndex(), entity);
+                        continue;
+                    }
+
+                    Object value = rs.getObject(step.getColumnIndex());
+
+                    Optional<BiConsumer<Object, Object>> setter = step.setter(value);
+
+                    if (setter.isPresent()) {
+                        setter.get().accept(entity, value);
+                    } else {
+                        debug(this, "There is no setter method for property %s that will accept %s",
+                                step.getProperty(), value == null ? null : value.getClass());
+                    }
+                }
+            } catch (SQLException e) {
+                throw Unchecked.sqlException(e);
+            }
+
+            return entity;
+        }
+    }
+
+    /**
+     * A parent to child assignment that has already been made.
+     */
+    private static final class Link {
+        private final Object parentKey;
+        private final Object childKey;
+        private final int hashCode;
+
+        private Link(Object parentKey, Object childKey) {
+            this.parentKey = parentKey;
+            this.childKey = childKey;
+            this.hashCode = 31 * parentKey.hashCode() + childKey.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Link)) {
+                return false;
+            }
+            Link other = (Link) o;
+            return parentKey.equals(other.parentKey) && childKey.equals(other.childKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Splits a query whose collection or array parameter holds more values than
+ * a database accepts into several queries, each binding a chunk of the
+ * values.  The parameters a statement uses are only known to the parser, so
+ * the statement is parsed once with a probe which watches the parameters
+ * being looked up.  The first oversized collection or array is chunked,
+ * every other parameter is bound as is in each chunk.
+ *
+ * @author Jonathan Cone
+ * @see QueryOptions#inListChunkSize(int)
+ */
+final class InListChunks {
+
+    private final SqlParameterProvider parameters;
+    private final Map<String, SqlParameter> used;
+
+    private final String name;
+    private final Integer type;
+    private final Object values;
+    private final int size;
+    private final int chunkSize;
+
+    private InListChunks(Probe probe) {
+        this.parameters = probe.parameters;
+        this.used = probe.used;
+        this.name = probe.name;
+        this.type = probe.type;
+        this.values = probe.values;
+        this.size = probe.size;
+        this.chunkSize = probe.chunkSize;
+    }
+
+    /**
+     * @param parser     The parser the statement is executed with.
+     * @param sql        The statement.
+     * @param parameters The parameters of the statement.
+     * @param chunkSize  The largest number of values bound per chunk.
+     * @return The chunks, or null if no parameter holds more values than
+     * the chunk size and the statement can be executed as is.
+     */
+    static InListChunks split(SqlParser parser, String sql, SqlParameterProvider parameters, int chunkSize) {
+        Probe probe = new Probe(parameters, chunkSize);
+
+        parser.parse(sql, probe);
+
+        return probe.name != null ? new InListChunks(probe) : null;
+    }
+
+    /**
+     * @return The number of chunks.
+     */
+    int count() {
+        return (size + chunkSize - 1) / chunkSize;
+    }
+
+    /**
+     * Create the parameters of one chunk. Each call returns new parameters,
+     * so chunks can be parsed and bound concurrently.
+     *
+     * @param chunk The chunk, from 0 to {@link #count()} exclusive.
+     * @return The parameters of the chunk.
+     */
+    SqlParameterProvider chunk(int chunk) {
+        int from = chunk * chunkSize;
+
+        return new Chunk(slice(values, from, Math.min(size, from + chunkSize)));
+    }
+
+    private static boolean isOversized(Object value, int chunkSize) {
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).size() > chunkSize;
+        }
+        return value != null && value.getClass().isArray() && Array.getLength(value) > chunkSize;
+    }
+
+    private static Object slice(Object values, int from, int to) {
+        if (values instanceof List) {
+            return ((List<?>) values).subList(from, to);
+        }
+
+        // Primitive arrays are copied rather than boxed.
+        Object slice = Array.newInstance(values.getClass().getComponentType(), to - from);
+        System.arraycopy(values, from, slice, 0, to - from);
+        return slice;
+    }
+
+    private static SqlParameter copy(SqlParameter sqlParameter) {
+        return sqlParameter != null
+                ? new SqlParameter(sqlParameter.getName(), sqlParameter.getValue(), sqlParameter.getType())
+                : null;
+    }
+
+    /**
+     * Records the parameters looked up while parsing, and the oversized
+     * parameter if there is one.
+     */
+    private static final class Probe extends Lookup {
+        private final SqlParameterProvider parameters;
+        private final int chunkSize;
+
+        /**
+         * The parameters of the statement by name, null if there is none.
+         */
+        private final Map<String, SqlParameter> used = new HashMap<>();
+
+        private String name;
+        private Integer type;
+        private Object values;
+        private int size;
+
+        private Probe(SqlParameterProvider parameters, int chunkSize) {
+            this.parameters = parameters;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        SqlParameter create(String name) {
+            SqlParameter sqlParameter = parameters.getParameter(name);
+
+            used.put(name, sqlParameter);
+
+            if (this.name == null && sqlParameter != null && isOversized(sqlParameter.getValue(), chunkSize)) {
+                Object value = sqlParameter.getValue();
+
+                this.name = name;
+                this.type = sqlParameter.getType();
+                this.values = value instanceof Collection && !(value instanceof List)
+                        ? new ArrayList<>((Collection<?>) value)
+                        : value;
+                this.size = value instanceof Collection ? ((Collection<?>) value).size() : Array.getLength(value);
+
+                return new SqlParameter(name, slice(values, 0, chunkSize), type);
+            }
+
+            return copy(sqlParameter);
+        }
+    }
+
+    private final class Chunk extends Lookup {
+        private final Object slice;
+
+        private Chunk(Object slice) {
+            this.slice = slice;
+        }
+
+        @Override
+        SqlParameter create(String name) {
+            if (name.equals(InListChunks.this.name)) {
+                return new SqlParameter(name, slice, type);
+            }
+
+            if (used.containsKey(name)) {
+                return copy(used.get(name));
+            }
+
+            // Only reached by parsers which look up different parameters
+            // each time, the original parameters are not thread safe.
+            synchronized (parameters) {
+                return copy(parameters.getParameter(name));
+            }
+        }
+    }
+
+    /**
+     * A provider which creates each named parameter once.
+     */
+    private abstract static class Lookup implements SqlParameterProvider {
+        private final Map<String, SqlParameter> created = new LinkedHashMap<>();
+
+        abstract SqlParameter create(String name);
+
+        @Override
+        public SqlParameter getParameter(String name) {
+            SqlParameter sqlParameter = created.get(name);
+
+            if (sqlParameter == null && !created.containsKey(name)) {
+                sqlParameter = create(name);
+                created.put(name, sqlParameter);
+            }
+
+            return sqlParameter;
+        }
+
+        @Override
+        public Optional<SqlParameter> findParameter(String name) {
+            return Optional.ofNullable(getParameter(name));
+        }
+
+        @Override
+        public Optional<SqlParameter> findParameter(Integer index) {
+            return created.values().stream()
+                    .filter(sqlParameter -> sqlParameter != null && sqlParameter.hasIndex(index))
+                    .findFirst();
+        }
+
+        @Override
+        public Iterator<SqlParameter> iterator() {
+            return created.values().stream().filter(sqlParameter -> sqlParameter != null).iterator();
+        }
+    }
+}
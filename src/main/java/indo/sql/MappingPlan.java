@@ -0,0 +1,289 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.sql.mapping.CaseInsensitiveColumnMappingStrategy;
+import indo.sql.mapping.ColumnIndex;
+import indo.sql.mapping.ExclusiveColumnMappingStrategy;
+import indo.sql.mapping.InclusiveColumnMappingStrategy;
+import indo.sql.mapping.ReflectionColumnMappingStrategy;
+import indo.util.Accessors;
+import indo.util.Reflect;
+
+import java.lang.reflect.Method;
+import java.sql.ResultSetMetaData;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+import static indo.jdbc.ResultSetMetaDatas.getColumnCount;
+import static indo.jdbc.ResultSetMetaDatas.getColumnName;
+
+/**
+ * The precomputed result of matching each column of a result shape to a
+ * property of a target class.  Plans are computed once per (target class,
+ * mapping strategy, column signature) and cached for the lifetime of the
+ * target class, so mapping a row only has to walk an array of steps rather
+ * than repeating the column matching and setter lookups.
+ * <p>
+ * Only the plans of the built in strategies are shared, since every instance
+ * of those matches columns the same way.  Any other strategy may carry state
+ * of its own, so its plans are computed for each result set instead.
+ *
+ * @author Jonathan Cone
+ * @see ReflectionRowProcessor
+ */
+final class MappingPlan {
+
+    /**
+     * The upper bound of distinct result shapes cached per target class, this
+     * guards against unbounded growth when the SQL is generated dynamically.
+     */
+    private static final int MAX_PLANS_PER_CLASS = 256;
+
+    private static final ClassValue<ConcurrentMap<Signature, MappingPlan>> PLANS =
+            new ClassValue<ConcurrentMap<Signature, MappingPlan>>() {
+                @Override
+                protected ConcurrentMap<Signature, MappingPlan> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    /**
+     * The stateless strategies whose plans may be shared between instances.
+     */
+    private static final Set<Class<?>> SHARED_STRATEGIES = new HashSet<>(Arrays.asList(
+            InclusiveColumnMappingStrategy.class,
+            CaseInsensitiveColumnMappingStrategy.class,
+            ExclusiveColumnMappingStrategy.class));
+
+    private final Step[] steps;
+
+    private MappingPlan(Step[] steps) {
+        this.steps = steps;
+    }
+
+    /**
+     * Find or compute the plan that maps the columns of the supplied result
+     * set onto the target class.
+     *
+     * @param targetType The class that rows are mapped to.
+     * @param strategy   The strategy used to match columns to properties.
+     * @param rsm        The metadata of the result set whose columns should
+     *                   be mapped.
+     * @return The cached or newly computed plan.
+     */
+    static MappingPlan of(Class<?> targetType, ReflectionColumnMappingStrategy strategy, ResultSetMetaData rsm) {
+        String[] columns = new String[getColumnCount(rsm)];
+
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = getColumnName(rsm, i + 1);
+        }
+
+        return of(targetType, strategy, columns);
+    }
+
+    /**
+     * Find or compute the plan that maps the supplied columns onto the
+     * target class.
+     *
+     * @param targetType The class that rows are mapped to.
+     * @param strategy   The strategy used to match columns to properties.
+     * @param columns    The name of each column in order, a null name skips
+     *                   the column.
+     * @return The cached or newly computed plan.
+     */
+    static MappingPlan of(Class<?> targetType, ReflectionColumnMappingStrategy strategy, String[] columns) {
+        if (!SHARED_STRATEGIES.contains(strategy.getClass())) {
+            return compile(targetType, strategy, columns);
+        }
+
+        Signature signature = new Signature(strategy.getClass(), columns);
+
+        ConcurrentMap<Signature, MappingPlan> plans = PLANS.get(targetType);
+
+        MappingPlan plan = plans.get(signature);
+
+        if (plan == null) {
+            plan = compile(targetType, strategy, columns);
+
+            if (plans.size() < MAX_PLANS_PER_CLASS) {
+                MappingPlan existing = plans.putIfAbsent(signature, plan);
+                plan = existing != null ? existing : plan;
+            }
+        }
+
+        return plan;
+    }
+
+    private static MappingPlan compile(Class<?> targetType, ReflectionColumnMappingStrategy strategy, String[] columns) {
+        ColumnIndex index = strategy.index(targetType);
+
+        Set<String> fieldNames = index == null ? Reflect.on(targetType).fieldNames() : null;
+
+        Step[] steps = new Step[columns.length];
+
+        for (int i = 0; i < columns.length; i++) {
+            String property = null;
+
+            if (columns[i] != null) {
+                property = index != null
+                        ? index.find(columns[i])
+                        : strategy.findMatch(columns[i], fieldNames).orElse(null);
+            }
+
+            steps[i] = new Step(targetType, i + 1, columns[i], property);
+        }
+
+        return new MappingPlan(steps);
+    }
+
+    Step[] steps() {
+        return steps;
+    }
+
+    /**
+     * A single column to property assignment.
+     */
+    static final class Step {
+        private final Class<?> targetType;
+        private final int columnIndex;
+        private final String column;
+        private final String property;
+
+        /**
+         * The setter depends on the runtime type of the column value, so the
+         * resolved setters are remembered per value type.
+         */
+        private final ConcurrentMap<Class<?>, Optional<BiConsumer<Object, Object>>> setters;
+
+        /**
+         * The typed readers of this column, remembered per JDBC column type.
+         */
+        private final ConcurrentMap<Integer, Optional<ColumnReader>> readers;
+
+        private Step(Class<?> targetType, int columnIndex, String column, String property) {
+            this.targetType = targetType;
+            this.columnIndex = columnIndex;
+            this.column = column;
+            this.property = property;
+            this.setters = new ConcurrentHashMap<>();
+            this.readers = new ConcurrentHashMap<>();
+        }
+
+        int getColumnIndex() {
+            return columnIndex;
+        }
+
+        String getColumn() {
+            return column;
+        }
+
+        /**
+         * @return The matching property name, or null if this column did not
+         * match any property of the target class.
+         */
+        String getProperty() {
+            return property;
+        }
+
+        /**
+         * Resolve the setter able to accept the supplied value.
+         *
+         * @param value The value about to be assigned.
+         * @return The {@link Optional} setter accessor.
+         */
+        Optional<BiConsumer<Object, Object>> setter(Object value) {
+            if (property == null) {
+                return Optional.empty();
+            }
+
+            Class<?> valueType = value == null ? Void.class : value.getClass();
+
+            Optional<BiConsumer<Object, Object>> setter = setters.get(valueType);
+
+            if (setter == null) {
+                setter = Reflect.on(targetType).findSetter(property, value).map(Accessors::setter);
+                setters.putIfAbsent(valueType, setter);
+            }
+
+            return setter;
+        }
+
+        /**
+         * Resolve a reader which reads this column with a getter matching
+         * both the column type and the type accepted by the property setter.
+         *
+         * @param sqlType The JDBC type of the column.
+         * @return The reader, or null if the property has no setter, more
+         * than one setter or the types are not a known pair.
+         */
+        ColumnReader reader(int sqlType) {
+            if (property == null) {
+                return null;
+            }
+
+            Optional<ColumnReader> reader = readers.get(sqlType);
+
+            if (reader == null) {
+                List<Method> candidates = Reflect.on(targetType).findSetters(property);
+
+                reader = Optional.ofNullable(candidates.size() == 1 ? ColumnReader.of(sqlType, candidates.get(0)) : null);
+                readers.putIfAbsent(sqlType, reader);
+            }
+
+            return reader.orElse(null);
+        }
+    }
+
+    /**
+     * Identifies a result shape as seen by a specific mapping strategy.
+     */
+    private static final class Signature {
+        private final Class<?> strategyType;
+        private final String[] columns;
+        private final int hashCode;
+
+        private Signature(Class<?> strategyType, String[] columns) {
+            this.strategyType = strategyType;
+            this.columns = columns;
+            this.hashCode = 31 * strategyType.hashCode() + Arrays.hashCode(columns);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Signature)) {
+                return false;
+            }
+            Signature other = (Signature) o;
+            return strategyType == other.strategyType && Arrays.equals(columns, other.columns);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
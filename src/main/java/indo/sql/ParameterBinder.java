@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Binds a non-null value of a specific type to a statement parameter, e.g.
+ * with {@link PreparedStatement#setLong(int, long)} rather than {@link
+ * PreparedStatement#setObject(int, Object)}.
+ *
+ * @param <T> The type of value bound.
+ * @author Jonathan Cone
+ * @see ParameterBinders
+ */
+@FunctionalInterface
+public interface ParameterBinder<T> {
+
+    /**
+     * Binds any value with {@link PreparedStatement#setObject(int, Object)},
+     * leaving the conversion to the driver.
+     */
+    ParameterBinder<Object> OBJECT = PreparedStatement::setObject;
+
+    /**
+     * @param ps    The statement to bind the value to.
+     * @param index The index of the parameter.
+     * @param value The value, which is never null.
+     * @throws SQLException if the driver rejects the value.
+     */
+    void bind(PreparedStatement ps, int index, T value) throws SQLException;
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.JDBCType;
+import java.sql.PreparedStatement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * The {@link ParameterBinder}s used to bind parameter values, keyed by the
+ * class of the value.  A value is bound by the binder registered for its
+ * class, or else for its nearest superclass or interface, falling back to
+ * {@link PreparedStatement#setObject(int, Object)}.  The lookup for each
+ * class is only done once.  Null values, and parameters with an explicit SQL
+ * type, are always bound with {@code setObject}.
+ * <p>
+ * Instances are immutable, {@link #with(Class, ParameterBinder)} returns a
+ * modified copy:
+ * <pre>
+ * {@code
+ * runner.setParameterBinders(ParameterBinders.defaults()
+ *         .with(Money.class, (ps, index, money) -> ps.setBigDecimal(index, money.getAmount())));
+ * }
+ * </pre>
+ * By default {@code java.time} values are converted to their {@code
+ * java.sql} counterparts, which every driver accepts. Drivers implementing
+ * JDBC 4.2 can bind them directly, see {@link #jdbc42()}.
+ *
+ * @author Jonathan Cone
+ * @see SqlRunner#setParameterBinders(ParameterBinders)
+ */
+public final class ParameterBinders {
+
+    private static final ParameterBinders DEFAULTS = new ParameterBinders(standard(false), standardArrayTypes());
+    private static final ParameterBinders JDBC_42 = new ParameterBinders(standard(true), standardArrayTypes());
+
+    private final Map<Class<?>, ParameterBinder<?>> binders;
+
+    /**
+     * The SQL type names of array elements by element class.
+     */
+    private final Map<Class<?>, String> arrayTypes;
+
+    private final ClassValue<ParameterBinder<Object>> resolved = new ClassValue<ParameterBinder<Object>>() {
+        @Override
+        protected ParameterBinder<Object> computeValue(Class<?> type) {
+            return resolve(type);
+        }
+    };
+
+    private ParameterBinders(Map<Class<?>, ParameterBinder<?>> binders, Map<Class<?>, String> arrayTypes) {
+        this.binders = binders;
+        this.arrayTypes = arrayTypes;
+    }
+
+    /**
+     * @return The standard binders, which convert {@code java.time} values
+     * to {@code java.sql} dates, times and timestamps.
+     */
+    public static ParameterBinders defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @return The standard binders, except that {@link LocalDate}, {@link
+     * LocalTime}, {@link LocalDateTime} and {@link OffsetDateTime} values are
+     * passed to the driver as is, with their JDBC 4.2 {@link JDBCType}.
+     */
+    public static ParameterBinders jdbc42() {
+        return JDBC_42;
+    }
+
+    /**
+     * Bind values of a type, and of its subtypes that have no binder of
+     * their own, with a specific binder.
+     *
+     * @param type   The class of value.
+     * @param binder The binder for values of the class.
+     * @param <T>    The type of value.
+     * @return A copy with the binder registered.
+     */
+    public <T> ParameterBinders with(Class<T> type, ParameterBinder<? super T> binder) {
+        Objects.requireNonNull(type, "The type cannot be null.");
+        Objects.requireNonNull(binder, "The binder cannot be null.");
+
+        Map<Class<?>, ParameterBinder<?>> copy = new HashMap<>(binders);
+        copy.put(type, binder);
+
+        return new ParameterBinders(Collections.unmodifiableMap(copy), arrayTypes);
+    }
+
+    /**
+     * Name the SQL type of the elements of arrays bound by an {@link
+     * ArrayBindingResolver}, as passed to {@link
+     * java.sql.Connection#createArrayOf(String, Object[])}.
+     *
+     * @param elementType The class of the elements, e.g. {@code UUID.class}
+     *                    or {@code long.class} for a {@code long[]}.
+     * @param typeName    The database specific type name, e.g. "uuid".
+     * @return A copy with the type name registered.
+     */
+    public ParameterBinders withArrayType(Class<?> elementType, String typeName) {
+        Objects.requireNonNull(elementType, "The element type cannot be null.");
+        Objects.requireNonNull(typeName, "The type name cannot be null.");
+
+        Map<Class<?>, String> copy = new HashMap<>(arrayTypes);
+        copy.put(elementType, typeName);
+
+        return new ParameterBinders(binders, Collections.unmodifiableMap(copy));
+    }
+
+    /**
+     * @param elementType The class of the elements of an array.
+     * @return The SQL type name of the elements, the type name registered
+     * for {@code Object} ("varchar" by default) if none is registered for
+     * the class.
+     */
+    public String getArrayType(Class<?> elementType) {
+        String typeName = arrayTypes.get(elementType);
+
+        return typeName != null ? typeName : arrayTypes.get(Object.class);
+    }
+
+    /**
+     * @param type The class of a value.
+     * @return The binder used for values of the class.
+     */
+    public ParameterBinder<Object> find(Class<?> type) {
+        return resolved.get(type);
+    }
+
+    /**
+     * Find the binder registered for the nearest superclass, then for the
+     * nearest interface.
+     */
+    @SuppressWarnings("unchecked")
+    private ParameterBinder<Object> resolve(Class<?> type) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            ParameterBinder<?> binder = binders.get(c);
+
+            if (binder != null) {
+                return (ParameterBinder<Object>) binder;
+            }
+        }
+
+        Deque<Class<?>> interfaces = new ArrayDeque<>();
+
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            Collections.addAll(interfaces, c.getInterfaces());
+        }
+
+        while (!interfaces.isEmpty()) {
+            Class<?> c = interfaces.removeFirst();
+            ParameterBinder<?> binder = binders.get(c);
+
+            if (binder != null) {
+                return (ParameterBinder<Object>) binder;
+            }
+
+            Collections.addAll(interfaces, c.getInterfaces());
+        }
+
+        ParameterBinder<?> binder = binders.get(Object.class);
+
+        return binder != null ? (ParameterBinder<Object>) binder : ParameterBinder.OBJECT;
+    }
+
+    private static Map<Class<?>, ParameterBinder<?>> standard(boolean jdbc42) {
+        Map<Class<?>, ParameterBinder<?>> binders = new HashMap<>();
+
+        put(binders, String.class, PreparedStatement::setString);
+        put(binders, Long.class, PreparedStatement::setLong);
+        put(binders, Integer.class, PreparedStatement::setInt);
+        put(binders, Short.class, PreparedStatement::setShort);
+        put(binders, Byte.class, PreparedStatement::setByte);
+        put(binders, Double.class, PreparedStatement::setDouble);
+        put(binders, Float.class, PreparedStatement::setFloat);
+        put(binders, Boolean.class, PreparedStatement::setBoolean);
+        put(binders, BigDecimal.class, PreparedStatement::setBigDecimal);
+        put(binders, byte[].class, PreparedStatement::setBytes);
+        put(binders, Date.class, PreparedStatement::setDate);
+        put(binders, Time.class, PreparedStatement::setTime);
+        put(binders, Timestamp.class, PreparedStatement::setTimestamp);
+        put(binders, Instant.class, (ps, index, instant) -> ps.setTimestamp(index, Timestamp.from(instant)));
+
+        if (jdbc42) {
+            put(binders, LocalDate.class, (ps, index, date) -> ps.setObject(index, date, JDBCType.DATE));
+            put(binders, LocalTime.class, (ps, index, time) -> ps.setObject(index, time, JDBCType.TIME));
+            put(binders, LocalDateTime.class, (ps, index, dateTime) -> ps.setObject(index, dateTime, JDBCType.TIMESTAMP));
+            put(binders, OffsetDateTime.class, (ps, index, dateTime) -> ps.setObject(index, dateTime, JDBCType.TIMESTAMP_WITH_TIMEZONE));
+        } else {
+            put(binders, LocalDate.class, (ps, index, date) -> ps.setDate(index, Date.valueOf(date)));
+            put(binders, LocalTime.class, (ps, index, time) -> ps.setTime(index, Time.valueOf(time)));
+            put(binders, LocalDateTime.class, (ps, index, dateTime) -> ps.setTimestamp(index, Timestamp.valueOf(dateTime)));
+        }
+
+        return Collections.unmodifiableMap(binders);
+    }
+
+    /**
+     * Type names understood by PostgreSQL, other databases such as H2 ignore
+     * them.
+     */
+    private static Map<Class<?>, String> standardArrayTypes() {
+        Map<Class<?>, String> arrayTypes = new HashMap<>();
+
+        arrayTypes.put(Object.class, "varchar");
+        arrayTypes.put(String.class, "varchar");
+        arrayTypes.put(Long.class, "bigint");
+        arrayTypes.put(long.class, "bigint");
+        arrayTypes.put(Integer.class, "integer");
+        arrayTypes.put(int.class, "integer");
+        arrayTypes.put(Short.class, "smallint");
+        arrayTypes.put(short.class, "smallint");
+        arrayTypes.put(Double.class, "float8");
+        arrayTypes.put(double.class, "float8");
+        arrayTypes.put(Float.class, "float4");
+        arrayTypes.put(float.class, "float4");
+        arrayTypes.put(Boolean.class, "boolean");
+        arrayTypes.put(boolean.class, "boolean");
+        arrayTypes.put(BigDecimal.class, "numeric");
+        arrayTypes.put(UUID.class, "uuid");
+        arrayTypes.put(Date.class, "date");
+        arrayTypes.put(LocalDate.class, "date");
+        arrayTypes.put(Timestamp.class, "timestamp");
+        arrayTypes.put(LocalDateTime.class, "timestamp");
+
+        return Collections.unmodifiableMap(arrayTypes);
+    }
+
+    private static <T> void put(Map<Class<?>, ParameterBinder<?>> binders, Class<T> type, ParameterBinder<T> binder) {
+        binders.put(type, binder);
+    }
+}
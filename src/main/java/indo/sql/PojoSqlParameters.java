@@ -16,25 +16,47 @@
 
 package indo.sql;
 
+import indo.util.Accessors;
 import indo.util.Reflect;
 
 import java.lang.reflect.Method;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * This class provides the capability to create a {@link SqlParameterProvider}
  * from a regular POJO.  This will match parameter names with the names of
  * JavaBean style "getter" methods on the target instance.
+ * <p>
+ * The getter of each parameter name is resolved once per class, along with
+ * a slot number, so looking up a parameter on another instance of the same
+ * class is a single hash lookup followed by a direct getter call.
  *
  * @author Jonathan Cone
  */
 public class PojoSqlParameters<T> implements SqlParameterProvider {
-    private Reflect<T> reflect;
-    private Map<String, SqlParameter> lazyParameters;
 
+    private static final ClassValue<Extractors> EXTRACTORS = new ClassValue<Extractors>() {
+        @Override
+        protected Extractors computeValue(Class<?> type) {
+            return new Extractors(type);
+        }
+    };
+
+    private final T instance;
+    private final Extractors extractors;
+
+    /**
+     * The parameters found so far, by slot.
+     */
+    private SqlParameter[] parameters;
 
     /**
      * Package-private constructor.
@@ -43,8 +65,8 @@ public class PojoSqlParameters<T> implements SqlParameterProvider {
      *                 reflection/
      */
     PojoSqlParameters(T instance) {
-        this.reflect = Reflect.on(instance);
-        this.lazyParameters = new HashMap<>();
+        this.instance = instance;
+        this.extractors = EXTRACTORS.get(instance.getClass());
     }
 
     /**
@@ -88,26 +110,33 @@ public class PojoSqlParameters<T> implements SqlParameterProvider {
      */
     @Override
     public Optional<SqlParameter> findParameter(String name) {
-        SqlParameter parameter = null;
+        return Optional.ofNullable(getParameter(name));
+    }
+
+    @Override
+    public SqlParameter getParameter(String name) {
+        Extractor extractor = extractors.find(name);
 
-        if (lazyParameters.containsKey(name)) {
-            // We already handled this one, so we've cached it.
-            parameter = lazyParameters.get(name);
-        } else {
-            Optional<Method> getter = reflect.findGetter(name);
+        if (extractor == null) {
+            return null;
+        }
+
+        if (parameters == null || parameters.length <= extractor.slot) {
+            int size = Math.max(extractors.size(), extractor.slot + 1);
 
-            if (getter.isPresent()) {
+            parameters = parameters == null ? new SqlParameter[size] : Arrays.copyOf(parameters, size);
+        }
 
-                Optional<Object> property = reflect.property(name);
+        SqlParameter parameter = parameters[extractor.slot];
 
-                if (property.isPresent()) {
-                    parameter = new SqlParameter(name, property.get());
-                    lazyParameters.put(name, parameter);
-                }
-            }
+        if (parameter == null) {
+            // Null properties are bound as null rather than ignored, so
+            // the parsed SQL does not depend on the property values.
+            parameter = new SqlParameter(name, extractor.getter.apply(instance));
+            parameters[extractor.slot] = parameter;
         }
 
-        return Optional.ofNullable(parameter);
+        return parameter;
     }
 
     /**
@@ -120,6 +149,59 @@ public class PojoSqlParameters<T> implements SqlParameterProvider {
 
     @Override
     public Iterator<SqlParameter> iterator() {
-        return lazyParameters.values().iterator();
+        return parameters == null
+                ? Collections.emptyIterator()
+                : Arrays.stream(parameters).filter(Objects::nonNull).iterator();
+    }
+
+    /**
+     * The getters of a class by parameter name.
+     */
+    private static final class Extractors {
+        private final Class<?> type;
+        private final ConcurrentMap<String, Optional<Extractor>> byName;
+        private final AtomicInteger slots;
+
+        private Extractors(Class<?> type) {
+            this.type = type;
+            this.byName = new ConcurrentHashMap<>();
+            this.slots = new AtomicInteger();
+        }
+
+        /**
+         * @return The extractor of a parameter, or null if the class has no
+         * getter for it.
+         */
+        private Extractor find(String name) {
+            Optional<Extractor> extractor = byName.get(name);
+
+            if (extractor == null) {
+                Optional<Method> getter = Reflect.on(type).findGetter(name);
+
+                extractor = getter.map(method -> new Extractor(slots.getAndIncrement(), Accessors.getter(method)));
+
+                Optional<Extractor> existing = byName.putIfAbsent(name, extractor);
+                extractor = existing != null ? existing : extractor;
+            }
+
+            return extractor.orElse(null);
+        }
+
+        /**
+         * @return The number of slots assigned so far.
+         */
+        private int size() {
+            return slots.get();
+        }
+    }
+
+    private static final class Extractor {
+        private final int slot;
+        private final Function<Object, Object> getter;
+
+        private Extractor(int slot, Function<Object, Object> getter) {
+            this.slot = slot;
+            this.getter = getter;
+        }
     }
 }
@@ -27,4 +27,8 @@ public class Query extends AbstractQueryOperations {
     public Query(DataSource dataSource) {
         super(dataSource);
     }
+
+    public Query(SqlRunner sqlRunner) {
+        super(sqlRunner);
+    }
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Statement level options applied when executing a query, such as the number
+ * of rows fetched per round trip.  Instances are immutable, each method
+ * returns a modified copy:
+ * <pre>
+ * {@code
+ * QueryOptions options = QueryOptions.defaults()
+ *         .fetchSize(500)
+ *         .maxRows(10000)
+ *         .queryTimeout(30);
+ *
+ * runner.with(options).list(sql, Employee.class);
+ * }
+ * </pre>
+ * A value of 0 for the fetch size, maximum rows or timeout leaves the driver
+ * default in place.
+ *
+ * @author Jonathan Cone
+ * @see SqlRunner#with(QueryOptions)
+ * @see SqlRunner#setQueryOptions(QueryOptions)
+ */
+public final class QueryOptions {
+
+    private static final QueryOptions DEFAULTS =
+            new QueryOptions(0, 0, 0, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, 0);
+
+    private final int fetchSize;
+    private final int maxRows;
+    private final int queryTimeout;
+    private final int resultSetType;
+    private final int resultSetConcurrency;
+    private final int inListChunkSize;
+
+    private QueryOptions(int fetchSize, int maxRows, int queryTimeout, int resultSetType, int resultSetConcurrency, int inListChunkSize) {
+        this.fetchSize = fetchSize;
+        this.maxRows = maxRows;
+        this.queryTimeout = queryTimeout;
+        this.resultSetType = resultSetType;
+        this.resultSetConcurrency = resultSetConcurrency;
+        this.inListChunkSize = inListChunkSize;
+    }
+
+    /**
+     * @return The driver defaults with a forward only, read only cursor.
+     */
+    public static QueryOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * The MySQL Connector/J driver ignores a positive fetch size unless the
+     * connection URL sets {@code useCursorFetch=true}, it only streams rows
+     * one at a time when the fetch size is {@link Integer#MIN_VALUE}, see
+     * {@link #streaming()}.
+     *
+     * @param fetchSize The number of rows the driver should fetch per round
+     *                  trip, 0 for the driver default, or {@link
+     *                  Integer#MIN_VALUE} to stream rows on MySQL.
+     * @return A copy with the fetch size changed.
+     */
+    public QueryOptions fetchSize(int fetchSize) {
+        if (fetchSize != Integer.MIN_VALUE) {
+            requireNotNegative(fetchSize, "fetch size");
+        }
+        return new QueryOptions(fetchSize, maxRows, queryTimeout, resultSetType, resultSetConcurrency, inListChunkSize);
+    }
+
+    /**
+     * Ask the MySQL Connector/J driver to stream rows one at a time rather
+     * than reading the entire result into memory, by setting the fetch size
+     * to {@link Integer#MIN_VALUE}.  Other drivers reject this fetch size,
+     * they stream with a positive fetch size instead.  While a streamed
+     * result is open MySQL does not allow any other statement on the same
+     * connection.
+     *
+     * @return A copy with the MySQL streaming fetch size.
+     */
+    public QueryOptions streaming() {
+        return fetchSize(Integer.MIN_VALUE);
+    }
+
+    /**
+     * @return true if the fetch size asks MySQL to stream rows, see {@link
+     * #streaming()}.
+     */
+    public boolean isStreaming() {
+        return fetchSize == Integer.MIN_VALUE;
+    }
+
+    /**
+     * @param maxRows The maximum number of rows a query returns, excess rows
+     *                are silently dropped, or 0 for no limit.
+     * @return A copy with the maximum rows changed.
+     */
+    public QueryOptions maxRows(int maxRows) {
+        return new QueryOptions(fetchSize, requireNotNegative(maxRows, "maximum rows"), queryTimeout, resultSetType, resultSetConcurrency, inListChunkSize);
+    }
+
+    /**
+     * @param queryTimeout The number of seconds a statement may run before
+     *                     it is cancelled, or 0 for no limit.
+     * @return A copy with the timeout changed.
+     */
+    public QueryOptions queryTimeout(int queryTimeout) {
+        return new QueryOptions(fetchSize, maxRows, requireNotNegative(queryTimeout, "query timeout"), resultSetType, resultSetConcurrency, inListChunkSize);
+    }
+
+    /**
+     * @param resultSetType One of {@link ResultSet#TYPE_FORWARD_ONLY}, {@link
+     *                      ResultSet#TYPE_SCROLL_INSENSITIVE} or {@link
+     *                      ResultSet#TYPE_SCROLL_SENSITIVE}.
+     * @return A copy with the cursor type changed.
+     */
+    public QueryOptions resultSetType(int resultSetType) {
+        if (resultSetType != ResultSet.TYPE_FORWARD_ONLY
+                && resultSetType != ResultSet.TYPE_SCROLL_INSENSITIVE
+                && resultSetType != ResultSet.TYPE_SCROLL_SENSITIVE) {
+            throw new IllegalArgumentException("Unknown result set type " + resultSetType + ".");
+        }
+        return new QueryOptions(fetchSize, maxRows, queryTimeout, resultSetType, resultSetConcurrency, inListChunkSize);
+    }
+
+    /**
+     * @param resultSetConcurrency Either {@link ResultSet#CONCUR_READ_ONLY} or
+     *                             {@link ResultSet#CONCUR_UPDATABLE}.
+     * @return A copy with the cursor concurrency changed.
+     */
+    public QueryOptions resultSetConcurrency(int resultSetConcurrency) {
+        if (resultSetConcurrency != ResultSet.CONCUR_READ_ONLY
+                && resultSetConcurrency != ResultSet.CONCUR_UPDATABLE) {
+            throw new IllegalArgumentException("Unknown result set concurrency " + resultSetConcurrency + ".");
+        }
+        return new QueryOptions(fetchSize, maxRows, queryTimeout, resultSetType, resultSetConcurrency, inListChunkSize);
+    }
+
+    /**
+     * Split queries which bind a collection or array of more than a number
+     * of values to a named parameter into several queries of at most that
+     * many values each, e.g. to stay below the 32767 parameters PostgreSQL
+     * accepts per statement.  The results of the queries are concatenated
+     * in order, so this only suits queries whose rows are independent of
+     * each other: ORDER BY, DISTINCT, GROUP BY and the maximum rows apply to
+     * each query rather than the combined result.  Chunks run one after the
+     * other unless the runner has an executor, see {@link
+     * SqlRunner#setChunkExecutor(java.util.concurrent.Executor)}.
+     *
+     * @param inListChunkSize The largest number of values bound per query,
+     *                        or 0 to never split queries.
+     * @return A copy with the chunk size changed.
+     */
+    public QueryOptions inListChunkSize(int inListChunkSize) {
+        return new QueryOptions(fetchSize, maxRows, queryTimeout, resultSetType, resultSetConcurrency, requireNotNegative(inListChunkSize, "IN list chunk size"));
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    public int getResultSetType() {
+        return resultSetType;
+    }
+
+    public int getResultSetConcurrency() {
+        return resultSetConcurrency;
+    }
+
+    public int getInListChunkSize() {
+        return inListChunkSize;
+    }
+
+    /**
+     * @return true if the cursor is the forward only, read only default.
+     */
+    boolean hasDefaultCursor() {
+        return resultSetType == ResultSet.TYPE_FORWARD_ONLY && resultSetConcurrency == ResultSet.CONCUR_READ_ONLY;
+    }
+
+    /**
+     * Apply the options that can be changed after a statement is prepared.
+     * Every option is set, so a reused statement never keeps the options of
+     * a previous query.
+     *
+     * @param ps The statement to configure.
+     * @throws SQLException if the driver rejects an option.
+     */
+    void applyTo(PreparedStatement ps) throws SQLException {
+        ps.setFetchSize(fetchSize);
+        ps.setMaxRows(maxRows);
+        ps.setQueryTimeout(queryTimeout);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof QueryOptions)) {
+            return false;
+        }
+        QueryOptions other = (QueryOptions) o;
+        return fetchSize == other.fetchSize
+                && maxRows == other.maxRows
+                && queryTimeout == other.queryTimeout
+                && resultSetType == other.resultSetType
+                && resultSetConcurrency == other.resultSetConcurrency
+                && inListChunkSize == other.inListChunkSize;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = fetchSize;
+        result = 31 * result + maxRows;
+        result = 31 * result + queryTimeout;
+        result = 31 * result + resultSetType;
+        result = 31 * result + resultSetConcurrency;
+        result = 31 * result + inListChunkSize;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QueryOptions[fetchSize=%d, maxRows=%d, queryTimeout=%d, resultSetType=%d, resultSetConcurrency=%d, inListChunkSize=%d]",
+                fetchSize, maxRows, queryTimeout, resultSetType, resultSetConcurrency, inListChunkSize);
+    }
+
+    private static int requireNotNegative(int value, String name) {
+        if (value < 0) {
+            throw new IllegalArgumentException("The " + name + " cannot be negative.");
+        }
+        return value;
+    }
+}
@@ -20,18 +20,25 @@ package indo.sql;
 import indo.jdbc.JdbcException;
 import indo.sql.mapping.ColumnMappingStrategy;
 import indo.sql.mapping.InclusiveColumnMappingStrategy;
+import indo.sql.mapping.ReflectionColumnMappingStrategy;
+import indo.util.Accessors;
 import indo.util.Reflect;
+import indo.util.Unchecked;
 
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.stream.IntStream;
 
 import static indo.jdbc.ResultSetMetaDatas.getColumnCount;
 import static indo.jdbc.ResultSetMetaDatas.getColumnName;
+import static indo.jdbc.ResultSetMetaDatas.getColumnType;
 import static indo.jdbc.ResultSets.getMetaData;
 import static indo.log.Logger.debug;
+import static indo.log.Logger.error;
 
 /**
  * A {@link RowProcessor} implementation that uses reflection to map a row's
@@ -46,6 +53,8 @@ public class ReflectionRowProcessor<T> implements RowProcessor<T> {
     private final ResultTypes resultTypes;
     private final ColumnMappingStrategy columnMappingStrategy;
 
+    private final ResultSetBindings<Binding> bindings = new ResultSetBindings<>();
+
     public ReflectionRowProcessor(Class<T> targetType, ResultTypes resultTypes, ColumnMappingStrategy columnMappingStrategy) {
         this.targetType = targetType;
         this.resultTypes = resultTypes;
@@ -84,6 +93,108 @@ public class ReflectionRowProcessor<T> implements RowProcessor<T> {
 
     @Override
     public T map(ResultSet rs) {
+        ColumnMappingStrategy strategy = getColumnMappingStrategy();
+
+        if (strategy instanceof ReflectionColumnMappingStrategy) {
+            return mapWithPlan(rs, (ReflectionColumnMappingStrategy) strategy);
+        } else {
+            return mapEachColumn(rs, strategy);
+        }
+    }
+
+    /**
+     * Map a row using a {@link MappingPlan} that is computed once per result
+     * shape, so the column matching and setter lookups only happen for the
+     * first row of the first query that produces a given set of columns.
+     */
+    private T mapWithPlan(ResultSet rs, ReflectionColumnMappingStrategy strategy) {
+        Binding binding = bind(rs, strategy);
+
+        // Create a new instance of the target type.
+        T targetObject = Accessors.constructor(targetType).get();
+
+        MappingPlan.Step[] steps = binding.plan.steps();
+
+        for (int i = 0; i < steps.length; i++) {
+            MappingPlan.Step step = steps[i];
+
+            ColumnReader reader = binding.readers[i];
+
+            if (reader != null) {
+                try {
+                    reader.read(rs, step.getColumnIndex(), targetObject);
+                } catch (SQLException e) {
+                    throw Unchecked.sqlException(e);
+                }
+                continue;
+            }
+
+            // Built in types read by index, anything else by the label that
+            // was resolved along with the plan.
+            Object object = binding.indexed[i]
+                    ? binding.resultTypes[i].asType(rs, step.getColumnIndex())
+                    : binding.resultTypes[i].asType(rs, step.getColumn());
+
+            Optional<BiConsumer<Object, Object>> setter = step.setter(object);
+
+            if (setter.isPresent()) {
+                setter.get().accept(targetObject, object);
+            } else {
+                if (step.getProperty() != null) {
+                    // We had the field but couldn't match a setter of an assignable type.
+                    error(this, "There is no setter method for property %s that will accept %s",
+                            step.getProperty(), Objects.isNull(object) ? null : object.getClass());
+                }
+                noMatch(step.getColumn(), object, targetObject, strategy);
+            }
+        }
+
+        return targetObject;
+    }
+
+    /**
+     * Resolve the plan and how each column is read the first time a result
+     * set is seen, subsequent rows of the same result set reuse them. Columns
+     * without an explicit {@link ResultType} are read with a {@link
+     * ColumnReader} chosen from the column type and the setter type where
+     * possible, otherwise as an object.
+     */
+    private Binding bind(ResultSet rs, ReflectionColumnMappingStrategy strategy) {
+        Binding current = bindings.get(rs);
+
+        if (current == null) {
+            ResultSetMetaData rsm = getMetaData(rs);
+
+            MappingPlan plan = MappingPlan.of(targetType, strategy, rsm);
+
+            MappingPlan.Step[] steps = plan.steps();
+            ResultType<?>[] types = new ResultType<?>[steps.length];
+            boolean[] indexed = new boolean[steps.length];
+            ColumnReader[] readers = new ColumnReader[steps.length];
+
+            for (int i = 0; i < steps.length; i++) {
+                ResultType<?> explicit = resultTypes.get(steps[i].getColumn()).orElse(null);
+
+                if (explicit == null) {
+                    readers[i] = steps[i].reader(getColumnType(rsm, steps[i].getColumnIndex()));
+                }
+
+                types[i] = explicit != null ? explicit : ResultType.OBJECT;
+                indexed[i] = types[i].isIndexed();
+            }
+
+            current = new Binding(plan, types, indexed, readers);
+            bindings.put(rs, current);
+        }
+
+        return current;
+    }
+
+    /**
+     * Map a row by consulting a custom {@link ColumnMappingStrategy} for every
+     * column, used for strategies that cannot be planned ahead of time.
+     */
+    private T mapEachColumn(ResultSet rs, ColumnMappingStrategy strategy) {
 
         // Create a new instance of the target type.
         T targetObject = Reflect.on(targetType).newInstanceIfAbsent().getInstance();
@@ -92,37 +203,60 @@ public class ReflectionRowProcessor<T> implements RowProcessor<T> {
 
         // Stream through each column to retrieve its name.
         IntStream.range(1, getColumnCount(rsm) + 1)
-                .mapToObj(index -> getColumnName(rsm, index))
-                .forEach(originalColumn -> {
+                .forEach(index -> {
+                    String originalColumn = getColumnName(rsm, index);
 
                     // Resolve the column as a specific Java type, if one was
                     // specified, otherwise just map it as an object.
                     ResultType resultType = resultTypes.get(originalColumn).orElse(ResultType.OBJECT);
 
-                    Object object = resultType.asType(rs, originalColumn);
+                    Object object = resultType.isIndexed()
+                            ? resultType.asType(rs, index)
+                            : resultType.asType(rs, originalColumn);
 
                     // If a match is found, map the value and return the property name
                     // it was mapped to immediately.
                     Optional<String> matchedField =
-                            columnMappingStrategy.findMatch(originalColumn, object, targetObject);
+                            strategy.findMatch(originalColumn, object, targetObject);
 
-                    // Optionally throw an exception if no mapping could be found.
                     if (!matchedField.isPresent()) {
-                        String message = String.format("Could not map [column: %s, type: %s, value: %s] to a property on %s using strategy: %s. Likely there is no setter method that takes the expected resultType.",
-                                originalColumn,
-                                Objects.isNull(object) ? "null" : object.getClass().getName(),
-                                Objects.toString(object),
-                                targetObject.getClass(),
-                                columnMappingStrategy);
-
-                        if (isExceptionThrownWhenColumnHasNoMatch()) {
-                            throw new JdbcException(message);
-                        }
-
-                        debug(this, message);
+                        noMatch(originalColumn, object, targetObject, strategy);
                     }
                 });
 
         return targetObject;
     }
+
+    private void noMatch(String column, Object object, T targetObject, ColumnMappingStrategy strategy) {
+        String message = String.format("Could not map [column: %s, type: %s, value: %s] to a property on %s using strategy: %s. Likely there is no setter method that takes the expected resultType.",
+                column,
+                Objects.isNull(object) ? "null" : object.getClass().getName(),
+                Objects.toString(object),
+                targetObject.getClass(),
+                strategy);
+
+        // Optionally throw an exception if no mapping could be found.
+        if (isExceptionThrownWhenColumnHasNoMatch()) {
+            throw new JdbcException(message);
+        }
+
+        debug(this, "%s", message);
+    }
+
+    /**
+     * The plan and column types resolved for a specific result set.
+     */
+    private static final class Binding {
+        private final MappingPlan plan;
+        private final ResultType<?>[] resultTypes;
+        private final boolean[] indexed;
+        private final ColumnReader[] readers;
+
+        private Binding(MappingPlan plan, ResultType<?>[] resultTypes, boolean[] indexed, ColumnReader[] readers) {
+            this.plan = plan;
+            this.resultTypes = resultTypes;
+            this.indexed = indexed;
+            this.readers = readers;
+        }
+    }
 }
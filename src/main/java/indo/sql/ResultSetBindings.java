@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import java.sql.ResultSet;
+
+/**
+ * The binding a row processor resolves for each result set it reads, such
+ * as the columns matched to properties.  A processor may read several result
+ * sets at once, e.g. the chunks of a query running on a chunk executor, so
+ * the most recent result sets are remembered rather than only the last one.
+ * <p>
+ * The bindings are replaced as a whole, a binding lost to a concurrent
+ * update is simply resolved again.
+ *
+ * @author Jonathan Cone
+ */
+final class ResultSetBindings<B> {
+
+    /**
+     * The upper bound of result sets remembered at once.
+     */
+    private static final int MAX_RESULT_SETS = 8;
+
+    /**
+     * Each result set followed by its binding, the most recent first.
+     */
+    private volatile Object[] entries = new Object[0];
+
+    /**
+     * @return The binding of the result set, or null if there is none yet.
+     */
+    @SuppressWarnings("unchecked")
+    B get(ResultSet rs) {
+        Object[] current = entries;
+
+        for (int i = 0; i < current.length; i += 2) {
+            if (current[i] == rs) {
+                return (B) current[i + 1];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Remember the binding of a result set, forgetting the oldest result set
+     * if there are too many.
+     */
+    void put(ResultSet rs, B binding) {
+        Object[] current = entries;
+
+        int kept = Math.min(current.length, 2 * (MAX_RESULT_SETS - 1));
+
+        Object[] updated = new Object[kept + 2];
+        updated[0] = rs;
+        updated[1] = binding;
+        System.arraycopy(current, 0, updated, 2, kept);
+
+        entries = updated;
+    }
+}
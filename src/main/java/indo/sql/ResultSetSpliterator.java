@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.util.Unchecked;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A {@link Spliterator} that lazily maps the rows of an open {@link ResultSet}
+ * one at a time as they are requested.  The supplied resources (typically the
+ * {@link ResultSet}, its statement and possibly the connection) are closed as
+ * soon as the last row has been read, an exception occurs or the owning
+ * {@link Stream} is closed, whichever happens first.
+ *
+ * @author Jonathan Cone
+ * @see SqlRunner#stream(java.sql.Connection, String, RowProcessor, SqlParameterProvider)
+ */
+class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+    private final ResultSet rs;
+    private final RowProcessor<T> rowProcessor;
+    private final StreamResources resources;
+
+    /**
+     * @param rs           The open result set to read rows from.
+     * @param rowProcessor The processor used to map each row.
+     * @param resources    The resources to release, in order, once reading
+     *                     has finished.
+     */
+    ResultSetSpliterator(ResultSet rs, RowProcessor<T> rowProcessor, AutoCloseable... resources) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED);
+        this.rs = rs;
+        this.rowProcessor = rowProcessor;
+        this.resources = new StreamResources(resources);
+    }
+
+    /**
+     * Create a sequential {@link Stream} backed by this instance which
+     * releases its resources when the stream is closed.
+     *
+     * @return The newly created stream.
+     */
+    Stream<T> stream() {
+        return StreamSupport.stream(this, false).onClose(this::close);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (resources.isClosed()) {
+            return false;
+        }
+
+        try {
+            if (rs.next()) {
+                action.accept(rowProcessor.map(rs));
+                return true;
+            }
+        } catch (SQLException e) {
+            resources.closeQuietly();
+            throw Unchecked.sqlException(e);
+        } catch (RuntimeException e) {
+            resources.closeQuietly();
+            throw e;
+        }
+
+        // The result set has been exhausted, release everything right away
+        // rather than waiting for the caller to close the stream.
+        close();
+        return false;
+    }
+
+    /**
+     * Release all resources held by this instance. Calling this method more
+     * than once has no effect.
+     */
+    void close() {
+        resources.close();
+    }
+}
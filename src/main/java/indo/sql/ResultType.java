@@ -27,6 +27,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Date;
+import java.util.Objects;
+
+import static indo.jdbc.ResultSetMetaDatas.getColumnLabel;
+import static indo.jdbc.ResultSets.getMetaData;
 
 /**
  * Interface type used to specify which data type will be used to retrieve a
@@ -35,6 +39,16 @@ import java.util.Date;
  * mapping.  A few of the more common overrides are provided, but since this
  * interface is a {@link FunctionalInterface}, other types can be specified as
  * needed on-the-fly via method reference or lambda expression.
+ * <p>
+ * Columns can also be read by index, which avoids the label lookup many
+ * drivers perform on every call.  The provided types read by index directly,
+ * types created from a lambda can do the same via {@link
+ * #indexed(IndexReader)}:
+ * <pre>
+ * {@code
+ * ResultType<Year> year = ResultType.indexed((rs, index) -> Year.of(ResultSets.getInt(rs, index)));
+ * }
+ * </pre>
  *
  * @author Jonathan Cone
  * @see ResultTypes
@@ -43,26 +57,26 @@ import java.util.Date;
 @FunctionalInterface
 public interface ResultType<T> {
 
-    ResultType<BigDecimal> BIG_DECIMAL = ResultSets::getBigDecimal;
-    ResultType<Boolean> BOOLEAN = ResultSets::getBoolean;
-    ResultType<Byte> BYTE = ResultSets::getByte;
-    ResultType<byte[]> BYTES = ResultSets::getBytes;
-    ResultType<Date> DATE = ResultSets::getDate;
-    ResultType<Double> DOUBLE = ResultSets::getDouble;
-    ResultType<Float> FLOAT = ResultSets::getFloat;
-    ResultType<Integer> INTEGER = ResultSets::getInt;
-    ResultType<Long> LONG = ResultSets::getLong;
-    ResultType<String> NSTRING = ResultSets::getNString;
-    ResultType<Object> OBJECT = ResultSets::getObject;
-    ResultType<Short> SHORT = ResultSets::getShort;
-    ResultType<String> STRING = ResultSets::getString;
-    ResultType<Time> TIME = ResultSets::getTime;
-    ResultType<Timestamp> TIMESTAMP = ResultSets::getTimestamp;
-    ResultType<java.net.URL> URL = ResultSets::getURL;
-    ResultType<LocalDate> LOCAL_DATE = DateType::getLocalDate;
-    ResultType<LocalDateTime> LOCAL_DATE_TIME = DateType::getLocalDateTime;
-    ResultType<LocalTime> LOCAL_TIME = DateType::getLocalTime;
-    ResultType<Instant> INSTANT = DateType::getInstant;
+    ResultType<BigDecimal> BIG_DECIMAL = indexed(ResultSets::getBigDecimal);
+    ResultType<Boolean> BOOLEAN = indexed(ResultSets::getBoolean);
+    ResultType<Byte> BYTE = indexed(ResultSets::getByte);
+    ResultType<byte[]> BYTES = indexed(ResultSets::getBytes);
+    ResultType<Date> DATE = indexed(ResultSets::getDate);
+    ResultType<Double> DOUBLE = indexed(ResultSets::getDouble);
+    ResultType<Float> FLOAT = indexed(ResultSets::getFloat);
+    ResultType<Integer> INTEGER = indexed(ResultSets::getInt);
+    ResultType<Long> LONG = indexed(ResultSets::getLong);
+    ResultType<String> NSTRING = indexed(ResultSets::getNString);
+    ResultType<Object> OBJECT = indexed(ResultSets::getObject);
+    ResultType<Short> SHORT = indexed(ResultSets::getShort);
+    ResultType<String> STRING = indexed(ResultSets::getString);
+    ResultType<Time> TIME = indexed(ResultSets::getTime);
+    ResultType<Timestamp> TIMESTAMP = indexed(ResultSets::getTimestamp);
+    ResultType<java.net.URL> URL = indexed(ResultSets::getURL);
+    ResultType<LocalDate> LOCAL_DATE = indexed(DateType::getLocalDate);
+    ResultType<LocalDateTime> LOCAL_DATE_TIME = indexed(DateType::getLocalDateTime);
+    ResultType<LocalTime> LOCAL_TIME = indexed(DateType::getLocalTime);
+    ResultType<Instant> INSTANT = indexed(DateType::getInstant);
 
 
     /**
@@ -74,4 +88,66 @@ public interface ResultType<T> {
      * @return The value that wa resolved.
      */
     T asType(ResultSet rs, String columnName);
+
+    /**
+     * Resolve a column index as the type specified by this instance.  Unless
+     * {@link #isIndexed()} is true, this looks up the label of the column and
+     * calls {@link #asType(ResultSet, String)}, callers reading many rows
+     * should resolve the label once themselves in that case.
+     *
+     * @param rs          The {@link ResultSet} instance to resolve the column
+     *                    against.
+     * @param columnIndex The index of the column, starting at 1.
+     * @return The value that was resolved.
+     */
+    default T asType(ResultSet rs, int columnIndex) {
+        return asType(rs, getColumnLabel(getMetaData(rs), columnIndex));
+    }
+
+    /**
+     * @return true if {@link #asType(ResultSet, int)} reads the column by
+     * index without resolving its label.
+     */
+    default boolean isIndexed() {
+        return false;
+    }
+
+    /**
+     * Create an instance that reads columns by index, reading a column by
+     * name first finds its index.
+     *
+     * @param reader Reads the value of a column index.
+     * @param <T>    The type of value.
+     * @return The newly created instance.
+     */
+    static <T> ResultType<T> indexed(IndexReader<T> reader) {
+        Objects.requireNonNull(reader);
+
+        return new ResultType<T>() {
+            @Override
+            public T asType(ResultSet rs, String columnName) {
+                return reader.read(rs, ResultSets.findColumn(rs, columnName));
+            }
+
+            @Override
+            public T asType(ResultSet rs, int columnIndex) {
+                return reader.read(rs, columnIndex);
+            }
+
+            @Override
+            public boolean isIndexed() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Reads the value of a column by index.
+     *
+     * @param <T> The type of value.
+     */
+    @FunctionalInterface
+    interface IndexReader<T> {
+        T read(ResultSet rs, int columnIndex);
+    }
 }
@@ -20,7 +20,9 @@ import java.sql.ResultSet;
 
 /**
  * A functional interface which allows for custom row processing for SQL result
- * sets.
+ * sets.  A processor may be called from several threads at once when a
+ * query runs its chunks on a {@link SqlRunner#setChunkExecutor(java.util.concurrent.Executor)
+ * chunk executor}, each thread reading its own result set.
  *
  * @author Jonathan Cone
  * @see ResultSet
@@ -32,8 +34,27 @@ public interface RowProcessor<T> {
         return new ReflectionRowProcessor<>(type, resultTypes);
     }
 
+    /**
+     * Map rows to a JavaBean, using the processor generated at compile time
+     * for {@link indo.sql.mapping.IndoRow} classes, otherwise reflection.
+     *
+     * @see ReflectionRowProcessor
+     * @see GeneratedRowProcessor
+     */
     static <S> RowProcessor<S> using(Class<S> type) {
-        return new ReflectionRowProcessor<>(type);
+        RowProcessor<S> generated = GeneratedRowProcessor.find(type);
+
+        return generated != null ? generated : new ReflectionRowProcessor<>(type);
+    }
+
+    /**
+     * Create immutable objects by passing each row to a constructor or static
+     * factory method.
+     *
+     * @see ConstructorRowProcessor
+     */
+    static <S> RowProcessor<S> usingConstructor(Class<S> type) {
+        return new ConstructorRowProcessor<>(type);
     }
 
     /**
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+/**
+ * A {@link BindingResolver} whose SQL depends on something other than the
+ * exact number of values a parameter binds.  When it is the first resolver
+ * of a {@link StreamingSqlParser} the parser describes parameters by the
+ * shape this returns, so that parameters resolved to the same SQL share one
+ * cached expansion and parameters resolved differently never do.
+ * <p>
+ * A parser only caches the SQL it produced for a shape when every resolver
+ * is a plain {@link StandardBindingResolver} or implements this interface, so a
+ * custom resolver whose SQL depends on more than the number of values a
+ * parameter binds should implement it to benefit from that cache:
+ * <pre>
+ * {@code
+ * // Strings get a cast, every other value a plain placeholder.
+ * public int shapeOf(Object value, int length) {
+ *     return value instanceof String ? 0 : length + 1;
+ * }
+ * }
+ * </pre>
+ *
+ * @author Jonathan Cone
+ * @see StreamingSqlParser#shapeOf(SqlParameter)
+ */
+public interface ShapingBindingResolver extends BindingResolver {
+
+    /**
+     * @param value  The value of a parameter, which may be null.
+     * @param length The length of a collection or array value, otherwise 1.
+     * @return A non-negative shape value.
+     */
+    int shapeOf(Object value, int length);
+}
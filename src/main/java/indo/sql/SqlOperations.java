@@ -16,6 +16,7 @@
 
 package indo.sql;
 
+import indo.jdbc.Connections;
 import indo.jdbc.DataSources;
 
 import javax.sql.DataSource;
@@ -23,6 +24,10 @@ import java.sql.Connection;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 /**
  * @author Jonathan Cone
@@ -52,52 +57,184 @@ public interface SqlOperations {
 
     <T> List<T> list(Connection connection, String sql, RowProcessor<T> rowProcessor, Supplier<List<T>> resultContainer, Map<String, ?> parameters);
 
+    <T> Stream<T> stream(Connection connection, String sql, Class<T> type, Object... parameters);
+
+    <T> Stream<T> stream(Connection connection, String sql, Class<T> type, SqlParameterProvider parameters);
+
+    <T> Stream<T> stream(Connection connection, String sql, Class<T> type, Map<String, ?> parameters);
+
+    <T> Stream<T> stream(Connection connection, String sql, RowProcessor<T> rowProcessor, Object... parameters);
+
+    <T> Stream<T> stream(Connection connection, String sql, RowProcessor<T> rowProcessor, SqlParameterProvider parameters);
+
+    <T> Stream<T> stream(Connection connection, String sql, RowProcessor<T> rowProcessor, Map<String, ?> parameters);
+
+    long[] longs(Connection connection, String sql, Object... parameters);
+
+    long[] longs(Connection connection, String sql, SqlParameterProvider parameters);
+
+    long[] longs(Connection connection, String sql, Map<String, ?> parameters);
+
+    int[] ints(Connection connection, String sql, Object... parameters);
+
+    int[] ints(Connection connection, String sql, SqlParameterProvider parameters);
+
+    int[] ints(Connection connection, String sql, Map<String, ?> parameters);
+
+    double[] doubles(Connection connection, String sql, Object... parameters);
+
+    double[] doubles(Connection connection, String sql, SqlParameterProvider parameters);
+
+    double[] doubles(Connection connection, String sql, Map<String, ?> parameters);
+
+    ColumnarResult columnar(Connection connection, String sql, Object... parameters);
+
+    ColumnarResult columnar(Connection connection, String sql, SqlParameterProvider parameters);
+
+    ColumnarResult columnar(Connection connection, String sql, Map<String, ?> parameters);
+
+    <T> List<T> graph(Connection connection, String sql, GraphRowProcessor<T> graph, Object... parameters);
+
+    <T> List<T> graph(Connection connection, String sql, GraphRowProcessor<T> graph, SqlParameterProvider parameters);
+
+    <T> List<T> graph(Connection connection, String sql, GraphRowProcessor<T> graph, Map<String, ?> parameters);
+
+    LongStream longStream(Connection connection, String sql, Object... parameters);
+
+    LongStream longStream(Connection connection, String sql, SqlParameterProvider parameters);
+
+    LongStream longStream(Connection connection, String sql, Map<String, ?> parameters);
+
+    IntStream intStream(Connection connection, String sql, Object... parameters);
+
+    IntStream intStream(Connection connection, String sql, SqlParameterProvider parameters);
+
+    IntStream intStream(Connection connection, String sql, Map<String, ?> parameters);
+
+    DoubleStream doubleStream(Connection connection, String sql, Object... parameters);
+
+    DoubleStream doubleStream(Connection connection, String sql, SqlParameterProvider parameters);
+
+    DoubleStream doubleStream(Connection connection, String sql, Map<String, ?> parameters);
+
+    /**
+     * Execute a statement once per row using JDBC batching.
+     *
+     * @param connection The connection to execute the statement with.
+     * @param sql        The SQL statement, typically using named parameters.
+     * @param rows       The parameters of each execution, each row may be a
+     *                   POJO, {@link Map}, array, {@link List} or {@link
+     *                   SqlParameterProvider}.
+     * @param batchSize  The number of rows sent to the database at a time.
+     * @return The update count of each row, in order.
+     */
+    int[] batch(Connection connection, String sql, Iterable<?> rows, int batchSize);
 
     default <T> List<T> list(DataSource dataSource, String sql, Class<T> type, Object... parameters) {
-        return list(DataSources.getConnection(dataSource), sql, type, parameters);
+        Connection connection = DataSources.getConnection(dataSource);
+        try {
+            return list(connection, sql, type, parameters);
+        } finally {
+            Connections.close(connection);
+        }
     }
 
     default <T> List<T> list(DataSource dataSource, String sql, Class<T> type, SqlParameterProvider parameters) {
-        return list(DataSources.getConnection(dataSource), sql, type, parameters);
+        Connection connection = DataSources.getConnection(dataSource);
+        try {
+            return list(connection, sql, type, parameters);
+        } finally {
+            Connections.close(connection);
+        }
     }
 
     default <T> List<T> list(DataSource dataSource, String sql, Class<T> type, Map<String, ?> parameters) {
-        return list(DataSources.getConnection(dataSource), sql, type, parameters);
+        Connection connection = DataSources.getConnection(dataSource);
+        try {
+            return list(connection, sql, type, parameters);
+        } finally {
+            Connections.close(connection);
+        }
     }
 
     default <T> List<T> list(DataSource dataSource, String sql, Class<T> type, ResultTypes resultTypes, Object... parameters) {
-        return list(DataSources.getConnection(dataSource), sql, type, resultTypes, parameters);
+        Connection connection = DataSources.getConnection(dataSource);
+        try {
+            return list(connection, sql, type, resultTypes, parameters);
+        } finally {
+            Connections.close(connection);
+        }
     }
 
     default <T> List<T> list(DataSource dataSource, String sql, Class<T> type, ResultTypes resultTypes, SqlParameterProvider parameters) {
-        return list(DataSources.getConnection(dataSource), sql, type, resultTypes, parameters);
+        Connection connection = DataSources.getConnection(dataSource);
+        try {
+            return list(connection, sql, type, resultTypes, parameters);
+        } finally {
+            Connections.close(connection);
+        }
     }
 
     default <T> List<T> list(DataSource dataSource, String sql, Class<T> type, ResultTypes resultTypes, Map<String, ?> parameters) {
-        return list(DataSources.getConnection(dataSource), sql, type, resultTypes, parameters);
+        Connection connection = DataSources.getConnection(dataSource);
+        try {
+            return list(connection, sql, type, resultTypes, parameters);
+        } finally {
+            Connections.close(connection);
+        }
     }
 
     default <T> List<T> list(DataSource dataSource, String sql, RowProcessor<T> rowProcessor, Object... parameters) {
-        return list(DataSources.getConnection(dataSource), sql, rowProcessor, parameters);
+        Connection connection = DataSources.getConnection(dataSource);
+        try {
+            return list(connection, sql, rowProcessor, parameters);
+        } finally {
+            Connections.close(connection);
+        }
     }
 
     default <T> List<T> list(DataSource dataSource, String sql, RowProcessor<T> rowProcessor, SqlParameterProvider parameters) {
-        return list(DataSources.getConnection(dataSource), sql, rowProcessor, parameters);
+        Connection connection = DataSources.getConnection(dataSource);
+        try {
+            return list(connection, sql, rowProcessor, parameters);
+        } finally {
+            Connections.close(connection);
+        }
     }
 
     default <T> List<T> list(DataSource dataSource, String sql, RowProcessor<T> rowProcessor, Map<String, ?> parameters) {
-        return list(DataSources.getConnection(dataSource), sql, rowProcessor, parameters);
+        Connection connection = DataSources.getConnection(dataSource);
+        try {
+            return list(connection, sql, rowProcessor, parameters);
+        } finally {
+            Connections.close(connection);
+        }
     }
 
     default <T> List<T> list(DataSource dataSource, String sql, RowProcessor<T> rowProcessor, Supplier<List<T>> resultContainer, Object... parameters) {
-        return list(DataSources.getConnection(dataSource), sql, rowProcessor, resultContainer, parameters);
+        Connection connection = DataSources.getConnection(dataSource);
+        try {
+            return list(connection, sql, rowProcessor, resultContainer, parameters);
+        } finally {
+            Connections.close(connection);
+        }
     }
 
     default <T> List<T> list(DataSource dataSource, String sql, RowProcessor<T> rowProcessor, Supplier<List<T>> resultContainer, SqlParameterProvider parameters) {
-        return list(DataSources.getConnection(dataSource), sql, rowProcessor, resultContainer, parameters);
+        Connection connection = DataSources.getConnection(dataSource);
+        try {
+            return list(connection, sql, rowProcessor, resultContainer, parameters);
+        } finally {
+            Connections.close(connection);
+        }
     }
 
     default <T> List<T> list(DataSource dataSource, String sql, RowProcessor<T> rowProcessor, Supplier<List<T>> resultContainer, Map<String, ?> parameters) {
-        return list(DataSources.getConnection(dataSource), sql, rowProcessor, resultContainer, parameters);
+        Connection connection = DataSources.getConnection(dataSource);
+        try {
+            return list(connection, sql, rowProcessor, resultContainer, parameters);
+        } finally {
+            Connections.close(connection);
+        }
     }
 }
\ No newline at end of file
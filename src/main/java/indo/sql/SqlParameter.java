@@ -17,15 +17,20 @@
 package indo.sql;
 
 
-import indo.util.Collects;
-
-import java.util.*;
-import java.util.stream.IntStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 
 
 /**
  * Represents a high-level SQL bind parameter which may be bound to a value in a
  * SQL statement using JDBC syntax or a familiar map key/value syntax.
+ * <p>
+ * The {@link Optional} returning accessors are convenient, the {@code get}
+ * accessors return the raw (possibly null) values and are used when binding
+ * so that binding a parameter does not allocate.
  *
  * @author Jonathan Cone
  * @see SqlParameters
@@ -33,6 +38,8 @@ import java.util.stream.IntStream;
  */
 public class SqlParameter {
 
+    private static final int[] NO_INDEXES = new int[0];
+
     private String name;
 
     /**
@@ -47,19 +54,52 @@ public class SqlParameter {
      */
     private Integer type;
 
-    private SortedSet<Integer> indexes;
+    /**
+     * The JDBC indexes this parameter is bound to in ascending order, only
+     * the first {@link #indexCount} entries are in use.
+     */
+    private int[] indexes;
+
+    private int indexCount;
+
+    /**
+     * The first index of each run of indexes added together, in ascending
+     * order.  A named collection used more than once in a statement is
+     * bound to one run for each use.
+     */
+    private int[] runStarts;
+
+    private int runCount;
+
+    /**
+     * Whether the indexes beyond the elements of a collection or array are
+     * bound to null rather than to the last element.
+     */
+    private boolean padWithNull;
+
+    /**
+     * Whether a collection or array value is bound to a single index as a
+     * {@link java.sql.Array} rather than element by element.
+     */
+    private boolean bindAsArray;
 
     public SqlParameter(SqlParameter sqlParameter) {
         this.name = sqlParameter.name;
         this.value = sqlParameter.value;
         this.type = sqlParameter.type;
-        this.indexes = new TreeSet<>(indexes);
+        this.indexes = Arrays.copyOf(sqlParameter.indexes, sqlParameter.indexCount);
+        this.indexCount = sqlParameter.indexCount;
+        this.runStarts = Arrays.copyOf(sqlParameter.runStarts, sqlParameter.runCount);
+        this.runCount = sqlParameter.runCount;
+        this.padWithNull = sqlParameter.padWithNull;
+        this.bindAsArray = sqlParameter.bindAsArray;
     }
 
     public SqlParameter(String name, Object value) {
         this.name = name;
         this.value = value;
-        this.indexes = new TreeSet<>();
+        this.indexes = NO_INDEXES;
+        this.runStarts = NO_INDEXES;
     }
 
     public SqlParameter(String name, Object value, Integer type) {
@@ -69,8 +109,9 @@ public class SqlParameter {
 
     public SqlParameter(Integer index, Object value) {
         this.value = value;
-        this.indexes = new TreeSet<>();
-        this.indexes.add(index);
+        this.indexes = new int[]{index};
+        this.indexCount = 1;
+        this.runStarts = NO_INDEXES;
     }
 
     public SqlParameter(Integer index, Object value, Integer type) {
@@ -90,27 +131,191 @@ public class SqlParameter {
         return Optional.ofNullable(type);
     }
 
+    /**
+     * @return The name of this parameter, or null for an ordinal parameter.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The value being bound, which may be null.
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * @return The SQL type the value is bound as, or null to let the driver
+     * infer it.
+     */
+    public Integer getType() {
+        return type;
+    }
+
     public boolean hasIndex(Integer index) {
-        return Collects.isNotEmpty(indexes) && indexes.contains(index);
+        return index != null && Arrays.binarySearch(indexes, 0, indexCount, index) >= 0;
+    }
+
+    /**
+     * @return The number of indexes this parameter is bound to.
+     */
+    public int getIndexCount() {
+        return indexCount;
+    }
+
+    /**
+     * @param i The position of the index, from 0 to {@link #getIndexCount()}
+     *          exclusive.
+     * @return The index at the position, indexes are in ascending order.
+     */
+    public int getIndex(int i) {
+        if (i < 0 || i >= indexCount) {
+            throw new IndexOutOfBoundsException("Index position " + i + " of " + indexCount + ".");
+        }
+        return indexes[i];
     }
 
+    /**
+     * @return An unmodifiable copy of the indexes in ascending order, see
+     * {@link #getIndex(int)} to read them without copying.
+     */
     public List<Integer> getIndexes() {
-        return Collections.unmodifiableList(new ArrayList<>(indexes));
+        List<Integer> copy = new ArrayList<>(indexCount);
+
+        for (int i = 0; i < indexCount; i++) {
+            copy.add(indexes[i]);
+        }
+
+        return Collections.unmodifiableList(copy);
     }
 
     public void addIndex(Integer index) {
-        indexes.add(index);
+        addIndex(index.intValue());
     }
 
+    /**
+     * Add a run of consecutive indexes, such as the placeholders of one use
+     * of a collection or array.
+     */
     public void addIndexes(int start, int length) {
         if (start < 1) {
             throw new IllegalArgumentException("The starting index cannot be less than 1.");
         }
 
-        IntStream.range(start, start + length).forEachOrdered(this::addIndex);
+        if (length > 0) {
+            addRunStart(start);
+        }
+
+        ensureCapacity(indexCount + length);
+
+        for (int index = start; index < start + length; index++) {
+            addIndex(index);
+        }
+    }
+
+    /**
+     * @param index An index of this parameter.
+     * @return true if a run of indexes added by {@link #addIndexes(int, int)}
+     * starts at the index, each run is bound to the elements of a collection
+     * or array from the first element.
+     */
+    public boolean isRunStart(int index) {
+        return Arrays.binarySearch(runStarts, 0, runCount, index) >= 0;
+    }
+
+    /**
+     * @return The number of indexes in the shortest run added by {@link
+     * #addIndexes(int, int)}, or the number of indexes if none were.
+     */
+    public int getShortestRun() {
+        if (runCount == 0) {
+            return indexCount;
+        }
+
+        int shortest = Integer.MAX_VALUE;
+
+        for (int run = 0; run < runCount; run++) {
+            int from = Arrays.binarySearch(indexes, 0, indexCount, runStarts[run]);
+            int to = run + 1 < runCount ? Arrays.binarySearch(indexes, 0, indexCount, runStarts[run + 1]) : indexCount;
+
+            shortest = Math.min(shortest, to - from);
+        }
+
+        return shortest;
+    }
+
+    /**
+     * @return true if the indexes beyond the elements of a collection or
+     * array are bound to null, otherwise they repeat the last element.
+     * @see BucketedBindingResolver
+     */
+    public boolean isPadWithNull() {
+        return padWithNull;
+    }
+
+    public void setPadWithNull(boolean padWithNull) {
+        this.padWithNull = padWithNull;
+    }
+
+    /**
+     * @return true if a collection or array value is bound as a single
+     * {@link java.sql.Array}.
+     * @see ArrayBindingResolver
+     */
+    public boolean isBindAsArray() {
+        return bindAsArray;
+    }
+
+    public void setBindAsArray(boolean bindAsArray) {
+        this.bindAsArray = bindAsArray;
     }
 
     public Integer getMaxIndex() {
-        return indexes.size() > 0 ? indexes.last() : 0;
+        return indexCount > 0 ? indexes[indexCount - 1] : 0;
+    }
+
+    private void addIndex(int index) {
+        // Indexes are almost always assigned in ascending order.
+        if (indexCount > 0 && indexes[indexCount - 1] >= index) {
+            int position = Arrays.binarySearch(indexes, 0, indexCount, index);
+
+            if (position < 0) {
+                position = -position - 1;
+
+                ensureCapacity(indexCount + 1);
+                System.arraycopy(indexes, position, indexes, position + 1, indexCount - position);
+                indexes[position] = index;
+                indexCount++;
+            }
+            return;
+        }
+
+        ensureCapacity(indexCount + 1);
+        indexes[indexCount++] = index;
+    }
+
+    private void addRunStart(int start) {
+        int position = Arrays.binarySearch(runStarts, 0, runCount, start);
+
+        if (position >= 0) {
+            return;
+        }
+
+        position = -position - 1;
+
+        if (runStarts.length == runCount) {
+            runStarts = Arrays.copyOf(runStarts, Math.max(2, runCount * 2));
+        }
+
+        System.arraycopy(runStarts, position, runStarts, position + 1, runCount - position);
+        runStarts[position] = start;
+        runCount++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (indexes.length < capacity) {
+            indexes = Arrays.copyOf(indexes, Math.max(capacity, indexes.length * 2));
+        }
     }
 }
@@ -34,6 +34,18 @@ public interface SqlParameterProvider extends Iterable<SqlParameter> {
      */
     Optional<SqlParameter> findParameter(String name);
 
+    /**
+     * Retreive the {@link SqlParameter} associated with the supplied name
+     * without wrapping it in an {@link Optional}, this is how parsers look up
+     * parameters.  Implementations should override this to avoid allocating.
+     *
+     * @param name The name of the parameter to retrieve.
+     * @return The parameter, or null if there is none with the name.
+     */
+    default SqlParameter getParameter(String name) {
+        return findParameter(name).orElse(null);
+    }
+
     /**
      * Retreive the {@link SqlParameter} associated with the supplied index.
      *
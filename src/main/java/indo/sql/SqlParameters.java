@@ -20,8 +20,6 @@ import indo.util.Collects;
 import indo.util.Lists;
 
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * A class which serves as a container for {@link SqlParameter} instances. This
@@ -37,6 +35,18 @@ public class SqlParameters implements SqlParameterProvider {
 
     private List<SqlParameter> parameterList;
 
+    /**
+     * The named parameters, created on first use so that ordinal parameters
+     * never pay for it.
+     */
+    private Map<String, SqlParameter> parametersByName;
+
+    /**
+     * The values of a map backed instance, a parameter is only created for a
+     * key when it is looked up or this instance is iterated.
+     */
+    private Map<String, ?> values;
+
     /**
      * Create a new empty instance.
      */
@@ -52,6 +62,15 @@ public class SqlParameters implements SqlParameterProvider {
      */
     private SqlParameters(Collection<SqlParameter> sqlParameters) {
         this.parameterList = new ArrayList<>(sqlParameters);
+
+        for (SqlParameter sqlParameter : parameterList) {
+            String name = sqlParameter.getName();
+
+            // The first parameter with a name wins.
+            if (name != null) {
+                byName().putIfAbsent(name, sqlParameter);
+            }
+        }
     }
 
     /**
@@ -64,6 +83,16 @@ public class SqlParameters implements SqlParameterProvider {
         this.parameterList = new ArrayList<>(capacity);
     }
 
+    /**
+     * Create a new instance backed by a map of values.
+     *
+     * @param values The values keyed on parameter name, this is retained.
+     */
+    private SqlParameters(Map<String, ?> values) {
+        this(Math.min(values.size(), 16));
+        this.values = values;
+    }
+
     /**
      * @return An empty instance.
      */
@@ -72,7 +101,10 @@ public class SqlParameters implements SqlParameterProvider {
     }
 
     /**
-     * Create a new instance based on a {@link Map}.
+     * Create a new instance based on a {@link Map}. A parameter is created
+     * for a key when it is first looked up, so keys that a statement does not
+     * use cost nothing. The map is retained, it should not be changed while
+     * the instance is in use.
      *
      * @param map A {@link Map} keyed on parameter name. The value of the map
      *            entry is the value of the parameter to be bound.
@@ -80,14 +112,11 @@ public class SqlParameters implements SqlParameterProvider {
      */
     public static SqlParameters fromMap(Map<String, ?> map) {
         if (Collects.isNotEmpty(map)) {
-            return new SqlParameters(map.keySet().stream()
-                    .map(key -> new SqlParameter(key, map.get(key)))
-                    .collect(Collectors.toList()));
+            return new SqlParameters(map);
         } else {
             return empty();
         }
     }
-
     /**
      * Create a new instance based on a {@link List}.
      *
@@ -136,6 +165,44 @@ public class SqlParameters implements SqlParameterProvider {
         return new PojoSqlParameters<>(t);
     }
 
+    /**
+     * Create a provider for an object whose type is only known at runtime.
+     *
+     * @param parameters A {@link SqlParameterProvider}, which is returned as
+     *                   is, a {@link Map} keyed on parameter name, a {@link
+     *                   List} or array ordered by parameter number, or a POJO
+     *                   whose getters provide the parameters.
+     * @return The provider for the supplied object.
+     */
+    public static SqlParameterProvider fromObject(Object parameters) {
+        if (parameters == null) {
+            return empty();
+        } else if (parameters instanceof SqlParameterProvider) {
+            return (SqlParameterProvider) parameters;
+        } else if (parameters instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<String, ?> map = (Map<String, ?>) parameters;
+            return fromMap(map);
+        } else if (parameters instanceof List) {
+            return fromList((List<?>) parameters);
+        } else if (parameters instanceof Object[]) {
+            return fromArray((Object[]) parameters);
+        } else {
+            return fromGeneratedOrPojo(parameters);
+        }
+    }
+
+    /**
+     * Use the parameters generated at compile time for {@link
+     * indo.sql.mapping.IndoRow} classes, falling back to reflection.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> SqlParameterProvider fromGeneratedOrPojo(T parameters) {
+        GeneratedSqlParameters<T> generated = GeneratedSqlParameters.find((Class<T>) parameters.getClass());
+
+        return generated != null ? generated.of(parameters) : from(parameters);
+    }
+
     /**
      * Create an intsance from a {@link Collection} of other parameters. The
      * original Collection is not retained.
@@ -149,24 +216,62 @@ public class SqlParameters implements SqlParameterProvider {
 
     @Override
     public Optional<SqlParameter> findParameter(String name) {
-        return stream()
-                .filter(parameter -> parameter.name().isPresent() && Objects.equals(name, parameter.name().get()))
-                .findFirst();
+        return Optional.ofNullable(getParameter(name));
+    }
+
+    @Override
+    public SqlParameter getParameter(String name) {
+        SqlParameter sqlParameter = parametersByName != null ? parametersByName.get(name) : null;
+
+        if (sqlParameter == null && values != null && values.containsKey(name)) {
+            sqlParameter = new SqlParameter(name, values.get(name));
+
+            byName().put(name, sqlParameter);
+            parameterList.add(sqlParameter);
+        }
+
+        return sqlParameter;
     }
 
     @Override
     public Optional<SqlParameter> findParameter(Integer index) {
-        return stream()
-                .filter(parameter -> parameter.hasIndex(index))
-                .findFirst();
+        for (int i = 0; i < parameterList.size(); i++) {
+            if (parameterList.get(i).hasIndex(index)) {
+                return Optional.of(parameterList.get(i));
+            }
+        }
+        return Optional.empty();
     }
 
     @Override
     public Iterator<SqlParameter> iterator() {
+        if (values != null) {
+            values.keySet().forEach(this::getParameter);
+        }
         return parameterList.iterator();
     }
 
-    private Stream<SqlParameter> stream() {
-        return parameterList.stream();
+    /**
+     * @return The number of parameters created so far, for a map backed
+     * instance this excludes keys which have not been looked up and so
+     * cannot have been assigned an index.
+     */
+    int createdCount() {
+        return parameterList.size();
+    }
+
+    /**
+     * @param i The position of the parameter, in the order they were created.
+     * @return The parameter at the position.
+     */
+    SqlParameter created(int i) {
+        return parameterList.get(i);
+    }
+
+    private Map<String, SqlParameter> byName() {
+        if (parametersByName == null) {
+            parametersByName = new HashMap<>();
+        }
+        return parametersByName;
     }
 }
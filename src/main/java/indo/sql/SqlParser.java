@@ -70,7 +70,7 @@ public interface SqlParser {
      * @return The newly created SqlQueryMetaData instance.
      */
     default SqlQueryMetaData parse(String sql, Object pojo) {
-        return parse(sql, PojoSqlParameters.fromPojo(pojo));
+        return parse(sql, SqlParameters.fromGeneratedOrPojo(pojo));
     }
 
     /**
@@ -20,15 +20,33 @@ import indo.jdbc.DataSources;
 import indo.util.Unchecked;
 
 import javax.sql.DataSource;
+import java.lang.reflect.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static indo.log.Logger.debug;
 
@@ -36,8 +54,31 @@ import static indo.log.Logger.debug;
  * @author Jonathan Cone
  */
 public class SqlRunner implements SqlOperations {
+
+    /**
+     * The initial capacity of the arrays returned by the primitive queries,
+     * they double in size as rows are read.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
     private DataSource dataSource;
     private SqlParser sqlParser;
+    private QueryOptions queryOptions;
+    private StatementCache statementCache;
+    private ParameterBinders parameterBinders;
+    private Executor chunkExecutor;
+
+    /**
+     * The connection used by the current thread within {@link
+     * #withConnection(Function)} or {@link #inTransaction(Function)}.
+     */
+    private final ThreadLocal<Connection> boundConnection;
+
+    /**
+     * The arrays created by an {@link ArrayBindingResolver} for each statement,
+     * freed when the statement is released.
+     */
+    private final ConcurrentMap<PreparedStatement, List<java.sql.Array>> boundArrays;
 
     public SqlRunner(DataSource dataSource) {
         this(dataSource, StreamingSqlParser.instance());
@@ -46,76 +87,634 @@ public class SqlRunner implements SqlOperations {
     public SqlRunner(DataSource dataSource, SqlParser sqlParser) {
         this.dataSource = dataSource;
         this.sqlParser = sqlParser;
+        this.queryOptions = QueryOptions.defaults();
+        this.parameterBinders = ParameterBinders.defaults();
+        this.boundConnection = new ThreadLocal<>();
+        this.boundArrays = new ConcurrentHashMap<>();
+    }
+
+    private SqlRunner(SqlRunner parent, QueryOptions queryOptions) {
+        this.dataSource = parent.dataSource;
+        this.sqlParser = parent.sqlParser;
+        this.statementCache = parent.statementCache;
+        this.parameterBinders = parent.parameterBinders;
+        this.chunkExecutor = parent.chunkExecutor;
+        this.queryOptions = queryOptions;
+        this.boundConnection = parent.boundConnection;
+        this.boundArrays = parent.boundArrays;
+    }
+
+    /**
+     * Create a runner which executes statements with different options but
+     * otherwise shares this runner's data source, parser and statement cache.
+     * The new runner also joins any {@link #withConnection(Function)} or
+     * {@link #inTransaction(Function)} scope this runner has open, so options
+     * can be changed for a single query within a transaction:
+     * <pre>
+     * {@code
+     * runner.inTransaction(tx -> tx.with(tx.getQueryOptions().maxRows(100)).list(sql, Employee.class));
+     * }
+     * </pre>
+     *
+     * @param queryOptions The options used by the new runner.
+     * @return A new runner using the supplied options.
+     */
+    public SqlRunner with(QueryOptions queryOptions) {
+        return new SqlRunner(this, Objects.requireNonNull(queryOptions, "The query options cannot be null."));
+    }
+
+    /**
+     * @return The options applied to every statement executed by this runner.
+     */
+    public QueryOptions getQueryOptions() {
+        return queryOptions;
+    }
+
+    /**
+     * Change the options applied to every statement executed by this runner,
+     * see {@link #with(QueryOptions)} to change them for specific queries.
+     *
+     * @param queryOptions The runner wide options.
+     */
+    public void setQueryOptions(QueryOptions queryOptions) {
+        this.queryOptions = Objects.requireNonNull(queryOptions, "The query options cannot be null.");
+    }
+
+    /**
+     * @return The number of rows the driver is asked to fetch per round trip,
+     * or 0 if the driver default is used.
+     */
+    public int getFetchSize() {
+        return queryOptions.getFetchSize();
+    }
+
+    /**
+     * Hint the number of rows the JDBC driver should fetch from the database
+     * per round trip. This mostly matters for {@link #stream(String, Class,
+     * Object...)} since some drivers will otherwise read the entire result
+     * into memory.  PostgreSQL only honors the fetch size with auto-commit
+     * disabled, so a stream that opens its own connection disables it until
+     * the stream is closed. Within {@link #withConnection(Function)} or on an
+     * explicit {@link Connection} auto-commit is left as it is, use {@link
+     * #inTransaction(Function)} instead.  MySQL ignores a positive fetch size
+     * unless the connection URL sets {@code useCursorFetch=true}, otherwise
+     * it only streams with {@link QueryOptions#streaming()}.
+     *
+     * @param fetchSize The number of rows to fetch, 0 to use the driver
+     *                  default, or {@link Integer#MIN_VALUE} to stream rows
+     *                  on MySQL.
+     */
+    public void setFetchSize(int fetchSize) {
+        this.queryOptions = queryOptions.fetchSize(fetchSize);
+    }
+
+    /**
+     * @return The cache used to reuse prepared statements, or null if
+     * statements are not cached.
+     */
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    /**
+     * Reuse prepared statements for identical SQL executed on the same
+     * connection, statements are prepared and closed per execution by
+     * default.
+     *
+     * @param statementCache The cache to use, or null to disable caching.
+     */
+    public void setStatementCache(StatementCache statementCache) {
+        this.statementCache = statementCache;
+    }
+
+    /**
+     * @return The binders used to bind parameter values by their class.
+     */
+    public ParameterBinders getParameterBinders() {
+        return parameterBinders;
+    }
+
+    /**
+     * Change how parameter values are bound, e.g. to bind {@code java.time}
+     * values directly on JDBC 4.2 drivers or to bind custom value types:
+     * <pre>
+     * {@code
+     * runner.setParameterBinders(ParameterBinders.jdbc42());
+     * }
+     * </pre>
+     *
+     * @param parameterBinders The binders to use.
+     */
+    public void setParameterBinders(ParameterBinders parameterBinders) {
+        this.parameterBinders = Objects.requireNonNull(parameterBinders, "The parameter binders cannot be null.");
+    }
+
+    /**
+     * @return The executor that chunks of a query run on, or null if chunks
+     * run one after the other.
+     */
+    public Executor getChunkExecutor() {
+        return chunkExecutor;
+    }
+
+    /**
+     * Run the chunks of a query that is split because of an oversized IN
+     * list concurrently, each on its own connection.  The executor should
+     * be no larger than the connection pool, e.g. one created by {@link
+     * AsyncSqlRunner#newExecutor(int, int, java.util.concurrent.RejectedExecutionHandler)}.
+     * Chunks the executor rejects run on the calling thread.  The chunks of a
+     * query share its {@link RowProcessor}, so custom processors must be
+     * thread-safe, the built in processors are.
+     * <pre>
+     * {@code
+     * runner.setQueryOptions(runner.getQueryOptions().inListChunkSize(10000));
+     * runner.setChunkExecutor(AsyncSqlRunner.newExecutor(4, 100, new ThreadPoolExecutor.AbortPolicy()));
+     * }
+     * </pre>
+     *
+     * @param chunkExecutor The executor, or null to run chunks one after the
+     *                      other.
+     * @see QueryOptions#inListChunkSize(int)
+     */
+    public void setChunkExecutor(Executor chunkExecutor) {
+        this.chunkExecutor = chunkExecutor;
     }
 
     public <T> List<T> list(String sql, Class<T> type, Object... parameters) {
-        return list(DataSources.getConnection(dataSource), sql, type, parameters);
+        return list(sql, RowProcessor.using(type), SqlParameters.fromArray(parameters));
     }
 
     public <T> List<T> list(String sql, Class<T> type, SqlParameterProvider parameters) {
-        return list(DataSources.getConnection(dataSource), sql, type, parameters);
+        return list(sql, RowProcessor.using(type), parameters);
     }
 
     public <T> List<T> list(String sql, Class<T> type, Map<String, ?> parameters) {
-        return list(DataSources.getConnection(dataSource), sql, type, parameters);
+        return list(sql, RowProcessor.using(type), SqlParameters.fromMap(parameters));
     }
 
     public <T> List<T> list(String sql, Class<T> type, ResultTypes resultTypes, Object... parameters) {
-        return list(DataSources.getConnection(dataSource), sql, type, resultTypes, parameters);
+        return list(sql, RowProcessor.using(type, resultTypes), SqlParameters.fromArray(parameters));
     }
 
     public <T> List<T> list(String sql, Class<T> type, ResultTypes resultTypes, SqlParameterProvider parameters) {
-        return list(DataSources.getConnection(dataSource), sql, type, resultTypes, parameters);
+        return list(sql, RowProcessor.using(type, resultTypes), parameters);
     }
 
     public <T> List<T> list(String sql, Class<T> type, ResultTypes resultTypes, Map<String, ?> parameters) {
-        return list(DataSources.getConnection(dataSource), sql, type, resultTypes, parameters);
+        return list(sql, RowProcessor.using(type, resultTypes), SqlParameters.fromMap(parameters));
     }
 
     public <T> List<T> list(String sql, RowProcessor<T> rowProcessor, Object... parameters) {
-        return list(DataSources.getConnection(dataSource), sql, rowProcessor, parameters);
+        return list(sql, rowProcessor, SqlParameters.fromArray(parameters));
     }
 
     public <T> List<T> list(String sql, RowProcessor<T> rowProcessor, SqlParameterProvider parameters) {
-        return list(DataSources.getConnection(dataSource), sql, rowProcessor, parameters);
+        return list(sql, rowProcessor, ArrayList<T>::new, parameters);
     }
 
     public <T> List<T> list(String sql, RowProcessor<T> rowProcessor, Map<String, ?> parameters) {
-        return list(DataSources.getConnection(dataSource), sql, rowProcessor, parameters);
+        return list(sql, rowProcessor, SqlParameters.fromMap(parameters));
     }
 
+    /**
+     * Execute a query and map every row. A query which is split into chunks
+     * (see {@link QueryOptions#inListChunkSize(int)}) runs its chunks
+     * concurrently when the runner has a chunk executor and is not within
+     * {@link #withConnection(Function)} or {@link #inTransaction(Function)},
+     * each chunk on its own connection.
+     *
+     * @param sql             The SQL query to execute.
+     * @param rowProcessor    The processor used to map each row.
+     * @param resultContainer Supplies the list the rows are added to.
+     * @param parameters      The parameters to bind to the query.
+     * @param <T>             The type of object each row is mapped to.
+     * @return The mapped rows, in the order of the chunks.
+     */
     public <T> List<T> list(String sql, RowProcessor<T> rowProcessor, Supplier<List<T>> resultContainer, SqlParameterProvider parameters) {
-        return list(DataSources.getConnection(dataSource), sql, rowProcessor, resultContainer, parameters);
+        if (chunkExecutor == null || boundConnection.get() != null) {
+            return onConnection(connection -> list(connection, sql, rowProcessor, resultContainer, parameters));
+        }
+
+        InListChunks chunks = chunks(sql, parameters);
+
+        if (chunks == null) {
+            return onConnection(connection -> read(connection, sql, rowProcessor, resultContainer.get(), parameters));
+        }
+
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>(chunks.count());
+
+        for (int i = 0; i < chunks.count(); i++) {
+            SqlParameterProvider chunk = chunks.chunk(i);
+            Supplier<List<T>> task = () -> onConnection(connection -> read(connection, sql, rowProcessor, new ArrayList<>(), chunk));
+
+            try {
+                futures.add(CompletableFuture.supplyAsync(task, chunkExecutor));
+            } catch (RejectedExecutionException e) {
+                // The executor is saturated, run the chunk on this thread.
+                futures.add(CompletableFuture.completedFuture(task.get()));
+            }
+        }
+
+        List<T> results = resultContainer.get();
+
+        for (CompletableFuture<List<T>> future : futures) {
+            try {
+                results.addAll(future.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        return results;
+    }
+
+    public <T> Stream<T> stream(String sql, Class<T> type, Object... parameters) {
+        return stream(sql, RowProcessor.using(type), SqlParameters.fromArray(parameters));
+    }
+
+    public <T> Stream<T> stream(String sql, Class<T> type, SqlParameterProvider parameters) {
+        return stream(sql, RowProcessor.using(type), parameters);
+    }
+
+    public <T> Stream<T> stream(String sql, Class<T> type, Map<String, ?> parameters) {
+        return stream(sql, RowProcessor.using(type), SqlParameters.fromMap(parameters));
+    }
+
+    public <T> Stream<T> stream(String sql, RowProcessor<T> rowProcessor, Object... parameters) {
+        return stream(sql, rowProcessor, SqlParameters.fromArray(parameters));
+    }
+
+    public <T> Stream<T> stream(String sql, RowProcessor<T> rowProcessor, Map<String, ?> parameters) {
+        return stream(sql, rowProcessor, SqlParameters.fromMap(parameters));
+    }
+
+    /**
+     * Execute a query and lazily map each row as the returned {@link Stream}
+     * is consumed, rather than reading the entire result into memory. The
+     * statement, result set and connection are released once the stream has
+     * been fully consumed or is closed, so callers that may stop early should
+     * use a try-with-resources block:
+     * <pre>
+     * {@code
+     * try (Stream<Employee> employees = runner.stream(sql, Employee.class)) {
+     *     employees.forEach(...);
+     * }
+     * }
+     * </pre>
+     *
+     * @param sql          The SQL query to execute.
+     * @param rowProcessor The processor used to map each row.
+     * @param parameters   The parameters to bind to the query.
+     * @param <T>          The type of object each row is mapped to.
+     * @return A lazily populated {@link Stream} of mapped rows.
+     * @see #setFetchSize(int)
+     */
+    public <T> Stream<T> stream(String sql, RowProcessor<T> rowProcessor, SqlParameterProvider parameters) {
+        InListChunks chunks = chunks(sql, parameters);
+
+        if (chunks != null) {
+            // Each chunk is opened once the previous one has been consumed.
+            return IntStream.range(0, chunks.count())
+                    .mapToObj(chunks::chunk)
+                    .flatMap(chunk -> onStreamConnection((connection, closeConnection) ->
+                            stream(connection, closeConnection, sql, rowProcessor, chunk)));
+        }
+
+        return onStreamConnection((connection, closeConnection) ->
+                stream(connection, closeConnection, sql, rowProcessor, parameters));
+    }
+
+    public long[] longs(String sql, Object... parameters) {
+        return longs(sql, SqlParameters.fromArray(parameters));
+    }
+
+    /**
+     * Execute a query and read the first column of every row as a {@code
+     * long}, without boxing each value.  SQL NULL values are read as 0.
+     *
+     * @param sql        The SQL query to execute.
+     * @param parameters The parameters to bind to the query.
+     * @return The value of each row, in order.
+     */
+    public long[] longs(String sql, SqlParameterProvider parameters) {
+        return onConnection(connection -> longs(connection, sql, parameters));
+    }
+
+    public long[] longs(String sql, Map<String, ?> parameters) {
+        return longs(sql, SqlParameters.fromMap(parameters));
+    }
+
+    public int[] ints(String sql, Object... parameters) {
+        return ints(sql, SqlParameters.fromArray(parameters));
+    }
+
+    /**
+     * Execute a query and read the first column of every row as an {@code
+     * int}, without boxing each value.  SQL NULL values are read as 0.
+     *
+     * @see #longs(String, SqlParameterProvider)
+     */
+    public int[] ints(String sql, SqlParameterProvider parameters) {
+        return onConnection(connection -> ints(connection, sql, parameters));
+    }
+
+    public int[] ints(String sql, Map<String, ?> parameters) {
+        return ints(sql, SqlParameters.fromMap(parameters));
+    }
+
+    public double[] doubles(String sql, Object... parameters) {
+        return doubles(sql, SqlParameters.fromArray(parameters));
+    }
+
+    /**
+     * Execute a query and read the first column of every row as a {@code
+     * double}, without boxing each value.  SQL NULL values are read as 0.
+     *
+     * @see #longs(String, SqlParameterProvider)
+     */
+    public double[] doubles(String sql, SqlParameterProvider parameters) {
+        return onConnection(connection -> doubles(connection, sql, parameters));
+    }
+
+    public double[] doubles(String sql, Map<String, ?> parameters) {
+        return doubles(sql, SqlParameters.fromMap(parameters));
+    }
+
+    public ColumnarResult columnar(String sql, Object... parameters) {
+        return columnar(sql, SqlParameters.fromArray(parameters));
+    }
+
+    /**
+     * Execute a query and store the result column by column, see {@link
+     * ColumnarResult}.
+     *
+     * @param sql        The SQL query to execute.
+     * @param parameters The parameters to bind to the query.
+     * @return The entire result.
+     */
+    public ColumnarResult columnar(String sql, SqlParameterProvider parameters) {
+        return onConnection(connection -> columnar(connection, sql, parameters));
+    }
+
+    public ColumnarResult columnar(String sql, Map<String, ?> parameters) {
+        return columnar(sql, SqlParameters.fromMap(parameters));
+    }
+
+    public <T> List<T> graph(String sql, GraphRowProcessor<T> graph, Object... parameters) {
+        return graph(sql, graph, SqlParameters.fromArray(parameters));
+    }
+
+    /**
+     * Execute a query joining several tables and rebuild the object graph
+     * from its rows, see {@link GraphRowProcessor}.
+     *
+     * @param sql        The SQL query to execute.
+     * @param graph      The definition of the graph.
+     * @param parameters The parameters to bind to the query.
+     * @param <T>        The type of the root entities.
+     * @return The distinct root entities in the order they first appeared.
+     */
+    public <T> List<T> graph(String sql, GraphRowProcessor<T> graph, SqlParameterProvider parameters) {
+        return onConnection(connection -> graph(connection, sql, graph, parameters));
+    }
+
+    public <T> List<T> graph(String sql, GraphRowProcessor<T> graph, Map<String, ?> parameters) {
+        return graph(sql, graph, SqlParameters.fromMap(parameters));
+    }
+
+    public LongStream longStream(String sql, Object... parameters) {
+        return longStream(sql, SqlParameters.fromArray(parameters));
+    }
+
+    /**
+     * Execute a query and lazily read the first column of each row as a
+     * {@code long} as the returned stream is consumed.  Resources are
+     * released as described by {@link #stream(String, RowProcessor,
+     * SqlParameterProvider)}.
+     *
+     * @param sql        The SQL query to execute.
+     * @param parameters The parameters to bind to the query.
+     * @return A lazily populated stream of values.
+     */
+    public LongStream longStream(String sql, SqlParameterProvider parameters) {
+        return onStreamConnection((connection, closeConnection) ->
+                open(connection, closeConnection, sql, parameters, ColumnSpliterators::longStream));
+    }
+
+    public LongStream longStream(String sql, Map<String, ?> parameters) {
+        return longStream(sql, SqlParameters.fromMap(parameters));
+    }
+
+    public IntStream intStream(String sql, Object... parameters) {
+        return intStream(sql, SqlParameters.fromArray(parameters));
+    }
+
+    /**
+     * @see #longStream(String, SqlParameterProvider)
+     */
+    public IntStream intStream(String sql, SqlParameterProvider parameters) {
+        return onStreamConnection((connection, closeConnection) ->
+                open(connection, closeConnection, sql, parameters, ColumnSpliterators::intStream));
+    }
+
+    public IntStream intStream(String sql, Map<String, ?> parameters) {
+        return intStream(sql, SqlParameters.fromMap(parameters));
+    }
+
+    public DoubleStream doubleStream(String sql, Object... parameters) {
+        return doubleStream(sql, SqlParameters.fromArray(parameters));
+    }
+
+    /**
+     * @see #longStream(String, SqlParameterProvider)
+     */
+    public DoubleStream doubleStream(String sql, SqlParameterProvider parameters) {
+        return onStreamConnection((connection, closeConnection) ->
+                open(connection, closeConnection, sql, parameters, ColumnSpliterators::doubleStream));
+    }
+
+    public DoubleStream doubleStream(String sql, Map<String, ?> parameters) {
+        return doubleStream(sql, SqlParameters.fromMap(parameters));
+    }
+
+    /**
+     * Execute a statement once per row using JDBC batching.
+     *
+     * @see #batch(Connection, String, Iterable, int)
+     */
+    public int[] batch(String sql, Iterable<?> rows, int batchSize) {
+        return onConnection(connection -> batch(connection, sql, rows, batchSize));
+    }
+
+    /**
+     * Run some work using a single connection. Every operation of this runner
+     * that does not take an explicit {@link Connection} uses that connection
+     * while the work runs on the current thread, rather than checking out a
+     * connection from the {@link DataSource} per operation.  The connection
+     * is released once the work completes. Calls made within an enclosing
+     * {@link #withConnection(Function)} or {@link #inTransaction(Function)}
+     * share its connection.
+     * <pre>
+     * {@code
+     * Department department = runner.withConnection(r -> {
+     *     Department d = r.list(departmentSql, Department.class, id).get(0);
+     *     d.setEmployees(r.list(employeeSql, Employee.class, id));
+     *     return d;
+     * });
+     * }
+     * </pre>
+     * Streams opened within the work must be consumed before it completes.
+     *
+     * @param work The work to run, it receives this runner.
+     * @param <T>  The type of result.
+     * @return The result of the work.
+     */
+    public <T> T withConnection(Function<SqlRunner, T> work) {
+        return scoped(work, false);
+    }
+
+    /**
+     * Run some work in a transaction using a single connection, see {@link
+     * #withConnection(Function)}. The transaction is committed when the work
+     * returns and rolled back if it throws. Calls made within an enclosing
+     * transaction join it, the outermost call commits or rolls back.
+     * <pre>
+     * {@code
+     * runner.inTransaction(r -> r.batch(insertSql, employees, 1000));
+     * }
+     * </pre>
+     *
+     * @param work The work to run, it receives this runner.
+     * @param <T>  The type of result.
+     * @return The result of the work.
+     */
+    public <T> T inTransaction(Function<SqlRunner, T> work) {
+        return scoped(work, true);
+    }
+
+    /**
+     * Run some work in a transaction as {@link #inTransaction(Function)}
+     * does, handing it the connection of the transaction so that it can use
+     * the operations taking an explicit {@link Connection}.
+     */
+    <T> T inTransactionOn(Function<Connection, T> work) {
+        return scoped(runner -> work.apply(boundConnection.get()), true);
+    }
+
+    private <T> T scoped(Function<SqlRunner, T> work, boolean transactional) {
+        Connection outer = boundConnection.get();
+
+        Connection connection = outer != null ? outer : DataSources.getConnection(dataSource);
+
+        boolean begin = false;
+
+        try {
+            if (outer == null) {
+                boundConnection.set(connection);
+            }
+
+            begin = transactional && connection.getAutoCommit();
+
+            if (begin) {
+                connection.setAutoCommit(false);
+            }
+
+            T result = work.apply(this);
+
+            if (begin) {
+                connection.commit();
+            }
+
+            return result;
+        } catch (SQLException e) {
+            rollback(connection, begin, e);
+            throw Unchecked.sqlException(e);
+        } catch (RuntimeException | Error e) {
+            rollback(connection, begin, e);
+            throw e;
+        } finally {
+            if (begin) {
+                closeQuietly(() -> connection.setAutoCommit(true));
+            }
+            if (outer == null) {
+                boundConnection.remove();
+                closeQuietly(() -> close(connection));
+            }
+        }
+    }
+
+    private void rollback(Connection connection, boolean begun, Throwable cause) {
+        if (begun) {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                cause.addSuppressed(e);
+            }
+        }
+    }
+
+    /**
+     * Open a stream on the connection bound by {@link
+     * #withConnection(Function)} or {@link #inTransaction(Function)}, or on a
+     * connection from the {@link DataSource} which is closed along with the
+     * stream.
+     */
+    private <S> S onStreamConnection(BiFunction<Connection, Boolean, S> opener) {
+        Connection bound = boundConnection.get();
+
+        return bound != null
+                ? opener.apply(bound, false)
+                : opener.apply(DataSources.getConnection(dataSource), true);
+    }
+
+    /**
+     * Run an operation on the connection bound by {@link
+     * #withConnection(Function)} or {@link #inTransaction(Function)}, or on a
+     * connection from the {@link DataSource} which is closed afterwards.
+     */
+    private <T> T onConnection(Function<Connection, T> operation) {
+        Connection bound = boundConnection.get();
+
+        if (bound != null) {
+            return operation.apply(bound);
+        }
+
+        Connection connection = DataSources.getConnection(dataSource);
+        try {
+            return operation.apply(connection);
+        } finally {
+            closeQuietly(() -> close(connection));
+        }
     }
 
     @Override
     public <T> List<T> list(Connection connection, String sql, Class<T> type, Object... parameters) {
-        return list(connection, sql, (rs) -> RowProcessor.using(type).map(rs), SqlParameters.fromArray(parameters));
+        return list(connection, sql, RowProcessor.using(type), SqlParameters.fromArray(parameters));
     }
 
     @Override
     public <T> List<T> list(Connection connection, String sql, Class<T> type, SqlParameterProvider parameters) {
-        return list(connection, sql, (rs) -> RowProcessor.using(type).map(rs), parameters);
+        return list(connection, sql, RowProcessor.using(type), parameters);
     }
 
     @Override
     public <T> List<T> list(Connection connection, String sql, Class<T> type, Map<String, ?> parameters) {
-        return list(connection, sql, (rs) -> RowProcessor.using(type).map(rs), SqlParameters.fromMap(parameters));
+        return list(connection, sql, RowProcessor.using(type), SqlParameters.fromMap(parameters));
     }
 
     @Override
     public <T> List<T> list(Connection connection, String sql, Class<T> type, ResultTypes resultTypes, Object... parameters) {
-        return list(connection, sql, (rs) -> RowProcessor.using(type, resultTypes).map(rs), SqlParameters.fromArray(parameters));
+        return list(connection, sql, RowProcessor.using(type, resultTypes), SqlParameters.fromArray(parameters));
     }
 
     @Override
     public <T> List<T> list(Connection connection, String sql, Class<T> type, ResultTypes resultTypes, SqlParameterProvider parameters) {
-        return list(connection, sql, (rs) -> RowProcessor.using(type, resultTypes).map(rs), parameters);
+        return list(connection, sql, RowProcessor.using(type, resultTypes), parameters);
     }
 
     @Override
     public <T> List<T> list(Connection connection, String sql, Class<T> type, ResultTypes resultTypes, Map<String, ?> parameters) {
-        return list(connection, sql, (rs) -> RowProcessor.using(type, resultTypes).map(rs), SqlParameters.fromMap(parameters));
+        return list(connection, sql, RowProcessor.using(type, resultTypes), SqlParameters.fromMap(parameters));
     }
 
 
@@ -151,49 +750,760 @@ public class SqlRunner implements SqlOperations {
                             Supplier<List<T>> resultContainer,
                             SqlParameterProvider parameters) {
 
+        InListChunks chunks = chunks(sql, parameters);
 
-        SqlQueryMetaData metaData = sqlParser.parse(sql, parameters);
+        if (chunks == null) {
+            return read(connection, sql, rowProcessor, resultContainer.get(), parameters);
+        }
 
-        String parsedSql = metaData.getParsedSql();
+        List<T> results = resultContainer.get();
 
-        debug(this, "Preparing statement - %s", parsedSql);
+        for (int i = 0; i < chunks.count(); i++) {
+            read(connection, sql, rowProcessor, results, chunks.chunk(i));
+        }
 
-        try (PreparedStatement ps = connection.prepareStatement(parsedSql)) {
+        return results;
+    }
 
-            for (SqlParameter sqlParameter : parameters) {
-                for (Integer index : sqlParameter.getIndexes()) {
+    @Override
+    public <T> Stream<T> stream(Connection connection, String sql, Class<T> type, Object... parameters) {
+        return stream(connection, sql, RowProcessor.using(type), SqlParameters.fromArray(parameters));
+    }
 
-                    Optional<Integer> type = sqlParameter.type();
-                    Optional<Object> value = sqlParameter.value();
+    @Override
+    public <T> Stream<T> stream(Connection connection, String sql, Class<T> type, SqlParameterProvider parameters) {
+        return stream(connection, sql, RowProcessor.using(type), parameters);
+    }
 
-                    if (type.isPresent()) {
-                        if (value.isPresent()) {
-                            ps.setObject(index, value.get(), type.get());
-                        } else {
-                            ps.setObject(index, null, type.get());
-                        }
-                    } else {
-                        if (value.isPresent()) {
-                            ps.setObject(index, value.get());
-                        } else {
-                            ps.setObject(index, null);
+    @Override
+    public <T> Stream<T> stream(Connection connection, String sql, Class<T> type, Map<String, ?> parameters) {
+        return stream(connection, sql, RowProcessor.using(type), SqlParameters.fromMap(parameters));
+    }
+
+    @Override
+    public <T> Stream<T> stream(Connection connection, String sql, RowProcessor<T> rowProcessor, Object... parameters) {
+        return stream(connection, sql, rowProcessor, SqlParameters.fromArray(parameters));
+    }
+
+    @Override
+    public <T> Stream<T> stream(Connection connection, String sql, RowProcessor<T> rowProcessor, Map<String, ?> parameters) {
+        return stream(connection, sql, rowProcessor, SqlParameters.fromMap(parameters));
+    }
+
+    /**
+     * Execute a query and lazily map each row as the returned {@link Stream}
+     * is consumed. The statement and result set are closed once the stream
+     * has been fully consumed or is closed, the supplied connection is left
+     * open for the caller to manage.
+     */
+    @Override
+    public <T> Stream<T> stream(Connection connection, String sql, RowProcessor<T> rowProcessor, SqlParameterProvider parameters) {
+        InListChunks chunks = chunks(sql, parameters);
+
+        if (chunks != null) {
+            return IntStream.range(0, chunks.count())
+                    .mapToObj(chunks::chunk)
+                    .flatMap(chunk -> stream(connection, false, sql, rowProcessor, chunk));
+        }
+
+        return stream(connection, false, sql, rowProcessor, parameters);
+    }
+
+    @Override
+    public long[] longs(Connection connection, String sql, Object... parameters) {
+        return longs(connection, sql, SqlParameters.fromArray(parameters));
+    }
+
+    @Override
+    public long[] longs(Connection connection, String sql, SqlParameterProvider parameters) {
+        return query(connection, sql, parameters, rs -> {
+            long[] values = new long[INITIAL_CAPACITY];
+            int size = 0;
+
+            while (rs.next()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size << 1);
+                }
+                values[size++] = rs.getLong(1);
+            }
+
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        });
+    }
+
+    @Override
+    public long[] longs(Connection connection, String sql, Map<String, ?> parameters) {
+        return longs(connection, sql, SqlParameters.fromMap(parameters));
+    }
+
+    @Override
+    public int[] ints(Connection connection, String sql, Object... parameters) {
+        return ints(connection, sql, SqlParameters.fromArray(parameters));
+    }
+
+    @Override
+    public int[] ints(Connection connection, String sql, SqlParameterProvider parameters) {
+        return query(connection, sql, parameters, rs -> {
+            int[] values = new int[INITIAL_CAPACITY];
+            int size = 0;
+
+            while (rs.next()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size << 1);
+                }
+                values[size++] = rs.getInt(1);
+            }
+
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        });
+    }
+
+    @Override
+    public int[] ints(Connection connection, String sql, Map<String, ?> parameters) {
+        return ints(connection, sql, SqlParameters.fromMap(parameters));
+    }
+
+    @Override
+    public double[] doubles(Connection connection, String sql, Object... parameters) {
+        return doubles(connection, sql, SqlParameters.fromArray(parameters));
+    }
+
+    @Override
+    public double[] doubles(Connection connection, String sql, SqlParameterProvider parameters) {
+        return query(connection, sql, parameters, rs -> {
+            double[] values = new double[INITIAL_CAPACITY];
+            int size = 0;
+
+            while (rs.next()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size << 1);
+                }
+                values[size++] = rs.getDouble(1);
+            }
+
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        });
+    }
+
+    @Override
+    public double[] doubles(Connection connection, String sql, Map<String, ?> parameters) {
+        return doubles(connection, sql, SqlParameters.fromMap(parameters));
+    }
+
+    @Override
+    public ColumnarResult columnar(Connection connection, String sql, Object... parameters) {
+        return columnar(connection, sql, SqlParameters.fromArray(parameters));
+    }
+
+    @Override
+    public ColumnarResult columnar(Connection connection, String sql, SqlParameterProvider parameters) {
+        return query(connection, sql, parameters, ColumnarResult::read);
+    }
+
+    @Override
+    public ColumnarResult columnar(Connection connection, String sql, Map<String, ?> parameters) {
+        return columnar(connection, sql, SqlParameters.fromMap(parameters));
+    }
+
+    @Override
+    public <T> List<T> graph(Connection connection, String sql, GraphRowProcessor<T> graph, Object... parameters) {
+        return graph(connection, sql, graph, SqlParameters.fromArray(parameters));
+    }
+
+    @Override
+    public <T> List<T> graph(Connection connection, String sql, GraphRowProcessor<T> graph, SqlParameterProvider parameters) {
+        return query(connection, sql, parameters, graph::process);
+    }
+
+    @Override
+    public <T> List<T> graph(Connection connection, String sql, GraphRowProcessor<T> graph, Map<String, ?> parameters) {
+        return graph(connection, sql, graph, SqlParameters.fromMap(parameters));
+    }
+
+    @Override
+    public LongStream longStream(Connection connection, String sql, Object... parameters) {
+        return longStream(connection, sql, SqlParameters.fromArray(parameters));
+    }
+
+    @Override
+    public LongStream longStream(Connection connection, String sql, SqlParameterProvider parameters) {
+        return open(connection, false, sql, parameters, ColumnSpliterators::longStream);
+    }
+
+    @Override
+    public LongStream longStream(Connection connection, String sql, Map<String, ?> parameters) {
+        return longStream(connection, sql, SqlParameters.fromMap(parameters));
+    }
+
+    @Override
+    public IntStream intStream(Connection connection, String sql, Object... parameters) {
+        return intStream(connection, sql, SqlParameters.fromArray(parameters));
+    }
+
+    @Override
+    public IntStream intStream(Connection connection, String sql, SqlParameterProvider parameters) {
+        return open(connection, false, sql, parameters, ColumnSpliterators::intStream);
+    }
+
+    @Override
+    public IntStream intStream(Connection connection, String sql, Map<String, ?> parameters) {
+        return intStream(connection, sql, SqlParameters.fromMap(parameters));
+    }
+
+    @Override
+    public DoubleStream doubleStream(Connection connection, String sql, Object... parameters) {
+        return doubleStream(connection, sql, SqlParameters.fromArray(parameters));
+    }
+
+    @Override
+    public DoubleStream doubleStream(Connection connection, String sql, SqlParameterProvider parameters) {
+        return open(connection, false, sql, parameters, ColumnSpliterators::doubleStream);
+    }
+
+    @Override
+    public DoubleStream doubleStream(Connection connection, String sql, Map<String, ?> parameters) {
+        return doubleStream(connection, sql, SqlParameters.fromMap(parameters));
+    }
+
+    /**
+     * Execute a statement once per row using JDBC batching, rows are sent to
+     * the database {@code batchSize} at a time.  The statement is only
+     * prepared again if the parsed SQL changes from one row to the next, e.g.
+     * when rows bind collections of different lengths.
+     */
+    @Override
+    public int[] batch(Connection connection, String sql, Iterable<?> rows, int batchSize) {
+        return batch(connection, sql, rows, batchSize, Function.identity(), null, null);
+    }
+
+    /**
+     * Execute a statement once per row using JDBC batching, optionally
+     * reading back a generated key for each row.
+     *
+     * @param parameters  Converts a row into its parameters, see {@link
+     *                    SqlParameters#fromObject(Object)}.
+     * @param keyColumn   The generated key column to read back, or null.
+     * @param keyConsumer Receives each row along with its generated key.
+     *                    Some drivers, such as H2, only return the last key
+     *                    of a batch.  The batch is then rolled back to a
+     *                    savepoint and its rows are executed one at a time,
+     *                    as are all rows when the connection is in
+     *                    auto-commit mode.
+     */
+    <R> int[] batch(Connection connection,
+                    String sql,
+                    Iterable<R> rows,
+                    int batchSize,
+                    Function<? super R, ?> parameters,
+                    String keyColumn,
+                    BiConsumer<? super R, Object> keyConsumer) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be at least 1.");
+        }
+
+        IntStream.Builder updateCounts = IntStream.builder();
+
+        List<R> pending = new ArrayList<>(Math.min(batchSize, 1024));
+        List<SqlParameterProvider> pendingParameters = new ArrayList<>(Math.min(batchSize, 1024));
+
+        try {
+            // Rows cannot be matched to their keys once the driver has
+            // returned too few for a batch, the rest are executed one by one.
+            boolean eachRow = keyConsumer != null && connection.getAutoCommit();
+
+            PreparedStatement ps = null;
+            String preparedSql = null;
+
+            try {
+                for (R row : rows) {
+                    SqlParameterProvider rowParameters = SqlParameters.fromObject(parameters.apply(row));
+
+                    String parsedSql = sqlParser.parse(sql, rowParameters).getParsedSql();
+
+                    if (!parsedSql.equals(preparedSql)) {
+                        if (ps != null) {
+                            eachRow = executeBatch(connection, ps, pending, pendingParameters, updateCounts, keyConsumer, eachRow);
+
+                            PreparedStatement previous = ps;
+                            ps = null;
+                            release(previous);
                         }
+
+                        ps = keyColumn != null
+                                ? prepareKeyedStatement(connection, parsedSql, keyColumn)
+                                : prepareStatement(connection, parsedSql);
+                        preparedSql = parsedSql;
+                    }
+
+                    pending.add(row);
+
+                    // The parameters are kept in case the rows are executed
+                    // one at a time after all.
+                    if (keyConsumer != null) {
+                        pendingParameters.add(rowParameters);
+                    }
+
+                    if (!eachRow) {
+                        bind(ps, rowParameters);
+                        ps.addBatch();
+                    }
+
+                    if (pending.size() == batchSize) {
+                        eachRow = executeBatch(connection, ps, pending, pendingParameters, updateCounts, keyConsumer, eachRow);
                     }
                 }
+
+                if (ps != null && !pending.isEmpty()) {
+                    executeBatch(connection, ps, pending, pendingParameters, updateCounts, keyConsumer, eachRow);
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (ps != null) {
+                    PreparedStatement failed = ps;
+                    closeQuietly(failed::clearBatch);
+                }
+                throw e;
+            } finally {
+                if (ps != null) {
+                    release(ps);
+                }
             }
+        } catch (SQLException e) {
+            throw Unchecked.sqlException(e);
+        }
 
-            List<T> results = resultContainer.get();
+        return updateCounts.build().toArray();
+    }
 
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    results.add(rowProcessor.map(rs));
-                }
+    /**
+     * Execute the pending rows as a batch and hand out their generated keys,
+     * or execute them one at a time if the driver does not return a key for
+     * every row of a batch.
+     *
+     * @return true if the remaining rows must be executed one at a time.
+     */
+    private <R> boolean executeBatch(Connection connection,
+                                     PreparedStatement ps,
+                                     List<R> pending,
+                                     List<SqlParameterProvider> pendingParameters,
+                                     IntStream.Builder updateCounts,
+                                     BiConsumer<? super R, Object> keyConsumer,
+                                     boolean eachRow) throws SQLException {
+
+        if (eachRow) {
+            executeEach(ps, pending, pendingParameters, updateCounts, keyConsumer);
+            return true;
+        }
+
+        debug(this, "Executing batch of %d statements.", pending.size());
+
+        Savepoint savepoint = keyConsumer != null ? connection.setSavepoint() : null;
+
+        int[] batchCounts = ps.executeBatch();
+
+        if (keyConsumer != null) {
+            List<Object> keys = readKeys(ps);
+
+            // Some drivers only return the last key of a batch, in which case
+            // there is no way to tell which row each key belongs to.
+            if (keys.size() != pending.size()) {
+                debug(this, "Received %d generated keys for a batch of %d rows, executing each row instead.", keys.size(), pending.size());
+
+                connection.rollback(savepoint);
+                executeEach(ps, pending, pendingParameters, updateCounts, keyConsumer);
+                return true;
+            }
+
+            closeQuietly(() -> connection.releaseSavepoint(savepoint));
+
+            for (int i = 0; i < keys.size(); i++) {
+                keyConsumer.accept(pending.get(i), keys.get(i));
+            }
+        }
+
+        for (int updateCount : batchCounts) {
+            updateCounts.add(updateCount);
+        }
+
+        pending.clear();
+        pendingParameters.clear();
+
+        return false;
+    }
+
+    private <R> void executeEach(PreparedStatement ps,
+                                 List<R> pending,
+                                 List<SqlParameterProvider> pendingParameters,
+                                 IntStream.Builder updateCounts,
+                                 BiConsumer<? super R, Object> keyConsumer) throws SQLException {
+
+        debug(this, "Executing %d statements one at a time.", pending.size());
+
+        for (int i = 0; i < pending.size(); i++) {
+            bind(ps, pendingParameters.get(i));
+            updateCounts.add(ps.executeUpdate());
+
+            List<Object> keys = readKeys(ps);
+
+            if (!keys.isEmpty()) {
+                keyConsumer.accept(pending.get(i), keys.get(0));
+            }
+        }
+
+        pending.clear();
+        pendingParameters.clear();
+    }
+
+    private static List<Object> readKeys(PreparedStatement ps) throws SQLException {
+        List<Object> keys = new ArrayList<>();
+
+        try (ResultSet rs = ps.getGeneratedKeys()) {
+            while (rs.next()) {
+                keys.add(rs.getObject(1));
+            }
+        }
+
+        return keys;
+    }
+
+    /**
+     * Execute a query and return a lazily populated {@link Stream} over the
+     * open {@link ResultSet}.
+     *
+     * @param connection      The connection to execute the query with.
+     * @param closeConnection true if the connection should be closed along
+     *                        with the statement and result set.
+     */
+    private <T> Stream<T> stream(Connection connection,
+                                 boolean closeConnection,
+                                 String sql,
+                                 RowProcessor<T> rowProcessor,
+                                 SqlParameterProvider parameters) {
+
+        return open(connection, closeConnection, sql, parameters,
+                (rs, resources) -> new ResultSetSpliterator<>(rs, rowProcessor, resources).stream());
+    }
+
+    /**
+     * Execute a query and hand the open {@link ResultSet} to a stream which
+     * releases it, its statement and possibly the connection when closed.
+     * When the stream owns the connection and a fetch size is set, auto-commit
+     * is turned off for the life of the stream, since PostgreSQL otherwise
+     * ignores the fetch size and reads the entire result into memory.
+     */
+    private <S> S open(Connection connection,
+                       boolean closeConnection,
+                       String sql,
+                       SqlParameterProvider parameters,
+                       StreamFactory<S> streamFactory) {
+
+        PreparedStatement ps = null;
+        boolean restoreAutoCommit = false;
+        try {
+            if (closeConnection && queryOptions.getFetchSize() > 0 && connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+                restoreAutoCommit = true;
+            }
+
+            ps = prepare(connection, sql, parameters);
+
+            ResultSet rs = ps.executeQuery();
+
+            PreparedStatement statement = ps;
+
+            return streamFactory.create(rs,
+                    rs,
+                    () -> release(statement),
+                    restoreAutoCommit ? () -> connection.setAutoCommit(true) : null,
+                    closeConnection ? () -> close(connection) : null);
+
+        } catch (SQLException | RuntimeException e) {
+            if (ps != null) {
+                PreparedStatement statement = ps;
+                closeQuietly(() -> release(statement));
+            }
+            if (restoreAutoCommit) {
+                closeQuietly(() -> connection.setAutoCommit(true));
+            }
+            if (closeConnection) {
+                closeQuietly(() -> close(connection));
+            }
+            throw Unchecked.sqlException(e);
+        }
+    }
+
+    /**
+     * Execute a query and add every mapped row to a list.
+     */
+    private <T> List<T> read(Connection connection, String sql, RowProcessor<T> rowProcessor, List<T> results, SqlParameterProvider parameters) {
+        return query(connection, sql, parameters, rs -> {
+            while (rs.next()) {
+                results.add(rowProcessor.map(rs));
             }
 
             return results;
+        });
+    }
+
+    /**
+     * @return The chunks a query is split into, or null if chunking is
+     * disabled or no parameter exceeds the chunk size.
+     */
+    private InListChunks chunks(String sql, SqlParameterProvider parameters) {
+        int chunkSize = queryOptions.getInListChunkSize();
+
+        return chunkSize > 0 ? InListChunks.split(sqlParser, sql, parameters, chunkSize) : null;
+    }
+
+    /**
+     * Execute a query and read the entire {@link ResultSet}, the statement is
+     * released afterwards.
+     */
+    private <R> R query(Connection connection, String sql, SqlParameterProvider parameters, ResultSetReader<R> reader) {
+        try {
+            PreparedStatement ps = prepare(connection, sql, parameters);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return reader.read(rs);
+            } finally {
+                release(ps);
+            }
         } catch (SQLException e) {
             throw Unchecked.sqlException(e);
         }
     }
 
+    /**
+     * Parse a SQL statement, prepare it on the supplied connection and bind
+     * all of the parameters to it.
+     *
+     * @return The prepared statement, which must be handed back to {@link
+     * #release(PreparedStatement)} by the caller.
+     */
+    private PreparedStatement prepare(Connection connection, String sql, SqlParameterProvider parameters) throws SQLException {
+
+        SqlQueryMetaData metaData = sqlParser.parse(sql, parameters);
+
+        PreparedStatement ps = prepareStatement(connection, metaData.getParsedSql());
+
+        try {
+            bind(ps, parameters);
+
+            return ps;
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(() -> release(ps));
+            throw e;
+        }
+    }
+
+    /**
+     * Prepare a statement for SQL that has already been parsed, or take it
+     * from the statement cache if one is in use, and apply the query options.
+     */
+    private PreparedStatement prepareStatement(Connection connection, String parsedSql) throws SQLException {
+
+        debug(this, "Preparing statement - %s", parsedSql);
+
+        QueryOptions options = queryOptions;
+
+        PreparedStatement ps;
+
+        if (statementCache != null) {
+            ps = statementCache.acquire(connection, parsedSql, options.getResultSetType(), options.getResultSetConcurrency());
+        } else if (options.hasDefaultCursor()) {
+            ps = connection.prepareStatement(parsedSql);
+        } else {
+            ps = connection.prepareStatement(parsedSql, options.getResultSetType(), options.getResultSetConcurrency());
+        }
+
+        return applyOptions(ps, options);
+    }
+
+    /**
+     * Prepare an uncached statement that returns the generated value of a key
+     * column.
+     */
+    private PreparedStatement prepareKeyedStatement(Connection connection, String parsedSql, String keyColumn) throws SQLException {
+
+        debug(this, "Preparing statement - %s", parsedSql);
+
+        return applyOptions(connection.prepareStatement(parsedSql, new String[]{keyColumn}), queryOptions);
+    }
+
+    private PreparedStatement applyOptions(PreparedStatement ps, QueryOptions options) throws SQLException {
+        try {
+            options.applyTo(ps);
+
+            return ps;
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(() -> release(ps));
+            throw e;
+        }
+    }
+
+    /**
+     * Bind every index of every parameter to the statement.  A collection or
+     * array bound to a named parameter is expanded to one placeholder per
+     * element by the parser, so it is bound element by element.
+     */
+    private void bind(PreparedStatement ps, SqlParameterProvider parameters) throws SQLException {
+        if (parameters instanceof SqlParameters) {
+            SqlParameters sqlParameters = (SqlParameters) parameters;
+
+            // Walk the parameters by position rather than with an iterator,
+            // a map backed instance only holds the parameters that were used.
+            for (int i = 0; i < sqlParameters.createdCount(); i++) {
+                bind(ps, sqlParameters.created(i));
+            }
+        } else {
+            for (SqlParameter sqlParameter : parameters) {
+                bind(ps, sqlParameter);
+            }
+        }
+    }
+
+    /**
+     * Bind a parameter with the binder for the class of its value, which is
+     * looked up once per parameter rather than once per index.  Values with
+     * an explicit SQL type and null values are bound with setObject, values
+     * flagged by an {@link ArrayBindingResolver} as a single array.
+     */
+    private void bind(PreparedStatement ps, SqlParameter sqlParameter) throws SQLException {
+        int count = sqlParameter.getIndexCount();
+
+        if (count == 0) {
+            return;
+        }
+
+        Integer type = sqlParameter.getType();
+        Object value = sqlParameter.getValue();
+
+        if (sqlParameter.isBindAsArray() && ArrayBindingResolver.isArray(value)) {
+            String typeName = parameterBinders.getArrayType(ArrayBindingResolver.elementType(value));
+
+            for (int i = 0; i < count; i++) {
+                java.sql.Array array = ArrayBindingResolver.bind(ps, sqlParameter.getIndex(i), typeName, value);
+
+                if (array != null) {
+                    boundArrays.computeIfAbsent(ps, statement -> new ArrayList<>()).add(array);
+                }
+            }
+            return;
+        }
+
+        // A collection or array bound to a named parameter is spread over
+        // each run of its indexes, one run for every use of the parameter.
+        // Any indexes of a run beyond the elements are padding.
+        int size = value != null && sqlParameter.getName() != null ? elementCount(value) : -1;
+        boolean expand = size >= 0 && size <= sqlParameter.getShortestRun();
+        boolean iterate = expand && value instanceof Collection && !(value instanceof List);
+
+        Iterator<?> elements = iterate ? ((Collection<?>) value).iterator() : null;
+
+        Object last = null;
+        int element = 0;
+
+        Class<?> boundClass = null;
+        ParameterBinder<Object> binder = null;
+
+        for (int i = 0; i < count; i++) {
+
+            int index = sqlParameter.getIndex(i);
+
+            if (expand && i > 0 && sqlParameter.isRunStart(index)) {
+                element = 0;
+                elements = iterate ? ((Collection<?>) value).iterator() : null;
+            }
+
+            Object object = value;
+
+            if (expand && element >= size) {
+                object = sqlParameter.isPadWithNull() ? null : last;
+            } else if (elements != null) {
+                object = last = elements.next();
+            } else if (expand) {
+                object = last = value instanceof List ? ((List<?>) value).get(element) : Array.get(value, element);
+            }
+
+            element++;
+
+            if (type != null) {
+                ps.setObject(index, object, type);
+            } else if (object == null) {
+                ps.setObject(index, null);
+            } else {
+                // The elements of a collection almost always share a class.
+                if (object.getClass() != boundClass) {
+                    boundClass = object.getClass();
+                    binder = parameterBinders.find(boundClass);
+                }
+
+                binder.bind(ps, index, object);
+            }
+        }
+    }
+
+    /**
+     * @return The number of elements of a collection or array, or -1 for any
+     * other value.
+     */
+    private static int elementCount(Object value) {
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        }
+
+        return value.getClass().isArray() ? Array.getLength(value) : -1;
+    }
+
+    /**
+     * Close a statement obtained from {@link #prepare(Connection, String,
+     * SqlParameterProvider)}, or return it to the statement cache if one is
+     * in use.
+     */
+    private void release(PreparedStatement ps) throws SQLException {
+        List<java.sql.Array> arrays = boundArrays.isEmpty() ? null : boundArrays.remove(ps);
+
+        if (arrays != null) {
+            for (java.sql.Array array : arrays) {
+                closeQuietly(array::free);
+            }
+        }
+
+        if (statementCache != null) {
+            statementCache.release(ps);
+        } else {
+            ps.close();
+        }
+    }
+
+    /**
+     * Close a connection owned by this runner, discarding any statements
+     * cached for it first.
+     */
+    private void close(Connection connection) throws SQLException {
+        if (statementCache != null) {
+            statementCache.evict(connection);
+        }
+        connection.close();
+    }
+
+    private void closeQuietly(AutoCloseable resource) {
+        try {
+            if (resource != null) {
+                resource.close();
+            }
+        } catch (Exception e) {
+            debug(this, "Ignoring failure while closing %s: %s", resource, e.getMessage());
+        }
+    }
+
+
+    @FunctionalInterface
+    private interface ResultSetReader<R> {
+        R read(ResultSet rs) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface StreamFactory<S> {
+        S create(ResultSet rs, AutoCloseable... resources);
+    }
 }
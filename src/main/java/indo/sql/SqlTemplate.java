@@ -0,0 +1,272 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A SQL statement that has been split into literal segments and named
+ * parameter slots, so it only has to be scanned once.  The SQL produced for
+ * a specific parameter shape (see {@link StreamingSqlParser#shapeOf(SqlParameter)})
+ * is remembered along with the indexes assigned to each slot, so parsing the
+ * same statement again only needs to assign indexes.
+ *
+ * @author Jonathan Cone
+ * @see StreamingSqlParser
+ */
+final class SqlTemplate {
+
+    /**
+     * The upper bound of distinct parameter shapes remembered per statement,
+     * e.g. different IN list lengths.
+     */
+    private static final int MAX_EXPANSIONS = 64;
+
+    private final String sql;
+
+    /**
+     * The literal SQL surrounding the slots, there is always one more literal
+     * than there are slots.
+     */
+    private final String[] literals;
+
+    /**
+     * The parameter name of each slot.
+     */
+    private final String[] names;
+
+    /**
+     * The original text of each slot including the prefix token, this is
+     * emitted as is when a slot has no matching parameter.
+     */
+    private final String[] tokens;
+
+    private final ConcurrentMap<Shape, Expansion> expansions;
+
+    private SqlTemplate(String sql, String[] literals, String[] names, String[] tokens) {
+        this.sql = sql;
+        this.literals = literals;
+        this.names = names;
+        this.tokens = tokens;
+        this.expansions = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Scan a SQL statement for named parameters, ignoring anything within
+     * single or double quotes.
+     *
+     * @param sql    The SQL statement.
+     * @param parser The parser that defines the tokens.
+     * @return The compiled template.
+     */
+    static SqlTemplate compile(String sql, AbstractSqlParser parser) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+
+        boolean singleQuoteClosed = true;
+        boolean doubleQuoteClosed = true;
+
+        int literalStart = 0;
+
+        for (int seekIndex = 0; seekIndex < sql.length(); seekIndex++) {
+            char currentChar = sql.charAt(seekIndex);
+
+            if (parser.isSingleQuote(currentChar)) {
+                singleQuoteClosed = !singleQuoteClosed;
+            }
+
+            if (parser.isDoubleQuote(currentChar) && singleQuoteClosed) {
+                doubleQuoteClosed = !doubleQuoteClosed;
+            }
+
+            if (singleQuoteClosed && doubleQuoteClosed && parser.isPrefixToken(currentChar)) {
+
+                // Scan until we don't find a valid Java identifier.
+                int identifierEnd = seekIndex + 1;
+
+                while (sql.length() > identifierEnd
+                        && Character.isJavaIdentifierPart(sql.charAt(identifierEnd))) {
+                    identifierEnd++;
+                }
+
+                // A lone prefix token, e.g. the first half of a PostgreSQL
+                // '::' cast, is just part of the literal.
+                if (identifierEnd > seekIndex + 1) {
+                    literals.add(sql.substring(literalStart, seekIndex));
+                    names.add(sql.substring(seekIndex + 1, identifierEnd));
+                    tokens.add(sql.substring(seekIndex, identifierEnd));
+
+                    literalStart = identifierEnd;
+                    seekIndex = identifierEnd - 1;
+                }
+            }
+        }
+
+        literals.add(sql.substring(literalStart));
+
+        return new SqlTemplate(sql,
+                literals.toArray(new String[literals.size()]),
+                names.toArray(new String[names.size()]),
+                tokens.toArray(new String[tokens.size()]));
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    int getSlotCount() {
+        return names.length;
+    }
+
+    String getName(int slot) {
+        return names[slot];
+    }
+
+    /**
+     * Find the SQL previously produced for a parameter shape.
+     *
+     * @param shape The shape of the parameter in each slot.
+     * @return The expansion, or null if this shape has not been seen yet.
+     */
+    Expansion expansion(int[] shape) {
+        return expansions.get(new Shape(shape));
+    }
+
+    /**
+     * Produce the SQL for a parameter shape by running each matched slot
+     * through the binding resolvers, then remember the result if requested.
+     *
+     * @param parameters The parameter matching each slot, or null if the slot
+     *                   has no parameter.
+     * @param shape      The shape of the parameter in each slot.
+     * @param resolvers  The binding resolvers to consult, in order.
+     * @param remember   Whether the expansion is cached for the shape, only
+     *                   when the shape fully determines the SQL.
+     * @return The expansion, the resolvers will already have assigned the
+     * indexes of the supplied parameters.
+     */
+    Expansion expand(SqlParameter[] parameters, int[] shape, List<BindingResolver> resolvers, boolean remember) {
+        StringBuilder targetSql = new StringBuilder(sql.length() + names.length * 2);
+
+        int[] starts = new int[names.length];
+        int[] lengths = new int[names.length];
+        boolean[] padWithNull = new boolean[names.length];
+        boolean[] bindAsArray = new boolean[names.length];
+
+        int nextIndex = 1;
+
+        for (int slot = 0; slot < names.length; slot++) {
+            targetSql.append(literals[slot]);
+
+            String resolved = null;
+            SqlParameter sqlParameter = parameters[slot];
+
+            if (sqlParameter != null) {
+                for (BindingResolver bindingResolver : resolvers) {
+                    resolved = bindingResolver.resolve(nextIndex, sqlParameter).orElse(null);
+
+                    // This resolver can handle this parameter.
+                    if (resolved != null) {
+                        starts[slot] = nextIndex;
+                        lengths[slot] = Math.max(0, sqlParameter.getMaxIndex() - nextIndex + 1);
+                        nextIndex += lengths[slot];
+                        padWithNull[slot] = sqlParameter.isPadWithNull();
+                        bindAsArray[slot] = sqlParameter.isBindAsArray();
+                        break;
+                    }
+                }
+            }
+
+            targetSql.append(resolved != null ? resolved : tokens[slot]);
+        }
+
+        targetSql.append(literals[names.length]);
+
+        Expansion expansion = new Expansion(targetSql.toString(), starts, lengths, padWithNull, bindAsArray);
+
+        if (remember && expansions.size() < MAX_EXPANSIONS) {
+            expansions.putIfAbsent(new Shape(shape.clone()), expansion);
+        }
+
+        return expansion;
+    }
+
+    /**
+     * The SQL and index assignments for one parameter shape.
+     */
+    static final class Expansion {
+        private final String parsedSql;
+        private final int[] starts;
+        private final int[] lengths;
+        private final boolean[] padWithNull;
+        private final boolean[] bindAsArray;
+
+        private Expansion(String parsedSql, int[] starts, int[] lengths, boolean[] padWithNull, boolean[] bindAsArray) {
+            this.parsedSql = parsedSql;
+            this.starts = starts;
+            this.lengths = lengths;
+            this.padWithNull = padWithNull;
+            this.bindAsArray = bindAsArray;
+        }
+
+        String getParsedSql() {
+            return parsedSql;
+        }
+
+        /**
+         * Assign the indexes and binding flags of each slot to the
+         * parameters, exactly as the binding resolvers did when this
+         * expansion was produced.
+         *
+         * @param parameters The parameter matching each slot.
+         */
+        void assignIndexes(SqlParameter[] parameters) {
+            for (int slot = 0; slot < parameters.length; slot++) {
+                if (lengths[slot] > 0) {
+                    parameters[slot].addIndexes(starts[slot], lengths[slot]);
+                    parameters[slot].setPadWithNull(padWithNull[slot]);
+                    parameters[slot].setBindAsArray(bindAsArray[slot]);
+                }
+            }
+        }
+    }
+
+    private static final class Shape {
+        private final int[] values;
+        private final int hashCode;
+
+        private Shape(int[] values) {
+            this.values = values;
+            this.hashCode = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Shape && Arrays.equals(values, ((Shape) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
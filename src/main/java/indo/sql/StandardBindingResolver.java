@@ -34,11 +34,9 @@ public class StandardBindingResolver implements BindingResolver {
         // Bind a single parameter by default.
         int length = 1;
 
-        Optional<Object> value = sqlParameter.value();
+        Object object = sqlParameter.getValue();
 
-        if (value.isPresent()) {
-
-            Object object = value.get();
+        if (object != null) {
 
             if (object.getClass().isArray()) {
                 length = Array.getLength(object);
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static indo.log.Logger.debug;
+
+/**
+ * An opt-in cache of {@link PreparedStatement}s which allows statements to be
+ * reused for identical SQL on the same {@link Connection} instead of being
+ * prepared (and parsed by the database) on every execution.  Each connection
+ * keeps a least recently used set of at most {@link #getMaxStatements()}
+ * statements, evicted statements are closed.
+ * <p>
+ * A statement is checked out of the cache while it is in use, so two open
+ * queries on the same connection never share a statement.  Parameters are
+ * cleared when a statement is returned.  Statements are only useful for as
+ * long as their connection is, so this cache pays off when the same
+ * connection executes the same statements repeatedly, e.g. within a
+ * transaction or when calling the {@link Connection} based operations.
+ * <pre>
+ * {@code
+ * SqlRunner runner = new SqlRunner(dataSource);
+ * runner.setStatementCache(new StatementCache(100));
+ * }
+ * </pre>
+ *
+ * @author Jonathan Cone
+ * @see SqlRunner#setStatementCache(StatementCache)
+ */
+public class StatementCache {
+
+    public static final int DEFAULT_MAX_STATEMENTS = 64;
+
+    /**
+     * The number of connections whose statements are remembered, statements
+     * of the least recently used connection are closed beyond this limit.
+     */
+    private static final int MAX_CONNECTIONS = 64;
+
+    private final int maxStatements;
+
+    private final Map<Connection, LinkedHashMap<String, PreparedStatement>> statements;
+    private final Map<PreparedStatement, Checkout> checkedOut;
+
+    private long hitCount;
+    private long missCount;
+
+    public StatementCache() {
+        this(DEFAULT_MAX_STATEMENTS);
+    }
+
+    /**
+     * @param maxStatements The maximum number of statements to cache per
+     *                      connection.
+     */
+    public StatementCache(int maxStatements) {
+        if (maxStatements < 1) {
+            throw new IllegalArgumentException("The cache must hold at least one statement per connection.");
+        }
+
+        this.maxStatements = maxStatements;
+        this.checkedOut = new IdentityHashMap<>();
+        this.statements = new LinkedHashMap<Connection, LinkedHashMap<String, PreparedStatement>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Connection, LinkedHashMap<String, PreparedStatement>> eldest) {
+                if (size() > MAX_CONNECTIONS) {
+                    closeAll(eldest.getValue().values());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Check out a statement for the supplied SQL, preparing a new one if none
+     * is cached for the connection.
+     *
+     * @param connection The connection the statement belongs to.
+     * @param sql        The SQL of the statement.
+     * @return A statement which must be handed back via {@link
+     * #release(PreparedStatement)} when it is no longer in use.
+     * @throws SQLException if a new statement could not be prepared.
+     */
+    PreparedStatement acquire(Connection connection, String sql) throws SQLException {
+        return acquire(connection, sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    }
+
+    /**
+     * Check out a statement for the supplied SQL and cursor, preparing a new
+     * one if none is cached for the connection. Statements are only reused
+     * for the same cursor type and concurrency.
+     *
+     * @param connection           The connection the statement belongs to.
+     * @param sql                  The SQL of the statement.
+     * @param resultSetType        The cursor type, e.g. {@link ResultSet#TYPE_FORWARD_ONLY}.
+     * @param resultSetConcurrency The cursor concurrency, e.g. {@link ResultSet#CONCUR_READ_ONLY}.
+     * @return A statement which must be handed back via {@link
+     * #release(PreparedStatement)} when it is no longer in use.
+     * @throws SQLException if a new statement could not be prepared.
+     */
+    PreparedStatement acquire(Connection connection, String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        boolean defaultCursor = resultSetType == ResultSet.TYPE_FORWARD_ONLY
+                && resultSetConcurrency == ResultSet.CONCUR_READ_ONLY;
+
+        // The SQL alone identifies the common case, other cursors prefix the
+        // SQL with their type and concurrency.
+        String key = defaultCursor ? sql : "#" + resultSetType + "," + resultSetConcurrency + "#" + sql;
+
+        PreparedStatement ps;
+
+        synchronized (this) {
+            Map<String, PreparedStatement> cached = statements.get(connection);
+
+            ps = cached != null ? cached.remove(key) : null;
+
+            if (ps != null && !ps.isClosed()) {
+                hitCount++;
+                checkedOut.put(ps, new Checkout(connection, key));
+                return ps;
+            }
+
+            missCount++;
+        }
+
+        ps = defaultCursor
+                ? connection.prepareStatement(sql)
+                : connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+
+        synchronized (this) {
+            checkedOut.put(ps, new Checkout(connection, key));
+        }
+
+        return ps;
+    }
+
+    /**
+     * Return a statement previously checked out via {@link
+     * #acquire(Connection, String)} so it can be reused. Statements which
+     * were not checked out from this cache are simply closed.
+     *
+     * @param ps The statement to return.
+     * @throws SQLException if the statement could not be reset or closed.
+     */
+    void release(PreparedStatement ps) throws SQLException {
+        Checkout checkout;
+
+        synchronized (this) {
+            checkout = checkedOut.remove(ps);
+        }
+
+        // The statement is filed under the connection it was acquired with,
+        // a wrapped statement may report the underlying connection instead.
+        Connection connection = checkout != null && !ps.isClosed() ? checkout.connection : null;
+
+        if (connection == null || connection.isClosed()) {
+            ps.close();
+            return;
+        }
+
+        String key = checkout.key;
+
+        ps.clearParameters();
+
+        PreparedStatement displaced;
+
+        synchronized (this) {
+            LinkedHashMap<String, PreparedStatement> cached = statements.get(connection);
+
+            if (cached == null) {
+                cached = newStatementMap();
+                statements.put(connection, cached);
+            }
+
+            displaced = cached.put(key, ps);
+        }
+
+        // The same SQL was checked out twice at the same time, keep the most
+        // recently returned statement.
+        if (displaced != null && displaced != ps) {
+            displaced.close();
+        }
+    }
+
+    /**
+     * Close and forget every statement cached for a connection, this should
+     * be called before a connection is closed or returned to a pool.
+     *
+     * @param connection The connection whose statements should be closed.
+     */
+    public void evict(Connection connection) {
+        Map<String, PreparedStatement> cached;
+
+        synchronized (this) {
+            cached = statements.remove(connection);
+        }
+
+        if (cached != null) {
+            closeAll(cached.values());
+        }
+    }
+
+    /**
+     * Close and forget every cached statement.
+     */
+    public void clear() {
+        List<PreparedStatement> all = new ArrayList<>();
+
+        synchronized (this) {
+            statements.values().forEach(cached -> all.addAll(cached.values()));
+            statements.clear();
+        }
+
+        closeAll(all);
+    }
+
+    /**
+     * @return The maximum number of statements cached per connection.
+     */
+    public int getMaxStatements() {
+        return maxStatements;
+    }
+
+    /**
+     * @return The number of times a cached statement was reused.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return The number of times a statement had to be prepared.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return The number of statements currently cached across all
+     * connections, excluding statements that are checked out.
+     */
+    public synchronized int size() {
+        return statements.values().stream().mapToInt(Map::size).sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StatementCache[maxStatements=%d, hits=%d, misses=%d]", maxStatements, getHitCount(), getMissCount());
+    }
+
+    private LinkedHashMap<String, PreparedStatement> newStatementMap() {
+        return new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > maxStatements) {
+                    closeAll(Collections.singleton(eldest.getValue()));
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * The connection and key a statement was checked out with.
+     */
+    private static final class Checkout {
+        private final Connection connection;
+        private final String key;
+
+        private Checkout(Connection connection, String key) {
+            this.connection = connection;
+            this.key = key;
+        }
+    }
+
+    private void closeAll(Iterable<PreparedStatement> toClose) {
+        for (PreparedStatement ps : toClose) {
+            try {
+                ps.close();
+            } catch (SQLException e) {
+                debug(this, "Ignoring failure while closing cached statement: %s", e.getMessage());
+            }
+        }
+    }
+}
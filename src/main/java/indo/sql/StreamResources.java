@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.jdbc.JdbcException;
+import indo.util.Unchecked;
+
+import java.sql.SQLException;
+
+import static indo.log.Logger.debug;
+
+/**
+ * The resources backing a stream over an open {@link java.sql.ResultSet},
+ * typically the result set, its statement and possibly the connection, which
+ * are released together exactly once.
+ *
+ * @author Jonathan Cone
+ * @see ResultSetSpliterator
+ * @see ColumnSpliterators
+ */
+final class StreamResources {
+
+    private final AutoCloseable[] resources;
+
+    private boolean closed;
+
+    /**
+     * @param resources The resources to release, in order, null elements are
+     *                  ignored.
+     */
+    StreamResources(AutoCloseable... resources) {
+        this.resources = resources;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Release all resources. Calling this method more than once has no
+     * effect.
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        debug(this, "Closing streamed result set.");
+
+        Exception failure = null;
+
+        for (AutoCloseable resource : resources) {
+            try {
+                if (resource != null) {
+                    resource.close();
+                }
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure instanceof SQLException
+                    ? Unchecked.sqlException(failure)
+                    : new JdbcException("Could not release the streamed result set.", failure);
+        }
+    }
+
+    /**
+     * Release all resources while an exception is already being thrown, any
+     * failure is logged rather than masking the original exception.
+     */
+    void closeQuietly() {
+        try {
+            close();
+        } catch (RuntimeException e) {
+            debug(this, "Ignoring failure while releasing streamed result set: %s", e.getMessage());
+        }
+    }
+}
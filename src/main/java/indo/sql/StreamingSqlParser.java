@@ -16,15 +16,75 @@
 
 package indo.sql;
 
-import java.util.Optional;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
+ * A {@link SqlParser} which replaces named parameters (e.g. {@code :name})
+ * with JDBC placeholders.  Each distinct SQL statement is only scanned once,
+ * the result is cached as a template of literal segments and parameter slots.
+ * The SQL generated for each parameter shape (whether a parameter is present
+ * and how many values it binds) is cached along with it, so parsing a
+ * statement that has been seen before only assigns parameter indexes.
+ *
  * @author Jonathan Cone
  */
 public class StreamingSqlParser extends AbstractSqlParser implements SqlParser {
     private static final StreamingSqlParser INSTANCE = new StreamingSqlParser();
 
+    /**
+     * The upper bound of distinct SQL statements cached, this guards against
+     * unbounded growth when SQL is generated dynamically.
+     */
+    private static final int MAX_TEMPLATES = 2048;
+
+    private final ConcurrentMap<String, SqlTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * The first resolver, if it describes the shape of parameters itself.
+     */
+    private final ShapingBindingResolver shaping;
+
+    /**
+     * Whether the SQL produced for a shape can be reused, which is only
+     * known for resolvers whose SQL depends on nothing but the shape.
+     */
+    private final boolean cacheExpansions;
+
     private StreamingSqlParser() {
+        this.shaping = null;
+        this.cacheExpansions = true;
+    }
+
+    /**
+     * Create a parser with its own binding resolvers, for example:
+     * <pre>
+     * {@code
+     * SqlRunner runner = new SqlRunner(dataSource, new StreamingSqlParser(new BucketedBindingResolver()));
+     * }
+     * </pre>
+     * Parsers should be shared since each keeps its own cache of statements.
+     * The SQL produced for each parameter shape is only cached when every
+     * resolver is a plain {@link StandardBindingResolver} or a {@link
+     * ShapingBindingResolver}, otherwise the resolvers are consulted on every
+     * parse.
+     *
+     * @param bindingResolvers The resolvers consulted in order to produce
+     *                         the SQL for each parameter.
+     */
+    public StreamingSqlParser(BindingResolver... bindingResolvers) {
+        super(Arrays.asList(bindingResolvers));
+
+        this.shaping = bindingResolvers[0] instanceof ShapingBindingResolver
+                ? (ShapingBindingResolver) bindingResolvers[0]
+                : null;
+
+        this.cacheExpansions = Arrays.stream(bindingResolvers)
+                .allMatch(resolver -> resolver.getClass() == StandardBindingResolver.class
+                        || resolver instanceof ShapingBindingResolver);
     }
 
     public static StreamingSqlParser instance() {
@@ -34,78 +94,76 @@ public class StreamingSqlParser extends AbstractSqlParser implements SqlParser {
     @Override
     public SqlQueryMetaData parse(String sql, SqlParameterProvider sqlParameterProvider) {
 
-        StringBuilder targetSql = new StringBuilder(sql.length());
+        SqlTemplate template = template(sql);
 
-        boolean singleQuoteClosed = true;
-        boolean doubleQuoteClosed = true;
-
-        // Start by looping through the SQL statement.
-        for (int nextIndex = 1, seekIndex = 0; seekIndex < sql.length(); seekIndex++) {
-
-            boolean match = false;
-            char currentChar = sql.charAt(seekIndex);
-
-            if (isSingleQuote(currentChar)) {
-                singleQuoteClosed = !singleQuoteClosed;
-            }
-
-            if (isDoubleQuote(currentChar) && singleQuoteClosed) {
-                doubleQuoteClosed = !doubleQuoteClosed;
-            }
+        int slotCount = template.getSlotCount();
 
-            if (singleQuoteClosed && doubleQuoteClosed) {
-
-                // Perhaps the start of a named bind variable.
-                if (isPrefixToken(currentChar)) {
+        // Nothing to replace, e.g. SQL using ordinal parameters.
+        if (slotCount == 0) {
+            return new SqlQueryMetaData(sql, sqlParameterProvider);
+        }
 
-                    // Scan until we don't find a valid Java identifier.
-                    int identifierStart = seekIndex + 1;
-                    int identifierEnd = identifierStart;
+        SqlParameter[] parameters = new SqlParameter[slotCount];
+        int[] shape = new int[slotCount];
 
-                    while (sql.length() > identifierEnd
-                            && Character.isJavaIdentifierPart(sql.charAt(identifierEnd))) {
-                        identifierEnd++;
-                    }
+        for (int slot = 0; slot < slotCount; slot++) {
+            SqlParameter sqlParameter = sqlParameterProvider.getParameter(template.getName(slot));
 
-                    // We found an identifier, now we need to determine if its actually valid.
-                    String identifier = sql.substring(identifierStart, identifierEnd);
+            parameters[slot] = sqlParameter;
+            shape[slot] = sqlParameter != null ? shapeOf(sqlParameter) : -1;
+        }
 
-                    Optional<SqlParameter> optionalParameter = sqlParameterProvider.findParameter(identifier);
+        SqlTemplate.Expansion expansion = cacheExpansions ? template.expansion(shape) : null;
 
-                    if (optionalParameter.isPresent()) {
+        if (expansion != null) {
+            expansion.assignIndexes(parameters);
+        } else {
+            expansion = template.expand(parameters, shape, getBindingResolvers(), cacheExpansions);
+        }
 
-                        // We found a good match, now determine how to bind it.
-                        SqlParameter sqlParameter = optionalParameter.get();
+        return new SqlQueryMetaData(expansion.getParsedSql(), sqlParameterProvider);
+    }
 
-                        for (BindingResolver bindingResolver : getBindingResolvers()) {
-                            Optional<String> resolved = bindingResolver.resolve(nextIndex, sqlParameter);
+    /**
+     * Describe a parameter so that parameters with the same shape are always
+     * resolved to the same SQL by the binding resolvers.  By default this is
+     * the number of values the parameter binds, i.e. the length of an array
+     * or collection, or 1 for any other value.  When the first resolver is a
+     * {@link BucketedBindingResolver} the length is rounded up to its bucket,
+     * since every length in a bucket produces the same SQL.  When it is an
+     * {@link ArrayBindingResolver} the shape only tells whether the value is
+     * bound as an array, and any other {@link ShapingBindingResolver}
+     * describes the shape itself.
+     *
+     * @param sqlParameter The parameter bound to a slot.
+     * @return A non-negative shape value.
+     */
+    protected int shapeOf(SqlParameter sqlParameter) {
+        Object value = sqlParameter.getValue();
+
+        int length = 1;
+
+        if (value instanceof Collection) {
+            length = ((Collection<?>) value).size();
+        } else if (value != null && value.getClass().isArray()) {
+            length = Array.getLength(value);
+        }
 
-                            // This resolver can handle this parameter.
-                            if (resolved.isPresent()) {
+        return shaping != null ? shaping.shapeOf(value, length) : length;
+    }
 
-                                // The resolver handled creating new indexes, so we need to bump the next index up.
-                                nextIndex = sqlParameter.getMaxIndex() + 1;
+    private SqlTemplate template(String sql) {
+        SqlTemplate template = templates.get(sql);
 
-                                targetSql.append(resolved.get());
+        if (template == null) {
+            template = SqlTemplate.compile(sql, this);
 
-                                // Fast-forward the index past the parameter name.
-                                seekIndex += identifier.length();
-                                match = true;
-                                break;
-                            }
-                        }
-                    }
-                }
-            }
-            if (!match) {
-                targetSql.append(currentChar);
+            if (templates.size() < MAX_TEMPLATES) {
+                SqlTemplate existing = templates.putIfAbsent(sql, template);
+                template = existing != null ? existing : template;
             }
-
         }
 
-        return new SqlQueryMetaData(targetSql.toString(), sqlParameterProvider);
+        return template;
     }
-
-
 }
-
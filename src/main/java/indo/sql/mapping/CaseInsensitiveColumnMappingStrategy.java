@@ -32,10 +32,17 @@ public class CaseInsensitiveColumnMappingStrategy implements ReflectionColumnMap
 
     @Override
     public Optional<String> findMatch(String column, Set<String> fieldNames) {
+        String normalized = normalizeColumn(column);
+
         // Find the first field that matches.
         return fieldNames
                 .stream()
-                .filter(fieldName -> fieldName.toLowerCase().equals(column.toLowerCase()))
+                .filter(fieldName -> normalizeProperty(fieldName).equals(normalized))
                 .findFirst();
     }
+
+    @Override
+    public String normalizeColumn(String column) {
+        return column.toLowerCase();
+    }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql.mapping;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the result column that a constructor or factory method parameter is
+ * read from, for classes compiled without {@code -parameters} or parameters
+ * whose name does not match the column.
+ * <pre>
+ * {@code
+ * public Employee(@Column("employee_id") long id, @Column("last_name") String lastName) {
+ *     ...
+ * }
+ * }
+ * </pre>
+ *
+ * @author Jonathan Cone
+ * @see indo.sql.ConstructorRowProcessor
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Column {
+
+    /**
+     * @return The column name, matched ignoring case.
+     */
+    String value();
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql.mapping;
+
+import indo.util.Reflect;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The fields of a class keyed on their names as normalized by a {@link
+ * ColumnMappingStrategy}, so a column is matched with a single hash lookup
+ * of its own normalized name instead of comparing it to every field.
+ * <p>
+ * An index is built once per (target class, strategy class) and cached for
+ * the lifetime of the target class, so strategies are expected to normalize
+ * names the same way for every instance of the same strategy class.
+ *
+ * @author Jonathan Cone
+ * @see ColumnMappingStrategy#index(Class)
+ */
+public final class ColumnIndex {
+
+    private static final ClassValue<ConcurrentMap<Class<?>, ColumnIndex>> INDEXES =
+            new ClassValue<ConcurrentMap<Class<?>, ColumnIndex>>() {
+                @Override
+                protected ConcurrentMap<Class<?>, ColumnIndex> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    /**
+     * Whether a strategy class matches columns by normalized name, which is
+     * only assumed when its normalizers are declared by the class declaring
+     * its findMatch methods or by a subclass of it.  A subclass that only
+     * overrides findMatch keeps its own matching.
+     */
+    private static final ClassValue<Boolean> INDEXABLE =
+            new ClassValue<Boolean>() {
+                @Override
+                protected Boolean computeValue(Class<?> type) {
+                    Class<?> normalizer = declaringClass(type, "normalizeColumn", String.class);
+
+                    if (normalizer == null) {
+                        return false;
+                    }
+
+                    Class<?> matcher = lowest(
+                            declaringClass(type, "findMatch", String.class, Set.class),
+                            declaringClass(type, "findMatch", String.class, Object.class, Object.class));
+
+                    return matcher == null || matcher.isAssignableFrom(normalizer);
+                }
+            };
+
+    private final ColumnMappingStrategy strategy;
+    private final Map<String, String> properties;
+
+    private ColumnIndex(ColumnMappingStrategy strategy, Map<String, String> properties) {
+        this.strategy = strategy;
+        this.properties = properties;
+    }
+
+    /**
+     * Find or build the index of a class for a strategy.
+     *
+     * @param strategy   The strategy that normalizes the names.
+     * @param targetType The class whose fields are indexed.
+     * @return The cached or newly built index, or null if the strategy does
+     * not normalize names or matches columns some other way.
+     */
+    static ColumnIndex of(ColumnMappingStrategy strategy, Class<?> targetType) {
+        if (!INDEXABLE.get(strategy.getClass())) {
+            return null;
+        }
+
+        ConcurrentMap<Class<?>, ColumnIndex> indexes = INDEXES.get(targetType);
+
+        ColumnIndex index = indexes.get(strategy.getClass());
+
+        if (index == null) {
+            index = build(strategy, targetType);
+
+            if (index == null) {
+                return null;
+            }
+
+            ColumnIndex existing = indexes.putIfAbsent(strategy.getClass(), index);
+            index = existing != null ? existing : index;
+        }
+
+        return index;
+    }
+
+    private static ColumnIndex build(ColumnMappingStrategy strategy, Class<?> targetType) {
+        Map<String, String> properties = new HashMap<>();
+
+        for (String fieldName : Reflect.on(targetType).fieldNames()) {
+            String normalized = strategy.normalizeProperty(fieldName);
+
+            if (normalized == null) {
+                return null;
+            }
+
+            // The first field wins, as when comparing each field in turn.
+            properties.putIfAbsent(normalized, fieldName);
+        }
+
+        return new ColumnIndex(strategy, Collections.unmodifiableMap(properties));
+    }
+
+    /**
+     * @return The class declaring the method nearest to the type in its
+     * superclass chain, or null if only an interface declares it.
+     */
+    private static Class<?> declaringClass(Class<?> type, String name, Class<?>... parameterTypes) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod(name, parameterTypes);
+                return current;
+            } catch (NoSuchMethodException e) {
+                // Try the superclass.
+            }
+        }
+        return null;
+    }
+
+    private static Class<?> lowest(Class<?> first, Class<?> second) {
+        if (first == null || second == null) {
+            return first != null ? first : second;
+        }
+        return first.isAssignableFrom(second) ? second : first;
+    }
+
+    /**
+     * @param column The name of a column.
+     * @return The name of the matching field, or null if there is none.
+     */
+    public String find(String column) {
+        String normalized = strategy.normalizeColumn(column);
+
+        return normalized != null ? properties.get(normalized) : null;
+    }
+
+    /**
+     * @return The field names keyed on their normalized names.
+     */
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnIndex" + properties;
+    }
+}
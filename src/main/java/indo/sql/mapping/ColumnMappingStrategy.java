@@ -41,4 +41,45 @@ public interface ColumnMappingStrategy {
      */
     <T> Optional<String> findMatch(String column, Object value, T target);
 
+    /**
+     * Normalize a column name so that it equals the normalized name of the
+     * property it should be mapped to, e.g. by removing letter case. Strategies
+     * that match by normalized name get an index of each target class for
+     * free, see {@link #index(Class)}.
+     *
+     * @param column The name of a column.
+     * @return The normalized name, or null by default if this strategy
+     * cannot match columns by normalized name.
+     */
+    default String normalizeColumn(String column) {
+        return null;
+    }
+
+    /**
+     * Normalize a property name, see {@link #normalizeColumn(String)}.
+     *
+     * @param property The name of a property.
+     * @return The normalized name, which is the normalized column name by
+     * default.
+     */
+    default String normalizeProperty(String property) {
+        return normalizeColumn(property);
+    }
+
+    /**
+     * Find the index of the properties of a class by their normalized names,
+     * which is built once per target class and strategy class.  When there
+     * is an index it is used instead of {@link #findMatch(String, Object,
+     * Object)}, so by default there is only one if the class declaring
+     * findMatch also declares {@link #normalizeColumn(String)}, or a
+     * subclass of it does.  A subclass that only overrides findMatch keeps
+     * its own matching.
+     *
+     * @param targetType The class columns are mapped to.
+     * @return The index, or null if this strategy does not normalize names
+     * or matches columns some other way.
+     */
+    default ColumnIndex index(Class<?> targetType) {
+        return ColumnIndex.of(this, targetType);
+    }
 }
@@ -31,4 +31,9 @@ public class ExclusiveColumnMappingStrategy implements ReflectionColumnMappingSt
     public Optional<String> findMatch(String column, Set<String> fieldNames) {
         return Optional.ofNullable(fieldNames.contains(column) ? column : null);
     }
+
+    @Override
+    public String normalizeColumn(String column) {
+        return column;
+    }
 }
@@ -37,17 +37,37 @@ public class InclusiveColumnMappingStrategy implements ReflectionColumnMappingSt
 
     @Override
     public Optional<String> findMatch(String column, Set<String> fieldNames) {
-
-        StringBuilder javaSafeColumn = new StringBuilder();
-
-        column.chars()
-                .filter(Character::isJavaIdentifierPart)
-                .filter(c -> c != '_')
-                .forEachOrdered(i -> javaSafeColumn.append((char) i));
+        String normalized = normalizeColumn(column);
 
         // Find the first field that matches.
         return fieldNames.stream()
-                .filter(fieldName -> fieldName.toLowerCase().equals(javaSafeColumn.toString().toLowerCase()))
+                .filter(fieldName -> normalizeProperty(fieldName).equals(normalized))
                 .findFirst();
     }
+
+    /**
+     * Remove special characters and letter case.
+     */
+    @Override
+    public String normalizeColumn(String column) {
+        StringBuilder javaSafeColumn = new StringBuilder(column.length());
+
+        for (int i = 0; i < column.length(); i++) {
+            char c = column.charAt(i);
+
+            if (Character.isJavaIdentifierPart(c) && c != '_') {
+                javaSafeColumn.append(c);
+            }
+        }
+
+        return javaSafeColumn.toString().toLowerCase();
+    }
+
+    /**
+     * Remove letter case, special characters are only removed from columns.
+     */
+    @Override
+    public String normalizeProperty(String property) {
+        return property.toLowerCase();
+    }
 }
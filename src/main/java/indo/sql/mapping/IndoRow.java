@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql.mapping;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a JavaBean whose row mapping and parameter lookup should be generated
+ * at compile time by the {@code indo-processor} annotation processor, rather
+ * than performed with reflection.  For a class {@code com.acme.Employee} the
+ * processor generates {@code com.acme.Employee_IndoRowProcessor} and {@code
+ * com.acme.Employee_IndoSqlParameters}, nested classes are named after their
+ * enclosing classes, e.g. {@code Outer_Inner_IndoRowProcessor}.
+ * <p>
+ * The generated classes call the setters and getters of the bean directly
+ * and are picked up by {@link indo.sql.RowProcessor#using(Class)} and {@link
+ * indo.sql.SqlParameters#fromObject(Object)} when present.  The bean needs a
+ * no argument constructor, and its properties need setters and getters that
+ * are not private.
+ *
+ * @author Jonathan Cone
+ * @see indo.sql.GeneratedRowProcessor
+ * @see indo.sql.GeneratedSqlParameters
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface IndoRow {
+}
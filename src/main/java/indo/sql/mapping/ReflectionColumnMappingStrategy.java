@@ -34,7 +34,11 @@ public interface ReflectionColumnMappingStrategy extends ColumnMappingStrategy {
 
         Reflect<T> targetHandle = Reflect.on(target);
 
-        Optional<String> match = findMatch(column, targetHandle.fieldNames());
+        ColumnIndex index = index(target.getClass());
+
+        Optional<String> match = index != null
+                ? Optional.ofNullable(index.find(column))
+                : findMatch(column, targetHandle.fieldNames());
 
         if (match.isPresent()) {
             try {
@@ -0,0 +1,385 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.util;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Creates and caches functional accessors for constructors, setters and
+ * getters so they can be called without going through {@link
+ * Method#invoke(Object, Object...)}.  Where possible the accessors are spun
+ * with {@link LambdaMetafactory}, which produces a regular lambda class that
+ * the JIT can inline, otherwise a {@link MethodHandle} is used.
+ * <p>
+ * Accessors are created once per member and cached for the lifetime of the
+ * declaring class.
+ *
+ * @author Jonathan Cone
+ * @see Reflect
+ */
+public final class Accessors {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassValue<Supplier<?>> CONSTRUCTORS = new ClassValue<Supplier<?>>() {
+        @Override
+        protected Supplier<?> computeValue(Class<?> type) {
+            return createConstructor(type);
+        }
+    };
+
+    private static final ClassValue<ConcurrentMap<Method, Object>> MEMBERS = new ClassValue<ConcurrentMap<Method, Object>>() {
+        @Override
+        protected ConcurrentMap<Method, Object> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ClassValue<ConcurrentMap<Method, Object>> PRIMITIVE_SETTERS = new ClassValue<ConcurrentMap<Method, Object>>() {
+        @Override
+        protected ConcurrentMap<Method, Object> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private Accessors() {
+    }
+
+    /**
+     * Retrieve a {@link Supplier} that invokes the no-argument constructor of
+     * the supplied class.  Non-public constructors are supported.
+     *
+     * @param type The class to construct.
+     * @param <T>  The type of the class.
+     * @return The cached {@link Supplier}.
+     * @throws RuntimeException if the class has no no-argument constructor.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Supplier<T> constructor(Class<T> type) {
+        return (Supplier<T>) CONSTRUCTORS.get(type);
+    }
+
+    /**
+     * Retrieve a {@link BiConsumer} that invokes a single argument setter
+     * method. The value is unboxed if the setter accepts a primitive.
+     *
+     * @param setter The setter method.
+     * @param <T>    The type declaring the setter.
+     * @return The cached {@link BiConsumer} accepting the target instance and
+     * the value to set.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BiConsumer<T, Object> setter(Method setter) {
+        if (setter.getParameterCount() != 1) {
+            throw new IllegalArgumentException(setter + " is not a setter method.");
+        }
+        return (BiConsumer<T, Object>) MEMBERS.get(setter.getDeclaringClass())
+                .computeIfAbsent(setter, Accessors::createSetter);
+    }
+
+    /**
+     * Retrieve an {@link ObjLongConsumer} that invokes a setter accepting a
+     * {@code long} without boxing the value.
+     *
+     * @param setter The setter method, its parameter must be a {@code long}.
+     * @param <T>    The type declaring the setter.
+     * @return The cached {@link ObjLongConsumer}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ObjLongConsumer<T> longSetter(Method setter) {
+        return (ObjLongConsumer<T>) primitiveSetter(setter, long.class, ObjLongConsumer.class);
+    }
+
+    /**
+     * Retrieve an {@link ObjIntConsumer} that invokes a setter accepting an
+     * {@code int} without boxing the value.
+     *
+     * @param setter The setter method, its parameter must be an {@code int}.
+     * @param <T>    The type declaring the setter.
+     * @return The cached {@link ObjIntConsumer}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ObjIntConsumer<T> intSetter(Method setter) {
+        return (ObjIntConsumer<T>) primitiveSetter(setter, int.class, ObjIntConsumer.class);
+    }
+
+    /**
+     * Retrieve an {@link ObjDoubleConsumer} that invokes a setter accepting a
+     * {@code double} without boxing the value.
+     *
+     * @param setter The setter method, its parameter must be a {@code double}.
+     * @param <T>    The type declaring the setter.
+     * @return The cached {@link ObjDoubleConsumer}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ObjDoubleConsumer<T> doubleSetter(Method setter) {
+        return (ObjDoubleConsumer<T>) primitiveSetter(setter, double.class, ObjDoubleConsumer.class);
+    }
+
+    /**
+     * Retrieve a {@link Function} that invokes a no argument getter method.
+     * Primitive return values are boxed.
+     *
+     * @param getter The getter method.
+     * @param <T>    The type declaring the getter.
+     * @return The cached {@link Function} accepting the target instance and
+     * returning the property value.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Function<T, Object> getter(Method getter) {
+        if (getter.getParameterCount() != 0 || getter.getReturnType() == void.class) {
+            throw new IllegalArgumentException(getter + " is not a getter method.");
+        }
+        return (Function<T, Object>) MEMBERS.get(getter.getDeclaringClass())
+                .computeIfAbsent(getter, Accessors::createGetter);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> createConstructor(Class<T> type) {
+        try {
+            Constructor<T> constructor;
+            try {
+                constructor = type.getConstructor();
+            } catch (NoSuchMethodException nsm) {
+                constructor = type.getDeclaredConstructor();
+            }
+
+            if (!constructor.isAccessible()) {
+                constructor.setAccessible(true);
+            }
+
+            MethodHandle handle = LOOKUP.unreflectConstructor(constructor);
+
+            if (isLinkable(type, constructor)) {
+                try {
+                    return (Supplier<T>) LambdaMetafactory.metafactory(LOOKUP,
+                            "get",
+                            methodType(Supplier.class),
+                            methodType(Object.class),
+                            handle,
+                            methodType(type))
+                            .getTarget()
+                            .invoke();
+                } catch (Throwable t) {
+                    // Fall back to the method handle below.
+                }
+            }
+
+            MethodHandle generic = handle.asType(methodType(Object.class));
+
+            return () -> {
+                try {
+                    Object instance = generic.invokeExact();
+                    return (T) instance;
+                } catch (Throwable t) {
+                    throw rethrow(t);
+                }
+            };
+        } catch (Exception e) {
+            throw Unchecked.exception(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object createSetter(Method setter) {
+        try {
+            if (!setter.isAccessible()) {
+                setter.setAccessible(true);
+            }
+
+            MethodHandle handle = LOOKUP.unreflect(setter);
+
+            if (isLinkable(setter.getDeclaringClass(), setter)) {
+                try {
+                    return LambdaMetafactory.metafactory(LOOKUP,
+                            "accept",
+                            methodType(BiConsumer.class),
+                            methodType(void.class, Object.class, Object.class),
+                            handle,
+                            methodType(void.class, setter.getDeclaringClass(), wrap(setter.getParameterTypes()[0])))
+                            .getTarget()
+                            .invoke();
+                } catch (Throwable t) {
+                    // Fall back to the method handle below.
+                }
+            }
+
+            MethodHandle generic = handle.asType(methodType(void.class, Object.class, Object.class));
+
+            return (BiConsumer<Object, Object>) (target, value) -> {
+                try {
+                    generic.invokeExact(target, value);
+                } catch (Throwable t) {
+                    throw rethrow(t);
+                }
+            };
+        } catch (Exception e) {
+            throw Unchecked.exception(e);
+        }
+    }
+
+    private static Object primitiveSetter(Method setter, Class<?> primitive, Class<?> consumerType) {
+        if (setter.getParameterCount() != 1 || setter.getParameterTypes()[0] != primitive) {
+            throw new IllegalArgumentException(setter + " is not a setter method accepting a " + primitive + ".");
+        }
+        return PRIMITIVE_SETTERS.get(setter.getDeclaringClass())
+                .computeIfAbsent(setter, method -> createPrimitiveSetter(method, primitive, consumerType));
+    }
+
+    private static Object createPrimitiveSetter(Method setter, Class<?> primitive, Class<?> consumerType) {
+        try {
+            if (!setter.isAccessible()) {
+                setter.setAccessible(true);
+            }
+
+            MethodHandle handle = LOOKUP.unreflect(setter);
+
+            if (isLinkable(setter.getDeclaringClass(), setter)) {
+                try {
+                    return LambdaMetafactory.metafactory(LOOKUP,
+                            "accept",
+                            methodType(consumerType),
+                            methodType(void.class, Object.class, primitive),
+                            handle,
+                            methodType(void.class, setter.getDeclaringClass(), primitive))
+                            .getTarget()
+                            .invoke();
+                } catch (Throwable t) {
+                    // Fall back to the method handle below.
+                }
+            }
+
+            MethodHandle generic = handle.asType(methodType(void.class, Object.class, primitive));
+
+            if (primitive == long.class) {
+                return (ObjLongConsumer<Object>) (target, value) -> {
+                    try {
+                        generic.invokeExact(target, value);
+                    } catch (Throwable t) {
+                        throw rethrow(t);
+                    }
+                };
+            } else if (primitive == int.class) {
+                return (ObjIntConsumer<Object>) (target, value) -> {
+                    try {
+                        generic.invokeExact(target, value);
+                    } catch (Throwable t) {
+                        throw rethrow(t);
+                    }
+                };
+            } else {
+                return (ObjDoubleConsumer<Object>) (target, value) -> {
+                    try {
+                        generic.invokeExact(target, value);
+                    } catch (Throwable t) {
+                        throw rethrow(t);
+                    }
+                };
+            }
+        } catch (Exception e) {
+            throw Unchecked.exception(e);
+        }
+    }
+
+    private static Object createGetter(Method getter) {
+        try {
+            if (!getter.isAccessible()) {
+                getter.setAccessible(true);
+            }
+
+            MethodHandle handle = LOOKUP.unreflect(getter);
+
+            if (isLinkable(getter.getDeclaringClass(), getter)) {
+                try {
+                    return LambdaMetafactory.metafactory(LOOKUP,
+                            "apply",
+                            methodType(Function.class),
+                            methodType(Object.class, Object.class),
+                            handle,
+                            methodType(wrap(getter.getReturnType()), getter.getDeclaringClass()))
+                            .getTarget()
+                            .invoke();
+                } catch (Throwable t) {
+                    // Fall back to the method handle below.
+                }
+            }
+
+            MethodHandle generic = handle.asType(methodType(Object.class, Object.class));
+
+            return (Function<Object, Object>) target -> {
+                try {
+                    return generic.invokeExact(target);
+                } catch (Throwable t) {
+                    throw rethrow(t);
+                }
+            };
+        } catch (Exception e) {
+            throw Unchecked.exception(e);
+        }
+    }
+
+    /**
+     * A lambda can only be spun for a member that this class could call
+     * directly: a public member of a public class that is visible from the
+     * class loader that loaded this library.
+     */
+    private static boolean isLinkable(Class<?> type, Member member) {
+        if (!Modifier.isPublic(member.getModifiers())) {
+            return false;
+        }
+
+        for (Class<?> current = type; current != null; current = current.getEnclosingClass()) {
+            if (!Modifier.isPublic(current.getModifiers())) {
+                return false;
+            }
+        }
+
+        try {
+            return Class.forName(type.getName(), false, Accessors.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return t instanceof Exception ? Unchecked.exception((Exception) t) : new RuntimeException(t);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * The reflective metadata of a class that {@link Reflect} looks up
+ * repeatedly: its fields, its methods and the getters, setters and methods
+ * resolved by name and argument types.  Metadata is created once per class
+ * and held in a {@link ClassValue}, so it is read without locking and does
+ * not keep the class or its class loader reachable.
+ * <p>
+ * Resolved lookups are remembered, including failed ones, and are never
+ * evicted since their number is bounded by the members of the class and the
+ * argument types they are called with.
+ *
+ * @author Jonathan Cone
+ * @see Reflect
+ */
+final class ClassMetadata {
+
+    private static final ClassValue<ClassMetadata> METADATA = new ClassValue<ClassMetadata>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+            return new ClassMetadata(type);
+        }
+    };
+
+    private final Class<?> type;
+
+    private volatile Map<String, Field> fields;
+    private volatile Method[] publicMethods;
+    private volatile Method[] declaredMethods;
+
+    private final ConcurrentMap<Signature, Optional<Method>> methods;
+    private final ConcurrentMap<String, Optional<Method>> getters;
+    private final ConcurrentMap<String, List<Method>> setters;
+
+    private ClassMetadata(Class<?> type) {
+        this.type = type;
+        this.methods = new ConcurrentHashMap<>();
+        this.getters = new ConcurrentHashMap<>();
+        this.setters = new ConcurrentHashMap<>();
+    }
+
+    static ClassMetadata of(Class<?> type) {
+        return METADATA.get(type);
+    }
+
+    /**
+     * @return The fields declared by the class and its superclasses, except
+     * {@link Object}, by name.  A field hides fields of the same name in its
+     * superclasses.  Every field is accessible.
+     */
+    Map<String, Field> fields() {
+        Map<String, Field> result = fields;
+
+        if (result == null) {
+            Map<String, Field> found = new LinkedHashMap<>();
+
+            Class<?> current = type;
+            do {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!found.containsKey(field.getName())) {
+                        if (!field.isAccessible()) {
+                            field.setAccessible(true);
+                        }
+                        found.put(field.getName(), field);
+                    }
+                }
+                current = current.getSuperclass();
+            } while (current != null && current != Object.class);
+
+            result = Collections.unmodifiableMap(found);
+            fields = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The public methods, the array must not be modified.
+     */
+    Method[] publicMethods() {
+        Method[] result = publicMethods;
+
+        if (result == null) {
+            result = type.getMethods();
+            publicMethods = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The declared methods, the array must not be modified.
+     */
+    Method[] declaredMethods() {
+        Method[] result = declaredMethods;
+
+        if (result == null) {
+            result = type.getDeclaredMethods();
+            declaredMethods = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Find a method by name and argument types, resolving it the first time.
+     *
+     * @param name     The name of the method.
+     * @param types    The argument types, a null type matches any parameter.
+     * @param resolver Resolves the method if it has not been seen yet.
+     * @return The remembered result of the resolver.
+     */
+    Optional<Method> method(String name, Class<?>[] types, Supplier<Optional<Method>> resolver) {
+        Signature signature = new Signature(name, types);
+
+        Optional<Method> method = methods.get(signature);
+
+        // The resolver may look up other signatures, so the result is added
+        // afterwards rather than computed inside the map.
+        if (method == null) {
+            method = resolver.get();
+
+            Optional<Method> existing = methods.putIfAbsent(new Signature(name, types != null ? types.clone() : null), method);
+            method = existing != null ? existing : method;
+        }
+
+        return method;
+    }
+
+    Optional<Method> getter(String property, Supplier<Optional<Method>> resolver) {
+        Optional<Method> getter = getters.get(property);
+
+        if (getter == null) {
+            getter = resolver.get();
+
+            Optional<Method> existing = getters.putIfAbsent(property, getter);
+            getter = existing != null ? existing : getter;
+        }
+
+        return getter;
+    }
+
+    List<Method> setters(String property, Supplier<List<Method>> resolver) {
+        List<Method> found = setters.get(property);
+
+        if (found == null) {
+            found = Collections.unmodifiableList(new ArrayList<>(resolver.get()));
+
+            List<Method> existing = setters.putIfAbsent(property, found);
+            found = existing != null ? existing : found;
+        }
+
+        return found;
+    }
+
+    /**
+     * A method name and argument types.
+     */
+    private static final class Signature {
+        private final String name;
+        private final Class<?>[] types;
+        private final int hashCode;
+
+        private Signature(String name, Class<?>[] types) {
+            this.name = name;
+            this.types = types;
+            this.hashCode = 31 * name.hashCode() + Arrays.hashCode(types);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Signature)) {
+                return false;
+            }
+            Signature other = (Signature) o;
+            return name.equals(other.name) && Arrays.equals(types, other.types);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
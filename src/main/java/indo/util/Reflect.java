@@ -16,13 +16,10 @@
 
 package indo.util;
 
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
-import java.util.concurrent.ConcurrentMap;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -37,14 +34,6 @@ public class Reflect<T> {
     private static final String IS_PREFIX = "is";
     private static final String SET_PREFIX = "set";
 
-    /**
-     * This is a cache of the fields that we're aware of. WeakHashMap keys have
-     * == identity semantics which allow us to safely key on the class object
-     * since it also has == identity semantics.
-     */
-    private static Map<Class<?>, Map<String, Field>> fieldCache =
-            Collections.synchronizedMap(new WeakHashMap<>());
-
     private Class<T> aClass;
     private T instance;
     private List<Object> returnValues;
@@ -52,7 +41,6 @@ public class Reflect<T> {
 
     private Reflect(Class<T> aClass) {
         this.aClass = aClass;
-        this.returnValues = new ArrayList<>();
     }
 
     @SuppressWarnings("unchecked")
@@ -89,31 +77,11 @@ public class Reflect<T> {
     }
 
     public Map<String, Field> fields() {
-
-        fieldCache.computeIfAbsent(aClass, (input) -> {
-            ArrayList<Field> fields = new ArrayList<>();
-
-            Class<?> current = aClass;
-            do {
-                fields.addAll(Arrays.asList(current.getDeclaredFields()));
-                current = current.getSuperclass();
-            } while (current != null && current != Object.class);
-
-            ConcurrentMap<String, Field> result = fields.stream().
-                    collect(Collectors.toConcurrentMap(Field::getName, Function.identity()));
-
-            result.values().stream()
-                    .filter(field -> !field.isAccessible())
-                    .forEach(field -> field.setAccessible(true));
-
-            return Collections.unmodifiableMap(result);
-        });
-
-        return fieldCache.get(aClass);
+        return ClassMetadata.of(aClass).fields();
     }
 
     public <S> Optional<S> lastReturn() {
-        return returnedOn(returnValues.size() - 1);
+        return returnedOn(returnCount() - 1);
     }
 
     public int returnCount() {
@@ -126,7 +94,7 @@ public class Reflect<T> {
 
     @SuppressWarnings("unchecked")
     public <S> Optional<S> returnedOn(int index) {
-        return Optional.ofNullable((S) (index > -1 && index < returnValues.size() ? returnValues.get(index) : null));
+        return Optional.ofNullable((S) (index > -1 && index < returnCount() ? returnValues.get(index) : null));
     }
 
     public <S> Optional<S> property(String property) {
@@ -136,7 +104,8 @@ public class Reflect<T> {
     public Reflect<T> property(String property, Object value) {
         Optional<Method> setter = findSetter(aClass, property, toType(value)[0]);
         if (setter.isPresent()) {
-            return invoke(setter.get(), value);
+            Accessors.setter(setter.get()).accept(instance, value);
+            return this;
         } else {
             throw new NoSuchMethodError("There is no setter method for property " + property + " that will accept " + (value == null ? null : value.getClass()));
         }
@@ -152,25 +121,8 @@ public class Reflect<T> {
 
 
     public Reflect<T> newInstance() {
-        Constructor<T> constructor = null;
-        try {
-
-            try {
-                constructor = aClass.getConstructor();
-            } catch (NoSuchMethodException nsm) {
-                constructor = aClass.getDeclaredConstructor();
-            }
-
-            if (!constructor.isAccessible()) {
-                constructor.setAccessible(true);
-            }
-
-            instance = constructor.newInstance();
-            return this;
-
-        } catch (Exception e) {
-            throw Unchecked.exception(e);
-        }
+        instance = Accessors.constructor(aClass).get();
+        return this;
     }
 
     public T newInstanceNow() {
@@ -180,7 +132,8 @@ public class Reflect<T> {
     public Reflect<T> get(String property) {
         Optional<Method> getter = findGetter(aClass, property);
         if (getter.isPresent()) {
-            return invoke(getter.get());
+            addReturn(Accessors.getter(getter.get()).apply(instance));
+            return this;
         } else {
             throw new NoSuchMethodError("There is no getter method for property " + property);
         }
@@ -217,7 +170,7 @@ public class Reflect<T> {
             Class<?> returnType = method.getReturnType();
 
             if (!Objects.equals(returnType, void.class)) {
-                returnValues.add(result);
+                addReturn(result);
             }
 
             return this;
@@ -226,14 +179,29 @@ public class Reflect<T> {
         }
     }
 
+    private void addReturn(Object result) {
+        // Most handles never record a return value, so only allocate the
+        // list when one is actually needed.
+        if (returnValues == null) {
+            returnValues = new ArrayList<>();
+        }
+        returnValues.add(result);
+    }
+
     private Optional<Method> findMethod(Class<?> searchClass, String targetMethod, Class<?>... targetTypes) {
+        return ClassMetadata.of(searchClass)
+                .method(targetMethod, targetTypes, () -> resolveMethod(searchClass, targetMethod, targetTypes));
+    }
 
-        Optional<Method> publicMatch = findCompatibleMethod(searchClass.getMethods(), targetMethod, targetTypes);
+    private Optional<Method> resolveMethod(Class<?> searchClass, String targetMethod, Class<?>... targetTypes) {
+        ClassMetadata metadata = ClassMetadata.of(searchClass);
+
+        Optional<Method> publicMatch = findCompatibleMethod(metadata.publicMethods(), targetMethod, targetTypes);
 
         if (publicMatch.isPresent()) {
             return publicMatch;
         } else {
-            Optional<Method> declaredMatch = findCompatibleMethod(searchClass.getDeclaredMethods(), targetMethod, targetTypes);
+            Optional<Method> declaredMatch = findCompatibleMethod(metadata.declaredMethods(), targetMethod, targetTypes);
 
             if (declaredMatch.isPresent()) {
                 if (!declaredMatch.get().isAccessible()) {
@@ -281,6 +249,34 @@ public class Reflect<T> {
         return findSetter(aClass, property, toType(value)[0]);
     }
 
+    /**
+     * Find every single argument setter for a property, regardless of the
+     * type it accepts.
+     *
+     * @param property The name of the property.
+     * @return The public setters, or the declared setters if there are no
+     * public ones.
+     */
+    public List<Method> findSetters(String property) {
+        ClassMetadata metadata = ClassMetadata.of(aClass);
+
+        return metadata.setters(property, () -> {
+            String name = SET_PREFIX + Strings.wordCase(property);
+
+            List<Method> setters = Arrays.stream(metadata.publicMethods())
+                    .filter(m -> m.getName().equals(name) && m.getParameterCount() == 1)
+                    .collect(Collectors.toList());
+
+            if (setters.isEmpty()) {
+                setters = Arrays.stream(metadata.declaredMethods())
+                        .filter(m -> m.getName().equals(name) && m.getParameterCount() == 1)
+                        .collect(Collectors.toList());
+            }
+
+            return setters;
+        });
+    }
+
     private Optional<Method> findSetter(Class<?> aClass, String property, Class<?> parameter) {
         return findMethod(aClass, SET_PREFIX + Strings.wordCase(property), parameter);
     }
@@ -290,10 +286,12 @@ public class Reflect<T> {
     }
 
     private Optional<Method> findGetter(Class<?> aClass, String property) {
-        String formatted = Strings.wordCase(property);
+        return ClassMetadata.of(aClass).getter(property, () -> {
+            String formatted = Strings.wordCase(property);
 
-        Optional<Method> method = findMethod(aClass, GET_PREFIX + formatted);
+            Optional<Method> method = findMethod(aClass, GET_PREFIX + formatted);
 
-        return method.isPresent() ? method : findMethod(aClass, IS_PREFIX + formatted);
+            return method.isPresent() ? method : findMethod(aClass, IS_PREFIX + formatted);
+        });
     }
 }
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.util.Maps;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import javax.sql.DataSource;
+import java.io.Serializable;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Unit tests for {@link ArrayBindingResolver}.
+ *
+ * @author Jonathan Cone
+ */
+public class ArrayBindingResolverTest {
+
+    @Test
+    public void testResolve() {
+        ArrayBindingResolver resolver = new ArrayBindingResolver();
+
+        SqlParameter ids = new SqlParameter("ids", new long[]{1, 2, 3});
+
+        assertEquals("?", resolver.resolve(2, ids).get());
+        assertEquals(Arrays.asList(2), ids.getIndexes());
+        assertTrue(ids.isBindAsArray());
+
+        SqlParameter bytes = new SqlParameter("data", new byte[]{1, 2});
+
+        assertEquals("?", resolver.resolve(1, bytes).get());
+        assertFalse(bytes.isBindAsArray());
+
+        SqlParameter scalar = new SqlParameter("id", 7);
+
+        assertEquals("?", resolver.resolve(1, scalar).get());
+        assertFalse(scalar.isBindAsArray());
+    }
+
+    @Test
+    public void testShapeIncludesArrayFlag() {
+        ArrayBindingResolver resolver = new ArrayBindingResolver();
+
+        assertEquals(resolver.shapeOf(Arrays.asList(1, 2), 2), resolver.shapeOf(new int[5], 5));
+        assertNotEquals(resolver.shapeOf(Arrays.asList(1), 1), resolver.shapeOf(1, 1));
+    }
+
+    @Test
+    public void testParserReappliesArrayFlag() {
+        StreamingSqlParser parser = new StreamingSqlParser(new ArrayBindingResolver());
+        String sql = "SELECT * FROM employee WHERE employee_id = ANY(:ids)";
+
+        assertEquals("SELECT * FROM employee WHERE employee_id = ANY(?)",
+                parser.parse(sql, Maps.newHashMap("ids", 7L)).getParsedSql());
+
+        // The same SQL, but the scalar expansion must not be reused.
+        SqlQueryMetaData first = parser.parse(sql, Maps.newHashMap("ids", Arrays.asList(1L, 2L)));
+        SqlQueryMetaData cached = parser.parse(sql, Maps.newHashMap("ids", Arrays.asList(1L, 2L, 3L)));
+
+        assertEquals(first.getParsedSql(), cached.getParsedSql());
+        assertTrue(first.getSqlParameterProvider().getParameter("ids").isBindAsArray());
+        assertTrue(cached.getSqlParameterProvider().getParameter("ids").isBindAsArray());
+        assertEquals(Arrays.asList(1), cached.getSqlParameterProvider().getParameter("ids").getIndexes());
+    }
+
+    @Test
+    public void testElementType() {
+        assertEquals(long.class, ArrayBindingResolver.elementType(new long[0]));
+        assertEquals(UUID.class, ArrayBindingResolver.elementType(Arrays.asList(null, UUID.randomUUID())));
+        assertEquals(String.class, ArrayBindingResolver.elementType(new Object[]{"a"}));
+        assertEquals(Object.class, ArrayBindingResolver.elementType(Arrays.asList()));
+        assertEquals("bigint", ParameterBinders.defaults().getArrayType(long.class));
+        assertEquals("varchar", ParameterBinders.defaults().getArrayType(StringBuilder.class));
+    }
+
+    @Test
+    public void testBindCreatesArray() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        Array array = mock(Array.class);
+
+        when(ps.getConnection()).thenReturn(connection);
+        when(connection.createArrayOf(anyString(), any(Object[].class))).thenReturn(array);
+
+        ArrayBindingResolver.bind(ps, 1, "bigint", new long[]{1, 2});
+
+        verify(connection).createArrayOf("bigint", new Object[]{1L, 2L});
+        verify(ps).setArray(1, array);
+    }
+
+    @Test
+    public void testBindFallsBackToObjectArray() throws SQLException {
+        // A distinct connection class, drivers without arrays are remembered.
+        Connection connection = mock(Connection.class, withSettings().extraInterfaces(Serializable.class));
+        PreparedStatement ps = mock(PreparedStatement.class);
+
+        when(ps.getConnection()).thenReturn(connection);
+        when(connection.createArrayOf(anyString(), any(Object[].class)))
+                .thenThrow(new SQLException("Feature not supported", "HYC00"));
+
+        ArrayBindingResolver.bind(ps, 1, "varchar", Arrays.asList("a", "b"));
+
+        verify(ps).setObject(1, new Object[]{"a", "b"});
+    }
+
+    @Test
+    public void testUnsupportedDriversAreRememberedBehindProxies() throws SQLException {
+        // Both drivers are handed out behind proxies of the same class.
+        Connection unsupported = mock(Connection.class, withSettings().extraInterfaces(Runnable.class));
+        Connection supported = mock(Connection.class, withSettings().extraInterfaces(Comparable.class));
+        Array array = mock(Array.class);
+
+        when(unsupported.createArrayOf(anyString(), any(Object[].class)))
+                .thenThrow(new SQLException("Feature not supported", "HYC00"));
+        when(supported.createArrayOf(anyString(), any(Object[].class))).thenReturn(array);
+
+        PreparedStatement first = proxiedStatement(unsupported);
+        PreparedStatement second = proxiedStatement(supported);
+
+        assertNull(ArrayBindingResolver.bind(first, 1, "varchar", Arrays.asList("a")));
+        assertSame(array, ArrayBindingResolver.bind(second, 1, "varchar", Arrays.asList("a")));
+
+        verify(second).setArray(1, array);
+    }
+
+    @Test
+    public void testArraysAreFreedAfterExecution() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        Array array = mock(Array.class);
+
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(ps);
+        when(connection.createArrayOf(anyString(), any(Object[].class))).thenReturn(array);
+        when(ps.getConnection()).thenReturn(connection);
+        when(ps.executeQuery()).thenReturn(mock(ResultSet.class));
+
+        SqlRunner runner = new SqlRunner(dataSource, new StreamingSqlParser(new ArrayBindingResolver()));
+
+        runner.longs("SELECT employee_id FROM employee WHERE employee_id = ANY(:ids)", Maps.newHashMap("ids", Arrays.asList(1L, 2L)));
+
+        InOrder inOrder = inOrder(ps, array);
+        inOrder.verify(ps).setArray(1, array);
+        inOrder.verify(ps).executeQuery();
+        inOrder.verify(array).free();
+    }
+
+    private PreparedStatement proxiedStatement(Connection driverConnection) throws SQLException {
+        Connection proxy = mock(Connection.class, withSettings().extraInterfaces(Cloneable.class));
+        PreparedStatement ps = mock(PreparedStatement.class);
+
+        when(proxy.isWrapperFor(Connection.class)).thenReturn(true);
+        when(proxy.unwrap(Connection.class)).thenReturn(driverConnection);
+        when(proxy.createArrayOf(anyString(), any(Object[].class))).thenAnswer(invocation ->
+                driverConnection.createArrayOf(invocation.getArgumentAt(0, String.class), invocation.getArgumentAt(1, Object[].class)));
+        when(ps.getConnection()).thenReturn(proxy);
+
+        return ps;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.example.Employee;
+import indo.sql.test.DbTest;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link AsyncSqlRunner}.
+ *
+ * @author Jonathan Cone
+ */
+public class AsyncSqlRunnerTest extends DbTest {
+
+    private static final String SELECT_EMPLOYEES_BY_LAST_NAME =
+            " SELECT employee_id, first_name, last_name FROM employee WHERE last_name LIKE ? ";
+
+    @Test
+    public void testListAndStreamConcurrently() {
+        try (AsyncSqlRunner runner = new AsyncSqlRunner(dataSource(), 2, 10)) {
+
+            CompletableFuture<List<Employee>> listed =
+                    runner.list(SELECT_EMPLOYEES_BY_LAST_NAME, Employee.class, "L%");
+
+            CompletableFuture<List<String>> streamed =
+                    runner.stream(SELECT_EMPLOYEES_BY_LAST_NAME,
+                            Employee.class,
+                            employees -> employees.map(Employee::getFirstName).collect(Collectors.toList()),
+                            "L%");
+
+            assertEquals(2, listed.join().size());
+            assertEquals(2, streamed.join().size());
+        }
+    }
+
+    @Test
+    public void testFullQueueRejectsOperations() throws Exception {
+        ThreadPoolExecutor executor = AsyncSqlRunner.newExecutor(1, 1, new ThreadPoolExecutor.AbortPolicy());
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (AsyncSqlRunner runner = new AsyncSqlRunner(new SqlRunner(dataSource()), executor)) {
+
+            // Occupy the only thread, then fill the queue.
+            CompletableFuture<Boolean> running = runner.submit(r -> {
+                started.countDown();
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            started.await();
+
+            CompletableFuture<List<Employee>> queued = runner.list(SELECT_EMPLOYEES_BY_LAST_NAME, Employee.class, "L%");
+            CompletableFuture<List<Employee>> rejected = runner.list(SELECT_EMPLOYEES_BY_LAST_NAME, Employee.class, "L%");
+
+            try {
+                rejected.join();
+                fail("The operation should have been rejected.");
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+
+            release.countDown();
+
+            assertTrue(running.join());
+            assertEquals(2, queued.join().size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -37,7 +37,7 @@ public class BinderTest {
 
     @Parameterized.Parameters
     public static Collection<Object[]> statements() {
-        return Arrays.asList(new Object[][]{{-1, ""}, {0, ""}, {1, "?"}, {2, "?,?"}, {3, "?,?,?"}});
+        return Arrays.asList(new Object[][]{{-1, ""}, {0, ""}, {1, "?"}, {2, "?,?"}, {3, "?,?,?"}, {5, "?,?,?,?,?"}});
     }
 
 
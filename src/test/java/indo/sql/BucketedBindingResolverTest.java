@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.util.Maps;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link BucketedBindingResolver}.
+ *
+ * @author Jonathan Cone
+ */
+public class BucketedBindingResolverTest {
+
+    @Test
+    public void testBucketOf() {
+        BucketedBindingResolver resolver = new BucketedBindingResolver(BucketedBindingResolver.Padding.LAST_VALUE, 8);
+
+        assertEquals(1, resolver.bucketOf(0));
+        assertEquals(1, resolver.bucketOf(1));
+        assertEquals(2, resolver.bucketOf(2));
+        assertEquals(4, resolver.bucketOf(3));
+        assertEquals(4, resolver.bucketOf(4));
+        assertEquals(8, resolver.bucketOf(5));
+        assertEquals(8, resolver.bucketOf(8));
+        assertEquals(16, resolver.bucketOf(9));
+        assertEquals(24, resolver.bucketOf(17));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxBucketMustBePowerOfTwo() {
+        new BucketedBindingResolver(BucketedBindingResolver.Padding.NULL, 1000);
+    }
+
+    @Test
+    public void testResolve() {
+        BucketedBindingResolver resolver = new BucketedBindingResolver(BucketedBindingResolver.Padding.NULL);
+
+        SqlParameter list = new SqlParameter("ids", Arrays.asList(1, 2, 3));
+
+        assertEquals("?,?,?,?", resolver.resolve(2, list).get());
+        assertEquals(Arrays.asList(2, 3, 4, 5), list.getIndexes());
+        assertTrue(list.isPadWithNull());
+
+        SqlParameter empty = new SqlParameter("ids", Collections.emptyList());
+
+        assertEquals("?", resolver.resolve(1, empty).get());
+
+        SqlParameter scalar = new SqlParameter("id", 7);
+
+        assertEquals("?", resolver.resolve(1, scalar).get());
+        assertEquals(Arrays.asList(1), scalar.getIndexes());
+    }
+
+    @Test
+    public void testResolveBeyondLargestBucket() {
+        BucketedBindingResolver resolver = new BucketedBindingResolver(BucketedBindingResolver.Padding.LAST_VALUE, 2);
+
+        SqlParameter array = new SqlParameter("ids", new int[]{1, 2, 3});
+
+        assertEquals("?,?,?,?", resolver.resolve(1, array).get());
+        assertFalse(array.isPadWithNull());
+    }
+
+    @Test
+    public void testParserSharesSqlWithinBucket() {
+        StreamingSqlParser parser = new StreamingSqlParser(new BucketedBindingResolver(BucketedBindingResolver.Padding.NULL));
+        String sql = "SELECT * FROM employee WHERE employee_id IN (:ids) AND department_id = :dept";
+
+        String three = parser.parse(sql, Maps.newHashMap("ids", Arrays.asList(1, 2, 3), "dept", 5)).getParsedSql();
+
+        SqlQueryMetaData four = parser.parse(sql, Maps.newHashMap("ids", Arrays.asList(1, 2, 3, 4), "dept", 5));
+
+        assertEquals("SELECT * FROM employee WHERE employee_id IN (?,?,?,?) AND department_id = ?", three);
+        assertEquals(three, four.getParsedSql());
+
+        // The padding mode is applied from the cached expansion.
+        SqlQueryMetaData cached = parser.parse(sql, Maps.newHashMap("ids", Arrays.asList(1, 2, 3), "dept", 5));
+        SqlParameter ids = cached.getSqlParameterProvider().findParameter("ids").get();
+
+        assertTrue(ids.isPadWithNull());
+        assertEquals(Arrays.asList(1, 2, 3, 4), ids.getIndexes());
+        assertEquals(Arrays.asList(5), cached.getSqlParameterProvider().findParameter("dept").get().getIndexes());
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.jdbc.JdbcException;
+import indo.sql.mapping.Column;
+import indo.sql.mapping.RowConstructor;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ConstructorRowProcessor}.
+ *
+ * @author Jonathan Cone
+ */
+public class ConstructorRowProcessorTest {
+
+    @Test
+    public void testParametersAreMatchedByName() throws Exception {
+        ResultSet rs = mockResultSet();
+
+        // The columns are selected in a different order than the parameters.
+        Person person = new ConstructorRowProcessor<>(Person.class).map(rs);
+
+        assertEquals(7L, person.id);
+        assertEquals("Smith", person.lastName);
+        assertEquals(LocalDate.of(2017, 3, 1), person.hireDate);
+
+        verify(rs, never()).getObject(anyInt());
+    }
+
+    @Test
+    public void testPlanIsResolvedOncePerResultSet() throws Exception {
+        ResultSet rs = mockResultSet();
+
+        ConstructorRowProcessor<Person> rowProcessor = new ConstructorRowProcessor<>(Person.class);
+
+        rowProcessor.map(rs);
+        rowProcessor.map(rs);
+
+        verify(rs, times(1)).getMetaData();
+    }
+
+    @Test
+    public void testAnnotatedFactoryAndColumnNames() throws Exception {
+        ResultSet rs = mockResultSet();
+
+        Badge badge = new ConstructorRowProcessor<>(Badge.class).map(rs);
+
+        assertEquals("7:Smith", badge.text);
+    }
+
+    @Test
+    public void testNullAndNumericConversions() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        ResultSetMetaData rsm = mock(ResultSetMetaData.class);
+
+        when(rs.getMetaData()).thenReturn(rsm);
+        when(rsm.getColumnCount()).thenReturn(2);
+        when(rsm.getColumnName(1)).thenReturn("AMOUNT");
+        when(rsm.getColumnName(2)).thenReturn("QUANTITY");
+        when(rsm.getColumnType(1)).thenReturn(Types.OTHER);
+        when(rsm.getColumnType(2)).thenReturn(Types.INTEGER);
+        when(rs.getObject(1)).thenReturn(new BigDecimal("12"));
+        when(rs.getInt(2)).thenReturn(0);
+        when(rs.wasNull()).thenReturn(true);
+
+        Line line = new ConstructorRowProcessor<>(Line.class).map(rs);
+
+        assertEquals(12L, line.amount);
+        assertEquals(0, line.quantity);
+    }
+
+    @Test(expected = JdbcException.class)
+    public void testFractionIsNotTruncated() throws Exception {
+        new ConstructorRowProcessor<>(Line.class).map(mockLineResultSet(new BigDecimal("12.34"), 1L));
+    }
+
+    @Test(expected = JdbcException.class)
+    public void testOutOfRangeValueIsNotWrapped() throws Exception {
+        new ConstructorRowProcessor<>(Line.class).map(mockLineResultSet(new BigDecimal("12"), Integer.MAX_VALUE + 1L));
+    }
+
+    @Test
+    public void testCreatorIsSharedBetweenInstances() {
+        assertSame(new ConstructorRowProcessor<>(Person.class).getCreator(),
+                new ConstructorRowProcessor<>(Person.class).getCreator());
+    }
+
+    @Test(expected = JdbcException.class)
+    public void testMissingColumnIsRejected() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        ResultSetMetaData rsm = mock(ResultSetMetaData.class);
+
+        when(rs.getMetaData()).thenReturn(rsm);
+        when(rsm.getColumnCount()).thenReturn(1);
+        when(rsm.getColumnName(1)).thenReturn("EMPLOYEE_ID");
+        when(rsm.getColumnType(1)).thenReturn(Types.BIGINT);
+
+        new ConstructorRowProcessor<>(Person.class).map(rs);
+    }
+
+    @Test(expected = JdbcException.class)
+    public void testAmbiguousConstructorsAreRejected() {
+        new ConstructorRowProcessor<>(Ambiguous.class);
+    }
+
+    @Test
+    public void testNullReferenceParameter() throws Exception {
+        ResultSet rs = mockResultSet();
+
+        when(rs.getDate(3)).thenReturn(null);
+
+        assertNull(new ConstructorRowProcessor<>(Person.class).map(rs).hireDate);
+    }
+
+    private ResultSet mockLineResultSet(Object amount, Object quantity) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        ResultSetMetaData rsm = mock(ResultSetMetaData.class);
+
+        when(rs.getMetaData()).thenReturn(rsm);
+        when(rsm.getColumnCount()).thenReturn(2);
+        when(rsm.getColumnName(1)).thenReturn("AMOUNT");
+        when(rsm.getColumnName(2)).thenReturn("QUANTITY");
+        when(rsm.getColumnType(1)).thenReturn(Types.NUMERIC);
+        when(rsm.getColumnType(2)).thenReturn(Types.BIGINT);
+        when(rs.getObject(1)).thenReturn(amount);
+        when(rs.getObject(2)).thenReturn(quantity);
+
+        return rs;
+    }
+
+    private ResultSet mockResultSet() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        ResultSetMetaData rsm = mock(ResultSetMetaData.class);
+
+        when(rs.getMetaData()).thenReturn(rsm);
+        when(rsm.getColumnCount()).thenReturn(3);
+        when(rsm.getColumnName(1)).thenReturn("LAST_NAME");
+        when(rsm.getColumnName(2)).thenReturn("EMPLOYEE_ID");
+        when(rsm.getColumnName(3)).thenReturn("HIRE_DATE");
+        when(rsm.getColumnType(1)).thenReturn(Types.VARCHAR);
+        when(rsm.getColumnType(2)).thenReturn(Types.BIGINT);
+        when(rsm.getColumnType(3)).thenReturn(Types.DATE);
+        when(rs.getString(1)).thenReturn("Smith");
+        when(rs.getLong(2)).thenReturn(7L);
+        when(rs.getDate(3)).thenReturn(Date.valueOf("2017-03-01"));
+
+        return rs;
+    }
+
+    public static final class Person {
+        private final long id;
+        private final String lastName;
+        private final LocalDate hireDate;
+
+        public Person(@Column("employee_id") long id, String lastName, LocalDate hireDate) {
+            this.id = id;
+            this.lastName = lastName;
+            this.hireDate = hireDate;
+        }
+    }
+
+    public static final class Badge {
+        private final String text;
+
+        private Badge(String text) {
+            this.text = text;
+        }
+
+        public Badge(String text, int ignored) {
+            this(text);
+        }
+
+        @RowConstructor
+        static Badge of(@Column("employee_id") Long id, @Column("last_name") String name) {
+            return new Badge(id + ":" + name);
+        }
+    }
+
+    public static final class Line {
+        private final long amount;
+        private final int quantity;
+
+        public Line(long amount, int quantity) {
+            this.amount = amount;
+            this.quantity = quantity;
+        }
+    }
+
+    public static final class Ambiguous {
+        public Ambiguous(String a) {
+        }
+
+        public Ambiguous(Long b) {
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.example.Employee;
+import indo.jdbc.JdbcException;
+import indo.sql.mapping.IndoRow;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link GeneratedRowProcessor} and {@link
+ * GeneratedSqlParameters}, using the classes generated for {@link Item}.
+ *
+ * @author Jonathan Cone
+ */
+public class GeneratedRowProcessorTest {
+
+    @Test
+    public void testGeneratedClassesAreFound() {
+        assertTrue(RowProcessor.using(Item.class) instanceof GeneratedRowProcessorTest_Item_IndoRowProcessor);
+        assertTrue(RowProcessor.using(Employee.class) instanceof ReflectionRowProcessor);
+
+        assertTrue(GeneratedSqlParameters.find(Item.class) instanceof GeneratedRowProcessorTest_Item_IndoSqlParameters);
+        assertNull(GeneratedSqlParameters.find(Employee.class));
+    }
+
+    @Test
+    public void testRowsAreMappedWithoutReflection() throws Exception {
+        ResultSet rs = mockResultSet("ID", "QUANTITY", "NAME", "PRICE", "UPDATED", "STATUS");
+
+        when(rs.getLong(1)).thenReturn(7L);
+        when(rs.getInt(2)).thenReturn(0);
+        when(rs.getString(3)).thenReturn("Widget");
+        when(rs.getBigDecimal(4)).thenReturn(new BigDecimal("9.95"));
+        when(rs.getTimestamp(5)).thenReturn(Timestamp.valueOf("2017-03-01 10:15:00"));
+        when(rs.getString(6)).thenReturn("ACTIVE");
+
+        // Only the quantity is NULL.
+        when(rs.wasNull()).thenReturn(true);
+
+        RowProcessor<Item> rowProcessor = RowProcessor.using(Item.class);
+
+        Item item = rowProcessor.map(rs);
+
+        assertEquals(7L, item.getId());
+        assertNull(item.getQuantity());
+        assertEquals("Widget", item.getName());
+        assertEquals(new BigDecimal("9.95"), item.getPrice());
+        assertEquals(LocalDateTime.of(2017, 3, 1, 10, 15), item.getUpdated());
+        assertEquals(Status.ACTIVE, item.getStatus());
+
+        rowProcessor.map(rs);
+
+        verify(rs, times(1)).getMetaData();
+        verify(rs, never()).getObject(anyInt());
+    }
+
+    @Test
+    public void testMatchesAreSharedBetweenInstances() throws Exception {
+        GeneratedRowProcessor<Item> first = (GeneratedRowProcessor<Item>) RowProcessor.using(Item.class);
+        GeneratedRowProcessor<Item> second = (GeneratedRowProcessor<Item>) RowProcessor.using(Item.class);
+
+        assertNotSame(first, second);
+        assertSame(first.bind(mockResultSet("NAME", "ID")), second.bind(mockResultSet("NAME", "ID")));
+    }
+
+    @Test(expected = JdbcException.class)
+    public void testUnknownColumnIsRejected() throws Exception {
+        RowProcessor.using(Item.class).map(mockResultSet("ID", "COLOR"));
+    }
+
+    @Test
+    public void testGeneratedParameters() {
+        Item item = new Item();
+        item.setName("Widget");
+
+        SqlParameterProvider parameters = SqlParameters.fromObject(item);
+
+        assertEquals("Widget", parameters.findParameter("name").get().value().get());
+        assertEquals(0L, parameters.findParameter("id").get().value().get());
+        assertTrue(parameters.findParameter("quantity").isPresent());
+        assertFalse(parameters.findParameter("quantity").get().value().isPresent());
+        assertFalse(parameters.findParameter("color").isPresent());
+    }
+
+    private ResultSet mockResultSet(String... columns) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        ResultSetMetaData rsm = mock(ResultSetMetaData.class);
+
+        when(rs.getMetaData()).thenReturn(rsm);
+        when(rsm.getColumnCount()).thenReturn(columns.length);
+
+        for (int i = 0; i < columns.length; i++) {
+            when(rsm.getColumnName(i + 1)).thenReturn(columns[i]);
+        }
+
+        return rs;
+    }
+
+    public enum Status {
+        ACTIVE, RETIRED
+    }
+
+    @IndoRow
+    public static class Item {
+        private long id;
+        private Integer quantity;
+        private String name;
+        private BigDecimal price;
+        private LocalDateTime updated;
+        private Status status;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public void setPrice(BigDecimal price) {
+            this.price = price;
+        }
+
+        public LocalDateTime getUpdated() {
+            return updated;
+        }
+
+        public void setUpdated(LocalDateTime updated) {
+            this.updated = updated;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.example.Company;
+import indo.example.Department;
+import indo.example.Employee;
+import indo.jdbc.JdbcException;
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link GraphRowProcessor}.
+ *
+ * @author Jonathan Cone
+ */
+public class GraphRowProcessorTest {
+
+    private static final String[] COLUMNS =
+            {"COMPANY_ID", "NAME", "D_DEPARTMENT_ID", "D_NAME", "E_EMPLOYEE_ID", "E_LAST_NAME"};
+
+    private static final GraphRowProcessor<Company> GRAPH = GraphRowProcessor.of(Company.class, "company_id")
+            .join("departments", Department.class, "d_department_id", "d_")
+            .join("departments.employees", Employee.class, "e_employee_id", "e_");
+
+    @Test
+    public void testJoinedRowsAreFoldedIntoAGraph() throws Exception {
+        ResultSet rs = mockResultSet(
+                new Object[]{1, "Acme", 10, "Finance", 100L, "Joyner"},
+                new Object[]{1, "Acme", 10, "Finance", 101L, "Lamphere"},
+                new Object[]{1, "Acme", 11, "Legal", 102L, "Hitchens"},
+                new Object[]{2, "Initech", 12, "Sales", 103L, "Lancaster"});
+
+        List<Company> companies = GRAPH.process(rs);
+
+        assertEquals(2, companies.size());
+
+        Company acme = companies.get(0);
+        assertEquals(Integer.valueOf(1), acme.getCompanyId());
+        assertEquals("Acme", acme.getName());
+        assertEquals(2, acme.getDepartments().size());
+
+        Department finance = acme.getDepartments().get(0);
+        assertEquals(10, finance.getDepartmentId());
+        assertEquals("Finance", finance.getName());
+        assertEquals(2, finance.getEmployees().size());
+        assertEquals("Joyner", finance.getEmployees().get(0).getLastName());
+        assertEquals("Lamphere", finance.getEmployees().get(1).getLastName());
+
+        assertEquals("Legal", acme.getDepartments().get(1).getName());
+        assertEquals("Lancaster", companies.get(1).getDepartments().get(0).getEmployees().get(0).getLastName());
+    }
+
+    @Test
+    public void testEachEntityIsBuiltOnce() throws Exception {
+        ResultSet rs = mockResultSet(
+                new Object[]{1, "Acme", 10, "Finance", 100L, "Joyner"},
+                new Object[]{1, "Acme", 10, "Finance", 100L, "Joyner"},
+                new Object[]{1, "Acme", 10, "Finance", 101L, "Lamphere"});
+
+        List<Company> companies = GRAPH.process(rs);
+
+        assertEquals(1, companies.size());
+        assertEquals(1, companies.get(0).getDepartments().size());
+        assertEquals(2, companies.get(0).getDepartments().get(0).getEmployees().size());
+
+        // The name of the company is only read for the first row.
+        verify(rs, times(1)).getObject(2);
+        verify(rs, times(1)).getMetaData();
+    }
+
+    @Test
+    public void testNullKeysFromOuterJoins() throws Exception {
+        ResultSet rs = mockResultSet(
+                new Object[]{1, "Acme", 10, "Finance", null, null},
+                new Object[]{2, "Initech", null, null, null, null});
+
+        List<Company> companies = GRAPH.process(rs);
+
+        assertEquals(2, companies.size());
+        assertNull(companies.get(0).getDepartments().get(0).getEmployees());
+        assertNull(companies.get(1).getDepartments());
+    }
+
+    @Test
+    public void testSharedChildrenAreTheSameInstance() throws Exception {
+        GraphRowProcessor<Department> graph = GraphRowProcessor.of(Department.class, "d_department_id", "d_")
+                .join("manager", Employee.class, "e_employee_id", "e_");
+
+        ResultSet rs = mockResultSet(
+                new Object[]{1, "Acme", 10, "Finance", 100L, "Joyner"},
+                new Object[]{1, "Acme", 11, "Legal", 100L, "Joyner"});
+
+        List<Department> departments = graph.process(rs);
+
+        assertEquals(2, departments.size());
+        assertSame(departments.get(0).getManager(), departments.get(1).getManager());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParentMustBeJoinedFirst() {
+        GraphRowProcessor.of(Company.class, "company_id")
+                .join("departments.employees", Employee.class, "employee_id");
+    }
+
+    @Test(expected = JdbcException.class)
+    public void testMissingKeyColumn() throws Exception {
+        GraphRowProcessor.of(Company.class, "company_key").process(mockResultSet());
+    }
+
+    private ResultSet mockResultSet(Object[]... rows) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        ResultSetMetaData rsm = mock(ResultSetMetaData.class);
+
+        when(rs.getMetaData()).thenReturn(rsm);
+        when(rsm.getColumnCount()).thenReturn(COLUMNS.length);
+
+        for (int i = 0; i < COLUMNS.length; i++) {
+            when(rsm.getColumnLabel(i + 1)).thenReturn(COLUMNS[i]);
+            when(rsm.getColumnType(i + 1)).thenReturn(Types.OTHER);
+        }
+
+        int[] row = {-1};
+
+        when(rs.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        when(rs.getObject(anyInt())).thenAnswer(invocation -> rows[row[0]][(Integer) invocation.getArguments()[0] - 1]);
+
+        return rs;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.util.Maps;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for {@link InListChunks}.
+ *
+ * @author Jonathan Cone
+ */
+public class InListChunksTest {
+
+    private static final String SQL = "SELECT * FROM employee WHERE department_id = :dept AND employee_id IN (:ids)";
+
+    @Test
+    public void testSmallListIsNotChunked() {
+        SqlParameters parameters = SqlParameters.fromMap(Maps.newHashMap("dept", 1, "ids", Arrays.asList(1, 2, 3)));
+
+        assertNull(InListChunks.split(StreamingSqlParser.instance(), SQL, parameters, 3));
+    }
+
+    @Test
+    public void testListIsChunked() {
+        SqlParameters parameters = SqlParameters.fromMap(Maps.newHashMap("dept", 1, "ids", Arrays.asList(1, 2, 3, 4, 5)));
+
+        InListChunks chunks = InListChunks.split(StreamingSqlParser.instance(), SQL, parameters, 2);
+
+        assertEquals(3, chunks.count());
+
+        SqlParameterProvider last = chunks.chunk(2);
+        SqlQueryMetaData metaData = StreamingSqlParser.instance().parse(SQL, last);
+
+        assertEquals("SELECT * FROM employee WHERE department_id = ? AND employee_id IN (?)", metaData.getParsedSql());
+        assertEquals(Arrays.asList(5), last.getParameter("ids").getValue());
+        assertEquals(1, last.getParameter("dept").getValue());
+        assertEquals(Arrays.asList(1), last.getParameter("dept").getIndexes());
+
+        // Each chunk binds its own parameters, the originals are untouched.
+        assertNotSame(last.getParameter("dept"), chunks.chunk(0).getParameter("dept"));
+        assertEquals(0, parameters.getParameter("dept").getIndexCount());
+    }
+
+    @Test
+    public void testSetIsChunkedInIterationOrder() {
+        SqlParameters parameters = SqlParameters.fromMap(Maps.newHashMap("dept", 1, "ids", new LinkedHashSet<>(Arrays.asList(5, 4, 3))));
+
+        InListChunks chunks = InListChunks.split(StreamingSqlParser.instance(), SQL, parameters, 2);
+
+        assertEquals(Arrays.asList(5, 4), chunks.chunk(0).getParameter("ids").getValue());
+        assertEquals(Arrays.asList(3), chunks.chunk(1).getParameter("ids").getValue());
+    }
+
+    @Test
+    public void testPrimitiveArrayIsChunked() {
+        SqlParameters parameters = SqlParameters.fromMap(Maps.newHashMap("dept", 1, "ids", new long[]{1, 2, 3, 4, 5}));
+
+        InListChunks chunks = InListChunks.split(StreamingSqlParser.instance(), SQL, parameters, 4);
+
+        assertEquals(2, chunks.count());
+        assertArrayEquals(new long[]{1, 2, 3, 4}, (long[]) chunks.chunk(0).getParameter("ids").getValue());
+        assertArrayEquals(new long[]{5}, (long[]) chunks.chunk(1).getParameter("ids").getValue());
+    }
+}
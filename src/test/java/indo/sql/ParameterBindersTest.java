@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.JDBCType;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link ParameterBinders}.
+ *
+ * @author Jonathan Cone
+ */
+public class ParameterBindersTest {
+
+    @Test
+    public void testStandardBinders() throws SQLException {
+        PreparedStatement ps = mock(PreparedStatement.class);
+        ParameterBinders binders = ParameterBinders.defaults();
+
+        binders.find(Long.class).bind(ps, 1, 7L);
+        binders.find(String.class).bind(ps, 2, "Smith");
+        binders.find(BigDecimal.class).bind(ps, 3, BigDecimal.TEN);
+        binders.find(LocalDate.class).bind(ps, 4, LocalDate.of(2017, 1, 30));
+        binders.find(LocalDateTime.class).bind(ps, 5, LocalDateTime.of(2017, 1, 30, 8, 0));
+
+        verify(ps).setLong(1, 7L);
+        verify(ps).setString(2, "Smith");
+        verify(ps).setBigDecimal(3, BigDecimal.TEN);
+        verify(ps).setDate(4, Date.valueOf("2017-01-30"));
+        verify(ps).setTimestamp(5, Timestamp.valueOf("2017-01-30 08:00:00"));
+    }
+
+    @Test
+    public void testJdbc42BindsJavaTimeDirectly() throws SQLException {
+        PreparedStatement ps = mock(PreparedStatement.class);
+        LocalDate date = LocalDate.of(2017, 1, 30);
+
+        ParameterBinders.jdbc42().find(LocalDate.class).bind(ps, 1, date);
+
+        verify(ps).setObject(1, date, JDBCType.DATE);
+    }
+
+    @Test
+    public void testUnknownTypesUseSetObject() {
+        assertSame(ParameterBinder.OBJECT, ParameterBinders.defaults().find(Money.class));
+    }
+
+    @Test
+    public void testCustomBinderAppliesToSubtypes() throws SQLException {
+        PreparedStatement ps = mock(PreparedStatement.class);
+
+        ParameterBinders binders = ParameterBinders.defaults()
+                .with(Money.class, (statement, index, money) -> statement.setBigDecimal(index, money.amount));
+
+        binders.find(Dollars.class).bind(ps, 1, new Dollars(BigDecimal.ONE));
+
+        verify(ps).setBigDecimal(1, BigDecimal.ONE);
+        assertSame(ParameterBinder.OBJECT, ParameterBinders.defaults().find(Money.class));
+    }
+
+    @Test
+    public void testCustomBinderForInterface() throws SQLException {
+        PreparedStatement ps = mock(PreparedStatement.class);
+
+        ParameterBinders binders = ParameterBinders.defaults()
+                .with(Coded.class, (statement, index, coded) -> statement.setString(index, coded.code()));
+
+        binders.find(Dollars.class).bind(ps, 1, new Dollars(BigDecimal.ONE));
+
+        verify(ps).setString(1, "USD");
+        assertNotSame(ParameterBinder.OBJECT, binders.find(Dollars.class));
+    }
+
+    interface Coded {
+        String code();
+    }
+
+    static class Money {
+        final BigDecimal amount;
+
+        Money(BigDecimal amount) {
+            this.amount = amount;
+        }
+    }
+
+    static class Dollars extends Money implements Coded {
+        Dollars(BigDecimal amount) {
+            super(amount);
+        }
+
+        @Override
+        public String code() {
+            return "USD";
+        }
+    }
+}
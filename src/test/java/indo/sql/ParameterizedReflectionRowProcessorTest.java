@@ -172,7 +172,7 @@ public class ParameterizedReflectionRowProcessorTest {
 
         for (int i = 0; i < columns.length; i++) {
             when(mockMeta.getColumnName(i + 1)).thenReturn(columns[i]);
-            when(mockResultSet.getObject(columns[i])).thenReturn(values[i]);
+            when(mockResultSet.getObject(i + 1)).thenReturn(values[i]);
         }
 
         ReflectionRowProcessor<?> rowProcessor = new ReflectionRowProcessor<>(aClass, ResultTypes.empty(), strategy);
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.example.Employee;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link PojoSqlParameters}.
+ *
+ * @author Jonathan Cone
+ */
+public class PojoSqlParametersTest {
+
+    @Test
+    public void testParametersAreReadFromGetters() {
+        Employee employee = new Employee(7L, "John", "Smith");
+        employee.setSalary(new BigDecimal("100.00"));
+
+        PojoSqlParameters<Employee> parameters = PojoSqlParameters.fromPojo(employee);
+
+        assertEquals(7L, parameters.findParameter("employeeId").get().value().get());
+        assertEquals(new BigDecimal("100.00"), parameters.findParameter("salary").get().value().get());
+        assertEquals(false, parameters.findParameter("active").get().value().get());
+        assertFalse(parameters.findParameter("hireDate").get().value().isPresent());
+        assertFalse(parameters.findParameter("middleName").isPresent());
+    }
+
+    @Test
+    public void testSameParameterIsReturnedForRepeatedNames() {
+        PojoSqlParameters<Employee> parameters = PojoSqlParameters.fromPojo(new Employee(7L, "John", "Smith"));
+
+        SqlParameter lastName = parameters.findParameter("lastName").get();
+        lastName.addIndex(3);
+
+        assertSame(lastName, parameters.findParameter("lastName").get());
+        assertTrue(parameters.findParameter("lastName").get().hasIndex(3));
+    }
+
+    @Test
+    public void testEachInstanceHasItsOwnValues() {
+        SqlParameterProvider first = PojoSqlParameters.fromPojo(new Employee(1L, "John", "Smith"));
+        SqlParameterProvider second = PojoSqlParameters.fromPojo(new Employee(2L, "Jane", "Doe"));
+
+        assertEquals("Smith", first.findParameter("lastName").get().value().get());
+        assertEquals("Doe", second.findParameter("lastName").get().value().get());
+        assertEquals("Jane", second.findParameter("firstName").get().value().get());
+
+        List<SqlParameter> found = new ArrayList<>();
+        second.forEach(found::add);
+
+        assertEquals(2, found.size());
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link QueryOptions}.
+ *
+ * @author Jonathan Cone
+ */
+public class QueryOptionsTest {
+
+    @Test
+    public void testStreaming() {
+        QueryOptions options = QueryOptions.defaults().streaming();
+
+        assertTrue(options.isStreaming());
+        assertEquals(Integer.MIN_VALUE, options.getFetchSize());
+        assertEquals(options, QueryOptions.defaults().fetchSize(Integer.MIN_VALUE));
+        assertFalse(QueryOptions.defaults().fetchSize(500).isStreaming());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeFetchSize() {
+        QueryOptions.defaults().fetchSize(-1);
+    }
+}
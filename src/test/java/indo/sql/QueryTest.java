@@ -0,0 +1,270 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.example.Department;
+import indo.example.Employee;
+import indo.jdbc.JdbcException;
+import indo.sql.test.DbTest;
+import indo.util.Maps;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link Query}.
+ *
+ * @author Jonathan Cone
+ */
+public class QueryTest extends DbTest {
+
+    private static final Map<String, String> EMPLOYEE_COLUMNS = Maps.newHashMap(
+            "employeeId", "employee_id",
+            "firstName", "first_name",
+            "lastName", "last_name",
+            "hireDate", "hire_date");
+
+    private static final Date HIRE_DATE = Date.valueOf("2017-05-01");
+
+    @Test
+    public void testInsertUpdateAndDeleteEmployees() {
+        Query query = new Query(dataSource());
+
+        Employee bob = new Employee(201L, "Bob", "Baker", HIRE_DATE, new BigDecimal("80000.00"), false);
+
+        List<Employee> employees = Arrays.asList(
+                new Employee(200L, "Ann", "Archer", HIRE_DATE, new BigDecimal("90000.00"), true),
+                bob,
+                new Employee(202L, "Cid", "Carter", HIRE_DATE, new BigDecimal("70000.00"), true));
+
+        assertEquals(Integer.valueOf(3), query.insert(employees).in("employee").mapColumn(EMPLOYEE_COLUMNS).count());
+
+        bob.setLastName("Brown");
+
+        assertEquals(Integer.valueOf(1), query.update(bob).in("employee").mapColumn(EMPLOYEE_COLUMNS).count());
+
+        assertEquals(Integer.valueOf(1), query.delete(employees.get(2)).in("employee").mapColumn(EMPLOYEE_COLUMNS).count());
+    }
+
+    @Test
+    public void testInsertGeneratesKey() {
+        Query query = new Query(dataSource());
+
+        Employee employee = new Employee(null, "Kay", "Keller", HIRE_DATE, new BigDecimal("60000.00"), true);
+
+        query.insert(employee).in("employee").mapColumn(EMPLOYEE_COLUMNS).execute();
+
+        assertNotNull(employee.getEmployeeId());
+
+        // Removing the row again by its generated key leaves the table as it
+        // was.
+        assertEquals(Integer.valueOf(1), query.delete(employee).in("employee").mapColumn(EMPLOYEE_COLUMNS).count());
+    }
+
+    @Test
+    public void testInsertGeneratesKeyForEveryRow() {
+        Query query = new Query(dataSource());
+
+        List<Employee> employees = Arrays.asList(
+                new Employee(null, "Kay", "Keller", HIRE_DATE, new BigDecimal("60000.00"), true),
+                new Employee(null, "Lou", "Lester", HIRE_DATE, new BigDecimal("61000.00"), true),
+                new Employee(null, "Max", "Mercer", HIRE_DATE, new BigDecimal("62000.00"), true));
+
+        assertEquals(Integer.valueOf(3), query.insert(employees).in("employee").mapColumn(EMPLOYEE_COLUMNS).count());
+
+        // Each row received the key of its own insert.
+        for (Employee employee : employees) {
+            assertNotNull(employee.getEmployeeId());
+            assertEquals(employee.getFirstName(), query
+                    .sql(" SELECT first_name FROM employee WHERE employee_id = :employeeId ")
+                    .bind(employee)
+                    .unique(Employee.class)
+                    .getFirstName());
+        }
+
+        assertEquals(Integer.valueOf(3), query.delete(employees).in("employee").mapColumn(EMPLOYEE_COLUMNS).count());
+    }
+
+    @Test
+    public void testInsertOrUpdateEmployees() {
+        Query query = new Query(dataSource());
+
+        List<Employee> employees = Arrays.asList(
+                new Employee(103L, "Jillian", "Lancaster", Date.valueOf("2017-01-08"), new BigDecimal("104000.00"), true),
+                new Employee(210L, "Ray", "Reed", HIRE_DATE, new BigDecimal("70000.00"), true));
+
+        assertEquals(Integer.valueOf(2), query.insertOrUpdate(employees).in("employee").mapColumn(EMPLOYEE_COLUMNS).count());
+    }
+
+    @Test
+    public void testUpdateIncludingOnlyUsingKey() {
+        Query query = new Query(dataSource());
+
+        Employee employee = new Employee(null, "Jill", "Lancaster");
+
+        // Only the first name is written, matched on the last name.
+        assertEquals(Integer.valueOf(1), query.update(employee)
+                .in("employee")
+                .mapColumn(EMPLOYEE_COLUMNS)
+                .includingOnly("firstName")
+                .usingKey("lastName")
+                .count());
+    }
+
+    @Test
+    public void testInsertOrUpdateRollsBackWhenInsertFails() {
+        Query query = new Query(dataSource());
+
+        // The two new rows share a key, so the insert fails after the
+        // existing row was updated.
+        List<Employee> employees = Arrays.asList(
+                new Employee(103L, "Jillian", "Lancaster", Date.valueOf("2017-01-08"), new BigDecimal("104000.00"), true),
+                new Employee(220L, "Ray", "Reed", HIRE_DATE, new BigDecimal("70000.00"), true),
+                new Employee(220L, "Roy", "Reed", HIRE_DATE, new BigDecimal("70000.00"), true));
+
+        try {
+            query.insertOrUpdate(employees).in("employee").mapColumn(EMPLOYEE_COLUMNS).execute();
+            fail("The duplicate key should have been rejected.");
+        } catch (JdbcException e) {
+            // Nothing was written.
+        }
+    }
+
+    @Test
+    public void testInsertRollsBackWhenSecondClassFails() {
+        Query query = new Query(dataSource());
+
+        // Each class is written with its own statement, the second reuses
+        // the key inserted by the first.
+        List<Employee> employees = Arrays.asList(
+                new Employee(220L, "Ray", "Reed", HIRE_DATE, new BigDecimal("70000.00"), true),
+                new Contractor(220L, "Roy", "Reed"));
+
+        try {
+            query.insert(employees).in("employee").mapColumn(EMPLOYEE_COLUMNS).execute();
+            fail("The duplicate key should have been rejected.");
+        } catch (JdbcException e) {
+            // Nothing was written.
+        }
+    }
+
+    @Test
+    public void testWritesJoinEnclosingTransaction() {
+        SqlRunner runner = new SqlRunner(dataSource());
+
+        try {
+            runner.inTransaction(r -> {
+                new Query(r).insert(new Employee(220L, "Ray", "Reed", HIRE_DATE, new BigDecimal("70000.00"), true))
+                        .in("employee")
+                        .mapColumn(EMPLOYEE_COLUMNS)
+                        .execute();
+
+                throw new IllegalStateException("Rollback");
+            });
+            fail("The work should have thrown.");
+        } catch (IllegalStateException e) {
+            // The insert was rolled back with the enclosing transaction.
+        }
+    }
+
+    @Test(expected = JdbcException.class)
+    public void testUpdateKeyOnly() {
+        Query query = new Query(dataSource());
+
+        query.update(new Department(100, "Finance", null, null))
+                .in("department")
+                .mapColumn("departmentId", "department_id")
+                .includingOnly("departmentId")
+                .execute();
+    }
+
+    @Test
+    public void testInsertOrUpdateKeyOnly() {
+        SqlRunner runner = spy(new SqlRunner(dataSource()));
+        Query query = new Query(runner);
+
+        List<Department> departments = Arrays.asList(
+                new Department(100, "Finance", null, null),
+                new Department(102, "Legal", null, null),
+                new Department(101, "Human Resources", null, null));
+
+        // Only the department that does not exist yet is written.
+        assertEquals(Integer.valueOf(1), query.insertOrUpdate(departments)
+                .in("department")
+                .mapColumn("departmentId", "department_id")
+                .includingOnly("departmentId")
+                .count());
+
+        // The keys of every row are looked up at once.
+        verify(runner, times(1)).list(any(Connection.class), anyString(), any(RowProcessor.class), anyMap());
+    }
+
+    @Test
+    public void testSelectEmployees() {
+        Query query = new Query(dataSource());
+
+        query.sql(" SELECT employee_id, first_name, last_name " +
+                  " FROM   employee                          " +
+                  " WHERE  last_name = :lastName             ")
+                .bind("lastName", "Lancaster");
+
+        assertEquals(Integer.valueOf(1), query.count());
+        assertEquals("Jill", query.unique(Employee.class).getFirstName());
+
+        Employee employee = query
+                .sql(" SELECT employee_id, first_name FROM employee WHERE employee_id = :employeeId ")
+                .bind(new Employee(101L, null, null))
+                .single(Employee.class);
+
+        assertEquals("Bill", employee.getFirstName());
+    }
+
+    @Test
+    public void testCustomSqlUpdate() {
+        Query query = new Query(dataSource());
+
+        // Writing the same value back leaves the data set unchanged.
+        Integer count = query
+                .update(" UPDATE employee SET last_name = :lastName WHERE employee_id IN (:employeeIds) ")
+                .bind("lastName", "Lancaster")
+                .bind("employeeIds", Arrays.asList(103L))
+                .count();
+
+        assertEquals(Integer.valueOf(1), count);
+    }
+
+    public static class Contractor extends Employee {
+        public Contractor(Long employeeId, String firstName, String lastName) {
+            super(employeeId, firstName, lastName, HIRE_DATE, new BigDecimal("70000.00"), true);
+        }
+    }
+}
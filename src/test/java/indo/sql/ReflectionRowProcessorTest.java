@@ -16,9 +16,21 @@
 
 package indo.sql;
 
+import indo.example.Employee;
 import indo.sql.mapping.InclusiveColumnMappingStrategy;
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for {@link ReflectionRowProcessor}.
@@ -26,8 +38,182 @@ import static org.junit.Assert.assertEquals;
  * @author Jonathan Cone
  */
 public class ReflectionRowProcessorTest {
+    @Test
     public void testGetMappingStrategies() throws Exception {
         assertEquals(InclusiveColumnMappingStrategy.class,
                 new ReflectionRowProcessor<>(Object.class).getColumnMappingStrategy().getClass());
     }
+
+    @Test
+    public void testMappingPlanIsResolvedOncePerResultSet() throws Exception {
+        ResultSet rs = mockEmployeeResultSet();
+
+        ReflectionRowProcessor<Employee> rowProcessor = new ReflectionRowProcessor<>(Employee.class);
+
+        assertEquals("Smith", rowProcessor.map(rs).getLastName());
+        assertEquals("Smith", rowProcessor.map(rs).getLastName());
+
+        verify(rs, times(1)).getMetaData();
+        verify(rs, never()).getObject(anyString());
+    }
+
+    @Test
+    public void testResultSetsReadAtOnceKeepTheirPlans() throws Exception {
+        ResultSet first = mockEmployeeResultSet();
+        ResultSet second = mockEmployeeResultSet();
+
+        ReflectionRowProcessor<Employee> rowProcessor = new ReflectionRowProcessor<>(Employee.class);
+
+        // As when the chunks of a query are mapped on several threads.
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Smith", rowProcessor.map(first).getLastName());
+            assertEquals("Smith", rowProcessor.map(second).getLastName());
+        }
+
+        verify(first, times(1)).getMetaData();
+        verify(second, times(1)).getMetaData();
+    }
+
+    @Test
+    public void testCustomStrategyIsConsultedForEveryColumn() throws Exception {
+        ResultSet rs = mockEmployeeResultSet();
+
+        ReflectionRowProcessor<Employee> rowProcessor = new ReflectionRowProcessor<>(Employee.class, ResultTypes.empty(),
+                new InclusiveColumnMappingStrategy()::findMatch);
+
+        Employee employee = rowProcessor.map(rs);
+
+        assertEquals(Long.valueOf(7L), employee.getEmployeeId());
+        assertEquals("Smith", employee.getLastName());
+    }
+
+    @Test
+    public void testSubclassOverridingFindMatchKeepsItsMatching() throws Exception {
+        ResultSet rs = mockEmployeeResultSet();
+
+        ReflectionRowProcessor<Employee> rowProcessor = new ReflectionRowProcessor<>(Employee.class, ResultTypes.empty(),
+                new SurnameAsFirstNameColumnMappingStrategy());
+
+        Employee employee = rowProcessor.map(rs);
+
+        assertEquals(Long.valueOf(7L), employee.getEmployeeId());
+        assertEquals("Smith", employee.getFirstName());
+        assertNull(employee.getLastName());
+    }
+
+    @Test
+    public void testPlansAreNotSharedBetweenStrategyInstances() throws Exception {
+        assertEquals("Smith", new ReflectionRowProcessor<>(Employee.class, ResultTypes.empty(),
+                renaming("firstName")).map(mockEmployeeResultSet()).getFirstName());
+        assertEquals("Smith", new ReflectionRowProcessor<>(Employee.class, ResultTypes.empty(),
+                renaming("lastName")).map(mockEmployeeResultSet()).getLastName());
+    }
+
+    @Test
+    public void testColumnsAreReadWithTypedGetters() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        ResultSetMetaData rsm = mock(ResultSetMetaData.class);
+
+        when(rs.getMetaData()).thenReturn(rsm);
+        when(rsm.getColumnCount()).thenReturn(4);
+        when(rsm.getColumnName(1)).thenReturn("ID");
+        when(rsm.getColumnName(2)).thenReturn("QUANTITY");
+        when(rsm.getColumnName(3)).thenReturn("NAME");
+        when(rsm.getColumnName(4)).thenReturn("UPDATED");
+        when(rsm.getColumnType(1)).thenReturn(Types.BIGINT);
+        when(rsm.getColumnType(2)).thenReturn(Types.INTEGER);
+        when(rsm.getColumnType(3)).thenReturn(Types.VARCHAR);
+        when(rsm.getColumnType(4)).thenReturn(Types.TIMESTAMP);
+        when(rs.getLong(1)).thenReturn(7L);
+        when(rs.getInt(2)).thenReturn(0);
+        when(rs.getString(3)).thenReturn("Widget");
+        when(rs.getTimestamp(4)).thenReturn(Timestamp.valueOf("2017-03-01 10:15:00"));
+
+        // Only the quantity is NULL.
+        when(rs.wasNull()).thenReturn(false, true);
+
+        Item item = new ReflectionRowProcessor<>(Item.class).map(rs);
+
+        assertEquals(7L, item.getId());
+        assertNull(item.getQuantity());
+        assertEquals("Widget", item.getName());
+        assertEquals(LocalDateTime.of(2017, 3, 1, 10, 15), item.getUpdated());
+
+        verify(rs, never()).getObject(anyInt());
+    }
+
+    private ResultSet mockEmployeeResultSet() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        ResultSetMetaData rsm = mock(ResultSetMetaData.class);
+
+        when(rs.getMetaData()).thenReturn(rsm);
+        when(rsm.getColumnCount()).thenReturn(2);
+        when(rsm.getColumnName(1)).thenReturn("EMPLOYEE_ID");
+        when(rsm.getColumnName(2)).thenReturn("LAST_NAME");
+        when(rs.getObject(1)).thenReturn(7L);
+        when(rs.getObject(2)).thenReturn("Smith");
+
+        return rs;
+    }
+
+    /**
+     * Match the last name column to the supplied property.
+     */
+    private static InclusiveColumnMappingStrategy renaming(String property) {
+        return new InclusiveColumnMappingStrategy() {
+            @Override
+            public Optional<String> findMatch(String column, Set<String> fieldNames) {
+                return "LAST_NAME".equals(column) ? Optional.of(property) : super.findMatch(column, fieldNames);
+            }
+        };
+    }
+
+    /**
+     * Inherits the normalizers but matches the last name column differently.
+     */
+    public static class SurnameAsFirstNameColumnMappingStrategy extends InclusiveColumnMappingStrategy {
+        @Override
+        public Optional<String> findMatch(String column, Set<String> fieldNames) {
+            return "LAST_NAME".equals(column) ? Optional.of("firstName") : super.findMatch(column, fieldNames);
+        }
+    }
+
+    public static class Item {
+        private long id;
+        private Integer quantity;
+        private String name;
+        private LocalDateTime updated;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public LocalDateTime getUpdated() {
+            return updated;
+        }
+
+        public void setUpdated(LocalDateTime updated) {
+            this.updated = updated;
+        }
+    }
 }
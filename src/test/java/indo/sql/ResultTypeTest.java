@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ResultType}.
+ *
+ * @author Jonathan Cone
+ * @see ResultType
+ */
+public class ResultTypeTest {
+
+    @Test
+    public void testBuiltInTypesReadByIndex() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(2)).thenReturn(42L);
+
+        assertTrue(ResultType.LONG.isIndexed());
+        assertEquals(Long.valueOf(42L), ResultType.LONG.asType(rs, 2));
+
+        verify(rs, never()).getMetaData();
+        verify(rs, never()).getLong(anyString());
+    }
+
+    @Test
+    public void testBuiltInTypesReadByLabel() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.findColumn("employee_id")).thenReturn(3);
+        when(rs.getString(3)).thenReturn("100");
+
+        assertEquals("100", ResultType.STRING.asType(rs, "employee_id"));
+    }
+
+    @Test
+    public void testLabelTypesReadByIndex() throws SQLException {
+        ResultSetMetaData rsm = mock(ResultSetMetaData.class);
+        when(rsm.getColumnLabel(1)).thenReturn("first_name");
+
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getMetaData()).thenReturn(rsm);
+        when(rs.getString("first_name")).thenReturn("John");
+
+        ResultType<String> upperCase = (resultSet, column) -> "JOHN";
+
+        assertFalse(upperCase.isIndexed());
+        assertEquals("JOHN", upperCase.asType(rs, 1));
+        verify(rsm).getColumnLabel(1);
+    }
+}
@@ -18,7 +18,13 @@ package indo.sql;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Unit tests for {@link SqlParameter}.
@@ -69,4 +75,65 @@ public class SqlParameterTest {
 
         sqlParameter.addIndexes(0, 1);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAddIndexOutOfOrder() {
+        SqlParameter sqlParameter = new SqlParameter("name", "value");
+
+        sqlParameter.addIndexes(5, 2);
+        sqlParameter.addIndex(2);
+        sqlParameter.addIndex(5);
+        sqlParameter.addIndexes(1, 2);
+
+        assertArrayEquals(new Integer[]{1, 2, 5, 6}, sqlParameter.getIndexes().toArray());
+        assertEquals(4, sqlParameter.getIndexCount());
+        assertEquals(6, (int) sqlParameter.getMaxIndex());
+        assertTrue(sqlParameter.hasIndex(5));
+        assertFalse(sqlParameter.hasIndex(3));
+    }
+
+    @Test
+    public void testRuns() {
+        SqlParameter sqlParameter = new SqlParameter("ids", Arrays.asList(1, 2, 3));
+
+        sqlParameter.addIndexes(2, 4);
+        sqlParameter.addIndexes(7, 3);
+
+        assertTrue(sqlParameter.isRunStart(2));
+        assertTrue(sqlParameter.isRunStart(7));
+        assertFalse(sqlParameter.isRunStart(6));
+        assertEquals(3, sqlParameter.getShortestRun());
+
+        SqlParameter copy = new SqlParameter(sqlParameter);
+
+        assertTrue(copy.isRunStart(7));
+        assertEquals(3, copy.getShortestRun());
+    }
+
+    @Test
+    public void testCopy() {
+        SqlParameter sqlParameter = new SqlParameter("name", "value", 12);
+        sqlParameter.addIndexes(2, 2);
+
+        SqlParameter copy = new SqlParameter(sqlParameter);
+        copy.addIndex(7);
+
+        assertEquals("name", copy.getName());
+        assertEquals("value", copy.getValue());
+        assertEquals(12, (int) copy.getType());
+        assertArrayEquals(new Integer[]{2, 3, 7}, copy.getIndexes().toArray());
+        assertArrayEquals(new Integer[]{2, 3}, sqlParameter.getIndexes().toArray());
+    }
+
+    @Test
+    public void testIndexesAreASnapshot() {
+        SqlParameter sqlParameter = new SqlParameter("name", "value");
+        sqlParameter.addIndexes(1, 2);
+
+        List<Integer> indexes = sqlParameter.getIndexes();
+        sqlParameter.addIndex(5);
+
+        assertEquals(Arrays.asList(1, 2), indexes);
+        assertEquals(Arrays.asList(1, 2, 5), sqlParameter.getIndexes());
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.util.Maps;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for {@link SqlParameters}.
+ *
+ * @author Jonathan Cone
+ */
+public class SqlParametersTest {
+
+    @Test
+    public void testFromMapCreatesParametersOnLookup() {
+        SqlParameters parameters = SqlParameters.fromMap(Maps.newHashMap("a", 1, "b", null));
+
+        assertEquals(0, parameters.createdCount());
+
+        SqlParameter a = parameters.getParameter("a");
+
+        assertEquals(1, a.getValue());
+        assertSame(a, parameters.getParameter("a"));
+        assertEquals(1, parameters.createdCount());
+        assertNull(parameters.getParameter("c"));
+        assertFalse(parameters.findParameter("c").isPresent());
+
+        // A key with a null value is still a parameter.
+        assertNull(parameters.getParameter("b").getValue());
+        assertEquals(2, parameters.createdCount());
+    }
+
+    @Test
+    public void testFromMapIteratesEveryKey() {
+        SqlParameters parameters = SqlParameters.fromMap(Maps.newHashMap("a", 1, "b", 2));
+
+        SqlParameter a = parameters.getParameter("a");
+
+        List<SqlParameter> all = new ArrayList<>();
+        parameters.forEach(all::add);
+
+        assertEquals(2, all.size());
+        assertSame(a, parameters.getParameter("a"));
+        assertEquals(2, parameters.getParameter("b").getValue());
+    }
+
+    @Test
+    public void testFromParametersFindsFirstByName() {
+        SqlParameter first = new SqlParameter("a", 1);
+        SqlParameter second = new SqlParameter("a", 2);
+        SqlParameter ordinal = new SqlParameter(3, 3);
+
+        SqlParameters parameters = SqlParameters.fromParameters(Arrays.asList(first, second, ordinal));
+
+        assertSame(first, parameters.getParameter("a"));
+        assertSame(ordinal, parameters.findParameter(3).get());
+        assertFalse(parameters.findParameter(4).isPresent());
+    }
+}
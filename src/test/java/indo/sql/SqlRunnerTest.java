@@ -16,15 +16,39 @@
 
 package indo.sql;
 
+import indo.example.Department;
 import indo.example.Employee;
+import indo.example.Timecard;
 import indo.sql.test.DbTest;
 import indo.util.Maps;
 import org.junit.Test;
-
+import org.mockito.InOrder;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static indo.jdbc.ResultSets.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.inOrder;
 
 /**
  * Unit tests for {@link SqlRunner}.
@@ -186,6 +210,484 @@ public class SqlRunnerTest extends DbTest {
 
     }
 
+    @Test
+    public void testStreamEmployeesWithLargeSalaries1() {
+        SqlRunner runner = new SqlRunner(dataSource());
+        runner.setFetchSize(2);
+
+        // Stream results lazily instead of materializing the whole result.
+        try (Stream<Employee> employees =
+                     runner.stream(SELECT_EMPLOYEE_ORDINAL_PARAMS,
+                             Employee.class,
+                             75000.00,
+                             "Lancaster")) {
+
+            assertEmployees(employees.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testListEmployeesWithQueryOptions() {
+        SqlRunner runner = new SqlRunner(dataSource());
+        runner.setStatementCache(new StatementCache());
+
+        QueryOptions options = QueryOptions.defaults()
+                .maxRows(1)
+                .queryTimeout(30)
+                .resultSetType(ResultSet.TYPE_SCROLL_INSENSITIVE);
+
+        List<Employee> limited = runner.with(options)
+                .list(SELECT_EMPLOYEE_ORDINAL_PARAMS, Employee.class, 75000.00, "Lancaster");
+
+        assertEquals(1, limited.size());
+
+        // The options of the derived runner must not leak into the original,
+        // even if the same statement is reused.
+        assertEquals(QueryOptions.defaults(), runner.getQueryOptions());
+        assertEmployees(runner.list(SELECT_EMPLOYEE_ORDINAL_PARAMS, Employee.class, 75000.00, "Lancaster"));
+    }
+
+    @Test
+    public void testPrimitiveColumns() {
+        SqlRunner runner = new SqlRunner(dataSource());
+
+        assertArrayEquals(new long[]{100, 101, 102, 103},
+                runner.longs("SELECT employee_id FROM employee ORDER BY employee_id"));
+
+        assertArrayEquals(new int[]{101, 101, 101},
+                runner.ints("SELECT department_id FROM employee WHERE employee_id > :id ORDER BY employee_id",
+                        Maps.newHashMap("id", 100)));
+
+        assertArrayEquals(new double[]{138000.00, 129000.00},
+                runner.doubles("SELECT salary FROM employee WHERE salary > ? ORDER BY salary DESC", 125000.00),
+                0.001);
+
+        assertEquals(0, runner.longs("SELECT employee_id FROM employee WHERE employee_id < 0").length);
+    }
+
+    @Test
+    public void testPrimitiveStreams() {
+        SqlRunner runner = new SqlRunner(dataSource());
+
+        try (LongStream ids = runner.longStream("SELECT employee_id FROM employee WHERE active = ?", true)) {
+            assertEquals(406, ids.sum());
+        }
+
+        // Stop part way through, closing the stream releases the connection.
+        try (IntStream departments = runner.intStream("SELECT department_id FROM employee ORDER BY employee_id")) {
+            assertEquals(100, departments.findFirst().getAsInt());
+        }
+
+        assertEquals(4, runner.withConnection(r -> r.doubleStream("SELECT salary FROM employee").count()).longValue());
+    }
+
+    @Test
+    public void testColumnarEmployees() {
+        SqlRunner runner = new SqlRunner(dataSource());
+
+        ColumnarResult result =
+                runner.columnar(" SELECT                                  " +
+                                "   e.employee_id,                        " +
+                                "   d.name AS department_name,            " +
+                                "   e.active,                             " +
+                                "   e.salary,                             " +
+                                "   m.department_id AS managed_id         " +
+                                " FROM       employee e                   " +
+                                " JOIN       department d                 " +
+                                "   ON d.department_id = e.department_id  " +
+                                " LEFT JOIN  department m                 " +
+                                "   ON m.manager_id = e.employee_id       " +
+                                " WHERE e.active = ?                      " +
+                                " ORDER BY e.employee_id                  ",
+                        true);
+
+        assertEquals(4, result.getRowCount());
+        assertEquals(5, result.getColumnCount());
+
+        assertEquals(ColumnarResult.Storage.LONG, result.getStorage("employee_id"));
+        assertArrayEquals(new long[]{100, 101, 102, 103}, result.getLongs("employee_id"));
+
+        // Department names are dictionary encoded.
+        assertEquals(ColumnarResult.Storage.STRING, result.getStorage("department_name"));
+        assertEquals(2, result.getDictionary("department_name").length);
+        assertArrayEquals(new int[]{0, 1, 1, 1}, result.getCodes("department_name"));
+        assertEquals("Human Resources", result.getString(3, "department_name"));
+
+        assertTrue(result.getBoolean(0, "active"));
+        assertEquals(new BigDecimal("138000.00"), result.getObject(2, "salary"));
+
+        assertEquals(101, result.getLong(1, "managed_id"));
+        assertTrue(result.isNull(2, "managed_id"));
+        assertEquals(2, result.getNulls("managed_id").cardinality());
+        assertEquals(null, result.getObject(3, "managed_id"));
+    }
+
+    @Test
+    public void testListImmutableEmployees() {
+        SqlRunner runner = new SqlRunner(dataSource());
+
+        List<Payslip> payslips = runner.list(
+                " SELECT last_name, employee_id, salary FROM employee WHERE salary > ? ORDER BY employee_id ",
+                RowProcessor.usingConstructor(Payslip.class),
+                125000.00);
+
+        assertEquals(2, payslips.size());
+        assertEquals(100L, payslips.get(0).employeeId);
+        assertEquals("Joyner", payslips.get(0).lastName);
+        assertEquals(0, new BigDecimal("129000").compareTo(payslips.get(0).salary));
+        assertEquals("Hitchens", payslips.get(1).lastName);
+    }
+
+    @Test
+    public void testGraphOfDepartments() {
+        SqlRunner runner = new SqlRunner(dataSource());
+
+        GraphRowProcessor<Department> graph = GraphRowProcessor.of(Department.class, "department_id")
+                .join("employees", Employee.class, "e_employee_id", "e_")
+                .join("employees.timecards", Timecard.class, "t_timecard_id", "t_");
+
+        List<Department> departments = runner.graph(
+                " SELECT d.department_id, d.name,                                    " +
+                "        e.employee_id AS e_employee_id, e.last_name AS e_last_name, " +
+                "        t.timecard_id AS t_timecard_id, t.actual_hours AS t_actual_hours " +
+                " FROM department d                                                  " +
+                " LEFT JOIN employee e ON e.department_id = d.department_id          " +
+                " LEFT JOIN timecard t ON t.employee_id = e.employee_id              " +
+                " ORDER BY d.department_id, e.employee_id, t.timecard_id             ",
+                graph);
+
+        assertEquals(2, departments.size());
+
+        Department finance = departments.get(0);
+        assertEquals("Finance", finance.getName());
+        assertEquals(1, finance.getEmployees().size());
+        assertEquals("Joyner", finance.getEmployees().get(0).getLastName());
+        assertEquals(4, finance.getEmployees().get(0).getTimecards().size());
+
+        Department humanResources = departments.get(1);
+        assertEquals(Arrays.asList("Lamphere", "Hitchens", "Lancaster"),
+                humanResources.getEmployees().stream().map(Employee::getLastName).collect(Collectors.toList()));
+        assertEquals(Integer.valueOf(0), humanResources.getEmployees().get(0).getTimecards().get(0).getActualHours());
+        assertEquals(null, humanResources.getEmployees().get(1).getTimecards());
+    }
+
+    @Test
+    public void testChunkedInList() {
+        SqlRunner runner = new SqlRunner(dataSource());
+        runner.setQueryOptions(QueryOptions.defaults().inListChunkSize(2));
+
+        String sql = " SELECT employee_id FROM employee WHERE employee_id IN (:ids) AND department_id = :dept ORDER BY employee_id ";
+
+        Map<String, Object> parameters = Maps.newHashMap("ids", Arrays.asList(100L, 101L, 102L, 103L, 104L), "dept", 101L);
+
+        assertEquals(Arrays.asList(101L, 102L, 103L), runner.list(sql, rs -> getLong(rs, 1), parameters));
+
+        try (Stream<Long> ids = runner.stream(sql, rs -> getLong(rs, 1), parameters)) {
+            assertEquals(Arrays.asList(101L, 102L, 103L), ids.collect(Collectors.toList()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            runner.setChunkExecutor(executor);
+
+            assertEquals(Arrays.asList(101L, 102L, 103L), runner.list(sql, rs -> getLong(rs, 1), parameters));
+
+            // Chunks run on the bound connection within a transaction.
+            assertEquals(Arrays.asList(101L, 102L, 103L),
+                    runner.inTransaction(tx -> tx.list(sql, rs -> getLong(rs, 1), parameters)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testArrayParameter() {
+        SqlRunner runner = new SqlRunner(dataSource(), new StreamingSqlParser(new ArrayBindingResolver()));
+
+        String sql = " SELECT employee_id FROM employee WHERE ARRAY_CONTAINS(:ids, employee_id) AND department_id = :dept ORDER BY employee_id ";
+
+        assertEquals(Arrays.asList(101L, 103L), runner.list(sql, rs -> getLong(rs, 1),
+                Maps.newHashMap("ids", new long[]{100L, 101L, 103L}, "dept", 101L)));
+
+        assertEquals(Arrays.asList(102L), runner.list(sql, rs -> getLong(rs, 1),
+                Maps.newHashMap("ids", Arrays.asList(102L), "dept", 101L)));
+    }
+
+    @Test
+    public void testBucketedInList() {
+        for (BucketedBindingResolver.Padding padding : BucketedBindingResolver.Padding.values()) {
+            SqlRunner runner = new SqlRunner(dataSource(), new StreamingSqlParser(new BucketedBindingResolver(padding)));
+
+            // Three ids are bound to four placeholders.
+            List<Long> ids = runner.list(
+                    " SELECT employee_id FROM employee WHERE employee_id IN (:ids) ORDER BY employee_id ",
+                    rs -> getLong(rs, 1),
+                    Maps.newHashMap("ids", Arrays.asList(100L, 102L, 103L)));
+
+            assertEquals(Arrays.asList(100L, 102L, 103L), ids);
+
+            List<Long> none = runner.list(
+                    " SELECT employee_id FROM employee WHERE employee_id IN (:ids) ",
+                    rs -> getLong(rs, 1),
+                    Maps.newHashMap("ids", new long[0]));
+
+            assertTrue(none.isEmpty());
+        }
+
+        SqlRunner runner = new SqlRunner(dataSource(), new StreamingSqlParser(new BucketedBindingResolver()));
+
+        List<Long> others = runner.list(
+                " SELECT employee_id FROM employee WHERE employee_id NOT IN (:ids) ORDER BY employee_id ",
+                rs -> getLong(rs, 1),
+                Maps.newHashMap("ids", new long[]{100L, 101L, 102L}));
+
+        assertEquals(Arrays.asList(103L), others);
+    }
+
+    @Test
+    public void testRepeatedInList() {
+        String sql = " SELECT employee_id FROM employee WHERE employee_id IN (:ids) OR department_id IN (:ids) ORDER BY employee_id ";
+
+        List<BindingResolver> resolvers = Arrays.asList(
+                new StandardBindingResolver(),
+                new BucketedBindingResolver(BucketedBindingResolver.Padding.LAST_VALUE),
+                new BucketedBindingResolver(BucketedBindingResolver.Padding.NULL));
+
+        for (BindingResolver resolver : resolvers) {
+            SqlRunner runner = new SqlRunner(dataSource(), new StreamingSqlParser(resolver));
+
+            // Each use of the list is bound from its first element.
+            assertEquals(Arrays.asList(100L, 101L, 102L, 103L), runner.list(sql, rs -> getLong(rs, 1),
+                    Maps.newHashMap("ids", Arrays.asList(999L, 100L, 101L))));
+
+            assertEquals(Arrays.asList(100L), runner.list(sql, rs -> getLong(rs, 1),
+                    Maps.newHashMap("ids", new LinkedHashSet<>(Arrays.asList(100L, 998L, 999L)))));
+        }
+    }
+
+    @Test
+    public void testStreamEmployeesWithLargeSalaries2() {
+        SqlRunner runner = new SqlRunner(dataSource());
+
+        // Only consume part of the stream, closing it should release the
+        // underlying statement and connection.
+        try (Stream<Employee> employees =
+                     runner.stream(SELECT_EMPLOYEE_NAMED_PARAMS,
+                             rs -> new Employee(
+                                     getLong(rs, "employee_id"),
+                                     getString(rs, "first_name"),
+                                     getString(rs, "last_name"),
+                                     getDate(rs, "hire_date"),
+                                     getBigDecimal(rs, "salary"),
+                                     getBoolean(rs, "active")),
+                             Maps.newHashMap(
+                                     "lastName", "Lancaster",
+                                     "salary", 75000.00
+                             ))) {
+
+            assertEmployees(employees.limit(1).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testListEmployeesWithStatementCache() throws Exception {
+        SqlRunner runner = new SqlRunner(dataSource());
+        StatementCache statementCache = new StatementCache(2);
+        runner.setStatementCache(statementCache);
+
+        // The second query on the same connection should reuse the statement
+        // prepared by the first one.
+        try (Connection connection = con()) {
+            assertEmployees(runner.list(connection, SELECT_EMPLOYEE_ORDINAL_PARAMS, Employee.class, 75000.00, "Lancaster"));
+            assertEmployees(runner.list(connection, SELECT_EMPLOYEE_ORDINAL_PARAMS, Employee.class, 75000.00, "Lancaster"));
+
+            try (Stream<Employee> employees =
+                         runner.stream(connection, SELECT_EMPLOYEE_ORDINAL_PARAMS, Employee.class, 75000.00, "Lancaster")) {
+                assertEmployees(employees.collect(Collectors.toList()));
+            }
+
+            assertEquals(1, statementCache.getMissCount());
+            assertEquals(2, statementCache.getHitCount());
+            assertEquals(1, statementCache.size());
+
+            statementCache.evict(connection);
+
+            assertEquals(0, statementCache.size());
+        }
+    }
+
+    @Test
+    public void testBatchInsertEmployees() {
+        SqlRunner runner = new SqlRunner(dataSource());
+
+        // Rows can be POJOs or maps when using named parameters, the batch
+        // is flushed every two rows.
+        int[] namedCounts =
+                runner.batch(" INSERT INTO employee (employee_id, first_name, last_name, active, salary) " +
+                             " VALUES (:employeeId, :firstName, :lastName, :active, :salary)         ",
+                        Arrays.asList(
+                                new Employee(200L, "Ann", "Archer"),
+                                Maps.newHashMap(
+                                        "employeeId", 201L,
+                                        "firstName", "Bob",
+                                        "lastName", "Baker",
+                                        "active", true,
+                                        "salary", new BigDecimal("50000.00")),
+                                new Employee(202L, "Cid", "Carter")),
+                        2);
+
+        assertArrayEquals(new int[]{1, 1, 1}, namedCounts);
+
+        // Arrays are bound to ordinal parameters.
+        int[] ordinalCounts =
+                runner.batch(" INSERT INTO employee (employee_id, first_name, last_name, active, department_id) " +
+                             " VALUES (?, ?, ?, ?, ?)                                                        ",
+                        Arrays.asList(
+                                new Object[]{203L, "Dee", "Decker", true, 100L},
+                                new Object[]{204L, "Eve", "Evans", false, 101L}),
+                        10);
+
+        assertArrayEquals(new int[]{1, 1}, ordinalCounts);
+    }
+
+    @Test
+    public void testConnectionsAreReleased() throws Exception {
+        List<Connection> connections = new ArrayList<>();
+        SqlRunner runner = new SqlRunner(trackingDataSource(connections));
+
+        assertEmployees(runner.list(SELECT_EMPLOYEE_ORDINAL_PARAMS, Employee.class, 75000.00, "Lancaster"));
+        assertEmployees(runner.list(SELECT_EMPLOYEE_ORDINAL_PARAMS, Employee.class, 75000.00, "Lancaster"));
+
+        assertEquals(2, connections.size());
+        for (Connection connection : connections) {
+            assertTrue(connection.isClosed());
+        }
+    }
+
+    @Test
+    public void testStreamWithFetchSizeDisablesAutoCommit() throws Exception {
+        List<Connection> connections = new ArrayList<>();
+        SqlRunner runner = new SqlRunner(spyingDataSource(connections));
+        runner.setFetchSize(2);
+
+        try (Stream<Long> ids = runner.stream(" SELECT employee_id FROM employee ORDER BY employee_id ", rs -> getLong(rs, 1))) {
+            assertEquals(Long.valueOf(100L), ids.findFirst().orElse(null));
+            assertFalse(connections.get(0).getAutoCommit());
+        }
+
+        // Auto-commit is restored before the connection is closed.
+        InOrder inOrder = inOrder(connections.get(0));
+        inOrder.verify(connections.get(0)).setAutoCommit(false);
+        inOrder.verify(connections.get(0)).setAutoCommit(true);
+        inOrder.verify(connections.get(0)).close();
+    }
+
+    @Test
+    public void testWithConnectionUsesOneConnection() throws Exception {
+        List<Connection> connections = new ArrayList<>();
+        SqlRunner runner = new SqlRunner(trackingDataSource(connections));
+
+        int count = runner.withConnection(r -> {
+            List<Employee> first = r.list(SELECT_EMPLOYEE_ORDINAL_PARAMS, Employee.class, 75000.00, "Lancaster");
+
+            // Nested scopes join the outer one.
+            List<Employee> second = r.inTransaction(t -> t.list(SELECT_EMPLOYEE_NAMED_PARAMS,
+                    Employee.class,
+                    Maps.newHashMap("lastName", "Lancaster", "salary", 75000.00)));
+
+            assertEmployees(first);
+            assertEmployees(second);
+
+            return first.size() + second.size();
+        });
+
+        assertEquals(2, count);
+        assertEquals(1, connections.size());
+        assertTrue(connections.get(0).isClosed());
+    }
+
+    @Test
+    public void testInTransactionCommits() {
+        SqlRunner runner = new SqlRunner(dataSource());
+
+        List<Employee> employees = runner.inTransaction(r -> {
+            r.batch(" INSERT INTO employee (employee_id, first_name, last_name, active) " +
+                    " VALUES (:employeeId, :firstName, :lastName, :active)         ",
+                    Arrays.asList(new Employee(300L, "Tom", "Turner")),
+                    10);
+
+            // The uncommitted row is visible on the same connection.
+            return r.list(" SELECT employee_id, first_name, last_name FROM employee WHERE employee_id = ? ",
+                    Employee.class,
+                    300L);
+        });
+
+        assertEquals(1, employees.size());
+        assertEquals("Turner", employees.get(0).getLastName());
+    }
+
+    @Test
+    public void testInTransactionRollsBack() {
+        SqlRunner runner = new SqlRunner(dataSource());
+
+        try {
+            runner.inTransaction(r -> {
+                r.batch(" INSERT INTO employee (employee_id, first_name, last_name, active) " +
+                        " VALUES (:employeeId, :firstName, :lastName, :active)         ",
+                        Arrays.asList(new Employee(300L, "Tom", "Turner")),
+                        10);
+
+                throw new IllegalStateException("Rollback");
+            });
+            fail("The exception should have been rethrown.");
+        } catch (IllegalStateException e) {
+            assertEquals("Rollback", e.getMessage());
+        }
+
+        // The class level data set verifies the insert was rolled back.
+        assertTrue(runner.list(" SELECT employee_id FROM employee WHERE employee_id = ? ", Employee.class, 300L).isEmpty());
+    }
+
+    public static final class Payslip {
+        private final long employeeId;
+        private final String lastName;
+        private final BigDecimal salary;
+
+        public Payslip(long employeeId, String lastName, BigDecimal salary) {
+            this.employeeId = employeeId;
+            this.lastName = lastName;
+            this.salary = salary;
+        }
+    }
+
+    /**
+     * A {@link DataSource} which remembers every connection it hands out.
+     */
+    private DataSource trackingDataSource(List<Connection> connections) throws Exception {
+        DataSource dataSource = spy(dataSource());
+
+        doAnswer(invocation -> {
+            Connection connection = (Connection) invocation.callRealMethod();
+            connections.add(connection);
+            return connection;
+        }).when(dataSource).getConnection();
+
+        return dataSource;
+    }
+
+    private DataSource spyingDataSource(List<Connection> connections) throws Exception {
+        DataSource dataSource = spy(dataSource());
+
+        doAnswer(invocation -> {
+            Connection connection = spy((Connection) invocation.callRealMethod());
+            connections.add(connection);
+            return connection;
+        }).when(dataSource).getConnection();
+
+        return dataSource;
+    }
+
     private void assertEmployees(List<Employee> employees) {
 
         assertTrue(employees.size() > 0);
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import indo.util.Maps;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for {@link SqlTemplate}.
+ *
+ * @author Jonathan Cone
+ */
+public class SqlTemplateTest {
+
+    @Test
+    public void testCompileSkipsQuotesAndCasts() {
+        SqlTemplate template = SqlTemplate.compile(
+                "SELECT ':quoted', x::int FROM t WHERE a = :a AND b IN (:b)",
+                StreamingSqlParser.instance());
+
+        assertEquals(3, template.getSlotCount());
+        assertEquals("int", template.getName(0));
+        assertEquals("a", template.getName(1));
+        assertEquals("b", template.getName(2));
+    }
+
+    @Test
+    public void testExpansionIsReusedForTheSameShape() {
+        String sql = "SELECT * FROM t WHERE a = :a AND b IN (:b) AND c = :a";
+
+        SqlTemplate template = SqlTemplate.compile(sql, StreamingSqlParser.instance());
+
+        SqlParameters first = SqlParameters.fromMap(Maps.newHashMap("a", 1, "b", Arrays.asList(2, 3)));
+        SqlParameter[] firstParameters = parameters(template, first);
+
+        assertNull(template.expansion(new int[]{1, 2, 1}));
+
+        SqlTemplate.Expansion expansion =
+                template.expand(firstParameters, new int[]{1, 2, 1}, StreamingSqlParser.instance().getBindingResolvers(), true);
+
+        assertEquals("SELECT * FROM t WHERE a = ? AND b IN (?,?) AND c = ?", expansion.getParsedSql());
+        assertEquals(Arrays.asList(1, 4), firstParameters[0].getIndexes());
+        assertEquals(Arrays.asList(2, 3), firstParameters[1].getIndexes());
+
+        SqlParameters second = SqlParameters.fromMap(Maps.newHashMap("a", 5, "b", Arrays.asList(6, 7)));
+        SqlParameter[] secondParameters = parameters(template, second);
+
+        SqlTemplate.Expansion cached = template.expansion(new int[]{1, 2, 1});
+
+        assertSame(expansion, cached);
+
+        cached.assignIndexes(secondParameters);
+
+        assertEquals(Arrays.asList(1, 4), secondParameters[0].getIndexes());
+        assertEquals(Arrays.asList(2, 3), secondParameters[1].getIndexes());
+    }
+
+    @Test
+    public void testParserProducesSqlPerShape() {
+        StreamingSqlParser parser = StreamingSqlParser.instance();
+        String sql = "SELECT * FROM t WHERE b IN (:b) AND c = :c";
+
+        assertEquals("SELECT * FROM t WHERE b IN (?,?) AND c = :c",
+                parser.parse(sql, SqlParameters.fromMap(Maps.newHashMap("b", new int[]{1, 2}))).getParsedSql());
+
+        SqlQueryMetaData metaData = parser.parse(sql, SqlParameters.fromMap(Maps.newHashMap("b", new int[]{1, 2, 3}, "c", 4)));
+
+        assertEquals("SELECT * FROM t WHERE b IN (?,?,?) AND c = ?", metaData.getParsedSql());
+        assertNotNull(metaData.getSqlParameterProvider().findParameter("c").orElse(null));
+        assertEquals(Arrays.asList(4), metaData.getSqlParameterProvider().findParameter("c").get().getIndexes());
+    }
+
+    @Test
+    public void testCustomResolverIsConsultedOnEveryParse() {
+        BindingResolver casting = (nextIndex, sqlParameter) -> {
+            sqlParameter.addIndexes(nextIndex, 1);
+            return Optional.of(sqlParameter.getValue() instanceof String ? "CAST(? AS VARCHAR)" : "?");
+        };
+
+        StreamingSqlParser parser = new StreamingSqlParser(casting);
+        String sql = "SELECT * FROM t WHERE c = :v";
+
+        assertEquals("SELECT * FROM t WHERE c = ?",
+                parser.parse(sql, SqlParameters.fromMap(Maps.newHashMap("v", 1))).getParsedSql());
+        assertEquals("SELECT * FROM t WHERE c = CAST(? AS VARCHAR)",
+                parser.parse(sql, SqlParameters.fromMap(Maps.newHashMap("v", "x"))).getParsedSql());
+    }
+
+    @Test
+    public void testShapingResolverDescribesTheShape() {
+        StreamingSqlParser parser = new StreamingSqlParser(new CastingBindingResolver());
+        String sql = "SELECT * FROM t WHERE c = :v";
+
+        assertEquals("SELECT * FROM t WHERE c = ?",
+                parser.parse(sql, SqlParameters.fromMap(Maps.newHashMap("v", 1))).getParsedSql());
+        assertEquals("SELECT * FROM t WHERE c = CAST(? AS VARCHAR)",
+                parser.parse(sql, SqlParameters.fromMap(Maps.newHashMap("v", "x"))).getParsedSql());
+        assertEquals("SELECT * FROM t WHERE c = CAST(? AS VARCHAR)",
+                parser.parse(sql, SqlParameters.fromMap(Maps.newHashMap("v", "y"))).getParsedSql());
+    }
+
+    private SqlParameter[] parameters(SqlTemplate template, SqlParameterProvider provider) {
+        SqlParameter[] parameters = new SqlParameter[template.getSlotCount()];
+        for (int slot = 0; slot < parameters.length; slot++) {
+            parameters[slot] = provider.findParameter(template.getName(slot)).orElse(null);
+        }
+        return parameters;
+    }
+
+    private static class CastingBindingResolver implements ShapingBindingResolver {
+        @Override
+        public Optional<String> resolve(int nextIndex, SqlParameter sqlParameter) {
+            sqlParameter.addIndexes(nextIndex, 1);
+            return Optional.of(sqlParameter.getValue() instanceof String ? "CAST(? AS VARCHAR)" : "?");
+        }
+
+        @Override
+        public int shapeOf(Object value, int length) {
+            return value instanceof String ? 0 : length + 1;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql;
+
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link StatementCache}.
+ *
+ * @author Jonathan Cone
+ */
+public class StatementCacheTest {
+
+    @Test
+    public void testStatementIsReusedAfterRelease() throws SQLException {
+        Connection connection = mockConnection();
+        StatementCache cache = new StatementCache();
+
+        PreparedStatement first = cache.acquire(connection, "SELECT 1");
+        cache.release(first);
+
+        PreparedStatement second = cache.acquire(connection, "SELECT 1");
+
+        assertSame(first, second);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        verify(first).clearParameters();
+        verify(connection, times(1)).prepareStatement("SELECT 1");
+    }
+
+    @Test
+    public void testStatementIsOnlyReusedForSameCursor() throws SQLException {
+        Connection connection = mockConnection();
+        StatementCache cache = new StatementCache();
+
+        PreparedStatement forwardOnly = cache.acquire(connection, "SELECT 1");
+        cache.release(forwardOnly);
+
+        PreparedStatement scrollable = cache.acquire(connection,
+                "SELECT 1",
+                ResultSet.TYPE_SCROLL_INSENSITIVE,
+                ResultSet.CONCUR_READ_ONLY);
+        cache.release(scrollable);
+
+        assertNotSame(forwardOnly, scrollable);
+        assertEquals(2, cache.size());
+        assertSame(scrollable, cache.acquire(connection,
+                "SELECT 1",
+                ResultSet.TYPE_SCROLL_INSENSITIVE,
+                ResultSet.CONCUR_READ_ONLY));
+        verify(connection).prepareStatement("SELECT 1", ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+    }
+
+    @Test
+    public void testCheckedOutStatementIsNotShared() throws SQLException {
+        Connection connection = mockConnection();
+        StatementCache cache = new StatementCache();
+
+        PreparedStatement first = cache.acquire(connection, "SELECT 1");
+        PreparedStatement second = cache.acquire(connection, "SELECT 1");
+
+        assertNotSame(first, second);
+        assertEquals(2, cache.getMissCount());
+
+        cache.release(first);
+        cache.release(second);
+
+        assertEquals(1, cache.size());
+        verify(first).close();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedStatementIsClosed() throws SQLException {
+        Connection connection = mockConnection();
+        StatementCache cache = new StatementCache(2);
+
+        PreparedStatement one = cache.acquire(connection, "SELECT 1");
+        PreparedStatement two = cache.acquire(connection, "SELECT 2");
+        PreparedStatement three = cache.acquire(connection, "SELECT 3");
+
+        cache.release(one);
+        cache.release(two);
+        cache.release(three);
+
+        assertEquals(2, cache.size());
+        verify(one).close();
+        verify(two, never()).close();
+        verify(three, never()).close();
+    }
+
+    @Test
+    public void testEvictClosesStatements() throws SQLException {
+        Connection connection = mockConnection();
+        StatementCache cache = new StatementCache();
+
+        PreparedStatement ps = cache.acquire(connection, "SELECT 1");
+        cache.release(ps);
+        cache.evict(connection);
+
+        assertEquals(0, cache.size());
+        verify(ps).close();
+    }
+
+    @Test
+    public void testStatementOfClosedConnectionIsClosed() throws SQLException {
+        Connection connection = mockConnection();
+        StatementCache cache = new StatementCache();
+
+        PreparedStatement ps = cache.acquire(connection, "SELECT 1");
+        when(connection.isClosed()).thenReturn(true);
+        cache.release(ps);
+
+        assertEquals(0, cache.size());
+        verify(ps).close();
+    }
+
+    @Test
+    public void testStatementIsFiledUnderAcquiringConnection() throws SQLException {
+        Connection physical = mock(Connection.class);
+        Connection proxy = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+
+        // The statements of a proxy connection report the physical one.
+        when(proxy.prepareStatement(anyString())).thenReturn(ps);
+        when(ps.getConnection()).thenReturn(physical);
+
+        StatementCache cache = new StatementCache();
+
+        cache.release(cache.acquire(proxy, "SELECT 1"));
+
+        assertSame(ps, cache.acquire(proxy, "SELECT 1"));
+        assertEquals(1, cache.getHitCount());
+
+        cache.release(ps);
+        cache.evict(proxy);
+
+        assertEquals(0, cache.size());
+        verify(ps).close();
+    }
+
+    private Connection mockConnection() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            PreparedStatement ps = mock(PreparedStatement.class);
+            when(ps.getConnection()).thenReturn(connection);
+            return ps;
+        });
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            PreparedStatement ps = mock(PreparedStatement.class);
+            when(ps.getConnection()).thenReturn(connection);
+            return ps;
+        });
+        return connection;
+    }
+}
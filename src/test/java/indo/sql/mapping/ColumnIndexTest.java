@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.sql.mapping;
+
+import indo.example.Employee;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for {@link ColumnIndex}.
+ *
+ * @author Jonathan Cone
+ */
+public class ColumnIndexTest {
+
+    @Test
+    public void testInclusiveIndex() {
+        ColumnIndex index = new InclusiveColumnMappingStrategy().index(Employee.class);
+
+        assertEquals("employeeId", index.find("EMPLOYEE_ID"));
+        assertEquals("employeeId", index.find("EmployeeID"));
+        assertEquals("lastName", index.find("last_name"));
+        assertNull(index.find("middle_name"));
+    }
+
+    @Test
+    public void testCaseInsensitiveAndExclusiveIndexes() {
+        assertEquals("hireDate", new CaseInsensitiveColumnMappingStrategy().index(Employee.class).find("HIREDATE"));
+        assertNull(new CaseInsensitiveColumnMappingStrategy().index(Employee.class).find("HIRE_DATE"));
+
+        assertEquals("hireDate", new ExclusiveColumnMappingStrategy().index(Employee.class).find("hireDate"));
+        assertNull(new ExclusiveColumnMappingStrategy().index(Employee.class).find("HIREDATE"));
+    }
+
+    @Test
+    public void testIndexIsBuiltOncePerStrategyClass() {
+        assertSame(new InclusiveColumnMappingStrategy().index(Employee.class),
+                new InclusiveColumnMappingStrategy().index(Employee.class));
+    }
+
+    @Test
+    public void testCustomStrategiesCanPublishAnIndex() {
+        ReflectionColumnMappingStrategy prefixed = new PrefixedColumnMappingStrategy();
+
+        assertEquals("salary", prefixed.index(Employee.class).find("emp_salary"));
+        assertEquals(Optional.of("salary"), prefixed.findMatch("emp_salary", BigDecimal.ONE, new Employee()));
+    }
+
+    @Test
+    public void testStrategiesWithoutNormalizationHaveNoIndex() {
+        ReflectionColumnMappingStrategy strategy = new InclusiveColumnMappingStrategy()::findMatch;
+
+        assertNull(strategy.index(Employee.class));
+    }
+
+    @Test
+    public void testSubclassesOverridingOnlyFindMatchHaveNoIndex() {
+        ReflectionColumnMappingStrategy strategy = new SurnameColumnMappingStrategy();
+
+        assertNull(strategy.index(Employee.class));
+        assertEquals(Optional.of("lastName"), strategy.findMatch("surname", "Smith", new Employee()));
+        assertEquals(Optional.of("firstName"), strategy.findMatch("FIRST_NAME", "John", new Employee()));
+    }
+
+    @Test
+    public void testSubclassesOverridingOnlyNormalizersHaveAnIndex() {
+        ReflectionColumnMappingStrategy strategy = new CaseInsensitiveColumnMappingStrategy() {
+            @Override
+            public String normalizeColumn(String column) {
+                return super.normalizeColumn(column.replace("-", ""));
+            }
+        };
+
+        assertEquals("hireDate", strategy.index(Employee.class).find("HIRE-DATE"));
+    }
+
+    private static class SurnameColumnMappingStrategy extends InclusiveColumnMappingStrategy {
+        @Override
+        public Optional<String> findMatch(String column, Set<String> fieldNames) {
+            return "surname".equals(column) ? Optional.of("lastName") : super.findMatch(column, fieldNames);
+        }
+    }
+
+    private static class PrefixedColumnMappingStrategy implements ReflectionColumnMappingStrategy {
+        @Override
+        public Optional<String> findMatch(String column, Set<String> fieldNames) {
+            return Optional.ofNullable(index(Employee.class).find(column));
+        }
+
+        @Override
+        public String normalizeColumn(String column) {
+            return column.startsWith("emp_") ? column.substring(4) : null;
+        }
+
+        @Override
+        public String normalizeProperty(String property) {
+            return property;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 Indo Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package indo.util;
+
+import indo.example.Employee;
+import org.junit.Test;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test cases for {@link Accessors}.
+ *
+ * @author Jonathan Cone
+ */
+public class AccessorsTest {
+
+    @Test
+    public void testConstructorIsCached() throws Exception {
+        Supplier<Employee> constructor = Accessors.constructor(Employee.class);
+
+        assertSame(constructor, Accessors.constructor(Employee.class));
+        assertNotSame(constructor.get(), constructor.get());
+    }
+
+    @Test
+    public void testNonPublicConstructor() throws Exception {
+        assertNotNull(Accessors.constructor(Hidden.class).get());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testMissingConstructor() throws Exception {
+        Accessors.constructor(Integer.class);
+    }
+
+    @Test
+    public void testSetterAndGetter() throws Exception {
+        Employee employee = new Employee();
+
+        BiConsumer<Employee, Object> setter = Accessors.setter(Employee.class.getMethod("setLastName", String.class));
+        Function<Employee, Object> getter = Accessors.getter(Employee.class.getMethod("getLastName"));
+
+        setter.accept(employee, "Lancaster");
+
+        assertEquals("Lancaster", getter.apply(employee));
+        assertSame(getter, Accessors.getter(Employee.class.getMethod("getLastName")));
+    }
+
+    @Test
+    public void testPrimitiveSetterAndGetter() throws Exception {
+        Employee employee = new Employee();
+
+        Accessors.setter(Employee.class.getMethod("setActive", boolean.class)).accept(employee, Boolean.TRUE);
+
+        assertEquals(Boolean.TRUE, Accessors.getter(Employee.class.getMethod("isActive")).apply(employee));
+    }
+
+    @Test
+    public void testNonPublicSetterAndGetter() throws Exception {
+        Hidden hidden = new Hidden();
+
+        Accessors.setter(Hidden.class.getDeclaredMethod("setCount", long.class)).accept(hidden, 12L);
+
+        assertEquals(12L, Accessors.getter(Hidden.class.getDeclaredMethod("getCount")).apply(hidden));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetterRequiresOneParameter() throws Exception {
+        Accessors.setter(Employee.class.getMethod("getLastName"));
+    }
+
+    static class Hidden {
+        private long count;
+
+        private Hidden() {
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        void setCount(long count) {
+            this.count = count;
+        }
+    }
+}
@@ -329,6 +329,22 @@ public class ReflectTest {
         assertEquals(fieldNames, reflect.fieldNames());
     }
 
+    @Test
+    public void testMetadataIsResolvedOnce() throws Exception {
+        assertSame(on(Item.class).fields(), on(Item.class).fields());
+        assertSame(on(Item.class).findGetter("intTest").get(), on(Item.class).findGetter("intTest").get());
+        assertSame(on(Item.class).findSetters("intTest"), on(Item.class).findSetters("intTest"));
+
+        // Boxed values resolve the primitive setter, the result is remembered
+        // for the boxed type.
+        Method setter = on(Item.class).findSetter("intTest", 1).get();
+
+        assertEquals(int.class, setter.getParameterTypes()[0]);
+        assertSame(setter, on(Item.class).findSetter("intTest", 2).get());
+
+        assertFalse(on(Item.class).findGetter("missingTest").isPresent());
+    }
+
     @Test
     public void testHasReturn1() throws Exception {
         LocalTime lt = LocalTime.now();